@@ -0,0 +1,100 @@
+package com.expensetracker.expensetracker.benchmark;
+
+import com.expensetracker.expensetracker.service.AmountSketch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Median and p90 over a year of one category: decoding and merging the stored monthly sketches,
+ * as /api/dashboard/stats does, against sorting the raw amounts. Setup prints the encoded size
+ * and the largest relative error of the sketch quantiles on the generated data.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AmountSketchBenchmark {
+
+    private static final int MONTHS = 12;
+    private static final double[] QUANTILES = {0.25, 0.5, 0.75, 0.9, 0.99};
+
+    @Param({"100", "10000"})
+    public int expensesPerMonth;
+
+    private long[] amounts;
+    private byte[][] monthlySketches;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        amounts = new long[MONTHS * expensesPerMonth];
+        monthlySketches = new byte[MONTHS][];
+        for (int month = 0; month < MONTHS; month++) {
+            AmountSketch sketch = new AmountSketch();
+            for (int i = 0; i < expensesPerMonth; i++) {
+                // Log-normal around 20.00, the usual shape of expense sizes
+                long cents = Math.max(1, Math.round(Math.exp(7.6 + 1.2 * random.nextGaussian())));
+                amounts[month * expensesPerMonth + i] = cents;
+                sketch.add(cents);
+            }
+            monthlySketches[month] = sketch.toBytes();
+        }
+
+        AmountSketch merged = mergeMonths();
+        long[] sorted = amounts.clone();
+        Arrays.sort(sorted);
+        double worst = 0;
+        for (double q : QUANTILES) {
+            long exact = sorted[(int) Math.floor(q * (sorted.length - 1))];
+            worst = Math.max(worst, Math.abs(merged.quantile(q) - exact) / (double) exact);
+        }
+        System.out.printf("%n%d expenses, %d bytes per month sketch, largest relative error %.4f (bound %.2f)%n",
+                amounts.length, monthlySketches[0].length, worst, AmountSketch.RELATIVE_ACCURACY);
+    }
+
+    @Benchmark
+    public long[] mergedSketches() {
+        AmountSketch merged = mergeMonths();
+        return new long[]{merged.quantile(0.5), merged.quantile(0.9)};
+    }
+
+    @Benchmark
+    public long[] sortedAmounts() {
+        long[] sorted = amounts.clone();
+        Arrays.sort(sorted);
+        return new long[]{
+                sorted[(int) Math.floor(0.5 * (sorted.length - 1))],
+                sorted[(int) Math.floor(0.9 * (sorted.length - 1))]
+        };
+    }
+
+    @Benchmark
+    public byte[] addAndEncode() {
+        AmountSketch sketch = AmountSketch.fromBytes(monthlySketches[0]);
+        sketch.add(amounts[0]);
+        return sketch.toBytes();
+    }
+
+    private AmountSketch mergeMonths() {
+        AmountSketch merged = new AmountSketch();
+        for (byte[] bytes : monthlySketches) {
+            merged.merge(AmountSketch.fromBytes(bytes));
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,93 @@
+package com.expensetracker.expensetracker.benchmark;
+
+import com.expensetracker.expensetracker.config.JwtAuthenticationFilter;
+import com.expensetracker.expensetracker.config.JwtTokenProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification cost, with and without the verified-token cache, and the
+ * authentication filter end to end as one request sees it
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-at-least-32-bytes-long";
+
+    private JwtTokenProvider uncachedProvider;
+    private JwtTokenProvider cachedProvider;
+    private JwtAuthenticationFilter filter;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        uncachedProvider = newProvider(0);
+        cachedProvider = newProvider(10_000);
+        filter = new JwtAuthenticationFilter(cachedProvider, new SimpleMeterRegistry());
+        token = issue(cachedProvider);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return issue(uncachedProvider);
+    }
+
+    @Benchmark
+    public Object verifyTokenUncached() {
+        return uncachedProvider.verifyToken(token);
+    }
+
+    @Benchmark
+    public Object verifyTokenCached() {
+        return cachedProvider.verifyToken(token);
+    }
+
+    @Benchmark
+    public Object authenticationFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/expenses");
+        request.addHeader("Authorization", "Bearer " + token);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static String issue(JwtTokenProvider provider) {
+        return provider.generateToken(42L, "benchmark-user", "bench@example.com",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    private static JwtTokenProvider newProvider(int cacheSize) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpiration", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(provider, "verifiedCacheSize", cacheSize);
+        ReflectionTestUtils.invokeMethod(provider, "init");
+        return provider;
+    }
+}
@@ -0,0 +1,194 @@
+package com.expensetracker.expensetracker.benchmark;
+
+import com.expensetracker.expensetracker.ExpenseTrackerApplication;
+import com.expensetracker.expensetracker.dto.request.FilterRequest;
+import com.expensetracker.expensetracker.entity.User;
+import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import com.expensetracker.expensetracker.enums.IncomeSource;
+import com.expensetracker.expensetracker.enums.TimeBucket;
+import com.expensetracker.expensetracker.repository.UserRepository;
+import com.expensetracker.expensetracker.service.DashboardService;
+import com.expensetracker.expensetracker.service.ExpenseService;
+import com.expensetracker.expensetracker.service.MonthlyRollupService;
+import com.expensetracker.expensetracker.service.UserPrincipal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service-level read paths against the H2 test profile seeded with one user's synthetic ledger:
+ * dashboard PnL (lifetime and ranged), the time series, filtering and sorting
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LedgerBenchmark {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2022, 1, 1);
+    private static final int DAYS = 3 * 365;
+
+    @Param({"10000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private DashboardService dashboardService;
+    private ExpenseService expenseService;
+    private Long userId;
+    private FilterRequest filter;
+
+    @Setup
+    public void setUp() {
+        // Benchmark threads differ from the setup thread, so share one security context
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+
+        context = new SpringApplicationBuilder(ExpenseTrackerApplication.class)
+                .profiles("test")
+                // Command-line arguments, so they win over application-test.properties
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+
+        dashboardService = context.getBean(DashboardService.class);
+        expenseService = context.getBean(ExpenseService.class);
+
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                .username("benchmark")
+                .email("benchmark@example.com")
+                .password("unused")
+                .build());
+        userId = user.getId();
+        seedLedgers(context.getBean(JdbcTemplate.class), userId, rows);
+        context.getBean(MonthlyRollupService.class).rebuild(userId);
+
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        UserPrincipal principal = new UserPrincipal(userId, user.getUsername(), user.getEmail(),
+                null, null, authorities);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, authorities));
+
+        filter = FilterRequest.builder()
+                .category(ExpenseCategory.PERSONAL)
+                .startDate(FIRST_DAY.plusDays(100))
+                .endDate(FIRST_DAY.plusDays(400))
+                .minAmount(new BigDecimal("10.00"))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Benchmark
+    public Object pnl() {
+        return dashboardService.calculatePnL(userId);
+    }
+
+    @Benchmark
+    public Object pnlRange() {
+        return dashboardService.calculatePnLByDateRange(userId, FIRST_DAY.plusDays(17), FIRST_DAY.plusDays(700));
+    }
+
+    @Benchmark
+    public Object monthlyTimeSeries() {
+        return dashboardService.calculateTimeSeries(userId, TimeBucket.MONTH,
+                FIRST_DAY, FIRST_DAY.plusDays(DAYS - 1), "category");
+    }
+
+    @Benchmark
+    public Object filterExpenses() {
+        return expenseService.filterExpenses(userId, filter);
+    }
+
+    @Benchmark
+    public Object sortExpensesByAmount() {
+        return expenseService.sortExpenses(userId, "amount", "desc");
+    }
+
+    /**
+     * Insert rows expenses and rows / 4 incomes spread over three years, deterministically. Ids
+     * are assigned here and the id generators moved past them, as the ledger tables have no
+     * AUTO_INCREMENT.
+     */
+    static void seedLedgers(JdbcTemplate jdbc, Long userId, int rows) {
+        Random random = new Random(42);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        ExpenseCategory[] categories = ExpenseCategory.values();
+        IncomeSource[] sources = IncomeSource.values();
+
+        long firstExpenseId = reserveIds(jdbc, "expenses", rows);
+        List<Object[]> expenses = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            expenses.add(new Object[]{
+                    firstExpenseId + i,
+                    userId,
+                    "Expense " + i,
+                    categories[random.nextInt(categories.length)].name(),
+                    BigDecimal.valueOf(100 + random.nextInt(50_000), 2),
+                    Date.valueOf(FIRST_DAY.plusDays(random.nextInt(DAYS))),
+                    now
+            });
+        }
+        jdbc.batchUpdate("INSERT INTO expenses (id, user_id, description, category, amount, date_of_expense, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", expenses);
+
+        long firstIncomeId = reserveIds(jdbc, "incomes", rows / 4);
+        List<Object[]> incomes = new ArrayList<>(rows / 4);
+        for (int i = 0; i < rows / 4; i++) {
+            incomes.add(new Object[]{
+                    firstIncomeId + i,
+                    userId,
+                    "Income " + i,
+                    sources[random.nextInt(sources.length)].name(),
+                    BigDecimal.valueOf(10_000 + random.nextInt(500_000), 2),
+                    Date.valueOf(FIRST_DAY.plusDays(random.nextInt(DAYS))),
+                    now
+            });
+        }
+        jdbc.batchUpdate("INSERT INTO incomes (id, user_id, description, source, amount, date_of_income, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", incomes);
+    }
+
+    /**
+     * Take count ids no instance can be handed, and return the first. The generator row holds the
+     * upper end of the next block, so the ids start just above it and the row moves one block
+     * past them, as V6 does for existing rows.
+     */
+    private static long reserveIds(JdbcTemplate jdbc, String table, int count) {
+        long first = jdbc.queryForObject(
+                "SELECT next_val FROM id_generators WHERE sequence_name = ?", Long.class, table) + 1;
+        jdbc.update("UPDATE id_generators SET next_val = next_val + ? + 50 WHERE sequence_name = ?", count, table);
+        return first;
+    }
+}
@@ -0,0 +1,249 @@
+package com.expensetracker.expensetracker.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load driver for a running instance seeded by SyntheticDataGenerator. Each
+ * worker logs in as a random synthetic user and replays a weighted mix of the real endpoints,
+ * then throughput and latency percentiles are printed per endpoint.
+ *
+ * Run against an app started with --spring.profiles.active=test,seed (H2) or seed plus a local
+ * database profile:
+ *
+ *   ./mvnw -Pbenchmarks -DskipTests test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.expensetracker.expensetracker.benchmark.LoadDriver \
+ *       -Dexec.args="baseUrl=http://localhost:8080 users=100 threads=32 warmup=10 duration=60"
+ *
+ * To compare request thread modes, run the same load (e.g. threads=256 to saturate the Tomcat
+ * pool) against the app started once with --spring.threads.virtual.enabled=false and once with
+ * true, keeping spring.datasource.hikari.maximum-pool-size fixed. Pass label=platform or
+ * label=virtual so the two reports can be told apart. Add -Djdk.tracePinnedThreads=short to the
+ * app in virtual mode to log any carrier thread pinned while blocking.
+ */
+public class LoadDriver {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    /**
+     * Weighted request mix; each entry is (name, weight)
+     */
+    private static final Map<String, Integer> MIX = new LinkedHashMap<>();
+
+    static {
+        MIX.put("expenses-page", 30);
+        MIX.put("expenses-all", 5);
+        MIX.put("expenses-filter", 20);
+        MIX.put("expenses-sort", 10);
+        MIX.put("dashboard-pnl", 15);
+        MIX.put("dashboard-timeseries", 10);
+        MIX.put("dashboard-stats", 5);
+        MIX.put("auth-me", 5);
+        MIX.put("login", 10);
+    }
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+    private final int users;
+    private final String password;
+
+    LoadDriver(String baseUrl, int users, String password) {
+        this.baseUrl = baseUrl;
+        this.users = users;
+        this.password = password;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+
+        LoadDriver driver = new LoadDriver(
+                options.getOrDefault("baseUrl", "http://localhost:8080"),
+                Integer.parseInt(options.getOrDefault("users", "100")),
+                options.getOrDefault("password", "password123"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        long warmupSeconds = Long.parseLong(options.getOrDefault("warmup", "10"));
+        long durationSeconds = Long.parseLong(options.getOrDefault("duration", "60"));
+        String label = options.getOrDefault("label", "default");
+
+        System.out.printf("Warming up for %ds with %d threads%n", warmupSeconds, threads);
+        driver.run(threads, warmupSeconds);
+        System.out.printf("Measuring [%s] for %ds with %d threads%n", label, durationSeconds, threads);
+        Map<String, Recorder> results = driver.run(threads, durationSeconds);
+        report(results, durationSeconds);
+    }
+
+    private Map<String, Recorder> run(int threads, long seconds) throws Exception {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Map<String, Recorder>>> futures = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> work(deadline)));
+        }
+
+        Map<String, Recorder> merged = new LinkedHashMap<>();
+        for (Future<Map<String, Recorder>> future : futures) {
+            future.get().forEach((name, recorder) -> merged.computeIfAbsent(name, n -> new Recorder()).addAll(recorder));
+        }
+        executor.shutdown();
+        return merged;
+    }
+
+    private Map<String, Recorder> work(long deadline) {
+        Map<String, Recorder> recorders = new LinkedHashMap<>();
+        MIX.keySet().forEach(name -> recorders.put(name, new Recorder()));
+        int totalWeight = MIX.values().stream().mapToInt(Integer::intValue).sum();
+
+        String token = null;
+        while (System.nanoTime() < deadline) {
+            String operation = "login";
+            if (token != null) {
+                int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+                for (Map.Entry<String, Integer> entry : MIX.entrySet()) {
+                    pick -= entry.getValue();
+                    if (pick < 0) {
+                        operation = entry.getKey();
+                        break;
+                    }
+                }
+            }
+
+            long started = System.nanoTime();
+            int status;
+            try {
+                if ("login".equals(operation)) {
+                    HttpResponse<String> response = login();
+                    status = response.statusCode();
+                    Matcher matcher = TOKEN.matcher(response.body());
+                    if (matcher.find()) {
+                        token = matcher.group(1);
+                    }
+                } else {
+                    status = get(pathFor(operation), token).statusCode();
+                }
+            } catch (Exception e) {
+                status = -1;
+            }
+            recorders.get(operation).record(System.nanoTime() - started, status >= 200 && status < 300);
+        }
+        return recorders;
+    }
+
+    private HttpResponse<String> login() throws Exception {
+        int user = 1 + ThreadLocalRandom.current().nextInt(users);
+        String body = "{\"username\":\"loaduser" + user + "\",\"password\":\"" + password + "\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<Void> get(String path, String token) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private static String pathFor(String operation) {
+        return switch (operation) {
+            case "expenses-page" -> "/api/expenses?limit=50";
+            case "expenses-all" -> "/api/expenses";
+            case "expenses-filter" -> "/api/expenses/filter?category=PERSONAL&minAmount=20";
+            case "expenses-sort" -> "/api/expenses/sort?sortBy=amount&order=desc";
+            case "auth-me" -> "/api/auth/me";
+            case "dashboard-pnl" -> "/api/dashboard/pnl";
+            case "dashboard-timeseries" -> "/api/dashboard/timeseries?bucket=week&start="
+                    + LocalDate.now().minusYears(1) + "&end=" + LocalDate.now();
+            case "dashboard-stats" -> "/api/dashboard/stats?start="
+                    + YearMonth.now().minusMonths(11) + "&end=" + YearMonth.now();
+            default -> throw new IllegalArgumentException(operation);
+        };
+    }
+
+    private static void report(Map<String, Recorder> results, long seconds) {
+        System.out.printf("%-20s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        Recorder total = new Recorder();
+        results.forEach((name, recorder) -> {
+            print(name, recorder, seconds);
+            total.addAll(recorder);
+        });
+        print("total", total, seconds);
+    }
+
+    private static void print(String name, Recorder recorder, long seconds) {
+        long[] latencies = recorder.sorted();
+        System.out.printf("%-20s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                name, latencies.length, recorder.errors, (double) latencies.length / seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.90),
+                percentile(latencies, 0.99), percentile(latencies, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    /**
+     * Latencies in nanoseconds for one endpoint, owned by a single worker until merged
+     */
+    private static final class Recorder {
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+
+        void record(long nanos, boolean success) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+            if (!success) {
+                errors++;
+            }
+        }
+
+        void addAll(Recorder other) {
+            if (size + other.size > latencies.length) {
+                latencies = Arrays.copyOf(latencies, Math.max(size + other.size, latencies.length * 2));
+            }
+            System.arraycopy(other.latencies, 0, latencies, size, other.size);
+            size += other.size;
+            errors += other.errors;
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(latencies, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
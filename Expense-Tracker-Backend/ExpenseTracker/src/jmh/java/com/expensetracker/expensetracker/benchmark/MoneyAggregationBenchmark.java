@@ -0,0 +1,128 @@
+package com.expensetracker.expensetracker.benchmark;
+
+import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import com.expensetracker.expensetracker.service.MoneyKernels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregating a large ledger in memory: BigDecimal arithmetic as the services did it, against the
+ * long-cents kernels in MoneyKernels, with a Math.addExact loop between them to show what the
+ * branch-free overflow check buys. Run with -prof gc to compare allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class MoneyAggregationBenchmark {
+
+    private static final ExpenseCategory[] CATEGORIES = ExpenseCategory.values();
+
+    @Param({"10000000"})
+    public int rows;
+
+    private BigDecimal[] amounts;
+    private ExpenseCategory[] categories;
+    private long[] cents;
+    private byte[] kinds;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        amounts = new BigDecimal[rows];
+        categories = new ExpenseCategory[rows];
+        cents = new long[rows];
+        kinds = new byte[rows];
+        for (int i = 0; i < rows; i++) {
+            long value = 100 + random.nextInt(50_000);
+            int kind = random.nextInt(CATEGORIES.length);
+            amounts[i] = BigDecimal.valueOf(value, 2);
+            categories[i] = CATEGORIES[kind];
+            cents[i] = value;
+            kinds[i] = (byte) kind;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal sumBigDecimal() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (BigDecimal amount : amounts) {
+            sum = sum.add(amount);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sumAddExact() {
+        long sum = 0;
+        for (long value : cents) {
+            sum = Math.addExact(sum, value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sumKernel() {
+        return MoneyKernels.sum(cents, 0, rows);
+    }
+
+    @Benchmark
+    public BigDecimal[] minMaxMeanBigDecimal() {
+        BigDecimal min = amounts[0];
+        BigDecimal max = amounts[0];
+        BigDecimal sum = BigDecimal.ZERO;
+        for (BigDecimal amount : amounts) {
+            min = min.min(amount);
+            max = max.max(amount);
+            sum = sum.add(amount);
+        }
+        BigDecimal mean = sum.divide(BigDecimal.valueOf(rows), 2, RoundingMode.HALF_EVEN);
+        return new BigDecimal[]{min, max, mean};
+    }
+
+    @Benchmark
+    public long[] minMaxMeanKernel() {
+        return new long[]{
+                MoneyKernels.min(cents, 0, rows),
+                MoneyKernels.max(cents, 0, rows),
+                MoneyKernels.mean(MoneyKernels.sum(cents, 0, rows), rows)
+        };
+    }
+
+    @Benchmark
+    public Map<ExpenseCategory, BigDecimal> sumPerCategoryBigDecimal() {
+        Map<ExpenseCategory, BigDecimal> sums = new EnumMap<>(ExpenseCategory.class);
+        for (int i = 0; i < rows; i++) {
+            sums.merge(categories[i], amounts[i], BigDecimal::add);
+        }
+        return sums;
+    }
+
+    @Benchmark
+    public long[] sumPerCategoryKernel() {
+        return MoneyKernels.sumPerKind(cents, kinds, 0, rows, CATEGORIES.length);
+    }
+
+    @Benchmark
+    public int[] countPerCategoryKernel() {
+        return MoneyKernels.countPerKind(kinds, 0, rows, CATEGORIES.length);
+    }
+}
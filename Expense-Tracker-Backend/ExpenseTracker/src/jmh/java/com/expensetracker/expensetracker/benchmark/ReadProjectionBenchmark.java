@@ -0,0 +1,132 @@
+package com.expensetracker.expensetracker.benchmark;
+
+import com.expensetracker.expensetracker.ExpenseTrackerApplication;
+import com.expensetracker.expensetracker.dto.request.FilterRequest;
+import com.expensetracker.expensetracker.dto.response.ExpenseResponse;
+import com.expensetracker.expensetracker.entity.User;
+import com.expensetracker.expensetracker.enums.ExportFormat;
+import com.expensetracker.expensetracker.repository.ExpenseRepository;
+import com.expensetracker.expensetracker.repository.ExpenseSpecifications;
+import com.expensetracker.expensetracker.repository.UserRepository;
+import com.expensetracker.expensetracker.service.ExpenseService;
+import com.expensetracker.expensetracker.service.UserPrincipal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading one user's whole expense ledger of 50k rows three ways: managed entities hydrated in a
+ * read-write transaction and copied into responses, as the read paths used to; constructor
+ * projections straight into responses in a read-only transaction, as they do now; and the
+ * streamed CSV export, which never holds more than one row. Run with -prof gc and compare
+ * gc.alloc.rate.norm, the bytes allocated per operation, next to the time per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadProjectionBenchmark {
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("dateOfExpense"), Sort.Order.desc("id"));
+
+    @Param({"50000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private ExpenseRepository expenseRepository;
+    private ExpenseService expenseService;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private Long userId;
+
+    @Setup
+    public void setUp() {
+        // Benchmark threads differ from the setup thread, so share one security context
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+
+        context = new SpringApplicationBuilder(ExpenseTrackerApplication.class)
+                .profiles("test")
+                // Command-line arguments, so they win over application-test.properties
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:projection-benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+
+        expenseRepository = context.getBean(ExpenseRepository.class);
+        expenseService = context.getBean(ExpenseService.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                .username("benchmark")
+                .email("benchmark@example.com")
+                .password("unused")
+                .build());
+        userId = user.getId();
+        LedgerBenchmark.seedLedgers(context.getBean(JdbcTemplate.class), userId, rows);
+
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        UserPrincipal principal = new UserPrincipal(userId, user.getUsername(), user.getEmail(),
+                null, null, authorities);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, authorities));
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Benchmark
+    public List<ExpenseResponse> hydratedEntities() {
+        return readWrite.execute(status -> expenseRepository
+                .findAll(ExpenseSpecifications.belongsTo(userId), NEWEST_FIRST).stream()
+                .map(expense -> ExpenseResponse.builder()
+                        .id(expense.getId())
+                        .description(expense.getDescription())
+                        .category(expense.getCategory())
+                        .amount(expense.getAmount())
+                        .dateOfExpense(expense.getDateOfExpense())
+                        .build())
+                .toList());
+    }
+
+    @Benchmark
+    public List<ExpenseResponse> projectedResponses() {
+        return readOnly.execute(status -> expenseRepository.findResponsesByUserId(userId, NEWEST_FIRST));
+    }
+
+    @Benchmark
+    public void streamedExport() throws IOException {
+        expenseService.exportExpenses(userId, new FilterRequest(), ExportFormat.CSV, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,105 @@
+package com.expensetracker.expensetracker.benchmark;
+
+import com.expensetracker.expensetracker.config.FixedPointModule;
+import com.expensetracker.expensetracker.config.LedgerProtobufHttpMessageConverter;
+import com.expensetracker.expensetracker.dto.response.ExpenseResponse;
+import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and serializing a full expense listing, the payload of GET /api/expenses. Read paths
+ * project rows straight into ExpenseResponse, so construction plus Jackson is what remains.
+ * The binary variants use the same mappers as the CBOR, Smile and Protobuf converters, and
+ * setup prints each format's payload size so the throughput and size trade-off reads off one run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+
+    @Param({"1000", "50000"})
+    public int rows;
+
+    private final JsonMapper mapper = JsonMapper.builder().build();
+    private final CBORMapper cborMapper = CBORMapper.builder().addModule(new FixedPointModule()).build();
+    private final SmileMapper smileMapper = SmileMapper.builder().addModule(new FixedPointModule()).build();
+    private final LedgerProtobufHttpMessageConverter protobufConverter = new LedgerProtobufHttpMessageConverter();
+    private List<ExpenseResponse> responses;
+
+    @Setup
+    public void setUp() throws IOException {
+        responses = buildResponses(rows);
+        System.out.printf("%n%d rows: json=%d cbor=%d smile=%d protobuf=%d bytes%n", rows,
+                serializeResponses().length, serializeCbor().length,
+                serializeSmile().length, serializeProtobuf().length);
+    }
+
+    @Benchmark
+    public List<ExpenseResponse> buildResponses() {
+        return buildResponses(rows);
+    }
+
+    @Benchmark
+    public byte[] serializeResponses() {
+        return mapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public byte[] serializeCbor() {
+        return cborMapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public byte[] serializeSmile() {
+        return smileMapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public byte[] serializeProtobuf() throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        protobufConverter.write(responses, LedgerProtobufHttpMessageConverter.APPLICATION_PROTOBUF, message);
+        return message.getBodyAsBytes();
+    }
+
+    private static List<ExpenseResponse> buildResponses(int count) {
+        Random random = new Random(42);
+        ExpenseCategory[] categories = ExpenseCategory.values();
+        LocalDate start = LocalDate.of(2022, 1, 1);
+        List<ExpenseResponse> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(new ExpenseResponse(
+                    (long) i,
+                    "Expense " + i,
+                    categories[random.nextInt(categories.length)],
+                    BigDecimal.valueOf(random.nextInt(100_000), 2),
+                    start.plusDays(random.nextInt(1095))
+            ));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,29 @@
+package com.expensetracker.expensetracker.config;
+
+import org.springframework.boot.http.converter.autoconfigure.ServerHttpMessageConvertersCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import org.springframework.http.converter.smile.JacksonSmileHttpMessageConverter;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+/**
+ * Message converters for the compact formats, picked by the Accept header: application/cbor,
+ * application/x-jackson-smile and application/x-protobuf. CBOR and Smile take the builder's
+ * own slots, which come after JSON, so requests without an Accept header or with *&#47;* still
+ * get JSON. Registering them as converter beans instead would put them ahead of JSON.
+ */
+@Configuration
+public class BinaryFormatsConfig {
+
+    @Bean
+    public ServerHttpMessageConvertersCustomizer binaryFormatsConvertersCustomizer() {
+        return builder -> builder
+                .withCborConverter(new JacksonCborHttpMessageConverter(
+                        CBORMapper.builder().addModule(new FixedPointModule()).build()))
+                .withSmileConverter(new JacksonSmileHttpMessageConverter(
+                        SmileMapper.builder().addModule(new FixedPointModule()).build()))
+                .addCustomConverter(new LedgerProtobufHttpMessageConverter());
+    }
+}
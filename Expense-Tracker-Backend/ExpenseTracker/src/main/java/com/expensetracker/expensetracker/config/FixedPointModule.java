@@ -0,0 +1,70 @@
+package com.expensetracker.expensetracker.config;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueDeserializer;
+import tools.jackson.databind.ValueSerializer;
+import tools.jackson.databind.module.SimpleModule;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Compact encodings for the binary formats: amounts as integer minor units (cents) and dates as
+ * days since the epoch. Both map to varints, where the JSON forms are a decimal string and a
+ * ten-character ISO date. Registered only on the CBOR, Smile and Protobuf mappers; JSON is
+ * unchanged.
+ */
+public class FixedPointModule extends SimpleModule {
+
+    /**
+     * Decimal places carried by every amount column
+     */
+    public static final int AMOUNT_SCALE = 2;
+
+    public FixedPointModule() {
+        super("FixedPointModule");
+        addSerializer(BigDecimal.class, new AmountSerializer());
+        addDeserializer(BigDecimal.class, new AmountDeserializer());
+        addSerializer(LocalDate.class, new EpochDaySerializer());
+        addDeserializer(LocalDate.class, new EpochDayDeserializer());
+    }
+
+    /**
+     * Amount in minor units, e.g. 150.50 becomes 15050
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    private static class AmountSerializer extends ValueSerializer<BigDecimal> {
+        @Override
+        public void serialize(BigDecimal value, JsonGenerator gen, SerializationContext ctxt) {
+            gen.writeNumber(toMinorUnits(value));
+        }
+    }
+
+    private static class AmountDeserializer extends ValueDeserializer<BigDecimal> {
+        @Override
+        public BigDecimal deserialize(JsonParser p, DeserializationContext ctxt) {
+            return BigDecimal.valueOf(p.getLongValue(), AMOUNT_SCALE);
+        }
+    }
+
+    private static class EpochDaySerializer extends ValueSerializer<LocalDate> {
+        @Override
+        public void serialize(LocalDate value, JsonGenerator gen, SerializationContext ctxt) {
+            gen.writeNumber((int) value.toEpochDay());
+        }
+    }
+
+    private static class EpochDayDeserializer extends ValueDeserializer<LocalDate> {
+        @Override
+        public LocalDate deserialize(JsonParser p, DeserializationContext ctxt) {
+            return LocalDate.ofEpochDay(p.getLongValue());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.expensetracker.expensetracker.config;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Counts JDBC statements and flushes issued by Hibernate on the current thread, so they can be
+ * attributed to the request being served. Hibernate creates one instance per session; it is
+ * registered with spring.jpa.properties.hibernate.session.events.auto.
+ */
+public class JdbcStatementListener implements SessionEventListener {
+
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Start counting for the current thread
+     */
+    public static void begin() {
+        CURRENT.set(new Counts());
+    }
+
+    /**
+     * Stop counting for the current thread and return what was seen, or null if never started
+     */
+    public static Counts finish() {
+        Counts counts = CURRENT.get();
+        CURRENT.remove();
+        return counts;
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.statements++;
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.statements++;
+        }
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.flushes++;
+            counts.flushedEntities += numberOfEntities;
+        }
+    }
+
+    public static final class Counts {
+        private long statements;
+        private long flushes;
+        private long flushedEntities;
+
+        public long statements() {
+            return statements;
+        }
+
+        public long flushes() {
+            return flushes;
+        }
+
+        public long flushedEntities() {
+            return flushedEntities;
+        }
+    }
+}
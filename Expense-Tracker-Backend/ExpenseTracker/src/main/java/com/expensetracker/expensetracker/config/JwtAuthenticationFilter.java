@@ -1,26 +1,29 @@
 package com.expensetracker.expensetracker.config;
 
+import com.expensetracker.expensetracker.service.UserPrincipal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
+    private final MeterRegistry meterRegistry;
 
-    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider) {
+    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, MeterRegistry meterRegistry) {
         this.tokenProvider = tokenProvider;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
@@ -31,17 +34,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String token = getTokenFromRequest(request);
             
-            if (token != null && tokenProvider.validateToken(token)) {
-                String username = tokenProvider.getUsernameFromToken(token);
-                List<SimpleGrantedAuthority> authorities = tokenProvider.getRolesFromToken(token)
-                        .stream()
-                        .map(auth -> new SimpleGrantedAuthority(auth.getAuthority()))
-                        .toList();
+            VerifiedToken verified = token != null ? verify(token) : null;
+            
+            if (verified != null) {
+                // Principal carries everything the request needs, so no user lookup is required
+                UserPrincipal principal = new UserPrincipal(
+                        verified.userId(),
+                        verified.username(),
+                        verified.email(),
+                        null,
+                        null,
+                        verified.authorities()
+                );
 
                 Authentication authentication = new UsernamePasswordAuthenticationToken(
-                        username, 
+                        principal, 
                         null, 
-                        authorities
+                        verified.authorities()
                 );
                 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -54,6 +63,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Verify the token and record how long it took, tagged by outcome
+     */
+    private VerifiedToken verify(String token) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        VerifiedToken verified = tokenProvider.verifyToken(token);
+        sample.stop(Timer.builder("security.jwt.verification")
+                .tag("outcome", verified != null ? "valid" : "invalid")
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        return verified;
+    }
+
     /**
      * Extract JWT token from Authorization header
      */
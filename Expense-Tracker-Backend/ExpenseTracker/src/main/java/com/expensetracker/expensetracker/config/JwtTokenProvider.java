@@ -1,8 +1,11 @@
 package com.expensetracker.expensetracker.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -10,6 +13,7 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
@@ -24,10 +28,26 @@ public class JwtTokenProvider {
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    // Derived once from the secret; both are immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private VerifiedTokenCache verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(signingKey).build();
+        verifiedTokens = new VerifiedTokenCache(verifiedCacheSize);
+    }
+
     /**
      * Generate JWT token for authenticated user
      */
-    public String generateToken(String username, String email, Collection<? extends GrantedAuthority> authorities) {
+    public String generateToken(Long userId, String username, String email,
+                                Collection<? extends GrantedAuthority> authorities) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
@@ -37,6 +57,7 @@ public class JwtTokenProvider {
 
         return Jwts.builder()
                 .subject(username)
+                .claim("uid", userId)
                 .claim("email", email)
                 .claim("roles", roles)
                 .issuedAt(now)
@@ -53,6 +74,15 @@ public class JwtTokenProvider {
         return claims.getSubject();
     }
 
+    /**
+     * Get user ID from JWT token, or null for tokens issued before the ID was embedded
+     */
+    public Long getUserIdFromToken(String token) {
+        Claims claims = getClaimsFromToken(token);
+        Number userId = claims.get("uid", Number.class);
+        return userId != null ? userId.longValue() : null;
+    }
+
     /**
      * Get email from JWT token
      */
@@ -64,9 +94,12 @@ public class JwtTokenProvider {
     /**
      * Get roles from JWT token
      */
-    @SuppressWarnings("unchecked")
     public List<GrantedAuthority> getRolesFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
+        return toAuthorities(getClaimsFromToken(token));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<GrantedAuthority> toAuthorities(Claims claims) {
         List<String> roles = claims.get("roles", List.class);
         
         if (roles == null) {
@@ -79,41 +112,57 @@ public class JwtTokenProvider {
     }
 
     /**
-     * Validate JWT token
+     * Verify a token once and return its decoded claims, or null if the signature is invalid or
+     * the token has expired. Recently verified tokens are served from a cache without crypto.
      */
-    public boolean validateToken(String token) {
+    public VerifiedToken verifyToken(String token) {
+        Instant now = Instant.now();
+        VerifiedToken cached = verifiedTokens.get(token, now);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims;
         try {
-            Claims claims = getClaimsFromToken(token);
-            return !claims.getExpiration().before(new Date());
-        } catch (Exception e) {
-            return false;
+            claims = getClaimsFromToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        if (claims.getExpiration() == null || !claims.getExpiration().toInstant().isAfter(now)) {
+            return null;
         }
+
+        Number userId = claims.get("uid", Number.class);
+        VerifiedToken verified = new VerifiedToken(
+                userId != null ? userId.longValue() : null,
+                claims.getSubject(),
+                claims.get("email", String.class),
+                toAuthorities(claims),
+                claims.getExpiration().toInstant()
+        );
+        verifiedTokens.put(token, verified, now);
+        return verified;
     }
 
     /**
-     * Extract claims from token
+     * Validate JWT token
      */
-    private Claims getClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public boolean validateToken(String token) {
+        return verifyToken(token) != null;
     }
 
     /**
-     * Extract claims from token (overloaded for internal use)
+     * Extract claims from token
      */
-    private Claims getClaimsFromToken() {
-        throw new UnsupportedOperationException("Use getClaimsFromToken(String token)");
+    private Claims getClaimsFromToken(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     /**
      * Get signing key from secret
      */
     private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
 }
 
@@ -0,0 +1,131 @@
+package com.expensetracker.expensetracker.config;
+
+import com.expensetracker.expensetracker.dto.response.ExpenseResponse;
+import com.expensetracker.expensetracker.dto.response.IncomeResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import tools.jackson.dataformat.protobuf.ProtobufMapper;
+import tools.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import tools.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Writes expenses and incomes, singly or as lists, as Protobuf using the schema in
+ * proto/ledger.proto. Other response types are not part of the schema, so Protobuf clients get
+ * 406 Not Acceptable for them. Write-only; requests stay JSON. Only offered to requests that
+ * name application/x-protobuf in their Accept header.
+ */
+public class LedgerProtobufHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_PROTOBUF = MediaType.parseMediaType("application/x-protobuf");
+
+    private static final String SCHEMA_LOCATION = "/proto/ledger.proto";
+
+    private final ProtobufMapper mapper;
+    private final ProtobufSchema expenseSchema;
+    private final ProtobufSchema expenseListSchema;
+    private final ProtobufSchema incomeSchema;
+    private final ProtobufSchema incomeListSchema;
+
+    public LedgerProtobufHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+        this.mapper = ProtobufMapper.builder().addModule(new FixedPointModule()).build();
+        ProtobufSchema schema = loadSchema();
+        this.expenseSchema = schema.withRootType("Expense");
+        this.expenseListSchema = schema.withRootType("ExpenseList");
+        this.incomeSchema = schema.withRootType("Income");
+        this.incomeListSchema = schema.withRootType("IncomeList");
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ExpenseResponse.class == clazz || IncomeResponse.class == clazz || List.class.isAssignableFrom(clazz);
+    }
+
+    /**
+     * Custom converters sit ahead of JSON, so a converter that offered itself for any request
+     * would answer *&#47;* with Protobuf. Content negotiation asks without a media type when it
+     * collects the producible types; only say yes then if the client asked for Protobuf.
+     */
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return super.canWrite(clazz, mediaType) && (mediaType != null || protobufRequested());
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        if (value instanceof ExpenseResponse) {
+            mapper.writer(expenseSchema).writeValue(outputMessage.getBody(), value);
+        } else if (value instanceof IncomeResponse) {
+            mapper.writer(incomeSchema).writeValue(outputMessage.getBody(), value);
+        } else if (value instanceof List<?> items) {
+            // An empty list is the empty message, whatever its type
+            if (items.isEmpty()) {
+                return;
+            }
+            Object first = items.get(0);
+            if (first instanceof ExpenseResponse) {
+                mapper.writer(expenseListSchema).writeValue(outputMessage.getBody(), new Items(items));
+            } else if (first instanceof IncomeResponse) {
+                mapper.writer(incomeListSchema).writeValue(outputMessage.getBody(), new Items(items));
+            } else {
+                throw new HttpMessageNotWritableException(
+                        "No Protobuf schema for lists of " + first.getClass().getSimpleName());
+            }
+        }
+    }
+
+    private static boolean protobufRequested() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return false;
+        }
+        String accept = attributes.getRequest().getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return false;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream().anyMatch(APPLICATION_PROTOBUF::equalsTypeAndSubtype);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private static ProtobufSchema loadSchema() {
+        try (InputStream in = LedgerProtobufHttpMessageConverter.class.getResourceAsStream(SCHEMA_LOCATION)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing Protobuf schema " + SCHEMA_LOCATION);
+            }
+            return ProtobufSchemaLoader.std.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Wrapper matching the repeated items field of the list messages
+     */
+    private record Items(List<?> items) {
+    }
+}
@@ -52,6 +52,7 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
         
         String token = tokenProvider.generateToken(
+                userPrincipal.getId(),
                 userPrincipal.getUsername(),
                 userPrincipal.getEmail(),
                 userPrincipal.getAuthorities()
@@ -0,0 +1,187 @@
+package com.expensetracker.expensetracker.config;
+
+import com.expensetracker.expensetracker.service.UserPrincipal;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read-only side of the replica routing: hands out connections from the replicas in turn,
+ * skipping any that lag too far behind or cannot be reached, and falls back to the primary
+ * when none qualify. A user who wrote within the read-your-writes window reads from the
+ * primary, so their own change is never missing from the next page they load. Closing it stops
+ * the lag monitor and the replica pools; the primary belongs to the caller.
+ */
+class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaDataSource.class);
+
+    private final DataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final List<AtomicBoolean> healthy = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final long maxLagSeconds;
+    private final String lagQuery;
+    private final long readYourWritesNanos;
+    private final ScheduledExecutorService monitor;
+
+    // User id to the time of their last write on the primary; the lag monitor drops entries
+    // once their window has passed, so only users who wrote recently are held
+    private final Map<Long, Long> lastWrites = new ConcurrentHashMap<>();
+
+    ReplicaDataSource(DataSource primary, List<HikariDataSource> replicas, long maxLagSeconds,
+                      String lagQuery, long readYourWritesMillis, long checkIntervalMillis) {
+        this.primary = primary;
+        this.replicas = replicas;
+        replicas.forEach(replica -> healthy.add(new AtomicBoolean()));
+        this.maxLagSeconds = maxLagSeconds;
+        this.lagQuery = lagQuery;
+        this.readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(readYourWritesMillis);
+
+        checkReplicas();
+        monitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        monitor.scheduleWithFixedDelay(() -> {
+            checkReplicas();
+            expireWrites();
+        }, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    /**
+     * Stop the lag monitor and close the replica pools
+     */
+    @Override
+    public void close() {
+        monitor.shutdownNow();
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    private Connection connect(ConnectionSource source) throws SQLException {
+        if (!pinnedToPrimary()) {
+            for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                int index = Math.floorMod(next.getAndIncrement(), replicas.size());
+                if (!healthy.get(index).get()) {
+                    continue;
+                }
+                try {
+                    return source.connect(replicas.get(index));
+                } catch (SQLFeatureNotSupportedException e) {
+                    // The way of connecting is unsupported, the replica itself is fine
+                    throw e;
+                } catch (SQLException e) {
+                    healthy.get(index).set(false);
+                    logger.warn("Replica {} unavailable, routing reads elsewhere", index, e);
+                }
+            }
+        }
+        return source.connect(primary);
+    }
+
+    /**
+     * Note that the current user is writing, so their reads stay on the primary for a while
+     */
+    void recordWrite() {
+        Long userId = currentUserId();
+        if (userId != null) {
+            lastWrites.put(userId, System.nanoTime());
+        }
+    }
+
+    private boolean pinnedToPrimary() {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return false;
+        }
+        Long lastWrite = lastWrites.get(userId);
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.nanoTime() - lastWrite < readYourWritesNanos) {
+            return true;
+        }
+        lastWrites.remove(userId, lastWrite);
+        return false;
+    }
+
+    private void expireWrites() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(lastWrite -> now - lastWrite >= readYourWritesNanos);
+    }
+
+    /**
+     * Number of users whose reads are currently held on the primary
+     */
+    int pinnedUsers() {
+        return lastWrites.size();
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getId();
+        }
+        return null;
+    }
+
+    /**
+     * Measure each replica's lag and mark it usable only while within the limit. An unknown lag
+     * (replication stopped, query failed) counts as too far behind.
+     */
+    private void checkReplicas() {
+        for (int i = 0; i < replicas.size(); i++) {
+            Long lag = null;
+            try (Connection connection = replicas.get(i).getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery != null ? lagQuery : "SHOW REPLICA STATUS")) {
+                if (rs.next()) {
+                    long seconds = lagQuery != null ? rs.getLong(1) : rs.getLong("Seconds_Behind_Source");
+                    lag = rs.wasNull() ? null : seconds;
+                }
+            } catch (SQLException e) {
+                logger.debug("Lag check failed for replica {}", i, e);
+            }
+
+            boolean usable = lag != null && lag <= maxLagSeconds;
+            if (healthy.get(i).getAndSet(usable) != usable) {
+                logger.info("Replica {} is now {} (lag {}s)", i, usable ? "in rotation" : "out of rotation", lag);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+}
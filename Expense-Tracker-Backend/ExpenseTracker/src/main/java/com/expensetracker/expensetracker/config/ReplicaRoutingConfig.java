@@ -0,0 +1,116 @@
+package com.expensetracker.expensetracker.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends read-only transactions to MySQL replicas when app.datasource.replica.urls is set.
+ *
+ * The auto-configured primary is wrapped in a LazyConnectionDataSourceProxy, which holds off
+ * fetching a physical connection until the first statement. By then the transaction manager has
+ * marked the connection read-only for @Transactional(readOnly = true), and the proxy takes it
+ * from the replica side instead. Everything else, including Flyway, stays on the primary.
+ * The proxy takes over the primary's shutdown, closing the replicas' monitor and pools with it.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "urls")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public static BeanPostProcessor replicaRoutingPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource primary) {
+                    return route(primary, environment);
+                }
+                return bean;
+            }
+        };
+    }
+
+    static DataSource route(DataSource primary, Environment environment) {
+        String username = environment.getProperty("app.datasource.replica.username",
+                environment.getProperty("spring.datasource.username"));
+        String password = environment.getProperty("app.datasource.replica.password",
+                environment.getProperty("spring.datasource.password"));
+        int poolSize = environment.getProperty("app.datasource.replica.maximum-pool-size", Integer.class, 10);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        String[] urls = environment.getRequiredProperty("app.datasource.replica.urls", String[].class);
+        for (int i = 0; i < urls.length; i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(urls[i].trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            // Start even if a replica is down; the lag monitor keeps it out of rotation
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+
+        ReplicaDataSource readOnly = new ReplicaDataSource(
+                primary,
+                replicas,
+                environment.getProperty("app.datasource.replica.max-lag-seconds", Long.class, 5L),
+                environment.getProperty("app.datasource.replica.lag-query"),
+                environment.getProperty("app.datasource.replica.read-your-writes-ms", Long.class, 5000L),
+                environment.getProperty("app.datasource.replica.check-interval-ms", Long.class, 5000L));
+
+        // Connections handed out for writes start the user's read-your-writes window
+        DataSource writes = new DelegatingDataSource(primary) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                readOnly.recordWrite();
+                return super.getConnection();
+            }
+        };
+
+        RoutingDataSource proxy = new RoutingDataSource(writes, primary, readOnly);
+        proxy.setReadOnlyDataSource(readOnly);
+        return proxy;
+    }
+
+    /**
+     * The routing proxy as it stands in for the dataSource bean. The container only destroys the
+     * final bean instance, so it closes what sits behind it: the replicas, then the primary pool.
+     */
+    static class RoutingDataSource extends LazyConnectionDataSourceProxy implements DisposableBean {
+
+        private final DataSource primary;
+        private final ReplicaDataSource replicas;
+
+        RoutingDataSource(DataSource writes, DataSource primary, ReplicaDataSource replicas) {
+            super(writes);
+            this.primary = primary;
+            this.replicas = replicas;
+        }
+
+        ReplicaDataSource getReplicas() {
+            return replicas;
+        }
+
+        @Override
+        public void destroy() throws Exception {
+            replicas.close();
+            if (primary instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
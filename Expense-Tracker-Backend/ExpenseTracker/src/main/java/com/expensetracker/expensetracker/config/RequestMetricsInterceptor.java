@@ -0,0 +1,54 @@
+package com.expensetracker.expensetracker.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records the Hibernate work behind each API request: JDBC statements, flushes and entities
+ * flushed, tagged with the same method and uri pattern as http.server.requests so the two can
+ * be read side by side.
+ */
+@Component
+public class RequestMetricsInterceptor implements HandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        JdbcStatementListener.begin();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        JdbcStatementListener.Counts counts = JdbcStatementListener.finish();
+        if (counts == null) {
+            return;
+        }
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        summary("http.server.requests.jdbc.statements", request.getMethod(), uri).record(counts.statements());
+        summary("http.server.requests.hibernate.flushes", request.getMethod(), uri).record(counts.flushes());
+        summary("http.server.requests.hibernate.flushed.entities", request.getMethod(), uri)
+                .record(counts.flushedEntities());
+    }
+
+    private DistributionSummary summary(String name, String method, String uri) {
+        return DistributionSummary.builder(name)
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry);
+    }
+}
@@ -1,5 +1,7 @@
 package com.expensetracker.expensetracker.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -50,10 +52,15 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 // Allow OPTIONS requests for CORS preflight
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                // Async dispatches resume a request that was already authorized (streamed exports)
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Public endpoints
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/oauth2/**").permitAll()
                 .requestMatchers("/login/oauth2/**").permitAll()
+                // Probes and the metrics scrape come from the cluster. In deployment they are served on
+                // the management port, which the Service does not publish
+                .requestMatchers("/actuator/health/**", "/actuator/prometheus").permitAll()
                 // All other endpoints require authentication
                 .anyRequest().authenticated()
             )
@@ -71,8 +78,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
     }
 
     @Bean
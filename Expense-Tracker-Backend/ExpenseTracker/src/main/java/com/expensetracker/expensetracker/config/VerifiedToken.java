@@ -0,0 +1,23 @@
+package com.expensetracker.expensetracker.config;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Claims of a JWT whose signature and expiry have been checked, decoded once and reused for
+ * the rest of the request (and for later requests carrying the same token)
+ */
+public record VerifiedToken(
+        Long userId,
+        String username,
+        String email,
+        List<GrantedAuthority> authorities,
+        Instant expiresAt
+) {
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
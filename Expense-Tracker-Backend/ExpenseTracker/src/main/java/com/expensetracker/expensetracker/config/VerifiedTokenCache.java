@@ -0,0 +1,56 @@
+package com.expensetracker.expensetracker.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of recently verified tokens so repeat requests with the same bearer token skip
+ * signature verification and claim parsing. Entries are keyed by the SHA-256 of the token, so
+ * raw credentials are never held, and an entry is ignored once the token has expired.
+ */
+class VerifiedTokenCache {
+
+    private final ConcurrentHashMap<String, VerifiedToken> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    VerifiedTokenCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    VerifiedToken get(String token, Instant now) {
+        String key = hash(token);
+        VerifiedToken verified = entries.get(key);
+        if (verified != null && verified.isExpired(now)) {
+            entries.remove(key, verified);
+            return null;
+        }
+        return verified;
+    }
+
+    void put(String token, VerifiedToken verified, Instant now) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            // Drop expired tokens first; if that frees nothing, start over rather than grow
+            entries.values().removeIf(entry -> entry.isExpired(now));
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+        entries.put(hash(token), verified);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
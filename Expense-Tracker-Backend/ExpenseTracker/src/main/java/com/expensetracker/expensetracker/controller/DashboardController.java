@@ -1,31 +1,64 @@
 package com.expensetracker.expensetracker.controller;
 
+import com.expensetracker.expensetracker.dto.response.DashboardSummaryResponse;
 import com.expensetracker.expensetracker.dto.response.PnLResponse;
-import com.expensetracker.expensetracker.entity.User;
+import com.expensetracker.expensetracker.dto.response.SpendingStatsResponse;
+import com.expensetracker.expensetracker.dto.response.TimeSeriesResponse;
+import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import com.expensetracker.expensetracker.enums.TimeBucket;
 import com.expensetracker.expensetracker.service.AuthService;
 import com.expensetracker.expensetracker.service.DashboardService;
+import com.expensetracker.expensetracker.service.DashboardSummaryService;
+import com.expensetracker.expensetracker.service.DataVersionService;
+import com.expensetracker.expensetracker.service.SpendingStatsService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 
 @RestController
 @RequestMapping("/api/dashboard")
 public class DashboardController {
 
     private final DashboardService dashboardService;
+    private final DashboardSummaryService dashboardSummaryService;
     private final AuthService authService;
+    private final DataVersionService dataVersionService;
+    private final SpendingStatsService spendingStatsService;
 
-    public DashboardController(DashboardService dashboardService, AuthService authService) {
+    public DashboardController(DashboardService dashboardService,
+                               DashboardSummaryService dashboardSummaryService,
+                               AuthService authService,
+                               DataVersionService dataVersionService,
+                               SpendingStatsService spendingStatsService) {
         this.dashboardService = dashboardService;
+        this.dashboardSummaryService = dashboardSummaryService;
         this.authService = authService;
+        this.dataVersionService = dataVersionService;
+        this.spendingStatsService = spendingStatsService;
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<DashboardSummaryResponse> getSummary(@RequestParam(defaultValue = "5") int recent) {
+        Long userId = authService.getCurrentUserId();
+        DashboardSummaryResponse summary = dashboardSummaryService.summarize(userId, recent);
+        return ResponseEntity.ok(summary);
     }
 
     @GetMapping("/pnl")
-    public ResponseEntity<PnLResponse> getTotalPnL() {
-        User currentUser = authService.getCurrentUser();
-        PnLResponse pnl = dashboardService.calculatePnL(currentUser.getId());
-        return ResponseEntity.ok(pnl);
+    public ResponseEntity<PnLResponse> getTotalPnL(WebRequest webRequest) {
+        Long userId = authService.getCurrentUserId();
+
+        // Lifetime PnL only changes with the ledgers, so the data version is a valid ETag
+        if (LedgerEtags.checkNotModified(webRequest, dataVersionService, userId)) {
+            return null;
+        }
+
+        PnLResponse pnl = dashboardService.calculatePnL(userId);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(pnl);
     }
 
     @GetMapping("/pnl/range")
@@ -33,12 +66,50 @@ public class DashboardController {
             @RequestParam String startDate,
             @RequestParam String endDate) {
         
-        User currentUser = authService.getCurrentUser();
+        Long userId = authService.getCurrentUserId();
         LocalDate start = LocalDate.parse(startDate);
         LocalDate end = LocalDate.parse(endDate);
         
-        PnLResponse pnl = dashboardService.calculatePnLByDateRange(currentUser.getId(), start, end);
+        PnLResponse pnl = dashboardService.calculatePnLByDateRange(userId, start, end);
         return ResponseEntity.ok(pnl);
     }
-}
 
+    @GetMapping("/timeseries")
+    public ResponseEntity<TimeSeriesResponse> getTimeSeries(
+            @RequestParam(defaultValue = "month") String bucket,
+            @RequestParam String start,
+            @RequestParam String end,
+            @RequestParam(required = false) String groupBy) {
+
+        Long userId = authService.getCurrentUserId();
+        LocalDate startDate = LocalDate.parse(start);
+        LocalDate endDate = LocalDate.parse(end);
+
+        TimeSeriesResponse series = dashboardService.calculateTimeSeries(
+                userId, TimeBucket.from(bucket), startDate, endDate, groupBy);
+        return ResponseEntity.ok(series);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<SpendingStatsResponse> getSpendingStats(
+            @RequestParam String start,
+            @RequestParam String end,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "5") int outliers,
+            WebRequest webRequest) {
+
+        Long userId = authService.getCurrentUserId();
+        YearMonth startMonth = YearMonth.parse(start);
+        YearMonth endMonth = YearMonth.parse(end);
+        ExpenseCategory expenseCategory = category != null ? ExpenseCategory.valueOf(category.toUpperCase()) : null;
+
+        // Statistics only change with the ledgers, so the data version is a valid ETag
+        if (LedgerEtags.checkNotModified(webRequest, dataVersionService, userId)) {
+            return null;
+        }
+
+        SpendingStatsResponse stats = spendingStatsService.calculateStats(
+                userId, startMonth, endMonth, expenseCategory, outliers);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(stats);
+    }
+}
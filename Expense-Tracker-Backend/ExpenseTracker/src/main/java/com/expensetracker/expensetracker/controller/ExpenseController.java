@@ -1,18 +1,28 @@
 package com.expensetracker.expensetracker.controller;
 
+import com.expensetracker.expensetracker.dto.request.BatchRequest;
 import com.expensetracker.expensetracker.dto.request.ExpenseRequest;
 import com.expensetracker.expensetracker.dto.request.FilterRequest;
+import com.expensetracker.expensetracker.dto.response.BatchResponse;
+import com.expensetracker.expensetracker.dto.response.CursorPageResponse;
 import com.expensetracker.expensetracker.dto.response.ExpenseResponse;
-import com.expensetracker.expensetracker.entity.User;
+import com.expensetracker.expensetracker.enums.ExportFormat;
 import com.expensetracker.expensetracker.service.AuthService;
+import com.expensetracker.expensetracker.service.DataVersionService;
 import com.expensetracker.expensetracker.service.ExpenseService;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/expenses")
@@ -20,30 +30,60 @@ public class ExpenseController {
 
     private final ExpenseService expenseService;
     private final AuthService authService;
+    private final DataVersionService dataVersionService;
 
-    public ExpenseController(ExpenseService expenseService, AuthService authService) {
+    public ExpenseController(ExpenseService expenseService, AuthService authService,
+                            DataVersionService dataVersionService) {
         this.expenseService = expenseService;
         this.authService = authService;
+        this.dataVersionService = dataVersionService;
     }
 
     @PostMapping
     public ResponseEntity<ExpenseResponse> addExpense(@Valid @RequestBody ExpenseRequest request) {
-        User currentUser = authService.getCurrentUser();
-        ExpenseResponse response = expenseService.addExpense(currentUser.getId(), request);
+        Long userId = authService.getCurrentUserId();
+        ExpenseResponse response = expenseService.addExpense(userId, request);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
     @GetMapping
-    public ResponseEntity<List<ExpenseResponse>> getAllExpenses() {
-        User currentUser = authService.getCurrentUser();
-        List<ExpenseResponse> expenses = expenseService.getExpenses(currentUser.getId());
-        return ResponseEntity.ok(expenses);
+    public ResponseEntity<?> getAllExpenses(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            WebRequest webRequest) {
+        Long userId = authService.getCurrentUserId();
+
+        // An unchanged ledger is answered with 304 before any ledger query runs
+        if (LedgerEtags.checkNotModified(webRequest, dataVersionService, userId)) {
+            return null;
+        }
+
+        // Without paging parameters keep returning the full list for existing clients
+        if (limit == null && after == null) {
+            List<ExpenseResponse> expenses = expenseService.getExpenses(userId);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(expenses);
+        }
+
+        CursorPageResponse<ExpenseResponse> page = expenseService.getExpensesPage(userId, limit, after);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(page);
+    }
+
+    /**
+     * Apply many creates, updates and deletes in one request and one transaction. All or nothing:
+     * a batch with any invalid operation is answered with 400 and per-item errors.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResponse<ExpenseResponse>> applyBatch(
+            @Valid @RequestBody BatchRequest<ExpenseRequest> request) {
+        Long userId = authService.getCurrentUserId();
+        BatchResponse<ExpenseResponse> response = expenseService.applyBatch(userId, request.getOperations());
+        return new ResponseEntity<>(response, response.isApplied() ? HttpStatus.OK : HttpStatus.BAD_REQUEST);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ExpenseResponse> getExpenseById(@PathVariable Long id) {
-        User currentUser = authService.getCurrentUser();
-        ExpenseResponse expense = expenseService.getExpenseById(currentUser.getId(), id);
+        Long userId = authService.getCurrentUserId();
+        ExpenseResponse expense = expenseService.getExpenseById(userId, id);
         return ResponseEntity.ok(expense);
     }
 
@@ -51,15 +91,15 @@ public class ExpenseController {
     public ResponseEntity<ExpenseResponse> updateExpense(
             @PathVariable Long id,
             @Valid @RequestBody ExpenseRequest request) {
-        User currentUser = authService.getCurrentUser();
-        ExpenseResponse response = expenseService.updateExpense(currentUser.getId(), id, request);
+        Long userId = authService.getCurrentUserId();
+        ExpenseResponse response = expenseService.updateExpense(userId, id, request);
         return ResponseEntity.ok(response);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, String>> deleteExpense(@PathVariable Long id) {
-        User currentUser = authService.getCurrentUser();
-        expenseService.deleteExpense(currentUser.getId(), id);
+        Long userId = authService.getCurrentUserId();
+        expenseService.deleteExpense(userId, id);
         return ResponseEntity.ok(Map.of("message", "Expense deleted successfully"));
     }
 
@@ -71,28 +111,82 @@ public class ExpenseController {
             @RequestParam(required = false) String minAmount,
             @RequestParam(required = false) String maxAmount) {
         
-        User currentUser = authService.getCurrentUser();
+        Long userId = authService.getCurrentUserId();
         
-        FilterRequest filterRequest = FilterRequest.builder()
-                .category(category != null ? com.expensetracker.expensetracker.enums.ExpenseCategory.valueOf(category) : null)
-                .startDate(startDate != null ? java.time.LocalDate.parse(startDate) : null)
-                .endDate(endDate != null ? java.time.LocalDate.parse(endDate) : null)
-                .minAmount(minAmount != null ? new java.math.BigDecimal(minAmount) : null)
-                .maxAmount(maxAmount != null ? new java.math.BigDecimal(maxAmount) : null)
-                .build();
+        FilterRequest filterRequest = buildFilter(category, startDate, endDate, minAmount, maxAmount);
         
-        List<ExpenseResponse> expenses = expenseService.filterExpenses(currentUser.getId(), filterRequest);
+        List<ExpenseResponse> expenses = expenseService.filterExpenses(userId, filterRequest);
         return ResponseEntity.ok(expenses);
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<CursorPageResponse<ExpenseResponse>> searchExpenses(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String minAmount,
+            @RequestParam(required = false) String maxAmount) {
+
+        Long userId = authService.getCurrentUserId();
+        FilterRequest filterRequest = buildFilter(category, startDate, endDate, minAmount, maxAmount);
+
+        CursorPageResponse<ExpenseResponse> page = expenseService.searchExpenses(userId, q, filterRequest, limit, after);
+        return ResponseEntity.ok(page);
+    }
+
     @GetMapping("/sort")
     public ResponseEntity<List<ExpenseResponse>> sortExpenses(
             @RequestParam String sortBy,
             @RequestParam(defaultValue = "asc") String order) {
         
-        User currentUser = authService.getCurrentUser();
-        List<ExpenseResponse> expenses = expenseService.sortExpenses(currentUser.getId(), sortBy, order);
+        Long userId = authService.getCurrentUserId();
+        List<ExpenseResponse> expenses = expenseService.sortExpenses(userId, sortBy, order);
         return ResponseEntity.ok(expenses);
     }
-}
 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportExpenses(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String minAmount,
+            @RequestParam(required = false) String maxAmount) {
+
+        Long userId = authService.getCurrentUserId();
+        ExportFormat exportFormat = ExportFormat.from(format);
+        FilterRequest filterRequest = buildFilter(category, startDate, endDate, minAmount, maxAmount);
+
+        // Rows are written as they are read from the database; nothing is buffered per request
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, true);
+                expenseService.exportExpenses(userId, filterRequest, exportFormat, gzipOut);
+                gzipOut.finish();
+            } else {
+                expenseService.exportExpenses(userId, filterRequest, exportFormat, out);
+            }
+        };
+
+        String filename = "expenses." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    private FilterRequest buildFilter(String category, String startDate, String endDate,
+                                      String minAmount, String maxAmount) {
+        return FilterRequest.builder()
+                .category(category != null ? com.expensetracker.expensetracker.enums.ExpenseCategory.valueOf(category) : null)
+                .startDate(startDate != null ? java.time.LocalDate.parse(startDate) : null)
+                .endDate(endDate != null ? java.time.LocalDate.parse(endDate) : null)
+                .minAmount(minAmount != null ? new java.math.BigDecimal(minAmount) : null)
+                .maxAmount(maxAmount != null ? new java.math.BigDecimal(maxAmount) : null)
+                .build();
+    }
+}
@@ -0,0 +1,54 @@
+package com.expensetracker.expensetracker.controller;
+
+import com.expensetracker.expensetracker.dto.request.ImportRequest;
+import com.expensetracker.expensetracker.service.AuthService;
+import com.expensetracker.expensetracker.service.StatementImportService;
+import com.expensetracker.expensetracker.service.StatementReader;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/import")
+public class ImportController {
+
+    private final StatementImportService importService;
+    private final AuthService authService;
+
+    public ImportController(StatementImportService importService, AuthService authService) {
+        this.importService = importService;
+        this.authService = authService;
+    }
+
+    /**
+     * Import a bank statement (CSV or OFX). Progress, skipped rows and a final summary are
+     * streamed back as NDJSON while the file is processed.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> importStatement(
+            @RequestParam("file") MultipartFile file,
+            @ModelAttribute ImportRequest options) throws IOException {
+
+        Long userId = authService.getCurrentUserId();
+
+        // Reading the header up front turns an unusable file into a 400 instead of a stream
+        StatementReader reader = importService.open(file, options);
+        StreamingResponseBody body = out -> {
+            try (reader) {
+                importService.importStatement(userId, reader, options, out);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+}
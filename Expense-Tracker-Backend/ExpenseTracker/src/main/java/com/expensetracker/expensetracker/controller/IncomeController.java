@@ -1,18 +1,28 @@
 package com.expensetracker.expensetracker.controller;
 
+import com.expensetracker.expensetracker.dto.request.BatchRequest;
 import com.expensetracker.expensetracker.dto.request.IncomeRequest;
 import com.expensetracker.expensetracker.dto.request.FilterRequest;
+import com.expensetracker.expensetracker.dto.response.BatchResponse;
+import com.expensetracker.expensetracker.dto.response.CursorPageResponse;
 import com.expensetracker.expensetracker.dto.response.IncomeResponse;
-import com.expensetracker.expensetracker.entity.User;
+import com.expensetracker.expensetracker.enums.ExportFormat;
 import com.expensetracker.expensetracker.service.AuthService;
+import com.expensetracker.expensetracker.service.DataVersionService;
 import com.expensetracker.expensetracker.service.IncomeService;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/incomes")
@@ -20,30 +30,60 @@ public class IncomeController {
 
     private final IncomeService incomeService;
     private final AuthService authService;
+    private final DataVersionService dataVersionService;
 
-    public IncomeController(IncomeService incomeService, AuthService authService) {
+    public IncomeController(IncomeService incomeService, AuthService authService,
+                            DataVersionService dataVersionService) {
         this.incomeService = incomeService;
         this.authService = authService;
+        this.dataVersionService = dataVersionService;
     }
 
     @PostMapping
     public ResponseEntity<IncomeResponse> addIncome(@Valid @RequestBody IncomeRequest request) {
-        User currentUser = authService.getCurrentUser();
-        IncomeResponse response = incomeService.addIncome(currentUser.getId(), request);
+        Long userId = authService.getCurrentUserId();
+        IncomeResponse response = incomeService.addIncome(userId, request);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
     @GetMapping
-    public ResponseEntity<List<IncomeResponse>> getAllIncomes() {
-        User currentUser = authService.getCurrentUser();
-        List<IncomeResponse> incomes = incomeService.getIncomes(currentUser.getId());
-        return ResponseEntity.ok(incomes);
+    public ResponseEntity<?> getAllIncomes(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            WebRequest webRequest) {
+        Long userId = authService.getCurrentUserId();
+
+        // An unchanged ledger is answered with 304 before any ledger query runs
+        if (LedgerEtags.checkNotModified(webRequest, dataVersionService, userId)) {
+            return null;
+        }
+
+        // Without paging parameters keep returning the full list for existing clients
+        if (limit == null && after == null) {
+            List<IncomeResponse> incomes = incomeService.getIncomes(userId);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(incomes);
+        }
+
+        CursorPageResponse<IncomeResponse> page = incomeService.getIncomesPage(userId, limit, after);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(page);
+    }
+
+    /**
+     * Apply many creates, updates and deletes in one request and one transaction. All or nothing:
+     * a batch with any invalid operation is answered with 400 and per-item errors.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResponse<IncomeResponse>> applyBatch(
+            @Valid @RequestBody BatchRequest<IncomeRequest> request) {
+        Long userId = authService.getCurrentUserId();
+        BatchResponse<IncomeResponse> response = incomeService.applyBatch(userId, request.getOperations());
+        return new ResponseEntity<>(response, response.isApplied() ? HttpStatus.OK : HttpStatus.BAD_REQUEST);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<IncomeResponse> getIncomeById(@PathVariable Long id) {
-        User currentUser = authService.getCurrentUser();
-        IncomeResponse income = incomeService.getIncomeById(currentUser.getId(), id);
+        Long userId = authService.getCurrentUserId();
+        IncomeResponse income = incomeService.getIncomeById(userId, id);
         return ResponseEntity.ok(income);
     }
 
@@ -51,15 +91,15 @@ public class IncomeController {
     public ResponseEntity<IncomeResponse> updateIncome(
             @PathVariable Long id,
             @Valid @RequestBody IncomeRequest request) {
-        User currentUser = authService.getCurrentUser();
-        IncomeResponse response = incomeService.updateIncome(currentUser.getId(), id, request);
+        Long userId = authService.getCurrentUserId();
+        IncomeResponse response = incomeService.updateIncome(userId, id, request);
         return ResponseEntity.ok(response);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, String>> deleteIncome(@PathVariable Long id) {
-        User currentUser = authService.getCurrentUser();
-        incomeService.deleteIncome(currentUser.getId(), id);
+        Long userId = authService.getCurrentUserId();
+        incomeService.deleteIncome(userId, id);
         return ResponseEntity.ok(Map.of("message", "Income deleted successfully"));
     }
 
@@ -71,28 +111,82 @@ public class IncomeController {
             @RequestParam(required = false) String minAmount,
             @RequestParam(required = false) String maxAmount) {
         
-        User currentUser = authService.getCurrentUser();
+        Long userId = authService.getCurrentUserId();
         
-        FilterRequest filterRequest = FilterRequest.builder()
-                .source(source != null ? com.expensetracker.expensetracker.enums.IncomeSource.valueOf(source) : null)
-                .startDate(startDate != null ? java.time.LocalDate.parse(startDate) : null)
-                .endDate(endDate != null ? java.time.LocalDate.parse(endDate) : null)
-                .minAmount(minAmount != null ? new java.math.BigDecimal(minAmount) : null)
-                .maxAmount(maxAmount != null ? new java.math.BigDecimal(maxAmount) : null)
-                .build();
+        FilterRequest filterRequest = buildFilter(source, startDate, endDate, minAmount, maxAmount);
         
-        List<IncomeResponse> incomes = incomeService.filterIncomes(currentUser.getId(), filterRequest);
+        List<IncomeResponse> incomes = incomeService.filterIncomes(userId, filterRequest);
         return ResponseEntity.ok(incomes);
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<CursorPageResponse<IncomeResponse>> searchIncomes(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String source,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String minAmount,
+            @RequestParam(required = false) String maxAmount) {
+
+        Long userId = authService.getCurrentUserId();
+        FilterRequest filterRequest = buildFilter(source, startDate, endDate, minAmount, maxAmount);
+
+        CursorPageResponse<IncomeResponse> page = incomeService.searchIncomes(userId, q, filterRequest, limit, after);
+        return ResponseEntity.ok(page);
+    }
+
     @GetMapping("/sort")
     public ResponseEntity<List<IncomeResponse>> sortIncomes(
             @RequestParam String sortBy,
             @RequestParam(defaultValue = "asc") String order) {
         
-        User currentUser = authService.getCurrentUser();
-        List<IncomeResponse> incomes = incomeService.sortIncomes(currentUser.getId(), sortBy, order);
+        Long userId = authService.getCurrentUserId();
+        List<IncomeResponse> incomes = incomeService.sortIncomes(userId, sortBy, order);
         return ResponseEntity.ok(incomes);
     }
-}
 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportIncomes(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) String source,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String minAmount,
+            @RequestParam(required = false) String maxAmount) {
+
+        Long userId = authService.getCurrentUserId();
+        ExportFormat exportFormat = ExportFormat.from(format);
+        FilterRequest filterRequest = buildFilter(source, startDate, endDate, minAmount, maxAmount);
+
+        // Rows are written as they are read from the database; nothing is buffered per request
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, true);
+                incomeService.exportIncomes(userId, filterRequest, exportFormat, gzipOut);
+                gzipOut.finish();
+            } else {
+                incomeService.exportIncomes(userId, filterRequest, exportFormat, out);
+            }
+        };
+
+        String filename = "incomes." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    private FilterRequest buildFilter(String source, String startDate, String endDate,
+                                      String minAmount, String maxAmount) {
+        return FilterRequest.builder()
+                .source(source != null ? com.expensetracker.expensetracker.enums.IncomeSource.valueOf(source) : null)
+                .startDate(startDate != null ? java.time.LocalDate.parse(startDate) : null)
+                .endDate(endDate != null ? java.time.LocalDate.parse(endDate) : null)
+                .minAmount(minAmount != null ? new java.math.BigDecimal(minAmount) : null)
+                .maxAmount(maxAmount != null ? new java.math.BigDecimal(maxAmount) : null)
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.expensetracker.expensetracker.controller;
+
+import com.expensetracker.expensetracker.config.LedgerProtobufHttpMessageConverter;
+import com.expensetracker.expensetracker.service.DataVersionService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conditional GETs for responses that only change with a user's ledger data. JSON, CBOR, Smile
+ * and Protobuf bodies of the same data version differ, so the ETag carries the format the Accept
+ * header selects as well as the version, and Vary: Accept tells shared caches to key on it.
+ */
+final class LedgerEtags {
+
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    /**
+     * Formats the ledger endpoints produce, JSON first as it is the default. Protobuf comes last,
+     * as it is only produced when asked for by name.
+     */
+    private static final List<MediaType> FORMATS = List.of(
+            MediaType.APPLICATION_JSON, SMILE, MediaType.APPLICATION_CBOR,
+            LedgerProtobufHttpMessageConverter.APPLICATION_PROTOBUF);
+
+    private LedgerEtags() {
+    }
+
+    /**
+     * Mark the response as varying by Accept and check the request's preconditions against the
+     * user's data version in the negotiated format. True when a 304 has been prepared.
+     */
+    static boolean checkNotModified(WebRequest request, DataVersionService dataVersionService, Long userId) {
+        if (request instanceof NativeWebRequest nativeRequest) {
+            HttpServletResponse response = nativeRequest.getNativeResponse(HttpServletResponse.class);
+            if (response != null) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            }
+        }
+        MediaType format = format(request.getHeader(HttpHeaders.ACCEPT));
+        return request.checkNotModified(dataVersionService.etag(userId, format.getSubtype()));
+    }
+
+    /**
+     * The format content negotiation picks for an Accept header: the first produced format
+     * compatible with the most preferred requested type. JSON when nothing else matches.
+     */
+    static MediaType format(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> requested;
+        try {
+            requested = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException ex) {
+            return MediaType.APPLICATION_JSON;
+        }
+        MimeTypeUtils.sortBySpecificity(requested);
+        for (MediaType type : requested) {
+            for (MediaType format : FORMATS) {
+                if (type.isCompatibleWith(format)) {
+                    return format;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+}
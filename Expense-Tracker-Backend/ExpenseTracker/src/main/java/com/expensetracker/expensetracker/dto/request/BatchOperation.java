@@ -0,0 +1,33 @@
+package com.expensetracker.expensetracker.dto.request;
+
+import com.expensetracker.expensetracker.enums.BatchOperationType;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One create, update or delete within a batch
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchOperation<T> {
+
+    @NotNull(message = "Operation is required")
+    private BatchOperationType op;
+
+    /**
+     * Id of the entry to update or delete; omitted for CREATE
+     */
+    private Long id;
+
+    /**
+     * New values for CREATE and UPDATE; omitted for DELETE
+     */
+    @Valid
+    private T data;
+}
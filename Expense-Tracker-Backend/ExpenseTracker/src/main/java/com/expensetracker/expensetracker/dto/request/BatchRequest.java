@@ -0,0 +1,25 @@
+package com.expensetracker.expensetracker.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchRequest<T> {
+
+    public static final int MAX_OPERATIONS = 1000;
+
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = MAX_OPERATIONS, message = "A batch may contain at most " + MAX_OPERATIONS + " operations")
+    @Valid
+    private List<BatchOperation<T>> operations;
+}
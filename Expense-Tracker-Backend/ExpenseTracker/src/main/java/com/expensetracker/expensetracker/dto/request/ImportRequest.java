@@ -0,0 +1,70 @@
+package com.expensetracker.expensetracker.dto.request;
+
+import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import com.expensetracker.expensetracker.enums.IncomeSource;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportRequest {
+
+    /**
+     * Statement format: "CSV" or "OFX"; taken from the file extension when omitted
+     */
+    private String format;
+
+    /**
+     * CSV header of the date column, when it is not one of the usual names
+     */
+    private String dateColumn;
+
+    /**
+     * CSV header of the description column
+     */
+    private String descriptionColumn;
+
+    /**
+     * CSV header of a signed amount column (negative is money out)
+     */
+    private String amountColumn;
+
+    /**
+     * CSV header of the money-out column, for statements that split debits and credits
+     */
+    private String debitColumn;
+
+    /**
+     * CSV header of the money-in column
+     */
+    private String creditColumn;
+
+    /**
+     * CSV header of a category column; values matching a category or source name are used
+     */
+    private String categoryColumn;
+
+    /**
+     * Date pattern of the CSV, e.g. "dd/MM/yyyy"; ISO dates (yyyy-MM-dd) by default
+     */
+    private String dateFormat;
+
+    /**
+     * Treat positive amounts as money out, as credit card statements do
+     */
+    private boolean invertSign;
+
+    /**
+     * Category for expenses without a recognised category (PERSONAL by default)
+     */
+    private ExpenseCategory defaultCategory;
+
+    /**
+     * Source for incomes without a recognised source (SALARY by default)
+     */
+    private IncomeSource defaultSource;
+}
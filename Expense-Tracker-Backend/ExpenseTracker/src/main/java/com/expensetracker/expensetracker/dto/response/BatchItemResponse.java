@@ -0,0 +1,41 @@
+package com.expensetracker.expensetracker.dto.response;
+
+import com.expensetracker.expensetracker.enums.BatchOperationType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one operation of a batch, in request order
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResponse<T> {
+
+    /**
+     * Position of the operation in the request
+     */
+    private int index;
+
+    private BatchOperationType op;
+
+    /**
+     * Id of the entry, including the one assigned by a CREATE
+     */
+    private Long id;
+
+    /**
+     * The entry as stored, for CREATE and UPDATE
+     */
+    private T data;
+
+    /**
+     * Why the operation was rejected; only present when the batch was not applied
+     */
+    private String error;
+}
@@ -0,0 +1,23 @@
+package com.expensetracker.expensetracker.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchResponse<T> {
+
+    /**
+     * Whether the batch was applied. Batches are all or nothing: when false, nothing was written
+     * and each rejected operation carries an error.
+     */
+    private boolean applied;
+
+    private List<BatchItemResponse<T>> results;
+}
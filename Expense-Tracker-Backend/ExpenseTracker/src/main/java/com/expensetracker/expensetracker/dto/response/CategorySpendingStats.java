@@ -0,0 +1,39 @@
+package com.expensetracker.expensetracker.dto.response;
+
+import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CategorySpendingStats {
+
+    private ExpenseCategory category;
+    private long count;
+    private BigDecimal total;
+    private BigDecimal mean;
+    private BigDecimal median;
+    private BigDecimal p90;
+
+    /**
+     * Upper Tukey fence, Q3 + 1.5 * (Q3 - Q1); expenses above it are outliers
+     */
+    private BigDecimal outlierThreshold;
+
+    /**
+     * Months of the range with expenses in this category, oldest first
+     */
+    private List<MonthlySpendingStats> months;
+
+    /**
+     * Largest expenses above the outlier threshold, largest first
+     */
+    private List<ExpenseResponse> outliers;
+}
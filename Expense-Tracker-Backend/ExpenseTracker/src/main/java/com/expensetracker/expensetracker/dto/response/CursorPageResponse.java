@@ -0,0 +1,24 @@
+package com.expensetracker.expensetracker.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageResponse<T> {
+
+    private List<T> items;
+
+    /**
+     * Opaque cursor to pass as "after" for the next page, null on the last page
+     */
+    private String nextCursor;
+
+    private boolean hasMore;
+}
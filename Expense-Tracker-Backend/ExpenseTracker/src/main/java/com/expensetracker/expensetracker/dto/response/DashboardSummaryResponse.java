@@ -0,0 +1,28 @@
+package com.expensetracker.expensetracker.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DashboardSummaryResponse {
+
+    private PnLResponse pnl;
+    private PnLResponse currentMonth;
+    private PnLResponse previousMonth;
+    private Map<String, BigDecimal> expensesByCategory;
+    private Map<String, BigDecimal> incomesBySource;
+    private List<ExpenseResponse> recentExpenses;
+    private List<IncomeResponse> recentIncomes;
+
+    // Widgets that failed or timed out; their fields are null
+    private List<String> unavailable;
+}
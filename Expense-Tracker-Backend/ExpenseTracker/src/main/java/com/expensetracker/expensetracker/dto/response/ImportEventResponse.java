@@ -0,0 +1,39 @@
+package com.expensetracker.expensetracker.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a statement import's NDJSON response: "progress" after each committed batch,
+ * "error" for each row that was skipped, and a final "summary"
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportEventResponse {
+
+    private String type;
+
+    /**
+     * Line of the file the error refers to
+     */
+    private Long line;
+
+    private String message;
+
+    private Long rowsRead;
+
+    private Long imported;
+
+    /**
+     * Rows skipped because the ledger already holds them
+     */
+    private Long duplicates;
+
+    private Long failed;
+}
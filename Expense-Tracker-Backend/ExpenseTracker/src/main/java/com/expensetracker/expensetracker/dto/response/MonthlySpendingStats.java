@@ -0,0 +1,23 @@
+package com.expensetracker.expensetracker.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MonthlySpendingStats {
+
+    private YearMonth month;
+    private long count;
+    private BigDecimal total;
+    private BigDecimal mean;
+    private BigDecimal median;
+    private BigDecimal p90;
+}
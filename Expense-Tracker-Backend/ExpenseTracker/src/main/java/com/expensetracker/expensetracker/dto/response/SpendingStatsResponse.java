@@ -0,0 +1,30 @@
+package com.expensetracker.expensetracker.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.YearMonth;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SpendingStatsResponse {
+
+    private YearMonth startMonth;
+    private YearMonth endMonth;
+
+    /**
+     * Largest relative error of the median, p90 and outlier threshold, e.g. 0.01 for 1%. Counts,
+     * totals and means are exact.
+     */
+    private double relativeAccuracy;
+
+    /**
+     * One entry per category with expenses in the range, in category order
+     */
+    private List<CategorySpendingStats> categories;
+}
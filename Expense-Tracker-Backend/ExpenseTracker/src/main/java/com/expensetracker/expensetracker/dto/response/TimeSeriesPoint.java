@@ -0,0 +1,36 @@
+package com.expensetracker.expensetracker.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TimeSeriesPoint {
+
+    /**
+     * First day of the bucket, clipped to the requested start date
+     */
+    private LocalDate periodStart;
+
+    /**
+     * Last day of the bucket, clipped to the requested end date
+     */
+    private LocalDate periodEnd;
+
+    private BigDecimal totalIncome;
+    private BigDecimal totalExpense;
+    private BigDecimal profitLoss;
+
+    /**
+     * Expense per category or income per source, present only when grouping was requested
+     */
+    private Map<String, BigDecimal> breakdown;
+}
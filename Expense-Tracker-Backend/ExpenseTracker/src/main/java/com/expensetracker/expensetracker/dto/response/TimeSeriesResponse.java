@@ -0,0 +1,32 @@
+package com.expensetracker.expensetracker.dto.response;
+
+import com.expensetracker.expensetracker.enums.TimeBucket;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TimeSeriesResponse {
+
+    private TimeBucket bucket;
+
+    /**
+     * "category", "source" or null when the series is not broken down
+     */
+    private String groupBy;
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    /**
+     * One point per bucket in order, including buckets with no activity
+     */
+    private List<TimeSeriesPoint> points;
+}
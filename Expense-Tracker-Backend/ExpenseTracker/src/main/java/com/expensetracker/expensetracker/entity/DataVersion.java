@@ -0,0 +1,26 @@
+package com.expensetracker.expensetracker.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Version of one user's ledger data, bumped by every expense or income write
+ */
+@Entity
+@Table(name = "data_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DataVersion {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long version;
+}
@@ -0,0 +1,22 @@
+package com.expensetracker.expensetracker.entity;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One word of one expense or income description, the unit of the description search index
+ */
+@Entity
+@Table(name = "description_terms")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DescriptionTerm {
+
+    @EmbeddedId
+    private DescriptionTermId id;
+}
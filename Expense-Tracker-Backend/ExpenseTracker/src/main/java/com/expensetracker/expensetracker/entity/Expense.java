@@ -14,7 +14,12 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "expenses")
+@Table(name = "expenses", indexes = {
+    @Index(name = "idx_expenses_user_date_id", columnList = "user_id, date_of_expense, id"),
+    @Index(name = "idx_expenses_user_category_date", columnList = "user_id, category, date_of_expense"),
+    @Index(name = "idx_expenses_user_amount", columnList = "user_id, amount"),
+    @Index(name = "idx_expenses_content_hash", columnList = "content_hash, user_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -23,8 +28,11 @@ import java.time.LocalDateTime;
 @ToString(exclude = {"user"})
 public class Expense {
 
+    // Pooled ids are assigned without a round trip per row, which lets Hibernate batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "expense_ids")
+    @TableGenerator(name = "expense_ids", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "expenses", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -44,6 +52,10 @@ public class Expense {
     @Column(name = "date_of_expense", nullable = false)
     private LocalDate dateOfExpense;
 
+    // Maintained on every write; statement imports use it to skip rows already present
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -54,11 +66,13 @@ public class Expense {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        contentHash = LedgerContentHash.of(dateOfExpense, amount, description);
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        contentHash = LedgerContentHash.of(dateOfExpense, amount, description);
     }
 }
 
@@ -0,0 +1,32 @@
+package com.expensetracker.expensetracker.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Quantile sketch of one user's expense amounts for a single category and calendar month, in
+ * the encoding of AmountSketch
+ */
+@Entity
+@Table(name = "expense_sketches")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExpenseSketch {
+
+    /**
+     * Upper bound on an encoded sketch; a month spanning every amount from a cent to a trillion
+     * needs about 3 KB
+     */
+    public static final int MAX_BYTES = 16384;
+
+    @EmbeddedId
+    private ExpenseSketchId id;
+
+    @Column(nullable = false, length = MAX_BYTES)
+    private byte[] sketch;
+}
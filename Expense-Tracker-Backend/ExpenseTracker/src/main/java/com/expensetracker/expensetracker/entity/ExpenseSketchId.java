@@ -0,0 +1,31 @@
+package com.expensetracker.expensetracker.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseSketchId implements Serializable {
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * Expense category name
+     */
+    @Column(nullable = false, length = 32)
+    private String category;
+
+    /**
+     * Calendar month as year * 100 + month, e.g. 202403
+     */
+    @Column(name = "month_key", nullable = false)
+    private Integer monthKey;
+}
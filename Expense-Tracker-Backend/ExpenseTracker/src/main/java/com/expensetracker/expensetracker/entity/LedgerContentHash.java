@@ -0,0 +1,33 @@
+package com.expensetracker.expensetracker.entity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Content fingerprint of a ledger row: SHA-256 over the date, the amount at two decimal places
+ * and the description with case and whitespace runs normalized. Rows with equal hashes are
+ * treated as the same transaction when a bank statement is imported again.
+ */
+public final class LedgerContentHash {
+
+    private LedgerContentHash() {
+    }
+
+    public static String of(LocalDate date, BigDecimal amount, String description) {
+        String canonical = date + "|"
+                + amount.setScale(2, RoundingMode.HALF_UP).toPlainString() + "|"
+                + description.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
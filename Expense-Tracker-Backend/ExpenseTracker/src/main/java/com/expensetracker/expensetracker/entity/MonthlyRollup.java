@@ -0,0 +1,30 @@
+package com.expensetracker.expensetracker.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Running total of one user's expenses or incomes for a single bucket and calendar month
+ */
+@Entity
+@Table(name = "monthly_rollups")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MonthlyRollup {
+
+    @EmbeddedId
+    private MonthlyRollupId id;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "entry_count", nullable = false)
+    private Long entryCount;
+}
@@ -0,0 +1,38 @@
+package com.expensetracker.expensetracker.entity;
+
+import com.expensetracker.expensetracker.enums.LedgerType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyRollupId implements Serializable {
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LedgerType ledger;
+
+    /**
+     * Expense category or income source name
+     */
+    @Column(nullable = false, length = 32)
+    private String bucket;
+
+    /**
+     * Calendar month as year * 100 + month, e.g. 202403
+     */
+    @Column(name = "month_key", nullable = false)
+    private Integer monthKey;
+}
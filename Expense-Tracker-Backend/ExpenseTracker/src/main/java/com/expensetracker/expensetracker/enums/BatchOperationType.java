@@ -0,0 +1,7 @@
+package com.expensetracker.expensetracker.enums;
+
+public enum BatchOperationType {
+    CREATE,
+    UPDATE,
+    DELETE
+}
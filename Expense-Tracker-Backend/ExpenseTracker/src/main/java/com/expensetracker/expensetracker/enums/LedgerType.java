@@ -0,0 +1,6 @@
+package com.expensetracker.expensetracker.enums;
+
+public enum LedgerType {
+    EXPENSE,
+    INCOME
+}
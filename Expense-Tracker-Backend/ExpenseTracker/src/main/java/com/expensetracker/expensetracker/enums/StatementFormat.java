@@ -0,0 +1,38 @@
+package com.expensetracker.expensetracker.enums;
+
+import com.expensetracker.expensetracker.exception.BadRequestException;
+
+import java.util.Locale;
+
+public enum StatementFormat {
+    CSV("csv"),
+    // OFX 1.x (SGML) and 2.x (XML), also exported as QFX
+    OFX("ofx");
+
+    private final String extension;
+
+    StatementFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Resolve a case-insensitive format name from a request parameter, or from the file
+     * extension when no format is given
+     */
+    public static StatementFormat from(String value, String filename) {
+        if (value == null && filename != null) {
+            String lower = filename.toLowerCase(Locale.ROOT);
+            value = lower.endsWith(".ofx") || lower.endsWith(".qfx") ? OFX.name() : CSV.name();
+        }
+        for (StatementFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new BadRequestException("Unsupported statement format: " + value);
+    }
+}
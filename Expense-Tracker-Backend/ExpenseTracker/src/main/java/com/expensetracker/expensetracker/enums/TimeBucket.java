@@ -0,0 +1,47 @@
+package com.expensetracker.expensetracker.enums;
+
+import com.expensetracker.expensetracker.exception.BadRequestException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+public enum TimeBucket {
+    DAY,
+    WEEK,
+    MONTH;
+
+    /**
+     * First day of the bucket containing the date. Weeks start on Monday.
+     */
+    public LocalDate periodStart(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    /**
+     * First day of the bucket that follows the one starting at periodStart
+     */
+    public LocalDate nextPeriodStart(LocalDate periodStart) {
+        return switch (this) {
+            case DAY -> periodStart.plusDays(1);
+            case WEEK -> periodStart.plusWeeks(1);
+            case MONTH -> periodStart.plusMonths(1);
+        };
+    }
+
+    /**
+     * Resolve a case-insensitive bucket name from a request parameter
+     */
+    public static TimeBucket from(String value) {
+        for (TimeBucket bucket : values()) {
+            if (bucket.name().equalsIgnoreCase(value)) {
+                return bucket;
+            }
+        }
+        throw new BadRequestException("Unsupported bucket: " + value);
+    }
+}
@@ -0,0 +1,9 @@
+package com.expensetracker.expensetracker.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Lifetime total of one category or source, read from the monthly rollups
+ */
+public record BucketTotal(String bucket, BigDecimal totalAmount) {
+}
@@ -0,0 +1,7 @@
+package com.expensetracker.expensetracker.repository;
+
+/**
+ * Number of a user's ledger rows sharing one content hash
+ */
+public record ContentHashCount(String contentHash, Long entryCount) {
+}
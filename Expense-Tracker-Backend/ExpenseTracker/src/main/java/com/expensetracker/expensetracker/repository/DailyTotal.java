@@ -0,0 +1,14 @@
+package com.expensetracker.expensetracker.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sum of one user's ledger rows for a single day, optionally split by category or source
+ */
+public record DailyTotal(LocalDate date, Enum<?> bucket, BigDecimal totalAmount) {
+
+    public DailyTotal(LocalDate date, BigDecimal totalAmount) {
+        this(date, null, totalAmount);
+    }
+}
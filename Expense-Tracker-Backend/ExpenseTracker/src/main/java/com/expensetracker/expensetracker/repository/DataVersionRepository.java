@@ -0,0 +1,33 @@
+package com.expensetracker.expensetracker.repository;
+
+import com.expensetracker.expensetracker.entity.DataVersion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DataVersionRepository extends JpaRepository<DataVersion, Long> {
+
+    /**
+     * Bump the user's data version, creating its row on the first write. A single upsert keeps
+     * concurrent writers from losing a bump. The query space tells Hibernate the statement only
+     * touches data_versions, so it neither flushes nor invalidates anything else.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO data_versions (user_id, version) VALUES (:userId, 1) " +
+                   "ON DUPLICATE KEY UPDATE version = version + 1",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "data_versions"))
+    void increment(@Param("userId") Long userId);
+
+    /**
+     * Read the user's data version, or null before the first ledger write
+     */
+    @Query("SELECT d.version FROM DataVersion d WHERE d.userId = :userId")
+    Long findVersion(@Param("userId") Long userId);
+}
@@ -0,0 +1,38 @@
+package com.expensetracker.expensetracker.repository;
+
+import com.expensetracker.expensetracker.dto.response.ExpenseResponse;
+import com.expensetracker.expensetracker.entity.Expense;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Read-only expense queries that project rows directly into ExpenseResponse instead of
+ * loading managed entities
+ */
+public interface ExpenseProjectionRepository {
+
+    /**
+     * Find expenses matching the specification, projected into responses
+     */
+    List<ExpenseResponse> findResponses(Specification<Expense> specification, Sort sort);
+
+    /**
+     * Stream expenses matching the specification, projected into responses. Rows are fetched from
+     * the driver in batches, so the caller must consume and close the stream inside a transaction.
+     */
+    Stream<ExpenseResponse> streamResponses(Specification<Expense> specification, Sort sort);
+
+    /**
+     * Find one page of expenses matching the specification, best description match first: rows
+     * whose words equal more of the terms (rather than merely starting with them) rank higher,
+     * then newest first. A page after a cursor starts right after its (rank, date, id), or at the
+     * top when afterRank is null.
+     */
+    List<ExpenseResponse> findRankedResponses(Specification<Expense> specification, Long userId,
+                                             List<String> terms, Long afterRank, LocalDate afterDate,
+                                             Long afterId, int limit);
+}
@@ -1,132 +1,156 @@
 package com.expensetracker.expensetracker.repository;
 
+import com.expensetracker.expensetracker.dto.response.ExpenseResponse;
 import com.expensetracker.expensetracker.entity.Expense;
 import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ExpenseRepository extends JpaRepository<Expense, Long> {
+public interface ExpenseRepository extends JpaRepository<Expense, Long>, JpaSpecificationExecutor<Expense>,
+        ExpenseProjectionRepository {
 
     /**
-     * Find all expenses for a specific user
+     * Find all expenses for a specific user, projected straight into responses
      */
-    List<Expense> findByUserId(Long userId);
+    @Query("SELECT new com.expensetracker.expensetracker.dto.response.ExpenseResponse(" +
+           "e.id, e.description, e.category, e.amount, e.dateOfExpense) " +
+           "FROM Expense e WHERE e.user.id = :userId")
+    List<ExpenseResponse> findResponsesByUserId(@Param("userId") Long userId, Sort sort);
 
     /**
-     * Find expenses by user ID and category
+     * Find expense by ID, only if it belongs to the user
      */
-    List<Expense> findByUserIdAndCategory(Long userId, ExpenseCategory category);
+    Optional<Expense> findByIdAndUserId(Long id, Long userId);
 
     /**
-     * Find expenses by user ID within a date range
+     * Find the user's expenses among the given IDs, in ID order; others' expenses are left out
      */
-    List<Expense> findByUserIdAndDateOfExpenseBetween(Long userId, LocalDate startDate, LocalDate endDate);
+    List<Expense> findByUserIdAndIdInOrderByIdAsc(Long userId, Collection<Long> ids);
 
     /**
-     * Find expenses by user ID within an amount range
+     * Find a single expense owned by the user, projected straight into a response
      */
-    List<Expense> findByUserIdAndAmountBetween(Long userId, BigDecimal minAmount, BigDecimal maxAmount);
+    @Query("SELECT new com.expensetracker.expensetracker.dto.response.ExpenseResponse(" +
+           "e.id, e.description, e.category, e.amount, e.dateOfExpense) " +
+           "FROM Expense e WHERE e.id = :id AND e.user.id = :userId")
+    Optional<ExpenseResponse> findResponseByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
 
     /**
-     * Find expenses by user ID, category, and date range
+     * Fetch the first keyset page of a user's expenses, newest first
      */
-    List<Expense> findByUserIdAndCategoryAndDateOfExpenseBetween(
-            Long userId, 
-            ExpenseCategory category, 
-            LocalDate startDate, 
-            LocalDate endDate
-    );
+    @Query("SELECT new com.expensetracker.expensetracker.dto.response.ExpenseResponse(" +
+           "e.id, e.description, e.category, e.amount, e.dateOfExpense) " +
+           "FROM Expense e WHERE e.user.id = :userId " +
+           "ORDER BY e.dateOfExpense DESC, e.id DESC")
+    List<ExpenseResponse> findFirstPageByUserId(@Param("userId") Long userId, Limit limit);
 
     /**
-     * Find expenses by user ID, category, and amount range
+     * Fetch the keyset page of a user's expenses that follows the given (date, id) cursor
      */
-    List<Expense> findByUserIdAndCategoryAndAmountBetween(
-            Long userId, 
-            ExpenseCategory category, 
-            BigDecimal minAmount, 
-            BigDecimal maxAmount
+    @Query("SELECT new com.expensetracker.expensetracker.dto.response.ExpenseResponse(" +
+           "e.id, e.description, e.category, e.amount, e.dateOfExpense) " +
+           "FROM Expense e WHERE e.user.id = :userId " +
+           "AND (e.dateOfExpense < :afterDate OR (e.dateOfExpense = :afterDate AND e.id < :afterId)) " +
+           "ORDER BY e.dateOfExpense DESC, e.id DESC")
+    List<ExpenseResponse> findPageByUserIdAfter(
+            @Param("userId") Long userId,
+            @Param("afterDate") LocalDate afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit
     );
 
     /**
-     * Find expenses by user ID, date range, and amount range
+     * Calculate total expense amount for a user
      */
-    List<Expense> findByUserIdAndDateOfExpenseBetweenAndAmountBetween(
-            Long userId, 
-            LocalDate startDate, 
-            LocalDate endDate, 
-            BigDecimal minAmount, 
-            BigDecimal maxAmount
-    );
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM Expense e WHERE e.user.id = :userId")
+    BigDecimal calculateTotalExpenseByUserId(@Param("userId") Long userId);
 
     /**
-     * Find expenses by user ID with all filters (category, date range, amount range)
+     * Calculate total expense amount for a user within date range
      */
-    List<Expense> findByUserIdAndCategoryAndDateOfExpenseBetweenAndAmountBetween(
-            Long userId, 
-            ExpenseCategory category, 
-            LocalDate startDate, 
-            LocalDate endDate, 
-            BigDecimal minAmount, 
-            BigDecimal maxAmount
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM Expense e WHERE e.user.id = :userId " +
+           "AND e.dateOfExpense BETWEEN :startDate AND :endDate")
+    BigDecimal calculateTotalExpenseByUserIdAndDateRange(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
     );
 
     /**
-     * Find expenses by user ID, sorted by amount (ascending)
-     */
-    List<Expense> findByUserIdOrderByAmountAsc(Long userId);
-
-    /**
-     * Find expenses by user ID, sorted by amount (descending)
-     */
-    List<Expense> findByUserIdOrderByAmountDesc(Long userId);
-
-    /**
-     * Find expenses by user ID, sorted by date (ascending)
-     */
-    List<Expense> findByUserIdOrderByDateOfExpenseAsc(Long userId);
-
-    /**
-     * Find expenses by user ID, sorted by date (descending)
+     * Sum a user's expenses per day within a date range
      */
-    List<Expense> findByUserIdOrderByDateOfExpenseDesc(Long userId);
-
-    /**
-     * Find expenses by user ID, sorted by category (ascending)
-     */
-    List<Expense> findByUserIdOrderByCategoryAsc(Long userId);
+    @Query("SELECT new com.expensetracker.expensetracker.repository.DailyTotal(e.dateOfExpense, SUM(e.amount)) " +
+           "FROM Expense e WHERE e.user.id = :userId " +
+           "AND e.dateOfExpense BETWEEN :startDate AND :endDate " +
+           "GROUP BY e.dateOfExpense")
+    List<DailyTotal> summarizeDailyByUserIdAndDateRange(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
 
     /**
-     * Find expenses by user ID, sorted by category (descending)
+     * Sum a user's expenses per day and category within a date range
      */
-    List<Expense> findByUserIdOrderByCategoryDesc(Long userId);
+    @Query("SELECT new com.expensetracker.expensetracker.repository.DailyTotal(e.dateOfExpense, e.category, SUM(e.amount)) " +
+           "FROM Expense e WHERE e.user.id = :userId " +
+           "AND e.dateOfExpense BETWEEN :startDate AND :endDate " +
+           "GROUP BY e.dateOfExpense, e.category")
+    List<DailyTotal> summarizeDailyPerCategory(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
 
     /**
-     * Calculate total expense amount for a user
+     * Sum a user's expenses per category and calendar month straight from the raw rows
      */
-    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM Expense e WHERE e.user.id = :userId")
-    BigDecimal calculateTotalExpenseByUserId(@Param("userId") Long userId);
+    @Query("SELECT new com.expensetracker.expensetracker.repository.MonthlyTotal(" +
+           "e.category, YEAR(e.dateOfExpense) * 100 + MONTH(e.dateOfExpense), SUM(e.amount), COUNT(e)) " +
+           "FROM Expense e WHERE e.user.id = :userId " +
+           "GROUP BY e.category, YEAR(e.dateOfExpense) * 100 + MONTH(e.dateOfExpense)")
+    List<MonthlyTotal> summarizeMonthlyByUserId(@Param("userId") Long userId);
 
     /**
-     * Calculate total expense amount for a user within date range
+     * Fetch a user's expenses in one category and date range that exceed an amount, largest first
      */
-    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM Expense e WHERE e.user.id = :userId " +
-           "AND e.dateOfExpense BETWEEN :startDate AND :endDate")
-    BigDecimal calculateTotalExpenseByUserIdAndDateRange(
+    @Query("SELECT new com.expensetracker.expensetracker.dto.response.ExpenseResponse(" +
+           "e.id, e.description, e.category, e.amount, e.dateOfExpense) " +
+           "FROM Expense e WHERE e.user.id = :userId AND e.category = :category " +
+           "AND e.dateOfExpense BETWEEN :startDate AND :endDate AND e.amount > :threshold " +
+           "ORDER BY e.amount DESC, e.id DESC")
+    List<ExpenseResponse> findLargestAbove(
             @Param("userId") Long userId,
+            @Param("category") ExpenseCategory category,
             @Param("startDate") LocalDate startDate,
-            @Param("endDate") LocalDate endDate
+            @Param("endDate") LocalDate endDate,
+            @Param("threshold") BigDecimal threshold,
+            Limit limit
     );
 
     /**
      * Count expenses by user ID
      */
     long countByUserId(Long userId);
+
+    /**
+     * Count a user's expenses per content hash, for the given hashes only
+     */
+    @Query("SELECT new com.expensetracker.expensetracker.repository.ContentHashCount(e.contentHash, COUNT(e)) " +
+           "FROM Expense e WHERE e.contentHash IN :hashes AND e.user.id = :userId " +
+           "GROUP BY e.contentHash")
+    List<ContentHashCount> countByContentHash(@Param("userId") Long userId, @Param("hashes") Collection<String> hashes);
 }
 
@@ -0,0 +1,70 @@
+package com.expensetracker.expensetracker.repository;
+
+import com.expensetracker.expensetracker.entity.ExpenseSketch;
+import com.expensetracker.expensetracker.entity.ExpenseSketchId;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ExpenseSketchRepository extends JpaRepository<ExpenseSketch, ExpenseSketchId> {
+
+    /**
+     * Create an empty sketch row unless one exists, so the row can then be locked and updated.
+     * Concurrent writers to a new month both succeed here and serialize on the lock that follows.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO expense_sketches (user_id, category, month_key, sketch) " +
+                   "VALUES (:userId, :category, :monthKey, :sketch) " +
+                   "ON DUPLICATE KEY UPDATE user_id = user_id",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "expense_sketches"))
+    void insertIfAbsent(
+            @Param("userId") Long userId,
+            @Param("category") String category,
+            @Param("monthKey") int monthKey,
+            @Param("sketch") byte[] sketch
+    );
+
+    /**
+     * Load a sketch row and hold its lock until the transaction ends
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ExpenseSketch s WHERE s.id = :id")
+    Optional<ExpenseSketch> findForUpdate(@Param("id") ExpenseSketchId id);
+
+    /**
+     * Find a user's sketches within an inclusive month key range, oldest month first
+     */
+    @Query("SELECT s FROM ExpenseSketch s WHERE s.id.userId = :userId " +
+           "AND s.id.monthKey BETWEEN :fromMonth AND :toMonth " +
+           "ORDER BY s.id.monthKey, s.id.category")
+    List<ExpenseSketch> findByUserIdAndMonthKeyBetween(
+            @Param("userId") Long userId,
+            @Param("fromMonth") int fromMonth,
+            @Param("toMonth") int toMonth
+    );
+
+    /**
+     * Find every sketch row for a user
+     */
+    @Query("SELECT s FROM ExpenseSketch s WHERE s.id.userId = :userId")
+    List<ExpenseSketch> findByUserId(@Param("userId") Long userId);
+
+    /**
+     * Remove every sketch row for a user
+     */
+    @Modifying
+    @Query("DELETE FROM ExpenseSketch s WHERE s.id.userId = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+}
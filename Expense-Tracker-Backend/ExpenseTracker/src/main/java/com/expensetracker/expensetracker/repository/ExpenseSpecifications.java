@@ -0,0 +1,93 @@
+package com.expensetracker.expensetracker.repository;
+
+import com.expensetracker.expensetracker.dto.request.FilterRequest;
+import com.expensetracker.expensetracker.entity.DescriptionTerm;
+import com.expensetracker.expensetracker.entity.Expense;
+import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import com.expensetracker.expensetracker.enums.LedgerType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Composable predicates for Expense queries. Every filter is pushed to the database as one
+ * WHERE clause that always starts with the owning user, so any combination stays on the
+ * per-user indexes.
+ */
+public final class ExpenseSpecifications {
+
+    private ExpenseSpecifications() {
+    }
+
+    public static Specification<Expense> belongsTo(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<Expense> hasCategory(ExpenseCategory category) {
+        return (root, query, cb) -> cb.equal(root.get("category"), category);
+    }
+
+    public static Specification<Expense> dateOnOrAfter(LocalDate startDate) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("dateOfExpense"), startDate);
+    }
+
+    public static Specification<Expense> dateOnOrBefore(LocalDate endDate) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("dateOfExpense"), endDate);
+    }
+
+    public static Specification<Expense> amountAtLeast(BigDecimal minAmount) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("amount"), minAmount);
+    }
+
+    public static Specification<Expense> amountAtMost(BigDecimal maxAmount) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("amount"), maxAmount);
+    }
+
+    /**
+     * Description contains a word starting with the term, looked up in the description index
+     * rather than by scanning descriptions
+     */
+    public static Specification<Expense> descriptionHasWordStartingWith(Long userId, String term) {
+        return (root, query, cb) -> {
+            Subquery<Long> entries = query.subquery(Long.class);
+            Root<DescriptionTerm> indexed = entries.from(DescriptionTerm.class);
+            entries.select(indexed.get("id").get("entryId"))
+                    .where(cb.equal(indexed.get("id").get("userId"), userId),
+                            cb.equal(indexed.get("id").get("ledger"), LedgerType.EXPENSE),
+                            cb.like(indexed.get("id").<String>get("term"), term + "%"));
+            return root.get("id").in(entries);
+        };
+    }
+
+    /**
+     * Combine the user scope with every non-null field of the filter. Ranges may be open on
+     * either side.
+     */
+    public static Specification<Expense> matching(Long userId, FilterRequest filter) {
+        List<Specification<Expense>> specs = new ArrayList<>();
+        specs.add(belongsTo(userId));
+
+        if (filter.getCategory() != null) {
+            specs.add(hasCategory(filter.getCategory()));
+        }
+        if (filter.getStartDate() != null) {
+            specs.add(dateOnOrAfter(filter.getStartDate()));
+        }
+        if (filter.getEndDate() != null) {
+            specs.add(dateOnOrBefore(filter.getEndDate()));
+        }
+        if (filter.getMinAmount() != null) {
+            specs.add(amountAtLeast(filter.getMinAmount()));
+        }
+        if (filter.getMaxAmount() != null) {
+            specs.add(amountAtMost(filter.getMaxAmount()));
+        }
+
+        return Specification.allOf(specs);
+    }
+}
@@ -0,0 +1,38 @@
+package com.expensetracker.expensetracker.repository;
+
+import com.expensetracker.expensetracker.dto.response.IncomeResponse;
+import com.expensetracker.expensetracker.entity.Income;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Read-only income queries that project rows directly into IncomeResponse instead of
+ * loading managed entities
+ */
+public interface IncomeProjectionRepository {
+
+    /**
+     * Find incomes matching the specification, projected into responses
+     */
+    List<IncomeResponse> findResponses(Specification<Income> specification, Sort sort);
+
+    /**
+     * Stream incomes matching the specification, projected into responses. Rows are fetched from
+     * the driver in batches, so the caller must consume and close the stream inside a transaction.
+     */
+    Stream<IncomeResponse> streamResponses(Specification<Income> specification, Sort sort);
+
+    /**
+     * Find one page of incomes matching the specification, best description match first: rows
+     * whose words equal more of the terms (rather than merely starting with them) rank higher,
+     * then newest first. A page after a cursor starts right after its (rank, date, id), or at the
+     * top when afterRank is null.
+     */
+    List<IncomeResponse> findRankedResponses(Specification<Income> specification, Long userId,
+                                             List<String> terms, Long afterRank, LocalDate afterDate,
+                                             Long afterId, int limit);
+}
@@ -0,0 +1,103 @@
+package com.expensetracker.expensetracker.repository;
+
+import com.expensetracker.expensetracker.dto.response.IncomeResponse;
+import com.expensetracker.expensetracker.entity.DescriptionTerm;
+import com.expensetracker.expensetracker.entity.Income;
+import com.expensetracker.expensetracker.enums.LedgerType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class IncomeProjectionRepositoryImpl implements IncomeProjectionRepository {
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<IncomeResponse> findResponses(Specification<Income> specification, Sort sort) {
+        return createQuery(specification, sort).getResultList();
+    }
+
+    @Override
+    public Stream<IncomeResponse> streamResponses(Specification<Income> specification, Sort sort) {
+        return createQuery(specification, sort)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    public List<IncomeResponse> findRankedResponses(Specification<Income> specification, Long userId,
+                                                    List<String> terms, Long afterRank, LocalDate afterDate,
+                                                    Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<IncomeResponse> query = cb.createQuery(IncomeResponse.class);
+        Root<Income> root = query.from(Income.class);
+
+        // Rank: how many query terms are whole words of the description
+        Subquery<Long> rank = query.subquery(Long.class);
+        Root<DescriptionTerm> indexed = rank.from(DescriptionTerm.class);
+        rank.select(cb.count(indexed))
+                .where(cb.equal(indexed.get("id").get("userId"), userId),
+                        cb.equal(indexed.get("id").get("ledger"), LedgerType.INCOME),
+                        cb.equal(indexed.get("id").get("entryId"), root.get("id")),
+                        indexed.get("id").get("term").in(terms));
+        Path<LocalDate> date = root.get("dateOfIncome");
+        Path<Long> id = root.get("id");
+
+        Predicate where = specification.toPredicate(root, query, cb);
+        if (afterRank != null) {
+            // Keyset on (rank, date, id), all descending: the rows after the cursor's row
+            where = cb.and(where, cb.or(
+                    cb.lessThan(rank, afterRank),
+                    cb.and(cb.equal(rank, afterRank), cb.lessThan(date, afterDate)),
+                    cb.and(cb.equal(rank, afterRank), cb.equal(date, afterDate), cb.lessThan(id, afterId))));
+        }
+
+        query.select(select(cb, root));
+        query.where(where);
+        query.orderBy(cb.desc(rank), cb.desc(date), cb.desc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private TypedQuery<IncomeResponse> createQuery(Specification<Income> specification, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<IncomeResponse> query = cb.createQuery(IncomeResponse.class);
+        Root<Income> root = query.from(Income.class);
+
+        query.select(select(cb, root));
+        query.where(specification.toPredicate(root, query, cb));
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        return entityManager.createQuery(query);
+    }
+
+    private static CompoundSelection<IncomeResponse> select(CriteriaBuilder cb, Root<Income> root) {
+        return cb.construct(IncomeResponse.class,
+                root.get("id"),
+                root.get("description"),
+                root.get("source"),
+                root.get("amount"),
+                root.get("dateOfIncome"));
+    }
+}
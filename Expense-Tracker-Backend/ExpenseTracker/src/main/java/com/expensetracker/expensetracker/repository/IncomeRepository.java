@@ -1,112 +1,75 @@
 package com.expensetracker.expensetracker.repository;
 
+import com.expensetracker.expensetracker.dto.response.IncomeResponse;
 import com.expensetracker.expensetracker.entity.Income;
-import com.expensetracker.expensetracker.enums.IncomeSource;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface IncomeRepository extends JpaRepository<Income, Long> {
+public interface IncomeRepository extends JpaRepository<Income, Long>, JpaSpecificationExecutor<Income>,
+        IncomeProjectionRepository {
 
     /**
-     * Find all incomes for a specific user
+     * Find all incomes for a specific user, projected straight into responses
      */
-    List<Income> findByUserId(Long userId);
+    @Query("SELECT new com.expensetracker.expensetracker.dto.response.IncomeResponse(" +
+           "i.id, i.description, i.source, i.amount, i.dateOfIncome) " +
+           "FROM Income i WHERE i.user.id = :userId")
+    List<IncomeResponse> findResponsesByUserId(@Param("userId") Long userId, Sort sort);
 
     /**
-     * Find incomes by user ID and source
+     * Find income by ID, only if it belongs to the user
      */
-    List<Income> findByUserIdAndSource(Long userId, IncomeSource source);
+    Optional<Income> findByIdAndUserId(Long id, Long userId);
 
     /**
-     * Find incomes by user ID within a date range
+     * Find the user's incomes among the given IDs, in ID order; others' incomes are left out
      */
-    List<Income> findByUserIdAndDateOfIncomeBetween(Long userId, LocalDate startDate, LocalDate endDate);
+    List<Income> findByUserIdAndIdInOrderByIdAsc(Long userId, Collection<Long> ids);
 
     /**
-     * Find incomes by user ID within an amount range
+     * Find a single income owned by the user, projected straight into a response
      */
-    List<Income> findByUserIdAndAmountBetween(Long userId, BigDecimal minAmount, BigDecimal maxAmount);
+    @Query("SELECT new com.expensetracker.expensetracker.dto.response.IncomeResponse(" +
+           "i.id, i.description, i.source, i.amount, i.dateOfIncome) " +
+           "FROM Income i WHERE i.id = :id AND i.user.id = :userId")
+    Optional<IncomeResponse> findResponseByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
 
     /**
-     * Find incomes by user ID, source, and date range
+     * Fetch the first keyset page of a user's incomes, newest first
      */
-    List<Income> findByUserIdAndSourceAndDateOfIncomeBetween(
-            Long userId, 
-            IncomeSource source, 
-            LocalDate startDate, 
-            LocalDate endDate
-    );
-
-    /**
-     * Find incomes by user ID, source, and amount range
-     */
-    List<Income> findByUserIdAndSourceAndAmountBetween(
-            Long userId, 
-            IncomeSource source, 
-            BigDecimal minAmount, 
-            BigDecimal maxAmount
-    );
-
-    /**
-     * Find incomes by user ID, date range, and amount range
-     */
-    List<Income> findByUserIdAndDateOfIncomeBetweenAndAmountBetween(
-            Long userId, 
-            LocalDate startDate, 
-            LocalDate endDate, 
-            BigDecimal minAmount, 
-            BigDecimal maxAmount
-    );
+    @Query("SELECT new com.expensetracker.expensetracker.dto.response.IncomeResponse(" +
+           "i.id, i.description, i.source, i.amount, i.dateOfIncome) " +
+           "FROM Income i WHERE i.user.id = :userId " +
+           "ORDER BY i.dateOfIncome DESC, i.id DESC")
+    List<IncomeResponse> findFirstPageByUserId(@Param("userId") Long userId, Limit limit);
 
     /**
-     * Find incomes by user ID with all filters (source, date range, amount range)
+     * Fetch the keyset page of a user's incomes that follows the given (date, id) cursor
      */
-    List<Income> findByUserIdAndSourceAndDateOfIncomeBetweenAndAmountBetween(
-            Long userId, 
-            IncomeSource source, 
-            LocalDate startDate, 
-            LocalDate endDate, 
-            BigDecimal minAmount, 
-            BigDecimal maxAmount
+    @Query("SELECT new com.expensetracker.expensetracker.dto.response.IncomeResponse(" +
+           "i.id, i.description, i.source, i.amount, i.dateOfIncome) " +
+           "FROM Income i WHERE i.user.id = :userId " +
+           "AND (i.dateOfIncome < :afterDate OR (i.dateOfIncome = :afterDate AND i.id < :afterId)) " +
+           "ORDER BY i.dateOfIncome DESC, i.id DESC")
+    List<IncomeResponse> findPageByUserIdAfter(
+            @Param("userId") Long userId,
+            @Param("afterDate") LocalDate afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit
     );
 
-    /**
-     * Find incomes by user ID, sorted by amount (ascending)
-     */
-    List<Income> findByUserIdOrderByAmountAsc(Long userId);
-
-    /**
-     * Find incomes by user ID, sorted by amount (descending)
-     */
-    List<Income> findByUserIdOrderByAmountDesc(Long userId);
-
-    /**
-     * Find incomes by user ID, sorted by date (ascending)
-     */
-    List<Income> findByUserIdOrderByDateOfIncomeAsc(Long userId);
-
-    /**
-     * Find incomes by user ID, sorted by date (descending)
-     */
-    List<Income> findByUserIdOrderByDateOfIncomeDesc(Long userId);
-
-    /**
-     * Find incomes by user ID, sorted by source (ascending)
-     */
-    List<Income> findByUserIdOrderBySourceAsc(Long userId);
-
-    /**
-     * Find incomes by user ID, sorted by source (descending)
-     */
-    List<Income> findByUserIdOrderBySourceDesc(Long userId);
-
     /**
      * Calculate total income amount for a user
      */
@@ -124,9 +87,52 @@ public interface IncomeRepository extends JpaRepository<Income, Long> {
             @Param("endDate") LocalDate endDate
     );
 
+    /**
+     * Sum a user's incomes per day within a date range
+     */
+    @Query("SELECT new com.expensetracker.expensetracker.repository.DailyTotal(i.dateOfIncome, SUM(i.amount)) " +
+           "FROM Income i WHERE i.user.id = :userId " +
+           "AND i.dateOfIncome BETWEEN :startDate AND :endDate " +
+           "GROUP BY i.dateOfIncome")
+    List<DailyTotal> summarizeDailyByUserIdAndDateRange(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    /**
+     * Sum a user's incomes per day and source within a date range
+     */
+    @Query("SELECT new com.expensetracker.expensetracker.repository.DailyTotal(i.dateOfIncome, i.source, SUM(i.amount)) " +
+           "FROM Income i WHERE i.user.id = :userId " +
+           "AND i.dateOfIncome BETWEEN :startDate AND :endDate " +
+           "GROUP BY i.dateOfIncome, i.source")
+    List<DailyTotal> summarizeDailyPerSource(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    /**
+     * Sum a user's incomes per source and calendar month straight from the raw rows
+     */
+    @Query("SELECT new com.expensetracker.expensetracker.repository.MonthlyTotal(" +
+           "i.source, YEAR(i.dateOfIncome) * 100 + MONTH(i.dateOfIncome), SUM(i.amount), COUNT(i)) " +
+           "FROM Income i WHERE i.user.id = :userId " +
+           "GROUP BY i.source, YEAR(i.dateOfIncome) * 100 + MONTH(i.dateOfIncome)")
+    List<MonthlyTotal> summarizeMonthlyByUserId(@Param("userId") Long userId);
+
     /**
      * Count incomes by user ID
      */
     long countByUserId(Long userId);
+
+    /**
+     * Count a user's incomes per content hash, for the given hashes only
+     */
+    @Query("SELECT new com.expensetracker.expensetracker.repository.ContentHashCount(i.contentHash, COUNT(i)) " +
+           "FROM Income i WHERE i.contentHash IN :hashes AND i.user.id = :userId " +
+           "GROUP BY i.contentHash")
+    List<ContentHashCount> countByContentHash(@Param("userId") Long userId, @Param("hashes") Collection<String> hashes);
 }
 
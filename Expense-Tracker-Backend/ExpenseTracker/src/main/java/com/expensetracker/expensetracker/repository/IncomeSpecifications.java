@@ -0,0 +1,93 @@
+package com.expensetracker.expensetracker.repository;
+
+import com.expensetracker.expensetracker.dto.request.FilterRequest;
+import com.expensetracker.expensetracker.entity.DescriptionTerm;
+import com.expensetracker.expensetracker.entity.Income;
+import com.expensetracker.expensetracker.enums.IncomeSource;
+import com.expensetracker.expensetracker.enums.LedgerType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Composable predicates for Income queries. Every filter is pushed to the database as one
+ * WHERE clause that always starts with the owning user, so any combination stays on the
+ * per-user indexes.
+ */
+public final class IncomeSpecifications {
+
+    private IncomeSpecifications() {
+    }
+
+    public static Specification<Income> belongsTo(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<Income> hasSource(IncomeSource source) {
+        return (root, query, cb) -> cb.equal(root.get("source"), source);
+    }
+
+    public static Specification<Income> dateOnOrAfter(LocalDate startDate) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("dateOfIncome"), startDate);
+    }
+
+    public static Specification<Income> dateOnOrBefore(LocalDate endDate) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("dateOfIncome"), endDate);
+    }
+
+    public static Specification<Income> amountAtLeast(BigDecimal minAmount) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("amount"), minAmount);
+    }
+
+    public static Specification<Income> amountAtMost(BigDecimal maxAmount) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("amount"), maxAmount);
+    }
+
+    /**
+     * Description contains a word starting with the term, looked up in the description index
+     * rather than by scanning descriptions
+     */
+    public static Specification<Income> descriptionHasWordStartingWith(Long userId, String term) {
+        return (root, query, cb) -> {
+            Subquery<Long> entries = query.subquery(Long.class);
+            Root<DescriptionTerm> indexed = entries.from(DescriptionTerm.class);
+            entries.select(indexed.get("id").get("entryId"))
+                    .where(cb.equal(indexed.get("id").get("userId"), userId),
+                            cb.equal(indexed.get("id").get("ledger"), LedgerType.INCOME),
+                            cb.like(indexed.get("id").<String>get("term"), term + "%"));
+            return root.get("id").in(entries);
+        };
+    }
+
+    /**
+     * Combine the user scope with every non-null field of the filter. Ranges may be open on
+     * either side.
+     */
+    public static Specification<Income> matching(Long userId, FilterRequest filter) {
+        List<Specification<Income>> specs = new ArrayList<>();
+        specs.add(belongsTo(userId));
+
+        if (filter.getSource() != null) {
+            specs.add(hasSource(filter.getSource()));
+        }
+        if (filter.getStartDate() != null) {
+            specs.add(dateOnOrAfter(filter.getStartDate()));
+        }
+        if (filter.getEndDate() != null) {
+            specs.add(dateOnOrBefore(filter.getEndDate()));
+        }
+        if (filter.getMinAmount() != null) {
+            specs.add(amountAtLeast(filter.getMinAmount()));
+        }
+        if (filter.getMaxAmount() != null) {
+            specs.add(amountAtMost(filter.getMaxAmount()));
+        }
+
+        return Specification.allOf(specs);
+    }
+}
@@ -0,0 +1,10 @@
+package com.expensetracker.expensetracker.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Sum and count of one user's ledger rows for a bucket (category or source) and month key,
+ * computed from the raw rows
+ */
+public record MonthlyTotal(Enum<?> bucket, Integer monthKey, BigDecimal totalAmount, Long entryCount) {
+}
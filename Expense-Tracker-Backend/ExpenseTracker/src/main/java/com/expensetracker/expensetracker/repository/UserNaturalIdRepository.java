@@ -0,0 +1,17 @@
+package com.expensetracker.expensetracker.repository;
+
+import com.expensetracker.expensetracker.entity.User;
+
+import java.util.Optional;
+
+/**
+ * User lookups through Hibernate's natural-id API, which the second-level cache can answer
+ * without a query; a derived JPQL query would always hit the database
+ */
+public interface UserNaturalIdRepository {
+
+    /**
+     * Find user by username
+     */
+    Optional<User> findByUsername(String username);
+}
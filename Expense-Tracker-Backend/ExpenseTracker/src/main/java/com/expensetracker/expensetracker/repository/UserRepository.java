@@ -3,17 +3,14 @@ package com.expensetracker.expensetracker.repository;
 import com.expensetracker.expensetracker.entity.User;
 import com.expensetracker.expensetracker.enums.AuthProvider;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-
-    /**
-     * Find user by username
-     */
-    Optional<User> findByUsername(String username);
+public interface UserRepository extends JpaRepository<User, Long>, UserNaturalIdRepository {
 
     /**
      * Find user by email
@@ -40,5 +37,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * Check if OAuth2 user exists (by provider and provider ID)
      */
     boolean existsByProviderAndProviderId(AuthProvider provider, String providerId);
-}
 
+    /**
+     * List the ids of every user, for maintenance jobs that work user by user
+     */
+    @Query("SELECT u.id FROM User u ORDER BY u.id")
+    List<Long> findAllIds();
+}
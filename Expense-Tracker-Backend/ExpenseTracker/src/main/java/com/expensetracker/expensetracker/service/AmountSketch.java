@@ -0,0 +1,241 @@
+package com.expensetracker.expensetracker.service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch of amounts in cents. Amounts fall into logarithmic buckets whose
+ * bounds grow by a factor of (1 + a) / (1 - a), so any quantile read back is within a relative
+ * error a of the true one, plus half a cent of rounding, where a is RELATIVE_ACCURACY. Unlike
+ * t-digest or KLL the buckets are plain counters: two sketches merge by adding counts and an
+ * entry leaves by decrementing its bucket, which is what lets edits and deletes update a stored
+ * sketch in place. The exact entry count and sum are kept alongside.
+ */
+public final class AmountSketch {
+
+    /**
+     * Largest relative error of a quantile, e.g. 0.01 for 1%
+     */
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final byte FORMAT_VERSION = 1;
+
+    /**
+     * Bucket index of counts[0]
+     */
+    private int offset;
+    private long[] counts = new long[0];
+    /**
+     * Entries of zero cents or less, which have no logarithm
+     */
+    private long zeroCount;
+    private long count;
+    private long sumCents;
+
+    public void add(long cents) {
+        update(cents, 1);
+    }
+
+    /**
+     * Take out an entry that was added before. Also used on an empty sketch to collect pending
+     * removals, in which case counts go negative until it is merged into the stored one.
+     */
+    public void remove(long cents) {
+        update(cents, -1);
+    }
+
+    public void merge(AmountSketch other) {
+        if (other.counts.length > 0) {
+            ensureRange(other.offset, other.offset + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[other.offset - offset + i] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        sumCents = Math.addExact(sumCents, other.sumCents);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long sumCents() {
+        return sumCents;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * True when every counter is zero, i.e. merging this sketch would change nothing
+     */
+    public boolean isNoOp() {
+        if (count != 0 || sumCents != 0 || zeroCount != 0) {
+            return false;
+        }
+        for (long bucket : counts) {
+            if (bucket != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimate of the entry at rank floor(q * (count - 1)) in ascending order, in cents
+     *
+     * @throws IllegalStateException if the sketch is empty
+     */
+    public long quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("q must be between 0 and 1");
+        }
+        if (count <= 0) {
+            throw new IllegalStateException("empty sketch");
+        }
+        long rank = (long) Math.floor(q * (count - 1));
+        long seen = zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return valueOf(offset + i);
+            }
+        }
+        return valueOf(offset + counts.length - 1);
+    }
+
+    /**
+     * Compact form: a version byte, then variable-length integers for the zero bucket, count,
+     * sum, first bucket index and bucket counts. Empty buckets in between cost a byte each.
+     */
+    public byte[] toBytes() {
+        int first = 0;
+        int last = counts.length - 1;
+        while (first <= last && counts[first] == 0) {
+            first++;
+        }
+        while (last >= first && counts[last] == 0) {
+            last--;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + Math.max(0, last - first + 1));
+        out.write(FORMAT_VERSION);
+        writeSigned(out, zeroCount);
+        writeSigned(out, count);
+        writeSigned(out, sumCents);
+        writeSigned(out, offset + first);
+        writeSigned(out, last - first + 1);
+        for (int i = first; i <= last; i++) {
+            writeSigned(out, counts[i]);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a sketch in a known format
+     */
+    public static AmountSketch fromBytes(byte[] bytes) {
+        AmountSketch sketch = new AmountSketch();
+        if (bytes == null || bytes.length == 0) {
+            return sketch;
+        }
+        if (bytes[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown sketch format " + bytes[0]);
+        }
+        int[] position = {1};
+        sketch.zeroCount = readSigned(bytes, position);
+        sketch.count = readSigned(bytes, position);
+        sketch.sumCents = readSigned(bytes, position);
+        sketch.offset = Math.toIntExact(readSigned(bytes, position));
+        sketch.counts = new long[Math.toIntExact(readSigned(bytes, position))];
+        for (int i = 0; i < sketch.counts.length; i++) {
+            sketch.counts[i] = readSigned(bytes, position);
+        }
+        return sketch;
+    }
+
+    private void update(long cents, int delta) {
+        if (cents <= 0) {
+            zeroCount += delta;
+        } else {
+            int index = indexOf(cents);
+            ensureRange(index, index);
+            counts[index - offset] += delta;
+        }
+        count += delta;
+        sumCents = Math.addExact(sumCents, Math.multiplyExact(cents, (long) delta));
+    }
+
+    /**
+     * Grow the dense counter array to cover bucket indexes from..to
+     */
+    private void ensureRange(int from, int to) {
+        if (counts.length == 0) {
+            offset = from;
+            counts = new long[to - from + 1];
+            return;
+        }
+        int newOffset = Math.min(offset, from);
+        int newEnd = Math.max(offset + counts.length - 1, to);
+        if (newOffset == offset && newEnd == offset + counts.length - 1) {
+            return;
+        }
+        long[] grown = new long[newEnd - newOffset + 1];
+        System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+        counts = grown;
+        offset = newOffset;
+    }
+
+    /**
+     * Bucket i holds amounts in (GAMMA^(i-1), GAMMA^i]
+     */
+    private static int indexOf(long cents) {
+        return (int) Math.ceil(Math.log(cents) / LOG_GAMMA);
+    }
+
+    /**
+     * The point of bucket i within relative error RELATIVE_ACCURACY of both of its bounds
+     */
+    private static long valueOf(int index) {
+        return Math.round(2 * Math.pow(GAMMA, index) / (GAMMA + 1));
+    }
+
+    private static void writeSigned(ByteArrayOutputStream out, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+    }
+
+    private static long readSigned(byte[] bytes, int[] position) {
+        long zigzag = 0;
+        int shift = 0;
+        while (true) {
+            if (position[0] >= bytes.length || shift > 63) {
+                throw new IllegalArgumentException("Truncated sketch");
+            }
+            byte next = bytes[position[0]++];
+            zigzag |= (long) (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+                break;
+            }
+            shift += 7;
+        }
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    @Override
+    public String toString() {
+        return "AmountSketch{count=" + count + ", sumCents=" + sumCents
+                + ", offset=" + offset + ", counts=" + Arrays.toString(counts) + "}";
+    }
+}
@@ -117,6 +117,7 @@ public class AuthService implements UserDetailsService {
 
     public String generateJwtToken(User user) {
         return tokenProvider.generateToken(
+                user.getId(),
                 user.getUsername(),
                 user.getEmail(),
                 user.getAuthorities()
@@ -135,6 +136,23 @@ public class AuthService implements UserDetailsService {
                 .orElseThrow(() -> new UnauthorizedException("User not found"));
     }
 
+    /**
+     * ID of the authenticated user, read from the principal installed by the JWT filter so the
+     * users table is not touched. Falls back to a lookup for other principal types.
+     */
+    public Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new UnauthorizedException("User not authenticated");
+        }
+
+        if (authentication.getPrincipal() instanceof UserPrincipal principal && principal.getId() != null) {
+            return principal.getId();
+        }
+        return getCurrentUser().getId();
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByUsername(username)
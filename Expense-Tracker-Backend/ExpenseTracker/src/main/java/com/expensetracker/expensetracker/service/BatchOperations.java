@@ -0,0 +1,84 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.dto.request.BatchOperation;
+import com.expensetracker.expensetracker.dto.response.BatchItemResponse;
+import com.expensetracker.expensetracker.dto.response.BatchResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Checks shared by the expense and income batch endpoints. Field values are validated by bean
+ * validation before the request reaches the service; these cover what the annotations cannot.
+ */
+final class BatchOperations {
+
+    private BatchOperations() {
+    }
+
+    /**
+     * One error per operation, null where the operation is well formed: CREATE carries data and
+     * no id, UPDATE both, DELETE only an id, and no id is touched twice in one batch
+     */
+    static List<String> checkShape(List<? extends BatchOperation<?>> operations) {
+        List<String> errors = new ArrayList<>(operations.size());
+        Map<Long, Integer> firstUse = new HashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation<?> operation = operations.get(i);
+            String error = switch (operation.getOp()) {
+                case CREATE -> operation.getId() != null ? "CREATE must not carry an id"
+                        : operation.getData() == null ? "CREATE requires data" : null;
+                case UPDATE -> operation.getId() == null ? "UPDATE requires an id"
+                        : operation.getData() == null ? "UPDATE requires data" : null;
+                case DELETE -> operation.getId() == null ? "DELETE requires an id"
+                        : operation.getData() != null ? "DELETE must not carry data" : null;
+            };
+            if (error == null && operation.getId() != null) {
+                Integer first = firstUse.putIfAbsent(operation.getId(), i);
+                if (first != null) {
+                    error = "Id " + operation.getId() + " is already used by operation " + first;
+                }
+            }
+            errors.add(error);
+        }
+        return errors;
+    }
+
+    /**
+     * Ids of the entries the batch updates or deletes
+     */
+    static Set<Long> referencedIds(List<? extends BatchOperation<?>> operations) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (BatchOperation<?> operation : operations) {
+            if (operation.getId() != null) {
+                ids.add(operation.getId());
+            }
+        }
+        return ids;
+    }
+
+    static boolean hasErrors(List<String> errors) {
+        return errors.stream().anyMatch(Objects::nonNull);
+    }
+
+    /**
+     * Response for a batch that was not applied, listing the error of every rejected operation
+     */
+    static <T> BatchResponse<T> rejected(List<? extends BatchOperation<?>> operations, List<String> errors) {
+        List<BatchItemResponse<T>> results = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            results.add(BatchItemResponse.<T>builder()
+                    .index(i)
+                    .op(operations.get(i).getOp())
+                    .id(operations.get(i).getId())
+                    .error(errors.get(i))
+                    .build());
+        }
+        return BatchResponse.<T>builder().applied(false).results(results).build();
+    }
+}
@@ -0,0 +1,220 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.dto.request.ImportRequest;
+import com.expensetracker.expensetracker.exception.BadRequestException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams the rows of a bank CSV export. Columns are found by header name, either as given in
+ * the request or from the names banks commonly use, and the delimiter (comma, semicolon or tab)
+ * is detected from the header line. Quoted fields may contain delimiters, doubled quotes and
+ * line breaks, as in RFC 4180.
+ */
+class CsvStatementReader implements StatementReader {
+
+    private static final List<String> DATE_HEADERS = List.of(
+            "date", "transaction date", "posted date", "posting date", "booking date", "value date");
+    private static final List<String> DESCRIPTION_HEADERS = List.of(
+            "description", "transaction description", "memo", "payee", "details", "narrative", "name");
+    private static final List<String> AMOUNT_HEADERS = List.of("amount", "transaction amount");
+    private static final List<String> DEBIT_HEADERS = List.of(
+            "debit", "debit amount", "withdrawal", "withdrawals", "money out", "paid out");
+    private static final List<String> CREDIT_HEADERS = List.of(
+            "credit", "credit amount", "deposit", "deposits", "money in", "paid in");
+    private static final List<String> CATEGORY_HEADERS = List.of("category");
+
+    // Long enough for any header line; only used to sniff the delimiter
+    private static final int HEADER_PEEK_CHARS = 64 * 1024;
+
+    private final BufferedReader in;
+    private final DateTimeFormatter dateFormat;
+    private final char delimiter;
+    private final int dateIndex;
+    private final int descriptionIndex;
+    private final int amountIndex;
+    private final int debitIndex;
+    private final int creditIndex;
+    private final int categoryIndex;
+    private long line = 1;
+
+    CsvStatementReader(InputStream input, ImportRequest options) throws IOException {
+        this.in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.dateFormat = dateFormat(options.getDateFormat());
+        this.delimiter = detectDelimiter();
+
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new BadRequestException("The statement is empty");
+        }
+        for (int i = 0; i < header.size(); i++) {
+            // Excel prefixes UTF-8 exports with a byte order mark
+            header.set(i, header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT));
+        }
+
+        this.dateIndex = column(header, options.getDateColumn(), DATE_HEADERS, "date");
+        this.descriptionIndex = column(header, options.getDescriptionColumn(), DESCRIPTION_HEADERS, "description");
+        this.amountIndex = column(header, options.getAmountColumn(), AMOUNT_HEADERS, null);
+        this.debitIndex = column(header, options.getDebitColumn(), DEBIT_HEADERS, null);
+        this.creditIndex = column(header, options.getCreditColumn(), CREDIT_HEADERS, null);
+        this.categoryIndex = column(header, options.getCategoryColumn(), CATEGORY_HEADERS, null);
+        if (amountIndex < 0 && debitIndex < 0 && creditIndex < 0) {
+            throw new BadRequestException("No amount column found; name it with amountColumn, "
+                    + "or name the debitColumn and creditColumn");
+        }
+    }
+
+    @Override
+    public StatementRow next() throws IOException {
+        while (true) {
+            long startLine = line;
+            List<String> fields = readRecord();
+            if (fields == null) {
+                return null;
+            }
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            return new StatementRow(startLine, field(fields, dateIndex), field(fields, descriptionIndex),
+                    amount(fields), field(fields, categoryIndex));
+        }
+    }
+
+    @Override
+    public DateTimeFormatter dateFormat() {
+        return dateFormat;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * The signed amount, from the amount column or from separate debit and credit columns
+     */
+    private String amount(List<String> fields) {
+        if (amountIndex >= 0) {
+            return field(fields, amountIndex);
+        }
+        String debit = field(fields, debitIndex);
+        if (debit != null && !debit.isBlank()) {
+            // Some banks already sign their debit column
+            String unsigned = debit.trim();
+            return unsigned.startsWith("-") ? unsigned : "-" + unsigned;
+        }
+        return field(fields, creditIndex);
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index >= 0 && index < fields.size() ? fields.get(index) : null;
+    }
+
+    /**
+     * Read one record, or null at the end of the input
+     */
+    private List<String> readRecord() throws IOException {
+        int c = in.read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    int next = in.read();
+                    if (next != '"') {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                    field.append('"');
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Pick the most frequent candidate delimiter on the header line, then rewind
+     */
+    private char detectDelimiter() throws IOException {
+        in.mark(HEADER_PEEK_CHARS);
+        int commas = 0;
+        int semicolons = 0;
+        int tabs = 0;
+        for (int i = 0, c = in.read(); i < HEADER_PEEK_CHARS && c != -1 && c != '\n'; i++, c = in.read()) {
+            switch (c) {
+                case ',' -> commas++;
+                case ';' -> semicolons++;
+                case '\t' -> tabs++;
+                default -> {
+                }
+            }
+        }
+        in.reset();
+        if (tabs > commas && tabs > semicolons) {
+            return '\t';
+        }
+        return semicolons > commas ? ';' : ',';
+    }
+
+    private static int column(List<String> header, String requested, List<String> candidates, String required) {
+        if (requested != null && !requested.isBlank()) {
+            int index = header.indexOf(requested.trim().toLowerCase(Locale.ROOT));
+            if (index < 0) {
+                throw new BadRequestException("Column not found in the statement header: " + requested);
+            }
+            return index;
+        }
+        for (String candidate : candidates) {
+            int index = header.indexOf(candidate);
+            if (index >= 0) {
+                return index;
+            }
+        }
+        if (required != null) {
+            throw new BadRequestException("No " + required + " column found; name it with " + required + "Column");
+        }
+        return -1;
+    }
+
+    private static DateTimeFormatter dateFormat(String pattern) {
+        if (pattern == null || pattern.isBlank()) {
+            return DateTimeFormatter.ISO_LOCAL_DATE;
+        }
+        try {
+            return DateTimeFormatter.ofPattern(pattern, Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid dateFormat: " + pattern);
+        }
+    }
+}
@@ -1,67 +1,220 @@
 package com.expensetracker.expensetracker.service;
 
 import com.expensetracker.expensetracker.dto.response.PnLResponse;
-import com.expensetracker.expensetracker.entity.User;
+import com.expensetracker.expensetracker.dto.response.TimeSeriesPoint;
+import com.expensetracker.expensetracker.dto.response.TimeSeriesResponse;
+import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import com.expensetracker.expensetracker.enums.IncomeSource;
+import com.expensetracker.expensetracker.enums.LedgerType;
+import com.expensetracker.expensetracker.enums.TimeBucket;
+import com.expensetracker.expensetracker.exception.BadRequestException;
 import com.expensetracker.expensetracker.exception.UnauthorizedException;
+import com.expensetracker.expensetracker.repository.DailyTotal;
 import com.expensetracker.expensetracker.repository.ExpenseRepository;
 import com.expensetracker.expensetracker.repository.IncomeRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 public class DashboardService {
 
+    /**
+     * Upper bound on points in one time series, so a day bucket over decades is rejected
+     */
+    public static final int MAX_TIME_SERIES_POINTS = 1000;
+
+    private final MonthlyRollupService monthlyRollupService;
     private final IncomeRepository incomeRepository;
     private final ExpenseRepository expenseRepository;
     private final AuthService authService;
+    private final LedgerWorkingSet ledgerWorkingSet;
 
-    public DashboardService(IncomeRepository incomeRepository,
+    public DashboardService(MonthlyRollupService monthlyRollupService,
+                           IncomeRepository incomeRepository,
                            ExpenseRepository expenseRepository,
-                           AuthService authService) {
+                           AuthService authService,
+                           LedgerWorkingSet ledgerWorkingSet) {
+        this.monthlyRollupService = monthlyRollupService;
         this.incomeRepository = incomeRepository;
         this.expenseRepository = expenseRepository;
         this.authService = authService;
+        this.ledgerWorkingSet = ledgerWorkingSet;
     }
 
+    @Transactional(readOnly = true)
     public PnLResponse calculatePnL(Long userId) {
         // Verify user authorization
         verifyUserAuthorization(userId);
 
-        BigDecimal totalIncome = incomeRepository.calculateTotalIncomeByUserId(userId);
-        BigDecimal totalExpense = expenseRepository.calculateTotalExpenseByUserId(userId);
-        BigDecimal profitLoss = totalIncome.subtract(totalExpense);
+        LedgerWorkingSet.Snapshot snapshot = ledgerWorkingSet.snapshot(userId);
+        Money totalIncome = snapshot != null
+                ? snapshot.incomes().sum(null, null)
+                : Money.of(monthlyRollupService.total(userId, LedgerType.INCOME));
+        Money totalExpense = snapshot != null
+                ? snapshot.expenses().sum(null, null)
+                : Money.of(monthlyRollupService.total(userId, LedgerType.EXPENSE));
 
         return PnLResponse.builder()
-                .totalIncome(totalIncome)
-                .totalExpense(totalExpense)
-                .profitLoss(profitLoss)
+                .totalIncome(totalIncome.toBigDecimal())
+                .totalExpense(totalExpense.toBigDecimal())
+                .profitLoss(totalIncome.minus(totalExpense).toBigDecimal())
                 .build();
     }
 
+    @Transactional(readOnly = true)
     public PnLResponse calculatePnLByDateRange(Long userId, LocalDate startDate, LocalDate endDate) {
         // Verify user authorization
         verifyUserAuthorization(userId);
 
-        BigDecimal totalIncome = incomeRepository.calculateTotalIncomeByUserIdAndDateRange(
-                userId, startDate, endDate);
-        BigDecimal totalExpense = expenseRepository.calculateTotalExpenseByUserIdAndDateRange(
-                userId, startDate, endDate);
-        BigDecimal profitLoss = totalIncome.subtract(totalExpense);
+        LedgerWorkingSet.Snapshot snapshot = ledgerWorkingSet.snapshot(userId);
+        Money totalIncome = snapshot != null
+                ? snapshot.incomes().sum(startDate, endDate)
+                : Money.of(monthlyRollupService.total(userId, LedgerType.INCOME, startDate, endDate));
+        Money totalExpense = snapshot != null
+                ? snapshot.expenses().sum(startDate, endDate)
+                : Money.of(monthlyRollupService.total(userId, LedgerType.EXPENSE, startDate, endDate));
 
         return PnLResponse.builder()
-                .totalIncome(totalIncome)
-                .totalExpense(totalExpense)
-                .profitLoss(profitLoss)
+                .totalIncome(totalIncome.toBigDecimal())
+                .totalExpense(totalExpense.toBigDecimal())
+                .profitLoss(totalIncome.minus(totalExpense).toBigDecimal())
+                .startDate(startDate)
+                .endDate(endDate)
+                .build();
+    }
+
+    /**
+     * Income, expense and profit/loss per day, week or month between two dates. Each ledger is
+     * reduced to per-day sums by one GROUP BY on the (user, date) index, and those sums are
+     * folded into buckets here in cents, so the work and the payload scale with days, not rows.
+     */
+    @Transactional(readOnly = true)
+    public TimeSeriesResponse calculateTimeSeries(Long userId, TimeBucket bucket,
+                                                  LocalDate startDate, LocalDate endDate, String groupBy) {
+        // Verify user authorization
+        verifyUserAuthorization(userId);
+
+        if (startDate.isAfter(endDate)) {
+            throw new BadRequestException("start must not be after end");
+        }
+        if (groupBy != null && !"category".equalsIgnoreCase(groupBy) && !"source".equalsIgnoreCase(groupBy)) {
+            throw new BadRequestException("groupBy must be category or source");
+        }
+
+        // Bucket boundaries in order, each known by the epoch day it starts on
+        List<LocalDate> periodStarts = new ArrayList<>();
+        LocalDate periodStart = bucket.periodStart(startDate);
+        while (!periodStart.isAfter(endDate)) {
+            if (periodStarts.size() == MAX_TIME_SERIES_POINTS) {
+                throw new BadRequestException("Range too large for bucket " + bucket
+                        + ", at most " + MAX_TIME_SERIES_POINTS + " points are allowed");
+            }
+            periodStarts.add(periodStart);
+            periodStart = bucket.nextPeriodStart(periodStart);
+        }
+        int points = periodStarts.size();
+        int[] startDays = new int[points];
+        for (int i = 0; i < points; i++) {
+            startDays[i] = Math.toIntExact(periodStarts.get(i).toEpochDay());
+        }
+
+        boolean byCategory = "category".equalsIgnoreCase(groupBy);
+        boolean bySource = "source".equalsIgnoreCase(groupBy);
+        Enum<?>[] kinds = byCategory ? ExpenseCategory.values() : bySource ? IncomeSource.values() : null;
+
+        // Totals per bucket in cents, and per bucket and category or source ordinal when grouping
+        long[] incomeCents = new long[points];
+        long[] expenseCents = new long[points];
+        long[][] breakdownCents = kinds != null ? new long[points][kinds.length] : null;
+        boolean[][] breakdownSeen = kinds != null ? new boolean[points][kinds.length] : null;
+
+        List<DailyTotal> expenses = byCategory
+                ? expenseRepository.summarizeDailyPerCategory(userId, startDate, endDate)
+                : expenseRepository.summarizeDailyByUserIdAndDateRange(userId, startDate, endDate);
+        for (DailyTotal total : expenses) {
+            int point = pointOf(startDays, total.date());
+            long cents = Money.toCents(total.totalAmount());
+            expenseCents[point] = Math.addExact(expenseCents[point], cents);
+            if (byCategory) {
+                int kind = total.bucket().ordinal();
+                breakdownCents[point][kind] = Math.addExact(breakdownCents[point][kind], cents);
+                breakdownSeen[point][kind] = true;
+            }
+        }
+
+        List<DailyTotal> incomes = bySource
+                ? incomeRepository.summarizeDailyPerSource(userId, startDate, endDate)
+                : incomeRepository.summarizeDailyByUserIdAndDateRange(userId, startDate, endDate);
+        for (DailyTotal total : incomes) {
+            int point = pointOf(startDays, total.date());
+            long cents = Money.toCents(total.totalAmount());
+            incomeCents[point] = Math.addExact(incomeCents[point], cents);
+            if (bySource) {
+                int kind = total.bucket().ordinal();
+                breakdownCents[point][kind] = Math.addExact(breakdownCents[point][kind], cents);
+                breakdownSeen[point][kind] = true;
+            }
+        }
+
+        List<TimeSeriesPoint> series = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            LocalDate first = periodStarts.get(i);
+            LocalDate last = (i + 1 < points ? periodStarts.get(i + 1) : bucket.nextPeriodStart(first)).minusDays(1);
+            Map<String, BigDecimal> breakdown = null;
+            if (kinds != null) {
+                breakdown = new TreeMap<>();
+                for (int kind = 0; kind < kinds.length; kind++) {
+                    if (breakdownSeen[i][kind]) {
+                        breakdown.put(kinds[kind].name(), Money.toAmount(breakdownCents[i][kind]));
+                    }
+                }
+            }
+            series.add(TimeSeriesPoint.builder()
+                    .periodStart(first.isBefore(startDate) ? startDate : first)
+                    .periodEnd(last.isAfter(endDate) ? endDate : last)
+                    .totalIncome(Money.toAmount(incomeCents[i]))
+                    .totalExpense(Money.toAmount(expenseCents[i]))
+                    .profitLoss(Money.toAmount(Math.subtractExact(incomeCents[i], expenseCents[i])))
+                    .breakdown(breakdown)
+                    .build());
+        }
+
+        return TimeSeriesResponse.builder()
+                .bucket(bucket)
+                .groupBy(groupBy != null ? groupBy.toLowerCase() : null)
                 .startDate(startDate)
                 .endDate(endDate)
+                .points(series)
                 .build();
     }
 
+    /**
+     * Index of the bucket holding the date: the last one starting on or before it
+     */
+    private static int pointOf(int[] startDays, LocalDate date) {
+        long day = date.toEpochDay();
+        int low = 0;
+        int high = startDays.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (startDays[mid] <= day) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
     private void verifyUserAuthorization(Long userId) {
-        User currentUser = authService.getCurrentUser();
-        if (!currentUser.getId().equals(userId)) {
+        if (!authService.getCurrentUserId().equals(userId)) {
             throw new UnauthorizedException("You are not authorized to perform this action");
         }
     }
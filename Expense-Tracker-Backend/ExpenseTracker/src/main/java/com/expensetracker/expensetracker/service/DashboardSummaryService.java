@@ -0,0 +1,231 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.dto.response.DashboardSummaryResponse;
+import com.expensetracker.expensetracker.dto.response.ExpenseResponse;
+import com.expensetracker.expensetracker.dto.response.IncomeResponse;
+import com.expensetracker.expensetracker.dto.response.PnLResponse;
+import com.expensetracker.expensetracker.enums.LedgerType;
+import com.expensetracker.expensetracker.exception.BadRequestException;
+import com.expensetracker.expensetracker.exception.UnauthorizedException;
+import com.expensetracker.expensetracker.repository.ExpenseRepository;
+import com.expensetracker.expensetracker.repository.IncomeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Builds the whole dashboard in one call. Each widget runs concurrently on its own thread and
+ * read-only transaction, so the slowest query rather than the sum of all of them sets the
+ * latency. A widget that fails or misses the deadline is left out and named in the response
+ * instead of failing the page.
+ */
+@Service
+public class DashboardSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardSummaryService.class);
+
+    /**
+     * Upper bound on recent transactions returned per ledger
+     */
+    public static final int MAX_RECENT = 50;
+
+    private final MonthlyRollupService monthlyRollupService;
+    private final IncomeRepository incomeRepository;
+    private final ExpenseRepository expenseRepository;
+    private final AuthService authService;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Value("${app.dashboard.max-concurrency:16}")
+    private int maxConcurrency;
+
+    @Value("${app.dashboard.widget-timeout-ms:2000}")
+    private long widgetTimeoutMillis;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private SimpleAsyncTaskExecutor executor;
+    private Semaphore permits;
+
+    public DashboardSummaryService(MonthlyRollupService monthlyRollupService,
+                                   IncomeRepository incomeRepository,
+                                   ExpenseRepository expenseRepository,
+                                   AuthService authService,
+                                   PlatformTransactionManager transactionManager) {
+        this.monthlyRollupService = monthlyRollupService;
+        this.incomeRepository = incomeRepository;
+        this.expenseRepository = expenseRepository;
+        this.authService = authService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @PostConstruct
+    void init() {
+        // The permits are shared by all requests, so widgets wait for one instead of draining the
+        // connection pool, and never past their deadline
+        executor = new SimpleAsyncTaskExecutor("dashboard-");
+        executor.setVirtualThreads(virtualThreads);
+        permits = new Semaphore(maxConcurrency);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.close();
+    }
+
+    public DashboardSummaryResponse summarize(Long userId, int recent) {
+        // Verify user authorization
+        verifyUserAuthorization(userId);
+
+        if (recent < 1 || recent > MAX_RECENT) {
+            throw new BadRequestException("recent must be between 1 and " + MAX_RECENT);
+        }
+
+        YearMonth thisMonth = YearMonth.now();
+        YearMonth lastMonth = thisMonth.minusMonths(1);
+
+        // Widgets start together, so they share one deadline; time spent queued counts against it
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(widgetTimeoutMillis);
+
+        Future<BigDecimal> totalIncome = submit(
+                () -> monthlyRollupService.total(userId, LedgerType.INCOME), deadline);
+        Future<BigDecimal> totalExpense = submit(
+                () -> monthlyRollupService.total(userId, LedgerType.EXPENSE), deadline);
+        Future<PnLResponse> currentMonth = submit(() -> monthPnL(userId, thisMonth), deadline);
+        Future<PnLResponse> previousMonth = submit(() -> monthPnL(userId, lastMonth), deadline);
+        Future<Map<String, BigDecimal>> byCategory = submit(
+                () -> monthlyRollupService.totalsByBucket(userId, LedgerType.EXPENSE), deadline);
+        Future<Map<String, BigDecimal>> bySource = submit(
+                () -> monthlyRollupService.totalsByBucket(userId, LedgerType.INCOME), deadline);
+        Future<List<ExpenseResponse>> recentExpenses = submit(
+                () -> expenseRepository.findFirstPageByUserId(userId, Limit.of(recent)), deadline);
+        Future<List<IncomeResponse>> recentIncomes = submit(
+                () -> incomeRepository.findFirstPageByUserId(userId, Limit.of(recent)), deadline);
+
+        List<String> unavailable = new ArrayList<>();
+
+        BigDecimal income = await("totalIncome", totalIncome, deadline, unavailable);
+        BigDecimal expense = await("totalExpense", totalExpense, deadline, unavailable);
+        PnLResponse pnl = income != null && expense != null
+                ? PnLResponse.builder()
+                        .totalIncome(income)
+                        .totalExpense(expense)
+                        .profitLoss(Money.of(income).minus(Money.of(expense)).toBigDecimal())
+                        .build()
+                : null;
+
+        return DashboardSummaryResponse.builder()
+                .pnl(pnl)
+                .currentMonth(await("currentMonth", currentMonth, deadline, unavailable))
+                .previousMonth(await("previousMonth", previousMonth, deadline, unavailable))
+                .expensesByCategory(await("expensesByCategory", byCategory, deadline, unavailable))
+                .incomesBySource(await("incomesBySource", bySource, deadline, unavailable))
+                .recentExpenses(await("recentExpenses", recentExpenses, deadline, unavailable))
+                .recentIncomes(await("recentIncomes", recentIncomes, deadline, unavailable))
+                .unavailable(unavailable)
+                .build();
+    }
+
+    private PnLResponse monthPnL(Long userId, YearMonth month) {
+        LocalDate startDate = month.atDay(1);
+        LocalDate endDate = month.atEndOfMonth();
+        Money income = Money.of(monthlyRollupService.total(userId, LedgerType.INCOME, startDate, endDate));
+        Money expense = Money.of(monthlyRollupService.total(userId, LedgerType.EXPENSE, startDate, endDate));
+        return PnLResponse.builder()
+                .totalIncome(income.toBigDecimal())
+                .totalExpense(expense.toBigDecimal())
+                .profitLoss(income.minus(expense).toBigDecimal())
+                .startDate(startDate)
+                .endDate(endDate)
+                .build();
+    }
+
+    /**
+     * Run one widget on the executor inside its own read-only transaction, which replica routing
+     * sends to a replica, once a permit is free. If none frees up before the deadline the widget
+     * is not started, and its future fails with a TimeoutException. The permit is returned when
+     * the widget completes or is cancelled.
+     */
+    private <T> Future<T> submit(Supplier<T> widget, long deadline) {
+        try {
+            if (!permits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                return CompletableFuture.failedFuture(
+                        new TimeoutException("No dashboard capacity before the deadline"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        // Carry the caller's security context so replica routing knows whose data is being read
+        Callable<T> read = () -> readOnlyTransaction.execute(status -> widget.get());
+        FutureTask<T> task = new FutureTask<>(new DelegatingSecurityContextCallable<>(read)) {
+            @Override
+            protected void done() {
+                permits.release();
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return task;
+    }
+
+    /**
+     * Wait for a widget until the shared deadline. A failure or timeout is logged, the widget is
+     * recorded as unavailable and null is returned so the rest of the summary still renders.
+     */
+    private <T> T await(String name, Future<T> future, long deadline, List<String> unavailable) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            logger.warn("Dashboard widget {} timed out after {} ms", name, widgetTimeoutMillis);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                logger.warn("Dashboard widget {} found no free slot within {} ms", name, widgetTimeoutMillis);
+            } else {
+                logger.error("Dashboard widget {} failed", name, e.getCause());
+            }
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        unavailable.add(name);
+        return null;
+    }
+
+    private void verifyUserAuthorization(Long userId) {
+        if (!authService.getCurrentUserId().equals(userId)) {
+            throw new UnauthorizedException("You are not authorized to perform this action");
+        }
+    }
+}
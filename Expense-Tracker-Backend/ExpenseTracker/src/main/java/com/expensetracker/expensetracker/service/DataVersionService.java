@@ -0,0 +1,40 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.repository.DataVersionRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Tracks a monotonically increasing version of each user's ledger data. Writes bump it inside
+ * their own transaction, so a version is only visible once the change it stands for commits,
+ * and reads turn it into a strong ETag for conditional GETs.
+ */
+@Service
+public class DataVersionService {
+
+    private final DataVersionRepository dataVersionRepository;
+
+    public DataVersionService(DataVersionRepository dataVersionRepository) {
+        this.dataVersionRepository = dataVersionRepository;
+    }
+
+    /**
+     * Record that the user's ledger data changed
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bump(Long userId) {
+        dataVersionRepository.increment(userId);
+    }
+
+    /**
+     * Strong ETag for the user's current data version in one representation, such as "json" or
+     * "cbor". Read it before the data it guards, so a write racing the read can only make the
+     * tag older than the body, never newer.
+     */
+    @Transactional(readOnly = true)
+    public String etag(Long userId, String representation) {
+        Long version = dataVersionRepository.findVersion(userId);
+        return "\"" + userId + "-" + (version != null ? version : 0L) + "-" + representation + "\"";
+    }
+}
@@ -0,0 +1,75 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.repository.ExpenseRepository;
+import com.expensetracker.expensetracker.repository.IncomeRepository;
+import com.expensetracker.expensetracker.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Populates the description search index at startup. Runs automatically when the index is
+ * empty but the ledgers are not, which is the state right after the migration that introduced
+ * it, and on demand with app.search.rebuild-on-startup. Each user is one transaction. It runs
+ * under a maintenance lock, and the backfill check is repeated once the lock is held, so when
+ * several replicas start together the index is built once.
+ */
+@Component
+public class DescriptionIndexMaintenance implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DescriptionIndexMaintenance.class);
+
+    static final String LOCK_NAME = "description-index";
+
+    private final DescriptionIndexService indexService;
+    private final UserRepository userRepository;
+    private final ExpenseRepository expenseRepository;
+    private final IncomeRepository incomeRepository;
+    private final MaintenanceLock maintenanceLock;
+
+    @Value("${app.search.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    public DescriptionIndexMaintenance(DescriptionIndexService indexService,
+                                       UserRepository userRepository,
+                                       ExpenseRepository expenseRepository,
+                                       IncomeRepository incomeRepository,
+                                       MaintenanceLock maintenanceLock) {
+        this.indexService = indexService;
+        this.userRepository = userRepository;
+        this.expenseRepository = expenseRepository;
+        this.incomeRepository = incomeRepository;
+        this.maintenanceLock = maintenanceLock;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!rebuildOnStartup && !needsBackfill()) {
+            return;
+        }
+        maintenanceLock.runExclusively(LOCK_NAME, () -> {
+            // Another replica may have built the index while this one waited for its turn
+            if (rebuildOnStartup || needsBackfill()) {
+                rebuildAll();
+            }
+        });
+    }
+
+    void rebuildAll() {
+        long started = System.currentTimeMillis();
+        List<Long> userIds = userRepository.findAllIds();
+        for (Long userId : userIds) {
+            indexService.rebuild(userId);
+        }
+        logger.info("Indexed descriptions for {} users in {} ms", userIds.size(), System.currentTimeMillis() - started);
+    }
+
+    private boolean needsBackfill() {
+        return indexService.isEmpty() && (expenseRepository.count() > 0 || incomeRepository.count() > 0);
+    }
+}
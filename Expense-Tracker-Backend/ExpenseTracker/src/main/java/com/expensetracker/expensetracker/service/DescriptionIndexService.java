@@ -0,0 +1,132 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.enums.LedgerType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the description search index in step with the expense and income ledgers. Like the
+ * monthly rollups, entries are indexed inside the caller's transaction, so search never returns
+ * a row whose write was rolled back.
+ */
+@Service
+public class DescriptionIndexService {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_TERM =
+            "INSERT INTO description_terms (user_id, ledger, term, entry_id) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DescriptionIndexService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void index(Long userId, LedgerType ledger, Long entryId, String description) {
+        List<Object[]> rows = new ArrayList<>();
+        addTerms(rows, userId, ledger, entryId, description);
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TERM, rows);
+        }
+    }
+
+    /**
+     * Index a batch of new entries, keyed by id, in as few statements as the batch size allows
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void indexAll(Long userId, LedgerType ledger, Map<Long, String> descriptions) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        descriptions.forEach((entryId, description) -> {
+            addTerms(rows, userId, ledger, entryId, description);
+            flushIfFull(rows);
+        });
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TERM, rows);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(LedgerType ledger, Long entryId) {
+        jdbcTemplate.update("DELETE FROM description_terms WHERE ledger = ? AND entry_id = ?",
+                ledger.name(), entryId);
+    }
+
+    /**
+     * Remove a batch of entries from the index
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeAll(LedgerType ledger, Collection<Long> entryIds) {
+        List<Object[]> rows = new ArrayList<>(entryIds.size());
+        for (Long entryId : entryIds) {
+            rows.add(new Object[]{ledger.name(), entryId});
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM description_terms WHERE ledger = ? AND entry_id = ?", rows);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reindex(Long userId, LedgerType ledger, Long entryId, String description) {
+        remove(ledger, entryId);
+        index(userId, ledger, entryId, description);
+    }
+
+    /**
+     * Rebuild a user's index from the raw ledgers
+     */
+    @Transactional
+    public void rebuild(Long userId) {
+        jdbcTemplate.update("DELETE FROM description_terms WHERE user_id = ?", userId);
+
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        jdbcTemplate.query("SELECT id, description FROM expenses WHERE user_id = ?",
+                (RowCallbackHandler) rs -> {
+                    addTerms(rows, userId, LedgerType.EXPENSE, rs.getLong(1), rs.getString(2));
+                    flushIfFull(rows);
+                }, userId);
+        jdbcTemplate.query("SELECT id, description FROM incomes WHERE user_id = ?",
+                (RowCallbackHandler) rs -> {
+                    addTerms(rows, userId, LedgerType.INCOME, rs.getLong(1), rs.getString(2));
+                    flushIfFull(rows);
+                }, userId);
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TERM, rows);
+        }
+    }
+
+    /**
+     * Whether the index has never been populated, e.g. right after the migration that created it.
+     * Not read-only, so it is answered by the primary: on a lagging replica a freshly built index
+     * can still look empty and start a second rebuild.
+     */
+    @Transactional
+    public boolean isEmpty() {
+        Integer terms = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT 1 FROM description_terms LIMIT 1) t", Integer.class);
+        return terms == null || terms == 0;
+    }
+
+    private void flushIfFull(List<Object[]> rows) {
+        if (rows.size() >= BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(INSERT_TERM, rows);
+            rows.clear();
+        }
+    }
+
+    private static void addTerms(List<Object[]> rows, Long userId, LedgerType ledger,
+                                 Long entryId, String description) {
+        for (String term : DescriptionTokenizer.tokenize(description)) {
+            rows.add(new Object[]{userId, ledger.name(), term, entryId});
+        }
+    }
+}
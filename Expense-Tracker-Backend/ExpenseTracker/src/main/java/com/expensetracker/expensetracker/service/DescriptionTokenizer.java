@@ -0,0 +1,51 @@
+package com.expensetracker.expensetracker.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits descriptions and search queries into index terms: lowercase runs of letters and
+ * digits, truncated to the column width. Indexing and querying share it, so a query term always
+ * meets the stored form of the same word.
+ */
+public final class DescriptionTokenizer {
+
+    public static final int MAX_TERM_LENGTH = 32;
+
+    private DescriptionTokenizer() {
+    }
+
+    /**
+     * Distinct terms in order of first appearance
+     */
+    public static List<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return new ArrayList<>(terms);
+        }
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(lower.substring(start, Math.min(i, start + MAX_TERM_LENGTH)));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+
+    /**
+     * How many of the query terms are whole words of the description. This is the rank the search
+     * query computes from the index, which holds exactly these words.
+     */
+    public static long rank(String description, List<String> terms) {
+        return tokenize(description).stream().filter(terms::contains).count();
+    }
+}
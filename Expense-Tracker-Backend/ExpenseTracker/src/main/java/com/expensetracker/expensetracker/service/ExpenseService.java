@@ -1,37 +1,88 @@
 package com.expensetracker.expensetracker.service;
 
+import com.expensetracker.expensetracker.dto.request.BatchOperation;
 import com.expensetracker.expensetracker.dto.request.ExpenseRequest;
 import com.expensetracker.expensetracker.dto.request.FilterRequest;
+import com.expensetracker.expensetracker.dto.response.BatchItemResponse;
+import com.expensetracker.expensetracker.dto.response.BatchResponse;
+import com.expensetracker.expensetracker.dto.response.CursorPageResponse;
 import com.expensetracker.expensetracker.dto.response.ExpenseResponse;
 import com.expensetracker.expensetracker.entity.Expense;
 import com.expensetracker.expensetracker.entity.User;
+import com.expensetracker.expensetracker.enums.BatchOperationType;
 import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import com.expensetracker.expensetracker.enums.ExportFormat;
+import com.expensetracker.expensetracker.enums.LedgerType;
+import com.expensetracker.expensetracker.exception.BadRequestException;
 import com.expensetracker.expensetracker.exception.ResourceNotFoundException;
 import com.expensetracker.expensetracker.exception.UnauthorizedException;
 import com.expensetracker.expensetracker.repository.ExpenseRepository;
+import com.expensetracker.expensetracker.repository.ExpenseSpecifications;
+import com.expensetracker.expensetracker.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.time.LocalDate;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 public class ExpenseService {
 
+    /**
+     * Upper bound on words in a search query; each word is one index lookup
+     */
+    public static final int MAX_SEARCH_TERMS = 8;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private final ExpenseRepository expenseRepository;
+    private final UserRepository userRepository;
     private final AuthService authService;
-
-    public ExpenseService(ExpenseRepository expenseRepository, AuthService authService) {
+    private final MonthlyRollupService monthlyRollupService;
+    private final DataVersionService dataVersionService;
+    private final DescriptionIndexService descriptionIndexService;
+    private final LedgerWorkingSet ledgerWorkingSet;
+    private final ExpenseSketchService expenseSketchService;
+
+    public ExpenseService(ExpenseRepository expenseRepository, UserRepository userRepository,
+                          AuthService authService, MonthlyRollupService monthlyRollupService,
+                          DataVersionService dataVersionService,
+                          DescriptionIndexService descriptionIndexService,
+                          LedgerWorkingSet ledgerWorkingSet,
+                          ExpenseSketchService expenseSketchService) {
         this.expenseRepository = expenseRepository;
+        this.userRepository = userRepository;
         this.authService = authService;
+        this.monthlyRollupService = monthlyRollupService;
+        this.dataVersionService = dataVersionService;
+        this.descriptionIndexService = descriptionIndexService;
+        this.ledgerWorkingSet = ledgerWorkingSet;
+        this.expenseSketchService = expenseSketchService;
     }
 
     @Transactional
     public ExpenseResponse addExpense(Long userId, ExpenseRequest request) {
         // Verify user authorization
-        User user = verifyUserAuthorization(userId);
+        verifyUserAuthorization(userId);
+
+        // Reference only; the insert needs the foreign key, not the user row
+        User user = userRepository.getReferenceById(userId);
 
         Expense expense = Expense.builder()
                 .user(user)
@@ -42,30 +93,60 @@ public class ExpenseService {
                 .build();
 
         expense = expenseRepository.save(expense);
+        monthlyRollupService.addExpense(userId, expense.getCategory(), expense.getDateOfExpense(), expense.getAmount());
+        expenseSketchService.applyExpenseChanges(userId, List.of(), List.of(expense));
+        descriptionIndexService.index(userId, LedgerType.EXPENSE, expense.getId(), expense.getDescription());
+        dataVersionService.bump(userId);
+        ledgerWorkingSet.expensesChanged(userId, List.of(), List.of(expense));
         return mapToResponse(expense);
     }
 
+    @Transactional(readOnly = true)
     public List<ExpenseResponse> getExpenses(Long userId) {
         // Verify user authorization
         verifyUserAuthorization(userId);
 
-        List<Expense> expenses = expenseRepository.findByUserId(userId);
-        return expenses.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return expenseRepository.findResponsesByUserId(userId, Sort.unsorted());
     }
 
-    public ExpenseResponse getExpenseById(Long userId, Long expenseId) {
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ExpenseResponse> getExpensesPage(Long userId, Integer limit, String after) {
         // Verify user authorization
         verifyUserAuthorization(userId);
 
-        Expense expense = expenseRepository.findById(expenseId)
-                .orElseThrow(() -> new ResourceNotFoundException("Expense not found with id: " + expenseId));
+        int pageSize = PageCursor.resolveLimit(limit);
+        PageCursor cursor = PageCursor.decode(after);
 
-        // Verify ownership
-        verifyUserOwnership(userId, expenseId);
+        // Fetch one extra row to learn whether another page exists
+        List<ExpenseResponse> expenses = cursor == null
+                ? expenseRepository.findFirstPageByUserId(userId, Limit.of(pageSize + 1))
+                : expenseRepository.findPageByUserIdAfter(userId, cursor.date(), cursor.id(), Limit.of(pageSize + 1));
 
-        return mapToResponse(expense);
+        boolean hasMore = expenses.size() > pageSize;
+        if (hasMore) {
+            expenses = expenses.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            ExpenseResponse last = expenses.get(expenses.size() - 1);
+            nextCursor = new PageCursor(last.getDateOfExpense(), last.getId()).encode();
+        }
+
+        return CursorPageResponse.<ExpenseResponse>builder()
+                .items(expenses)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public ExpenseResponse getExpenseById(Long userId, Long expenseId) {
+        // Verify user authorization
+        verifyUserAuthorization(userId);
+
+        return expenseRepository.findResponseByIdAndUserId(expenseId, userId)
+                .orElseThrow(() -> ownershipFailure(expenseId));
     }
 
     @Transactional
@@ -73,11 +154,25 @@ public class ExpenseService {
         // Verify user authorization
         verifyUserAuthorization(userId);
 
-        Expense expense = expenseRepository.findById(expenseId)
-                .orElseThrow(() -> new ResourceNotFoundException("Expense not found with id: " + expenseId));
+        // Load and verify ownership in one query
+        Expense expense = findOwnedExpense(userId, expenseId);
+
+        // Only amount, category and date feed the rollups; a description edit leaves them alone
+        boolean rollupChanged = expense.getCategory() != request.getCategory()
+                || !expense.getDateOfExpense().equals(request.getDateOfExpense())
+                || expense.getAmount().compareTo(request.getAmount()) != 0;
+        Expense previous = null;
+        if (rollupChanged) {
+            monthlyRollupService.removeExpense(userId, expense.getCategory(), expense.getDateOfExpense(), expense.getAmount());
+            // Keep the old values for the sketches before they are overwritten
+            previous = Expense.builder()
+                    .category(expense.getCategory())
+                    .amount(expense.getAmount())
+                    .dateOfExpense(expense.getDateOfExpense())
+                    .build();
+        }
 
-        // Verify ownership
-        verifyUserOwnership(userId, expenseId);
+        boolean descriptionChanged = !expense.getDescription().equals(request.getDescription());
 
         expense.setDescription(request.getDescription());
         expense.setCategory(request.getCategory());
@@ -85,6 +180,15 @@ public class ExpenseService {
         expense.setDateOfExpense(request.getDateOfExpense());
 
         expense = expenseRepository.save(expense);
+        if (rollupChanged) {
+            monthlyRollupService.addExpense(userId, expense.getCategory(), expense.getDateOfExpense(), expense.getAmount());
+            expenseSketchService.applyExpenseChanges(userId, List.of(previous), List.of(expense));
+        }
+        if (descriptionChanged) {
+            descriptionIndexService.reindex(userId, LedgerType.EXPENSE, expense.getId(), expense.getDescription());
+        }
+        dataVersionService.bump(userId);
+        ledgerWorkingSet.expensesChanged(userId, List.of(), List.of(expense));
         return mapToResponse(expense);
     }
 
@@ -93,97 +197,291 @@ public class ExpenseService {
         // Verify user authorization
         verifyUserAuthorization(userId);
 
-        Expense expense = expenseRepository.findById(expenseId)
-                .orElseThrow(() -> new ResourceNotFoundException("Expense not found with id: " + expenseId));
-
-        // Verify ownership
-        verifyUserOwnership(userId, expenseId);
+        // Load and verify ownership in one query
+        Expense expense = findOwnedExpense(userId, expenseId);
 
         expenseRepository.delete(expense);
+        monthlyRollupService.removeExpense(userId, expense.getCategory(), expense.getDateOfExpense(), expense.getAmount());
+        expenseSketchService.applyExpenseChanges(userId, List.of(expense), List.of());
+        descriptionIndexService.remove(LedgerType.EXPENSE, expense.getId());
+        dataVersionService.bump(userId);
+        ledgerWorkingSet.expensesChanged(userId, List.of(expense.getId()), List.of());
     }
 
+    /**
+     * Apply a client's batch of creates, updates and deletes in one transaction. Every operation
+     * is checked before any is applied; if one is invalid nothing is written and each offending
+     * item carries its error. Writes are sent as JDBC batches at commit, and the rollups, search
+     * index and data version are maintained once for the whole batch.
+     */
+    @Transactional
+    public BatchResponse<ExpenseResponse> applyBatch(Long userId, List<BatchOperation<ExpenseRequest>> operations) {
+        // Verify user authorization
+        verifyUserAuthorization(userId);
+
+        List<String> errors = BatchOperations.checkShape(operations);
+
+        // Load every referenced expense in one query, which also verifies ownership
+        Set<Long> ids = BatchOperations.referencedIds(operations);
+        Map<Long, Expense> owned = new HashMap<>();
+        for (Expense expense : expenseRepository.findByUserIdAndIdInOrderByIdAsc(userId, ids)) {
+            owned.put(expense.getId(), expense);
+        }
+        for (int i = 0; i < operations.size(); i++) {
+            Long id = operations.get(i).getId();
+            if (errors.get(i) == null && id != null && !owned.containsKey(id)) {
+                errors.set(i, ownershipFailure(id).getMessage());
+            }
+        }
+        if (BatchOperations.hasErrors(errors)) {
+            return BatchOperations.rejected(operations, errors);
+        }
+
+        entityManager.unwrap(Session.class).setJdbcBatchSize(LedgerBatchWriter.BATCH_SIZE);
+        User user = userRepository.getReferenceById(userId);
+
+        List<Expense> removed = new ArrayList<>();
+        List<Expense> added = new ArrayList<>();
+        List<Expense> deleted = new ArrayList<>();
+        List<Expense> saved = new ArrayList<>();
+        List<Long> unindexed = new ArrayList<>();
+        Map<Long, String> indexed = new LinkedHashMap<>();
+        List<BatchItemResponse<ExpenseResponse>> results = new ArrayList<>(operations.size());
+
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation<ExpenseRequest> operation = operations.get(i);
+            ExpenseRequest request = operation.getData();
+            Expense expense;
+            switch (operation.getOp()) {
+                case CREATE -> {
+                    expense = expenseRepository.save(Expense.builder()
+                            .user(user)
+                            .description(request.getDescription())
+                            .category(request.getCategory())
+                            .amount(request.getAmount())
+                            .dateOfExpense(request.getDateOfExpense())
+                            .build());
+                    added.add(expense);
+                    saved.add(expense);
+                    indexed.put(expense.getId(), expense.getDescription());
+                }
+                case UPDATE -> {
+                    expense = owned.get(operation.getId());
+                    if (expense.getCategory() != request.getCategory()
+                            || !expense.getDateOfExpense().equals(request.getDateOfExpense())
+                            || expense.getAmount().compareTo(request.getAmount()) != 0) {
+                        // Keep the old values for the rollups and sketches before they are overwritten
+                        removed.add(Expense.builder()
+                                .category(expense.getCategory())
+                                .amount(expense.getAmount())
+                                .dateOfExpense(expense.getDateOfExpense())
+                                .build());
+                        added.add(expense);
+                    }
+                    if (!expense.getDescription().equals(request.getDescription())) {
+                        unindexed.add(expense.getId());
+                        indexed.put(expense.getId(), request.getDescription());
+                    }
+                    expense.setDescription(request.getDescription());
+                    expense.setCategory(request.getCategory());
+                    expense.setAmount(request.getAmount());
+                    expense.setDateOfExpense(request.getDateOfExpense());
+                    saved.add(expense);
+                }
+                default -> { // DELETE
+                    expense = owned.get(operation.getId());
+                    deleted.add(expense);
+                    removed.add(expense);
+                    unindexed.add(expense.getId());
+                }
+            }
+            results.add(BatchItemResponse.<ExpenseResponse>builder()
+                    .index(i)
+                    .op(operation.getOp())
+                    .id(expense.getId())
+                    .data(operation.getOp() == BatchOperationType.DELETE ? null : mapToResponse(expense))
+                    .build());
+        }
+
+        // Deletes in id order, like the loaded updates, so concurrent batches lock rows in the same order
+        deleted.sort(Comparator.comparing(Expense::getId));
+        expenseRepository.deleteAll(deleted);
+
+        monthlyRollupService.applyExpenseChanges(userId, removed, added);
+        expenseSketchService.applyExpenseChanges(userId, removed, added);
+        descriptionIndexService.removeAll(LedgerType.EXPENSE, unindexed);
+        descriptionIndexService.indexAll(userId, LedgerType.EXPENSE, indexed);
+        dataVersionService.bump(userId);
+        ledgerWorkingSet.expensesChanged(userId, deleted.stream().map(Expense::getId).toList(), saved);
+        return BatchResponse.<ExpenseResponse>builder().applied(true).results(results).build();
+    }
+
+    @Transactional(readOnly = true)
     public List<ExpenseResponse> filterExpenses(Long userId, FilterRequest filterRequest) {
         // Verify user authorization
         verifyUserAuthorization(userId);
 
-        List<Expense> expenses;
-
-        ExpenseCategory category = filterRequest.getCategory();
-        LocalDate startDate = filterRequest.getStartDate();
-        LocalDate endDate = filterRequest.getEndDate();
-        BigDecimal minAmount = filterRequest.getMinAmount();
-        BigDecimal maxAmount = filterRequest.getMaxAmount();
-
-        // Apply filters based on what's provided
-        if (category != null && startDate != null && endDate != null && minAmount != null && maxAmount != null) {
-            expenses = expenseRepository.findByUserIdAndCategoryAndDateOfExpenseBetweenAndAmountBetween(
-                    userId, category, startDate, endDate, minAmount, maxAmount);
-        } else if (category != null && startDate != null && endDate != null) {
-            expenses = expenseRepository.findByUserIdAndCategoryAndDateOfExpenseBetween(
-                    userId, category, startDate, endDate);
-        } else if (category != null && minAmount != null && maxAmount != null) {
-            expenses = expenseRepository.findByUserIdAndCategoryAndAmountBetween(
-                    userId, category, minAmount, maxAmount);
-        } else if (startDate != null && endDate != null && minAmount != null && maxAmount != null) {
-            expenses = expenseRepository.findByUserIdAndDateOfExpenseBetweenAndAmountBetween(
-                    userId, startDate, endDate, minAmount, maxAmount);
-        } else if (category != null) {
-            expenses = expenseRepository.findByUserIdAndCategory(userId, category);
-        } else if (startDate != null && endDate != null) {
-            expenses = expenseRepository.findByUserIdAndDateOfExpenseBetween(userId, startDate, endDate);
-        } else if (minAmount != null && maxAmount != null) {
-            expenses = expenseRepository.findByUserIdAndAmountBetween(userId, minAmount, maxAmount);
-        } else {
-            expenses = expenseRepository.findByUserId(userId);
+        LedgerWorkingSet.Snapshot snapshot = ledgerWorkingSet.snapshot(userId);
+        if (snapshot != null) {
+            LedgerColumns<ExpenseCategory> expenses = snapshot.expenses();
+            return mapToResponses(expenses, expenses.filter(filterRequest.getCategory(), filterRequest.getStartDate(),
+                    filterRequest.getEndDate(), filterRequest.getMinAmount(), filterRequest.getMaxAmount()));
         }
 
-        return expenses.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return expenseRepository.findResponses(
+                ExpenseSpecifications.matching(userId, filterRequest),
+                Sort.by(Sort.Order.desc("dateOfExpense"), Sort.Order.desc("id")));
     }
 
+    /**
+     * Ranked search over descriptions, combined with the usual filters. Every query word must
+     * start a word of the description; whole-word matches rank first, then newest first.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ExpenseResponse> searchExpenses(Long userId, String q, FilterRequest filterRequest,
+                                                              Integer limit, String after) {
+        // Verify user authorization
+        verifyUserAuthorization(userId);
+
+        List<String> terms = DescriptionTokenizer.tokenize(q);
+        if (terms.isEmpty()) {
+            throw new BadRequestException("q must contain at least one word");
+        }
+        if (terms.size() > MAX_SEARCH_TERMS) {
+            throw new BadRequestException("q may contain at most " + MAX_SEARCH_TERMS + " words");
+        }
+
+        int pageSize = PageCursor.resolveLimit(limit);
+        SearchCursor cursor = SearchCursor.decode(after);
+
+        Specification<Expense> specification = ExpenseSpecifications.matching(userId, filterRequest);
+        for (String term : terms) {
+            specification = specification.and(ExpenseSpecifications.descriptionHasWordStartingWith(userId, term));
+        }
+
+        // Fetch one extra row to learn whether another page exists
+        List<ExpenseResponse> expenses = cursor == null
+                ? expenseRepository.findRankedResponses(specification, userId, terms, null, null, null, pageSize + 1)
+                : expenseRepository.findRankedResponses(specification, userId, terms,
+                        cursor.rank(), cursor.date(), cursor.id(), pageSize + 1);
+
+        boolean hasMore = expenses.size() > pageSize;
+        if (hasMore) {
+            expenses = expenses.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            ExpenseResponse last = expenses.get(expenses.size() - 1);
+            nextCursor = new SearchCursor(DescriptionTokenizer.rank(last.getDescription(), terms),
+                    last.getDateOfExpense(), last.getId()).encode();
+        }
+
+        return CursorPageResponse.<ExpenseResponse>builder()
+                .items(expenses)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Write every expense matching the filter to the output, newest first, without materializing
+     * the result set. Runs inside one read-only transaction so the driver can stream the rows.
+     */
+    @Transactional(readOnly = true)
+    public void exportExpenses(Long userId, FilterRequest filterRequest, ExportFormat format, OutputStream out)
+            throws IOException {
+        // Verify user authorization
+        verifyUserAuthorization(userId);
+
+        try (Stream<ExpenseResponse> rows = expenseRepository.streamResponses(
+                     ExpenseSpecifications.matching(userId, filterRequest),
+                     Sort.by(Sort.Order.desc("dateOfExpense"), Sort.Order.desc("id")));
+             LedgerExportWriter writer = new LedgerExportWriter(
+                     out, format, "id", "description", "category", "amount", "dateOfExpense")) {
+            writer.writeHeader();
+            Iterator<ExpenseResponse> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                ExpenseResponse row = iterator.next();
+                writer.writeRow(row.getId(), row.getDescription(), row.getCategory(),
+                        row.getAmount(), row.getDateOfExpense());
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
     public List<ExpenseResponse> sortExpenses(Long userId, String sortBy, String order) {
         // Verify user authorization
         verifyUserAuthorization(userId);
 
-        List<Expense> expenses;
+        Sort.Direction direction = "desc".equalsIgnoreCase(order) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort;
+        LedgerColumns.Column column;
 
         if ("amount".equalsIgnoreCase(sortBy)) {
-            expenses = "desc".equalsIgnoreCase(order) ?
-                    expenseRepository.findByUserIdOrderByAmountDesc(userId) :
-                    expenseRepository.findByUserIdOrderByAmountAsc(userId);
+            sort = Sort.by(direction, "amount");
+            column = LedgerColumns.Column.AMOUNT;
         } else if ("date".equalsIgnoreCase(sortBy)) {
-            expenses = "desc".equalsIgnoreCase(order) ?
-                    expenseRepository.findByUserIdOrderByDateOfExpenseDesc(userId) :
-                    expenseRepository.findByUserIdOrderByDateOfExpenseAsc(userId);
+            sort = Sort.by(direction, "dateOfExpense");
+            column = LedgerColumns.Column.DATE;
         } else if ("category".equalsIgnoreCase(sortBy)) {
-            expenses = "desc".equalsIgnoreCase(order) ?
-                    expenseRepository.findByUserIdOrderByCategoryDesc(userId) :
-                    expenseRepository.findByUserIdOrderByCategoryAsc(userId);
+            sort = Sort.by(direction, "category");
+            column = LedgerColumns.Column.KIND;
         } else {
-            expenses = expenseRepository.findByUserId(userId);
+            sort = Sort.unsorted();
+            column = null;
         }
 
-        return expenses.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        LedgerWorkingSet.Snapshot snapshot = ledgerWorkingSet.snapshot(userId);
+        if (snapshot != null) {
+            LedgerColumns<ExpenseCategory> expenses = snapshot.expenses();
+            return mapToResponses(expenses, expenses.sorted(column, direction == Sort.Direction.DESC));
+        }
+
+        return expenseRepository.findResponsesByUserId(userId, sort);
     }
 
     public void verifyUserOwnership(Long userId, Long expenseId) {
-        Expense expense = expenseRepository.findById(expenseId)
-                .orElseThrow(() -> new ResourceNotFoundException("Expense not found with id: " + expenseId));
+        findOwnedExpense(userId, expenseId);
+    }
+
+    private Expense findOwnedExpense(Long userId, Long expenseId) {
+        return expenseRepository.findByIdAndUserId(expenseId, userId)
+                .orElseThrow(() -> ownershipFailure(expenseId));
+    }
 
-        if (!expense.getUser().getId().equals(userId)) {
-            throw new UnauthorizedException("You are not authorized to access this expense");
+    /**
+     * Explain an ownership-scoped miss: someone else's expense is unauthorized, otherwise not found.
+     * Only runs on the failure path, so successful calls stay at one query.
+     */
+    private RuntimeException ownershipFailure(Long expenseId) {
+        if (expenseRepository.existsById(expenseId)) {
+            return new UnauthorizedException("You are not authorized to access this expense");
         }
+        return new ResourceNotFoundException("Expense not found with id: " + expenseId);
     }
 
-    private User verifyUserAuthorization(Long userId) {
-        User currentUser = authService.getCurrentUser();
-        if (!currentUser.getId().equals(userId)) {
+    private void verifyUserAuthorization(Long userId) {
+        if (!authService.getCurrentUserId().equals(userId)) {
             throw new UnauthorizedException("You are not authorized to perform this action");
         }
-        return currentUser;
+    }
+
+    /**
+     * Responses for the given rows of the working set, in the given order
+     */
+    private static List<ExpenseResponse> mapToResponses(LedgerColumns<ExpenseCategory> expenses, int[] rows) {
+        List<ExpenseResponse> responses = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            responses.add(ExpenseResponse.builder()
+                    .id(expenses.id(row))
+                    .description(expenses.description(row))
+                    .category(expenses.kind(row))
+                    .amount(expenses.amount(row))
+                    .dateOfExpense(expenses.date(row))
+                    .build());
+        }
+        return responses;
     }
 
     private ExpenseResponse mapToResponse(Expense expense) {
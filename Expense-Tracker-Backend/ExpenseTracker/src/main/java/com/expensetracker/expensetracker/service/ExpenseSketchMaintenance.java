@@ -0,0 +1,132 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.repository.ExpenseRepository;
+import com.expensetracker.expensetracker.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Startup jobs for the expense sketches. A rebuild from the raw ledger runs automatically when
+ * the sketches are empty but the ledger is not, which is the state right after the migration
+ * that introduced them, and on demand with app.stats.rebuild-on-startup. The verification
+ * compares every sketch with the exact count, sum and quantiles of its rows, so it doubles as an
+ * accuracy check of the sketch on real data, and can repair the users that drifted. Both run
+ * under a maintenance lock, and the backfill check is repeated once the lock is held, so when
+ * several replicas start together the sketches are built once.
+ */
+@Component
+public class ExpenseSketchMaintenance implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseSketchMaintenance.class);
+
+    static final String LOCK_NAME = "expense-sketches";
+
+    private final ExpenseSketchService sketchService;
+    private final UserRepository userRepository;
+    private final ExpenseRepository expenseRepository;
+    private final MaintenanceLock maintenanceLock;
+
+    @Value("${app.stats.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @Value("${app.stats.verify-on-startup:false}")
+    private boolean verifyOnStartup;
+
+    @Value("${app.stats.repair-inconsistencies:false}")
+    private boolean repairInconsistencies;
+
+    @Value("${app.stats.maintenance-threads:4}")
+    private int maintenanceThreads;
+
+    public ExpenseSketchMaintenance(ExpenseSketchService sketchService,
+                                    UserRepository userRepository,
+                                    ExpenseRepository expenseRepository,
+                                    MaintenanceLock maintenanceLock) {
+        this.sketchService = sketchService;
+        this.userRepository = userRepository;
+        this.expenseRepository = expenseRepository;
+        this.maintenanceLock = maintenanceLock;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (rebuildOnStartup || needsBackfill()) {
+            maintenanceLock.runExclusively(LOCK_NAME, () -> {
+                // Another replica may have built the sketches while this one waited for its turn
+                if (rebuildOnStartup || needsBackfill()) {
+                    rebuildAll();
+                }
+            });
+        } else if (verifyOnStartup) {
+            maintenanceLock.runExclusively(LOCK_NAME, () -> verifyAll(repairInconsistencies));
+        }
+    }
+
+    /**
+     * Rebuild every user's sketches, spread across the maintenance thread pool
+     */
+    public void rebuildAll() throws InterruptedException, ExecutionException {
+        long started = System.currentTimeMillis();
+        List<Long> userIds = userRepository.findAllIds();
+        forEachUser(userIds, sketchService::rebuild);
+        logger.info("Rebuilt expense sketches for {} users in {} ms",
+                userIds.size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Check every user's sketches against the raw ledger, rebuilding the inconsistent ones when
+     * asked to. Returns the number of users whose sketches disagreed.
+     */
+    public int verifyAll(boolean repair) throws InterruptedException, ExecutionException {
+        List<Long> userIds = userRepository.findAllIds();
+        AtomicInteger inconsistentUsers = new AtomicInteger();
+
+        forEachUser(userIds, userId -> {
+            List<String> problems = sketchService.findInconsistencies(userId);
+            if (problems.isEmpty()) {
+                return;
+            }
+            inconsistentUsers.incrementAndGet();
+            problems.forEach(problem -> logger.warn("Expense sketch mismatch: {}", problem));
+            if (repair) {
+                sketchService.rebuild(userId);
+            }
+        });
+
+        logger.info("Verified expense sketches for {} users, {} inconsistent{}",
+                userIds.size(), inconsistentUsers.get(), repair ? " and repaired" : "");
+        return inconsistentUsers.get();
+    }
+
+    private boolean needsBackfill() {
+        return sketchService.isEmpty() && expenseRepository.count() > 0;
+    }
+
+    private void forEachUser(List<Long> userIds, Consumer<Long> task) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, maintenanceThreads));
+        try {
+            List<Future<?>> futures = new ArrayList<>(userIds.size());
+            for (Long userId : userIds) {
+                futures.add(executor.submit(() -> task.accept(userId)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.dto.response.ExpenseResponse;
+import com.expensetracker.expensetracker.entity.Expense;
+import com.expensetracker.expensetracker.entity.ExpenseSketch;
+import com.expensetracker.expensetracker.entity.ExpenseSketchId;
+import com.expensetracker.expensetracker.repository.ExpenseRepository;
+import com.expensetracker.expensetracker.repository.ExpenseSketchRepository;
+import com.expensetracker.expensetracker.repository.ExpenseSpecifications;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the per-user expense sketches in step with the expense ledger, one per category and
+ * month, and hands them out for the spending statistics. Changes are applied inside the
+ * caller's transaction like the monthly rollups, under a row lock per sketch because a sketch
+ * is read, modified and written back rather than incremented in SQL.
+ */
+@Service
+public class ExpenseSketchService {
+
+    /**
+     * Quantiles compared with the exact ones when checking a user's sketches
+     */
+    private static final double[] CHECKED_QUANTILES = {0.25, 0.5, 0.75, 0.9, 0.99};
+
+    private static final Comparator<ExpenseSketchId> LOCK_ORDER =
+            Comparator.comparing(ExpenseSketchId::getMonthKey).thenComparing(ExpenseSketchId::getCategory);
+
+    private static final byte[] EMPTY = new AmountSketch().toBytes();
+
+    private final ExpenseSketchRepository sketchRepository;
+    private final ExpenseRepository expenseRepository;
+
+    public ExpenseSketchService(ExpenseSketchRepository sketchRepository, ExpenseRepository expenseRepository) {
+        this.sketchRepository = sketchRepository;
+        this.expenseRepository = expenseRepository;
+    }
+
+    /**
+     * Take the removed expenses (or the old values of updated ones) out of the sketches and put
+     * the added ones in. Each touched category and month is read and written once, and the rows
+     * are locked in month and category order so concurrent writers cannot deadlock.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyExpenseChanges(Long userId, List<Expense> removed, List<Expense> added) {
+        Map<ExpenseSketchId, AmountSketch> deltas = new TreeMap<>(LOCK_ORDER);
+        for (Expense expense : removed) {
+            deltas.computeIfAbsent(sketchId(userId, expense), id -> new AmountSketch())
+                    .remove(Money.toCents(expense.getAmount()));
+        }
+        for (Expense expense : added) {
+            deltas.computeIfAbsent(sketchId(userId, expense), id -> new AmountSketch())
+                    .add(Money.toCents(expense.getAmount()));
+        }
+
+        deltas.forEach((id, delta) -> {
+            // Changes that cancel out, such as a description-only edit, leave the row alone
+            if (delta.isNoOp()) {
+                return;
+            }
+            sketchRepository.insertIfAbsent(id.getUserId(), id.getCategory(), id.getMonthKey(), EMPTY);
+            ExpenseSketch row = sketchRepository.findForUpdate(id)
+                    .orElseThrow(() -> new IllegalStateException("Sketch row vanished: " + id));
+            AmountSketch sketch = AmountSketch.fromBytes(row.getSketch());
+            sketch.merge(delta);
+            row.setSketch(sketch.toBytes());
+        });
+    }
+
+    /**
+     * Sketches of a user's expenses between two months, inclusive, oldest month first
+     */
+    @Transactional(readOnly = true)
+    public List<ExpenseSketch> findSketches(Long userId, YearMonth startMonth, YearMonth endMonth) {
+        return sketchRepository.findByUserIdAndMonthKeyBetween(
+                userId, MonthlyRollupService.monthKey(startMonth), MonthlyRollupService.monthKey(endMonth));
+    }
+
+    /**
+     * Whether the sketches have never been built, e.g. right after the migration that created
+     * them. Not read-only, so it is answered by the primary: on a lagging replica freshly built
+     * sketches can still look empty and start a second rebuild.
+     */
+    @Transactional
+    public boolean isEmpty() {
+        return sketchRepository.count() == 0;
+    }
+
+    /**
+     * Replace a user's sketches with ones built from the raw expense ledger
+     */
+    @Transactional
+    public void rebuild(Long userId) {
+        sketchRepository.deleteByUserId(userId);
+        sketchRepository.flush();
+
+        List<ExpenseSketch> rows = new ArrayList<>();
+        buildFromLedger(userId).forEach((id, sketch) -> rows.add(new ExpenseSketch(id, sketch.toBytes())));
+        sketchRepository.saveAll(rows);
+    }
+
+    /**
+     * Compare a user's sketches with the raw expense ledger and describe every category and
+     * month that disagrees: a different count or sum, or a quantile further from the exact one
+     * than the sketch's accuracy allows. Rows whose count has dropped to zero are treated as
+     * absent. The transaction is deliberately not read-only, so replica routing keeps it on the
+     * primary: on a lagging replica a sketch and its ledger rows can be out of step and trigger a
+     * needless repair.
+     */
+    @Transactional
+    public List<String> findInconsistencies(Long userId) {
+        Map<ExpenseSketchId, List<Long>> expected = new HashMap<>();
+        try (Stream<ExpenseResponse> rows = expenseRepository.streamResponses(
+                ExpenseSpecifications.belongsTo(userId), Sort.unsorted())) {
+            Iterator<ExpenseResponse> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                ExpenseResponse row = iterator.next();
+                expected.computeIfAbsent(sketchId(userId, row), id -> new ArrayList<>())
+                        .add(Money.toCents(row.getAmount()));
+            }
+        }
+
+        List<String> problems = new ArrayList<>();
+        for (ExpenseSketch row : sketchRepository.findByUserId(userId)) {
+            AmountSketch sketch = AmountSketch.fromBytes(row.getSketch());
+            List<Long> amounts = expected.remove(row.getId());
+            if (amounts == null) {
+                if (!sketch.isNoOp()) {
+                    problems.add(row.getId() + " has no ledger rows but holds " + sketch.count() + " entries");
+                }
+                continue;
+            }
+
+            long[] sorted = amounts.stream().mapToLong(Long::longValue).sorted().toArray();
+            long sum = MoneyKernels.sum(sorted, 0, sorted.length);
+            if (sketch.count() != sorted.length || sketch.sumCents() != sum) {
+                problems.add(row.getId() + " holds " + sketch.count() + " entries summing to "
+                        + sketch.sumCents() + " cents, ledger has " + sorted.length + " summing to " + sum);
+                continue;
+            }
+            for (double q : CHECKED_QUANTILES) {
+                long exact = sorted[(int) Math.floor(q * (sorted.length - 1))];
+                long estimate = sketch.quantile(q);
+                if (Math.abs(estimate - exact) > AmountSketch.RELATIVE_ACCURACY * exact + 0.5) {
+                    problems.add(row.getId() + " estimates quantile " + q + " as " + estimate
+                            + " cents, ledger has " + exact);
+                }
+            }
+        }
+        for (ExpenseSketchId missing : expected.keySet()) {
+            problems.add(missing + " is missing");
+        }
+        return problems;
+    }
+
+    private Map<ExpenseSketchId, AmountSketch> buildFromLedger(Long userId) {
+        Map<ExpenseSketchId, AmountSketch> sketches = new HashMap<>();
+        try (Stream<ExpenseResponse> rows = expenseRepository.streamResponses(
+                ExpenseSpecifications.belongsTo(userId), Sort.unsorted())) {
+            Iterator<ExpenseResponse> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                ExpenseResponse row = iterator.next();
+                sketches.computeIfAbsent(sketchId(userId, row), id -> new AmountSketch())
+                        .add(Money.toCents(row.getAmount()));
+            }
+        }
+        return sketches;
+    }
+
+    private static ExpenseSketchId sketchId(Long userId, Expense expense) {
+        return new ExpenseSketchId(userId, expense.getCategory().name(),
+                MonthlyRollupService.monthKey(expense.getDateOfExpense()));
+    }
+
+    private static ExpenseSketchId sketchId(Long userId, ExpenseResponse expense) {
+        return new ExpenseSketchId(userId, expense.getCategory().name(),
+                MonthlyRollupService.monthKey(expense.getDateOfExpense()));
+    }
+}
@@ -1,37 +1,85 @@
 package com.expensetracker.expensetracker.service;
 
+import com.expensetracker.expensetracker.dto.request.BatchOperation;
 import com.expensetracker.expensetracker.dto.request.IncomeRequest;
 import com.expensetracker.expensetracker.dto.request.FilterRequest;
+import com.expensetracker.expensetracker.dto.response.BatchItemResponse;
+import com.expensetracker.expensetracker.dto.response.BatchResponse;
+import com.expensetracker.expensetracker.dto.response.CursorPageResponse;
 import com.expensetracker.expensetracker.dto.response.IncomeResponse;
 import com.expensetracker.expensetracker.entity.Income;
 import com.expensetracker.expensetracker.entity.User;
+import com.expensetracker.expensetracker.enums.BatchOperationType;
+import com.expensetracker.expensetracker.enums.ExportFormat;
 import com.expensetracker.expensetracker.enums.IncomeSource;
+import com.expensetracker.expensetracker.enums.LedgerType;
+import com.expensetracker.expensetracker.exception.BadRequestException;
 import com.expensetracker.expensetracker.exception.ResourceNotFoundException;
 import com.expensetracker.expensetracker.exception.UnauthorizedException;
 import com.expensetracker.expensetracker.repository.IncomeRepository;
+import com.expensetracker.expensetracker.repository.IncomeSpecifications;
+import com.expensetracker.expensetracker.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.time.LocalDate;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 public class IncomeService {
 
+    /**
+     * Upper bound on words in a search query; each word is one index lookup
+     */
+    public static final int MAX_SEARCH_TERMS = 8;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private final IncomeRepository incomeRepository;
+    private final UserRepository userRepository;
     private final AuthService authService;
-
-    public IncomeService(IncomeRepository incomeRepository, AuthService authService) {
+    private final MonthlyRollupService monthlyRollupService;
+    private final DataVersionService dataVersionService;
+    private final DescriptionIndexService descriptionIndexService;
+    private final LedgerWorkingSet ledgerWorkingSet;
+
+    public IncomeService(IncomeRepository incomeRepository, UserRepository userRepository,
+                         AuthService authService, MonthlyRollupService monthlyRollupService,
+                         DataVersionService dataVersionService,
+                         DescriptionIndexService descriptionIndexService,
+                         LedgerWorkingSet ledgerWorkingSet) {
         this.incomeRepository = incomeRepository;
+        this.userRepository = userRepository;
         this.authService = authService;
+        this.monthlyRollupService = monthlyRollupService;
+        this.dataVersionService = dataVersionService;
+        this.descriptionIndexService = descriptionIndexService;
+        this.ledgerWorkingSet = ledgerWorkingSet;
     }
 
     @Transactional
     public IncomeResponse addIncome(Long userId, IncomeRequest request) {
         // Verify user authorization
-        User user = verifyUserAuthorization(userId);
+        verifyUserAuthorization(userId);
+
+        // Reference only; the insert needs the foreign key, not the user row
+        User user = userRepository.getReferenceById(userId);
 
         Income income = Income.builder()
                 .user(user)
@@ -42,30 +90,59 @@ public class IncomeService {
                 .build();
 
         income = incomeRepository.save(income);
+        monthlyRollupService.addIncome(userId, income.getSource(), income.getDateOfIncome(), income.getAmount());
+        descriptionIndexService.index(userId, LedgerType.INCOME, income.getId(), income.getDescription());
+        dataVersionService.bump(userId);
+        ledgerWorkingSet.incomesChanged(userId, List.of(), List.of(income));
         return mapToResponse(income);
     }
 
+    @Transactional(readOnly = true)
     public List<IncomeResponse> getIncomes(Long userId) {
         // Verify user authorization
         verifyUserAuthorization(userId);
 
-        List<Income> incomes = incomeRepository.findByUserId(userId);
-        return incomes.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return incomeRepository.findResponsesByUserId(userId, Sort.unsorted());
     }
 
-    public IncomeResponse getIncomeById(Long userId, Long incomeId) {
+    @Transactional(readOnly = true)
+    public CursorPageResponse<IncomeResponse> getIncomesPage(Long userId, Integer limit, String after) {
         // Verify user authorization
         verifyUserAuthorization(userId);
 
-        Income income = incomeRepository.findById(incomeId)
-                .orElseThrow(() -> new ResourceNotFoundException("Income not found with id: " + incomeId));
+        int pageSize = PageCursor.resolveLimit(limit);
+        PageCursor cursor = PageCursor.decode(after);
 
-        // Verify ownership
-        verifyUserOwnership(userId, incomeId);
+        // Fetch one extra row to learn whether another page exists
+        List<IncomeResponse> incomes = cursor == null
+                ? incomeRepository.findFirstPageByUserId(userId, Limit.of(pageSize + 1))
+                : incomeRepository.findPageByUserIdAfter(userId, cursor.date(), cursor.id(), Limit.of(pageSize + 1));
 
-        return mapToResponse(income);
+        boolean hasMore = incomes.size() > pageSize;
+        if (hasMore) {
+            incomes = incomes.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            IncomeResponse last = incomes.get(incomes.size() - 1);
+            nextCursor = new PageCursor(last.getDateOfIncome(), last.getId()).encode();
+        }
+
+        return CursorPageResponse.<IncomeResponse>builder()
+                .items(incomes)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public IncomeResponse getIncomeById(Long userId, Long incomeId) {
+        // Verify user authorization
+        verifyUserAuthorization(userId);
+
+        return incomeRepository.findResponseByIdAndUserId(incomeId, userId)
+                .orElseThrow(() -> ownershipFailure(incomeId));
     }
 
     @Transactional
@@ -73,11 +150,18 @@ public class IncomeService {
         // Verify user authorization
         verifyUserAuthorization(userId);
 
-        Income income = incomeRepository.findById(incomeId)
-                .orElseThrow(() -> new ResourceNotFoundException("Income not found with id: " + incomeId));
+        // Load and verify ownership in one query
+        Income income = findOwnedIncome(userId, incomeId);
 
-        // Verify ownership
-        verifyUserOwnership(userId, incomeId);
+        // Only amount, source and date feed the rollups; a description edit leaves them alone
+        boolean rollupChanged = income.getSource() != request.getSource()
+                || !income.getDateOfIncome().equals(request.getDateOfIncome())
+                || income.getAmount().compareTo(request.getAmount()) != 0;
+        if (rollupChanged) {
+            monthlyRollupService.removeIncome(userId, income.getSource(), income.getDateOfIncome(), income.getAmount());
+        }
+
+        boolean descriptionChanged = !income.getDescription().equals(request.getDescription());
 
         income.setDescription(request.getDescription());
         income.setSource(request.getSource());
@@ -85,6 +169,14 @@ public class IncomeService {
         income.setDateOfIncome(request.getDateOfIncome());
 
         income = incomeRepository.save(income);
+        if (rollupChanged) {
+            monthlyRollupService.addIncome(userId, income.getSource(), income.getDateOfIncome(), income.getAmount());
+        }
+        if (descriptionChanged) {
+            descriptionIndexService.reindex(userId, LedgerType.INCOME, income.getId(), income.getDescription());
+        }
+        dataVersionService.bump(userId);
+        ledgerWorkingSet.incomesChanged(userId, List.of(), List.of(income));
         return mapToResponse(income);
     }
 
@@ -93,97 +185,289 @@ public class IncomeService {
         // Verify user authorization
         verifyUserAuthorization(userId);
 
-        Income income = incomeRepository.findById(incomeId)
-                .orElseThrow(() -> new ResourceNotFoundException("Income not found with id: " + incomeId));
-
-        // Verify ownership
-        verifyUserOwnership(userId, incomeId);
+        // Load and verify ownership in one query
+        Income income = findOwnedIncome(userId, incomeId);
 
         incomeRepository.delete(income);
+        monthlyRollupService.removeIncome(userId, income.getSource(), income.getDateOfIncome(), income.getAmount());
+        descriptionIndexService.remove(LedgerType.INCOME, income.getId());
+        dataVersionService.bump(userId);
+        ledgerWorkingSet.incomesChanged(userId, List.of(income.getId()), List.of());
     }
 
+    /**
+     * Apply a client's batch of creates, updates and deletes in one transaction. Every operation
+     * is checked before any is applied; if one is invalid nothing is written and each offending
+     * item carries its error. Writes are sent as JDBC batches at commit, and the rollups, search
+     * index and data version are maintained once for the whole batch.
+     */
+    @Transactional
+    public BatchResponse<IncomeResponse> applyBatch(Long userId, List<BatchOperation<IncomeRequest>> operations) {
+        // Verify user authorization
+        verifyUserAuthorization(userId);
+
+        List<String> errors = BatchOperations.checkShape(operations);
+
+        // Load every referenced income in one query, which also verifies ownership
+        Set<Long> ids = BatchOperations.referencedIds(operations);
+        Map<Long, Income> owned = new HashMap<>();
+        for (Income income : incomeRepository.findByUserIdAndIdInOrderByIdAsc(userId, ids)) {
+            owned.put(income.getId(), income);
+        }
+        for (int i = 0; i < operations.size(); i++) {
+            Long id = operations.get(i).getId();
+            if (errors.get(i) == null && id != null && !owned.containsKey(id)) {
+                errors.set(i, ownershipFailure(id).getMessage());
+            }
+        }
+        if (BatchOperations.hasErrors(errors)) {
+            return BatchOperations.rejected(operations, errors);
+        }
+
+        entityManager.unwrap(Session.class).setJdbcBatchSize(LedgerBatchWriter.BATCH_SIZE);
+        User user = userRepository.getReferenceById(userId);
+
+        List<Income> removed = new ArrayList<>();
+        List<Income> added = new ArrayList<>();
+        List<Income> deleted = new ArrayList<>();
+        List<Income> saved = new ArrayList<>();
+        List<Long> unindexed = new ArrayList<>();
+        Map<Long, String> indexed = new LinkedHashMap<>();
+        List<BatchItemResponse<IncomeResponse>> results = new ArrayList<>(operations.size());
+
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation<IncomeRequest> operation = operations.get(i);
+            IncomeRequest request = operation.getData();
+            Income income;
+            switch (operation.getOp()) {
+                case CREATE -> {
+                    income = incomeRepository.save(Income.builder()
+                            .user(user)
+                            .description(request.getDescription())
+                            .source(request.getSource())
+                            .amount(request.getAmount())
+                            .dateOfIncome(request.getDateOfIncome())
+                            .build());
+                    added.add(income);
+                    saved.add(income);
+                    indexed.put(income.getId(), income.getDescription());
+                }
+                case UPDATE -> {
+                    income = owned.get(operation.getId());
+                    if (income.getSource() != request.getSource()
+                            || !income.getDateOfIncome().equals(request.getDateOfIncome())
+                            || income.getAmount().compareTo(request.getAmount()) != 0) {
+                        // Keep the old values for the rollups before they are overwritten
+                        removed.add(Income.builder()
+                                .source(income.getSource())
+                                .amount(income.getAmount())
+                                .dateOfIncome(income.getDateOfIncome())
+                                .build());
+                        added.add(income);
+                    }
+                    if (!income.getDescription().equals(request.getDescription())) {
+                        unindexed.add(income.getId());
+                        indexed.put(income.getId(), request.getDescription());
+                    }
+                    income.setDescription(request.getDescription());
+                    income.setSource(request.getSource());
+                    income.setAmount(request.getAmount());
+                    income.setDateOfIncome(request.getDateOfIncome());
+                    saved.add(income);
+                }
+                default -> { // DELETE
+                    income = owned.get(operation.getId());
+                    deleted.add(income);
+                    removed.add(income);
+                    unindexed.add(income.getId());
+                }
+            }
+            results.add(BatchItemResponse.<IncomeResponse>builder()
+                    .index(i)
+                    .op(operation.getOp())
+                    .id(income.getId())
+                    .data(operation.getOp() == BatchOperationType.DELETE ? null : mapToResponse(income))
+                    .build());
+        }
+
+        // Deletes in id order, like the loaded updates, so concurrent batches lock rows in the same order
+        deleted.sort(Comparator.comparing(Income::getId));
+        incomeRepository.deleteAll(deleted);
+
+        monthlyRollupService.applyIncomeChanges(userId, removed, added);
+        descriptionIndexService.removeAll(LedgerType.INCOME, unindexed);
+        descriptionIndexService.indexAll(userId, LedgerType.INCOME, indexed);
+        dataVersionService.bump(userId);
+        ledgerWorkingSet.incomesChanged(userId, deleted.stream().map(Income::getId).toList(), saved);
+        return BatchResponse.<IncomeResponse>builder().applied(true).results(results).build();
+    }
+
+    @Transactional(readOnly = true)
     public List<IncomeResponse> filterIncomes(Long userId, FilterRequest filterRequest) {
         // Verify user authorization
         verifyUserAuthorization(userId);
 
-        List<Income> incomes;
-
-        IncomeSource source = filterRequest.getSource();
-        LocalDate startDate = filterRequest.getStartDate();
-        LocalDate endDate = filterRequest.getEndDate();
-        BigDecimal minAmount = filterRequest.getMinAmount();
-        BigDecimal maxAmount = filterRequest.getMaxAmount();
-
-        // Apply filters based on what's provided
-        if (source != null && startDate != null && endDate != null && minAmount != null && maxAmount != null) {
-            incomes = incomeRepository.findByUserIdAndSourceAndDateOfIncomeBetweenAndAmountBetween(
-                    userId, source, startDate, endDate, minAmount, maxAmount);
-        } else if (source != null && startDate != null && endDate != null) {
-            incomes = incomeRepository.findByUserIdAndSourceAndDateOfIncomeBetween(
-                    userId, source, startDate, endDate);
-        } else if (source != null && minAmount != null && maxAmount != null) {
-            incomes = incomeRepository.findByUserIdAndSourceAndAmountBetween(
-                    userId, source, minAmount, maxAmount);
-        } else if (startDate != null && endDate != null && minAmount != null && maxAmount != null) {
-            incomes = incomeRepository.findByUserIdAndDateOfIncomeBetweenAndAmountBetween(
-                    userId, startDate, endDate, minAmount, maxAmount);
-        } else if (source != null) {
-            incomes = incomeRepository.findByUserIdAndSource(userId, source);
-        } else if (startDate != null && endDate != null) {
-            incomes = incomeRepository.findByUserIdAndDateOfIncomeBetween(userId, startDate, endDate);
-        } else if (minAmount != null && maxAmount != null) {
-            incomes = incomeRepository.findByUserIdAndAmountBetween(userId, minAmount, maxAmount);
-        } else {
-            incomes = incomeRepository.findByUserId(userId);
+        LedgerWorkingSet.Snapshot snapshot = ledgerWorkingSet.snapshot(userId);
+        if (snapshot != null) {
+            LedgerColumns<IncomeSource> incomes = snapshot.incomes();
+            return mapToResponses(incomes, incomes.filter(filterRequest.getSource(), filterRequest.getStartDate(),
+                    filterRequest.getEndDate(), filterRequest.getMinAmount(), filterRequest.getMaxAmount()));
+        }
+
+        return incomeRepository.findResponses(
+                IncomeSpecifications.matching(userId, filterRequest),
+                Sort.by(Sort.Order.desc("dateOfIncome"), Sort.Order.desc("id")));
+    }
+
+    /**
+     * Ranked search over descriptions, combined with the usual filters. Every query word must
+     * start a word of the description; whole-word matches rank first, then newest first.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<IncomeResponse> searchIncomes(Long userId, String q, FilterRequest filterRequest,
+                                                            Integer limit, String after) {
+        // Verify user authorization
+        verifyUserAuthorization(userId);
+
+        List<String> terms = DescriptionTokenizer.tokenize(q);
+        if (terms.isEmpty()) {
+            throw new BadRequestException("q must contain at least one word");
+        }
+        if (terms.size() > MAX_SEARCH_TERMS) {
+            throw new BadRequestException("q may contain at most " + MAX_SEARCH_TERMS + " words");
+        }
+
+        int pageSize = PageCursor.resolveLimit(limit);
+        SearchCursor cursor = SearchCursor.decode(after);
+
+        Specification<Income> specification = IncomeSpecifications.matching(userId, filterRequest);
+        for (String term : terms) {
+            specification = specification.and(IncomeSpecifications.descriptionHasWordStartingWith(userId, term));
+        }
+
+        // Fetch one extra row to learn whether another page exists
+        List<IncomeResponse> incomes = cursor == null
+                ? incomeRepository.findRankedResponses(specification, userId, terms, null, null, null, pageSize + 1)
+                : incomeRepository.findRankedResponses(specification, userId, terms,
+                        cursor.rank(), cursor.date(), cursor.id(), pageSize + 1);
+
+        boolean hasMore = incomes.size() > pageSize;
+        if (hasMore) {
+            incomes = incomes.subList(0, pageSize);
         }
 
-        return incomes.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        String nextCursor = null;
+        if (hasMore) {
+            IncomeResponse last = incomes.get(incomes.size() - 1);
+            nextCursor = new SearchCursor(DescriptionTokenizer.rank(last.getDescription(), terms),
+                    last.getDateOfIncome(), last.getId()).encode();
+        }
+
+        return CursorPageResponse.<IncomeResponse>builder()
+                .items(incomes)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Write every income matching the filter to the output, newest first, without materializing
+     * the result set. Runs inside one read-only transaction so the driver can stream the rows.
+     */
+    @Transactional(readOnly = true)
+    public void exportIncomes(Long userId, FilterRequest filterRequest, ExportFormat format, OutputStream out)
+            throws IOException {
+        // Verify user authorization
+        verifyUserAuthorization(userId);
+
+        try (Stream<IncomeResponse> rows = incomeRepository.streamResponses(
+                     IncomeSpecifications.matching(userId, filterRequest),
+                     Sort.by(Sort.Order.desc("dateOfIncome"), Sort.Order.desc("id")));
+             LedgerExportWriter writer = new LedgerExportWriter(
+                     out, format, "id", "description", "source", "amount", "dateOfIncome")) {
+            writer.writeHeader();
+            Iterator<IncomeResponse> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                IncomeResponse row = iterator.next();
+                writer.writeRow(row.getId(), row.getDescription(), row.getSource(),
+                        row.getAmount(), row.getDateOfIncome());
+            }
+        }
     }
 
+    @Transactional(readOnly = true)
     public List<IncomeResponse> sortIncomes(Long userId, String sortBy, String order) {
         // Verify user authorization
         verifyUserAuthorization(userId);
 
-        List<Income> incomes;
+        Sort.Direction direction = "desc".equalsIgnoreCase(order) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort;
+        LedgerColumns.Column column;
 
         if ("amount".equalsIgnoreCase(sortBy)) {
-            incomes = "desc".equalsIgnoreCase(order) ?
-                    incomeRepository.findByUserIdOrderByAmountDesc(userId) :
-                    incomeRepository.findByUserIdOrderByAmountAsc(userId);
+            sort = Sort.by(direction, "amount");
+            column = LedgerColumns.Column.AMOUNT;
         } else if ("date".equalsIgnoreCase(sortBy)) {
-            incomes = "desc".equalsIgnoreCase(order) ?
-                    incomeRepository.findByUserIdOrderByDateOfIncomeDesc(userId) :
-                    incomeRepository.findByUserIdOrderByDateOfIncomeAsc(userId);
+            sort = Sort.by(direction, "dateOfIncome");
+            column = LedgerColumns.Column.DATE;
         } else if ("source".equalsIgnoreCase(sortBy)) {
-            incomes = "desc".equalsIgnoreCase(order) ?
-                    incomeRepository.findByUserIdOrderBySourceDesc(userId) :
-                    incomeRepository.findByUserIdOrderBySourceAsc(userId);
+            sort = Sort.by(direction, "source");
+            column = LedgerColumns.Column.KIND;
         } else {
-            incomes = incomeRepository.findByUserId(userId);
+            sort = Sort.unsorted();
+            column = null;
         }
 
-        return incomes.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        LedgerWorkingSet.Snapshot snapshot = ledgerWorkingSet.snapshot(userId);
+        if (snapshot != null) {
+            LedgerColumns<IncomeSource> incomes = snapshot.incomes();
+            return mapToResponses(incomes, incomes.sorted(column, direction == Sort.Direction.DESC));
+        }
+
+        return incomeRepository.findResponsesByUserId(userId, sort);
     }
 
     public void verifyUserOwnership(Long userId, Long incomeId) {
-        Income income = incomeRepository.findById(incomeId)
-                .orElseThrow(() -> new ResourceNotFoundException("Income not found with id: " + incomeId));
+        findOwnedIncome(userId, incomeId);
+    }
+
+    private Income findOwnedIncome(Long userId, Long incomeId) {
+        return incomeRepository.findByIdAndUserId(incomeId, userId)
+                .orElseThrow(() -> ownershipFailure(incomeId));
+    }
 
-        if (!income.getUser().getId().equals(userId)) {
-            throw new UnauthorizedException("You are not authorized to access this income");
+    /**
+     * Explain an ownership-scoped miss: someone else's income is unauthorized, otherwise not found.
+     * Only runs on the failure path, so successful calls stay at one query.
+     */
+    private RuntimeException ownershipFailure(Long incomeId) {
+        if (incomeRepository.existsById(incomeId)) {
+            return new UnauthorizedException("You are not authorized to access this income");
         }
+        return new ResourceNotFoundException("Income not found with id: " + incomeId);
     }
 
-    private User verifyUserAuthorization(Long userId) {
-        User currentUser = authService.getCurrentUser();
-        if (!currentUser.getId().equals(userId)) {
+    private void verifyUserAuthorization(Long userId) {
+        if (!authService.getCurrentUserId().equals(userId)) {
             throw new UnauthorizedException("You are not authorized to perform this action");
         }
-        return currentUser;
+    }
+
+    /**
+     * Responses for the given rows of the working set, in the given order
+     */
+    private static List<IncomeResponse> mapToResponses(LedgerColumns<IncomeSource> incomes, int[] rows) {
+        List<IncomeResponse> responses = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            responses.add(IncomeResponse.builder()
+                    .id(incomes.id(row))
+                    .description(incomes.description(row))
+                    .source(incomes.kind(row))
+                    .amount(incomes.amount(row))
+                    .dateOfIncome(incomes.date(row))
+                    .build());
+        }
+        return responses;
     }
 
     private IncomeResponse mapToResponse(Income income) {
@@ -0,0 +1,85 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.entity.Expense;
+import com.expensetracker.expensetracker.entity.Income;
+import com.expensetracker.expensetracker.entity.User;
+import com.expensetracker.expensetracker.enums.LedgerType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts many new expenses and incomes for one user at once. Rows go out as JDBC batches, the
+ * monthly rollups take one upsert per bucket and month, the expense sketches one locked update
+ * per category and month, and the search index and data version are updated once for the whole
+ * batch. Runs in the caller's transaction and clears the persistence context afterwards, so
+ * callers should hand in a bounded batch and not hold on to other managed entities.
+ */
+@Service
+public class LedgerBatchWriter {
+
+    public static final int BATCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final MonthlyRollupService monthlyRollupService;
+    private final DescriptionIndexService descriptionIndexService;
+    private final DataVersionService dataVersionService;
+    private final ExpenseSketchService expenseSketchService;
+
+    public LedgerBatchWriter(MonthlyRollupService monthlyRollupService,
+                             DescriptionIndexService descriptionIndexService,
+                             DataVersionService dataVersionService,
+                             ExpenseSketchService expenseSketchService) {
+        this.monthlyRollupService = monthlyRollupService;
+        this.descriptionIndexService = descriptionIndexService;
+        this.dataVersionService = dataVersionService;
+        this.expenseSketchService = expenseSketchService;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void insert(Long userId, List<Expense> expenses, List<Income> incomes) {
+        if (expenses.isEmpty() && incomes.isEmpty()) {
+            return;
+        }
+
+        // Reference only; the inserts need the foreign key, not the user row
+        User user = entityManager.getReference(User.class, userId);
+        entityManager.unwrap(Session.class).setJdbcBatchSize(BATCH_SIZE);
+
+        // One entity type at a time, so each flush sends uninterrupted batches
+        for (Expense expense : expenses) {
+            expense.setUser(user);
+            entityManager.persist(expense);
+        }
+        for (Income income : incomes) {
+            income.setUser(user);
+            entityManager.persist(income);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        if (!expenses.isEmpty()) {
+            Map<Long, String> descriptions = new LinkedHashMap<>();
+            expenses.forEach(expense -> descriptions.put(expense.getId(), expense.getDescription()));
+            monthlyRollupService.addExpenses(userId, expenses);
+            expenseSketchService.applyExpenseChanges(userId, List.of(), expenses);
+            descriptionIndexService.indexAll(userId, LedgerType.EXPENSE, descriptions);
+        }
+        if (!incomes.isEmpty()) {
+            Map<Long, String> descriptions = new LinkedHashMap<>();
+            incomes.forEach(income -> descriptions.put(income.getId(), income.getDescription()));
+            monthlyRollupService.addIncomes(userId, incomes);
+            descriptionIndexService.indexAll(userId, LedgerType.INCOME, descriptions);
+        }
+        dataVersionService.bump(userId);
+    }
+}
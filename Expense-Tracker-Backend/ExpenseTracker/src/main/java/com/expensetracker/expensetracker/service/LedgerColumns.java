@@ -0,0 +1,383 @@
+package com.expensetracker.expensetracker.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One user's expenses or incomes held as primitive columns: id, amount in cents, date as an
+ * epoch day, category or source as an ordinal and the description as a dictionary code. Rows are
+ * kept newest first (date, then id, descending), so date ranges are found by binary search and
+ * filters come out already in the order the API returns them.
+ *
+ * Instances are immutable; a change produces a new instance, so readers need no locking.
+ */
+final class LedgerColumns<K extends Enum<K>> {
+
+    /**
+     * Bytes held per row across the five columns
+     */
+    private static final int ROW_BYTES = Long.BYTES + Long.BYTES + Integer.BYTES + Byte.BYTES + Integer.BYTES;
+
+    /**
+     * Approximate cost of one dictionary entry besides its characters: the String, its array and
+     * the slot in the dictionary
+     */
+    private static final int DICTIONARY_ENTRY_BYTES = 56;
+
+    enum Column { AMOUNT, DATE, KIND }
+
+    private final K[] kinds;
+    private final long[] ids;
+    private final long[] cents;
+    private final int[] days;
+    private final byte[] kindOrdinals;
+    private final int[] descriptionCodes;
+    private final String[] dictionary;
+    private final long totalCents;
+    private final long bytes;
+
+    private LedgerColumns(K[] kinds, long[] ids, long[] cents, int[] days, byte[] kindOrdinals,
+                          int[] descriptionCodes, String[] dictionary, long totalCents, long bytes) {
+        this.kinds = kinds;
+        this.ids = ids;
+        this.cents = cents;
+        this.days = days;
+        this.kindOrdinals = kindOrdinals;
+        this.descriptionCodes = descriptionCodes;
+        this.dictionary = dictionary;
+        this.totalCents = totalCents;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Approximate heap held by this instance, charged against the working set budget
+     */
+    long bytes() {
+        return bytes;
+    }
+
+    long id(int row) {
+        return ids[row];
+    }
+
+    String description(int row) {
+        return dictionary[descriptionCodes[row]];
+    }
+
+    K kind(int row) {
+        return kinds[kindOrdinals[row]];
+    }
+
+    BigDecimal amount(int row) {
+        return Money.toAmount(cents[row]);
+    }
+
+    LocalDate date(int row) {
+        return LocalDate.ofEpochDay(days[row]);
+    }
+
+    /**
+     * Rows matching every non-null bound, newest first. Bounds are inclusive, as in the
+     * repository specifications.
+     */
+    int[] filter(K kind, LocalDate startDate, LocalDate endDate, BigDecimal minAmount, BigDecimal maxAmount) {
+        int fromDay = startDate != null ? epochDay(startDate) : Integer.MIN_VALUE;
+        int toDay = endDate != null ? epochDay(endDate) : Integer.MAX_VALUE;
+        long minCents = minAmount != null ? centsAtLeast(minAmount) : Long.MIN_VALUE;
+        long maxCents = maxAmount != null ? centsAtMost(maxAmount) : Long.MAX_VALUE;
+        int kindOrdinal = kind != null ? kind.ordinal() : -1;
+
+        int first = firstOnOrBefore(toDay);
+        int end = firstBefore(fromDay);
+        int[] rows = new int[Math.max(0, end - first)];
+        int count = 0;
+        for (int row = first; row < end; row++) {
+            long amount = cents[row];
+            if (amount >= minCents && amount <= maxCents && (kindOrdinal < 0 || kindOrdinals[row] == kindOrdinal)) {
+                rows[count++] = row;
+            }
+        }
+        return count == rows.length ? rows : Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Every row ordered by the column, or newest first when the column is null. Ties keep the
+     * newest-first order; categories and sources order by name, as the database sorts them.
+     */
+    int[] sorted(Column column, boolean descending) {
+        int size = ids.length;
+        int[] rows = new int[size];
+        if (column == null || column == Column.DATE) {
+            boolean newestFirst = column == null || descending;
+            for (int i = 0; i < size; i++) {
+                rows[i] = newestFirst ? i : size - 1 - i;
+            }
+        } else if (column == Column.KIND) {
+            sortByKind(rows, descending);
+        } else {
+            for (int i = 0; i < size; i++) {
+                rows[i] = i;
+            }
+            sortByAmount(rows, new int[size], 0, size, descending);
+        }
+        return rows;
+    }
+
+    /**
+     * Sum of the rows dated between the bounds, inclusive; null bounds are open
+     */
+    Money sum(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null && endDate == null) {
+            return new Money(totalCents);
+        }
+        int first = firstOnOrBefore(endDate != null ? epochDay(endDate) : Integer.MAX_VALUE);
+        int end = firstBefore(startDate != null ? epochDay(startDate) : Integer.MIN_VALUE);
+        return new Money(MoneyKernels.sum(cents, first, Math.max(first, end)));
+    }
+
+    /**
+     * A copy without the removed ids and with the added rows merged in. Every added id is
+     * removed first, so an update is a remove plus an add and replaying a change is harmless.
+     *
+     * @throws ArithmeticException if the amounts no longer fit in a long of cents
+     */
+    LedgerColumns<K> withChanges(long[] removedIds, Builder<K> added) {
+        long[] removed = Arrays.copyOf(removedIds, removedIds.length + added.size);
+        System.arraycopy(added.ids, 0, removed, removedIds.length, added.size);
+        Arrays.sort(removed);
+
+        Integer[] order = new Integer[added.size];
+        for (int i = 0; i < added.size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingInt(i -> added.days[i])
+                .thenComparingLong(i -> added.ids[i])
+                .reversed());
+
+        Builder<K> merged = new Builder<>(kinds, ids.length + added.size);
+        int next = 0;
+        for (int row = 0; row < ids.length; row++) {
+            while (next < order.length
+                    && newerThan(added.days[order[next]], added.ids[order[next]], days[row], ids[row])) {
+                merged.copy(added, order[next++]);
+            }
+            if (Arrays.binarySearch(removed, ids[row]) < 0) {
+                merged.add(ids[row], description(row), kindOrdinals[row], cents[row], days[row]);
+            }
+        }
+        while (next < order.length) {
+            merged.copy(added, order[next++]);
+        }
+        return merged.build();
+    }
+
+    private static boolean newerThan(int day, long id, int otherDay, long otherId) {
+        return day > otherDay || (day == otherDay && id > otherId);
+    }
+
+    /**
+     * Index of the first row dated on or before the day; rows are in descending date order
+     */
+    private int firstOnOrBefore(int day) {
+        int low = 0;
+        int high = days.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] > day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Index of the first row dated strictly before the day
+     */
+    private int firstBefore(int day) {
+        int low = 0;
+        int high = days.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] >= day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Stable counting sort by the name of the category or source
+     */
+    private void sortByKind(int[] rows, boolean descending) {
+        int[] rankOf = nameRanks(kinds);
+        int[] starts = new int[kinds.length + 1];
+        for (byte ordinal : kindOrdinals) {
+            int rank = rankOf[ordinal];
+            starts[(descending ? kinds.length - 1 - rank : rank) + 1]++;
+        }
+        for (int i = 1; i < starts.length; i++) {
+            starts[i] += starts[i - 1];
+        }
+        for (int row = 0; row < kindOrdinals.length; row++) {
+            int rank = rankOf[kindOrdinals[row]];
+            rows[starts[descending ? kinds.length - 1 - rank : rank]++] = row;
+        }
+    }
+
+    /**
+     * Stable merge sort of row indexes by amount
+     */
+    private void sortByAmount(int[] rows, int[] scratch, int from, int to, boolean descending) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        sortByAmount(rows, scratch, from, mid, descending);
+        sortByAmount(rows, scratch, mid, to, descending);
+        System.arraycopy(rows, from, scratch, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            boolean takeRight = left == mid || (right < to && (descending
+                    ? cents[scratch[right]] > cents[scratch[left]]
+                    : cents[scratch[right]] < cents[scratch[left]]));
+            rows[i] = takeRight ? scratch[right++] : scratch[left++];
+        }
+    }
+
+    private static int[] nameRanks(Enum<?>[] kinds) {
+        Enum<?>[] byName = kinds.clone();
+        Arrays.sort(byName, Comparator.comparing(Enum::name));
+        int[] ranks = new int[kinds.length];
+        for (int rank = 0; rank < byName.length; rank++) {
+            ranks[byName[rank].ordinal()] = rank;
+        }
+        return ranks;
+    }
+
+    static int epochDay(LocalDate date) {
+        return Math.toIntExact(date.toEpochDay());
+    }
+
+    private static long centsAtLeast(BigDecimal amount) {
+        return clamp(amount.movePointRight(Money.SCALE).setScale(0, RoundingMode.CEILING));
+    }
+
+    private static long centsAtMost(BigDecimal amount) {
+        return clamp(amount.movePointRight(Money.SCALE).setScale(0, RoundingMode.FLOOR));
+    }
+
+    private static long clamp(BigDecimal cents) {
+        if (cents.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0) {
+            return Long.MAX_VALUE;
+        }
+        if (cents.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0) {
+            return Long.MIN_VALUE;
+        }
+        return cents.longValueExact();
+    }
+
+    /**
+     * Accumulates rows into growing columns, encoding descriptions as they arrive. The total is
+     * kept with overflow checks, so no sum over a subset of the rows can overflow later.
+     */
+    static final class Builder<K extends Enum<K>> {
+
+        private final K[] kinds;
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private long[] ids;
+        private long[] cents;
+        private int[] days;
+        private byte[] kindOrdinals;
+        private int[] descriptionCodes;
+        private int size;
+        private long totalCents;
+        private long dictionaryBytes;
+
+        Builder(K[] kinds) {
+            this(kinds, 16);
+        }
+
+        private Builder(K[] kinds, int capacity) {
+            this.kinds = kinds;
+            int initial = Math.max(capacity, 16);
+            this.ids = new long[initial];
+            this.cents = new long[initial];
+            this.days = new int[initial];
+            this.kindOrdinals = new byte[initial];
+            this.descriptionCodes = new int[initial];
+        }
+
+        /**
+         * @throws ArithmeticException if the amount is not whole cents or the total overflows
+         */
+        Builder<K> add(long id, String description, K kind, BigDecimal amount, LocalDate date) {
+            return add(id, description, (byte) kind.ordinal(), Money.toCents(amount), epochDay(date));
+        }
+
+        /**
+         * Heap the built columns would hold
+         */
+        long bytes() {
+            return (long) size * ROW_BYTES + dictionaryBytes;
+        }
+
+        private Builder<K> add(long id, String description, byte kindOrdinal, long amountCents, int day) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                cents = Arrays.copyOf(cents, capacity);
+                days = Arrays.copyOf(days, capacity);
+                kindOrdinals = Arrays.copyOf(kindOrdinals, capacity);
+                descriptionCodes = Arrays.copyOf(descriptionCodes, capacity);
+            }
+            Integer code = codes.get(description);
+            if (code == null) {
+                code = dictionary.size();
+                codes.put(description, code);
+                dictionary.add(description);
+                dictionaryBytes += DICTIONARY_ENTRY_BYTES + description.length();
+            }
+            totalCents = Math.addExact(totalCents, amountCents);
+            ids[size] = id;
+            cents[size] = amountCents;
+            days[size] = day;
+            kindOrdinals[size] = kindOrdinal;
+            descriptionCodes[size] = code;
+            size++;
+            return this;
+        }
+
+        private void copy(Builder<K> other, int row) {
+            add(other.ids[row], other.dictionary.get(other.descriptionCodes[row]),
+                    other.kindOrdinals[row], other.cents[row], other.days[row]);
+        }
+
+        /**
+         * Columns for the rows added so far, which must have been added newest first
+         */
+        LedgerColumns<K> build() {
+            return new LedgerColumns<>(kinds,
+                    Arrays.copyOf(ids, size),
+                    Arrays.copyOf(cents, size),
+                    Arrays.copyOf(days, size),
+                    Arrays.copyOf(kindOrdinals, size),
+                    Arrays.copyOf(descriptionCodes, size),
+                    dictionary.toArray(new String[0]),
+                    totalCents,
+                    bytes());
+        }
+    }
+}
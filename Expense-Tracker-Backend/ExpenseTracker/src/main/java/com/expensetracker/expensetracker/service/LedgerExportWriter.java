@@ -0,0 +1,160 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.config.FixedPointModule;
+import com.expensetracker.expensetracker.enums.ExportFormat;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Writes ledger rows (expenses or incomes) one at a time as CSV, NDJSON or a CBOR sequence.
+ * Nothing is held beyond the output buffer, and the buffer is flushed every few hundred rows
+ * so clients start receiving data while the query is still being read.
+ */
+class LedgerExportWriter implements Closeable {
+
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    private static final CBORMapper CBOR_MAPPER = CBORMapper.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    // Text formats use the writer, CBOR the generator; the other one is null
+    private final BufferedWriter writer;
+    private final JsonGenerator generator;
+    private final ExportFormat format;
+    private final String[] columns;
+    private int rowsSinceFlush;
+
+    /**
+     * @param columns names of the id, description, type, amount and date columns, in that order
+     */
+    LedgerExportWriter(OutputStream out, ExportFormat format, String... columns) {
+        if (format == ExportFormat.CBOR) {
+            this.writer = null;
+            this.generator = CBOR_MAPPER.createGenerator(out);
+        } else {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.generator = null;
+        }
+        this.format = format;
+        this.columns = columns;
+    }
+
+    void writeHeader() throws IOException {
+        if (format == ExportFormat.CSV) {
+            writer.write(String.join(",", columns));
+            writer.write('\n');
+        }
+    }
+
+    void writeRow(Long id, String description, Enum<?> type, BigDecimal amount, LocalDate date) throws IOException {
+        if (format == ExportFormat.CBOR) {
+            writeCborRow(id, description, type, amount, date);
+            return;
+        }
+
+        if (format == ExportFormat.CSV) {
+            writer.write(String.valueOf(id));
+            writer.write(',');
+            writer.write(csvField(description));
+            writer.write(',');
+            writer.write(type.name());
+            writer.write(',');
+            writer.write(amount.toPlainString());
+            writer.write(',');
+            writer.write(date.toString());
+        } else {
+            writer.write("{\"" + columns[0] + "\":" + id);
+            writer.write(",\"" + columns[1] + "\":" + jsonString(description));
+            writer.write(",\"" + columns[2] + "\":\"" + type.name() + "\"");
+            writer.write(",\"" + columns[3] + "\":" + amount.toPlainString());
+            writer.write(",\"" + columns[4] + "\":\"" + date + "\"}");
+        }
+        writer.write('\n');
+
+        if (++rowsSinceFlush >= FLUSH_EVERY_ROWS) {
+            writer.flush();
+            rowsSinceFlush = 0;
+        }
+    }
+
+    private void writeCborRow(Long id, String description, Enum<?> type, BigDecimal amount, LocalDate date) {
+        generator.writeStartObject();
+        generator.writeName(columns[0]);
+        generator.writeNumber(id);
+        generator.writeName(columns[1]);
+        generator.writeString(description);
+        generator.writeName(columns[2]);
+        generator.writeString(type.name());
+        generator.writeName(columns[3]);
+        generator.writeNumber(FixedPointModule.toMinorUnits(amount));
+        generator.writeName(columns[4]);
+        generator.writeNumber((int) date.toEpochDay());
+        generator.writeEndObject();
+
+        if (++rowsSinceFlush >= FLUSH_EVERY_ROWS) {
+            generator.flush();
+            rowsSinceFlush = 0;
+        }
+    }
+
+    /**
+     * Flush remaining rows; the underlying stream stays open for the caller to finish
+     */
+    @Override
+    public void close() throws IOException {
+        if (generator != null) {
+            generator.close();
+        } else {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Quote a CSV cell where needed. A cell that starts like a formula (=, +, -, @, or a tab or
+     * carriage return that spreadsheets skip) gets a leading apostrophe so spreadsheet programs
+     * show it as text instead of evaluating it.
+     */
+    private static String csvField(String value) {
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String jsonString(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
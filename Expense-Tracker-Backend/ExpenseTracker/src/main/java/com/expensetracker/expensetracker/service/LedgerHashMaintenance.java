@@ -0,0 +1,81 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.entity.LedgerContentHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills in content hashes for ledger rows written before the column existed, which is the state
+ * right after the migration that introduced it. Later writes hash themselves, so on every other
+ * startup this is one index probe per ledger. Rows are hashed in batches, each committed alone,
+ * under a maintenance lock so replicas starting together do not hash the same rows.
+ */
+@Component
+public class LedgerHashMaintenance implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerHashMaintenance.class);
+    private static final int BATCH_SIZE = 1000;
+
+    static final String LOCK_NAME = "ledger-hash";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MaintenanceLock maintenanceLock;
+
+    public LedgerHashMaintenance(JdbcTemplate jdbcTemplate, MaintenanceLock maintenanceLock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maintenanceLock = maintenanceLock;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!hasUnhashedRows("expenses") && !hasUnhashedRows("incomes")) {
+            return;
+        }
+        // The backfill only picks up rows still unhashed, so a replica that gets the lock after
+        // another has finished does nothing
+        maintenanceLock.runExclusively(LOCK_NAME, this::backfillAll);
+    }
+
+    void backfillAll() {
+        long started = System.currentTimeMillis();
+        long hashed = backfill("expenses", "date_of_expense") + backfill("incomes", "date_of_income");
+        if (hashed > 0) {
+            logger.info("Hashed {} ledger rows in {} ms", hashed, System.currentTimeMillis() - started);
+        }
+    }
+
+    private boolean hasUnhashedRows(String table) {
+        return !jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE content_hash IS NULL LIMIT 1",
+                Long.class).isEmpty();
+    }
+
+    private long backfill(String table, String dateColumn) {
+        String select = "SELECT id, " + dateColumn + ", amount, description FROM " + table
+                + " WHERE content_hash IS NULL LIMIT " + BATCH_SIZE;
+        String update = "UPDATE " + table + " SET content_hash = ? WHERE id = ?";
+
+        long hashed = 0;
+        while (true) {
+            List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+            jdbcTemplate.query(select, (RowCallbackHandler) rs -> {
+                rows.add(new Object[]{
+                        LedgerContentHash.of(rs.getDate(2).toLocalDate(), rs.getBigDecimal(3), rs.getString(4)),
+                        rs.getLong(1)
+                });
+            });
+            if (rows.isEmpty()) {
+                return hashed;
+            }
+            jdbcTemplate.batchUpdate(update, rows);
+            hashed += rows.size();
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.dto.response.ExpenseResponse;
+import com.expensetracker.expensetracker.dto.response.IncomeResponse;
+import com.expensetracker.expensetracker.entity.Expense;
+import com.expensetracker.expensetracker.entity.Income;
+import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import com.expensetracker.expensetracker.enums.IncomeSource;
+import com.expensetracker.expensetracker.repository.DataVersionRepository;
+import com.expensetracker.expensetracker.repository.ExpenseRepository;
+import com.expensetracker.expensetracker.repository.ExpenseSpecifications;
+import com.expensetracker.expensetracker.repository.IncomeRepository;
+import com.expensetracker.expensetracker.repository.IncomeSpecifications;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-process copy of the most recently used users' ledgers as {@link LedgerColumns}, so
+ * their filters, sorts and totals run over arrays instead of going to the database. Enabled with
+ * app.working-set.enabled; the resident users share app.working-set.max-bytes and the least
+ * recently used user is evicted whole when a load or change goes over it.
+ *
+ * Each copy is tagged with the user's data version. A read checks the version first (one primary
+ * key lookup) and reloads when another instance or a bulk path such as an import has moved it
+ * on, so every pod stays correct without cross-pod invalidation. Writes through the expense and
+ * income services apply their rows to the copy after commit instead of forcing a reload.
+ */
+@Service
+public class LedgerWorkingSet {
+
+    /**
+     * Both ledgers of one user as of a data version
+     */
+    record Snapshot(long version, LedgerColumns<ExpenseCategory> expenses, LedgerColumns<IncomeSource> incomes) {
+
+        long bytes() {
+            return expenses.bytes() + incomes.bytes();
+        }
+    }
+
+    @Value("${app.working-set.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.working-set.max-bytes:67108864}")
+    private long maxBytes;
+
+    private final DataVersionRepository dataVersionRepository;
+    private final ExpenseRepository expenseRepository;
+    private final IncomeRepository incomeRepository;
+    private final Counter loads;
+    private final Counter evictions;
+
+    /**
+     * Resident users in access order, eldest first; guarded by itself
+     */
+    private final LinkedHashMap<Long, Snapshot> residents = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentBytes;
+
+    public LedgerWorkingSet(DataVersionRepository dataVersionRepository, ExpenseRepository expenseRepository,
+                            IncomeRepository incomeRepository, MeterRegistry meterRegistry) {
+        this.dataVersionRepository = dataVersionRepository;
+        this.expenseRepository = expenseRepository;
+        this.incomeRepository = incomeRepository;
+        this.loads = meterRegistry.counter("ledger.working.set.loads");
+        this.evictions = meterRegistry.counter("ledger.working.set.evictions");
+        Gauge.builder("ledger.working.set.users", residents, map -> {
+            synchronized (map) {
+                return map.size();
+            }
+        }).register(meterRegistry);
+        Gauge.builder("ledger.working.set.bytes", this, workingSet -> {
+            synchronized (workingSet.residents) {
+                return workingSet.residentBytes;
+            }
+        }).baseUnit("bytes").register(meterRegistry);
+    }
+
+    /**
+     * The user's ledgers at or after their current data version, loading them on first access.
+     * Null when the working set is disabled or the user's ledgers cannot be held, in which case
+     * the caller queries the database as usual. Call inside a read-only transaction.
+     */
+    Snapshot snapshot(Long userId) {
+        if (!enabled) {
+            return null;
+        }
+        Long stored = dataVersionRepository.findVersion(userId);
+        long version = stored != null ? stored : 0L;
+
+        Snapshot resident;
+        synchronized (residents) {
+            resident = residents.get(userId);
+        }
+        // A replica may lag behind a change already applied here, so only a newer version reloads
+        if (resident != null && resident.version() >= version) {
+            return resident;
+        }
+
+        Snapshot loaded = load(userId, version);
+        if (loaded != null) {
+            install(userId, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Apply an expense write to the user's copy once the current transaction commits. Call after
+     * the data version bump; the removed ids are deleted rows, saved rows are created or updated.
+     */
+    void expensesChanged(Long userId, Collection<Long> removedIds, Collection<Expense> saved) {
+        if (!isResident(userId)) {
+            return;
+        }
+        LedgerColumns.Builder<ExpenseCategory> rows = new LedgerColumns.Builder<>(ExpenseCategory.values());
+        try {
+            for (Expense expense : saved) {
+                rows.add(expense.getId(), expense.getDescription(), expense.getCategory(),
+                        expense.getAmount(), expense.getDateOfExpense());
+            }
+        } catch (ArithmeticException e) {
+            evictAfterCommit(userId);
+            return;
+        }
+        long[] removed = removedIds.stream().mapToLong(Long::longValue).toArray();
+        afterCommit(userId, snapshot -> new Snapshot(snapshot.version(),
+                snapshot.expenses().withChanges(removed, rows), snapshot.incomes()));
+    }
+
+    /**
+     * Apply an income write to the user's copy once the current transaction commits
+     */
+    void incomesChanged(Long userId, Collection<Long> removedIds, Collection<Income> saved) {
+        if (!isResident(userId)) {
+            return;
+        }
+        LedgerColumns.Builder<IncomeSource> rows = new LedgerColumns.Builder<>(IncomeSource.values());
+        try {
+            for (Income income : saved) {
+                rows.add(income.getId(), income.getDescription(), income.getSource(),
+                        income.getAmount(), income.getDateOfIncome());
+            }
+        } catch (ArithmeticException e) {
+            evictAfterCommit(userId);
+            return;
+        }
+        long[] removed = removedIds.stream().mapToLong(Long::longValue).toArray();
+        afterCommit(userId, snapshot -> new Snapshot(snapshot.version(),
+                snapshot.expenses(), snapshot.incomes().withChanges(removed, rows)));
+    }
+
+    private boolean isResident(Long userId) {
+        if (!enabled) {
+            return false;
+        }
+        synchronized (residents) {
+            return residents.containsKey(userId);
+        }
+    }
+
+    /**
+     * Read both ledgers newest first, one stream after the other, giving up as soon as they
+     * outgrow the whole budget or hold amounts that do not fit in cents
+     */
+    private Snapshot load(Long userId, long version) {
+        LedgerColumns.Builder<ExpenseCategory> expenses = new LedgerColumns.Builder<>(ExpenseCategory.values());
+        LedgerColumns.Builder<IncomeSource> incomes = new LedgerColumns.Builder<>(IncomeSource.values());
+        try {
+            try (Stream<ExpenseResponse> rows = expenseRepository.streamResponses(
+                    ExpenseSpecifications.belongsTo(userId),
+                    Sort.by(Sort.Order.desc("dateOfExpense"), Sort.Order.desc("id")))) {
+                Iterator<ExpenseResponse> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    ExpenseResponse row = iterator.next();
+                    expenses.add(row.getId(), row.getDescription(), row.getCategory(),
+                            row.getAmount(), row.getDateOfExpense());
+                    if (expenses.bytes() > maxBytes) {
+                        return null;
+                    }
+                }
+            }
+            try (Stream<IncomeResponse> rows = incomeRepository.streamResponses(
+                    IncomeSpecifications.belongsTo(userId),
+                    Sort.by(Sort.Order.desc("dateOfIncome"), Sort.Order.desc("id")))) {
+                Iterator<IncomeResponse> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    IncomeResponse row = iterator.next();
+                    incomes.add(row.getId(), row.getDescription(), row.getSource(),
+                            row.getAmount(), row.getDateOfIncome());
+                    if (expenses.bytes() + incomes.bytes() > maxBytes) {
+                        return null;
+                    }
+                }
+            }
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        loads.increment();
+        return new Snapshot(version, expenses.build(), incomes.build());
+    }
+
+    private void install(Long userId, Snapshot loaded) {
+        synchronized (residents) {
+            Snapshot current = residents.get(userId);
+            if (current != null && current.version() >= loaded.version()) {
+                return;
+            }
+            put(userId, current, loaded);
+        }
+    }
+
+    /**
+     * Register the change to run after commit against the version this transaction produced.
+     * It only applies to a copy exactly one version behind; anything else means a change was
+     * missed or arrived out of order, and the user is dropped to be reloaded on the next read.
+     */
+    private void afterCommit(Long userId, Function<Snapshot, Snapshot> change) {
+        // Sees this transaction's own bump, which also holds the user's row lock until commit
+        long version = dataVersionRepository.findVersion(userId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                Snapshot current;
+                synchronized (residents) {
+                    current = residents.get(userId);
+                }
+                if (current == null) {
+                    return;
+                }
+                Snapshot next = null;
+                if (current.version() == version - 1) {
+                    try {
+                        Snapshot changed = change.apply(current);
+                        next = new Snapshot(version, changed.expenses(), changed.incomes());
+                    } catch (ArithmeticException e) {
+                        // Amounts outgrew a long of cents; serve this user from the database
+                    }
+                }
+                synchronized (residents) {
+                    if (residents.get(userId) != current) {
+                        remove(userId);
+                    } else if (next != null) {
+                        put(userId, current, next);
+                    } else {
+                        remove(userId);
+                    }
+                }
+            }
+        });
+    }
+
+    private void evictAfterCommit(Long userId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                synchronized (residents) {
+                    remove(userId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Replace the user's copy and evict least recently used users until the budget holds again.
+     * Caller holds the lock.
+     */
+    private void put(Long userId, Snapshot previous, Snapshot next) {
+        if (previous != null) {
+            residentBytes -= previous.bytes();
+        }
+        residents.put(userId, next);
+        residentBytes += next.bytes();
+
+        Iterator<Map.Entry<Long, Snapshot>> eldest = residents.entrySet().iterator();
+        while (residentBytes > maxBytes && eldest.hasNext()) {
+            residentBytes -= eldest.next().getValue().bytes();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Caller holds the lock
+     */
+    private void remove(Long userId) {
+        Snapshot removed = residents.remove(userId);
+        if (removed != null) {
+            residentBytes -= removed.bytes();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.expensetracker.expensetracker.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * A named lease in the maintenance_locks table, so a startup job runs on one instance even when
+ * several replicas start together. The lease is taken and checked against the database clock;
+ * if the holder dies, the lock frees itself once the lease runs out, so the lease should be
+ * longer than the slowest run of the job it guards.
+ */
+@Component
+public class MaintenanceLock {
+
+    private static final Logger logger = LoggerFactory.getLogger(MaintenanceLock.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration lease;
+    private final String owner = UUID.randomUUID().toString();
+
+    /**
+     * A job that runs while the lock is held
+     */
+    @FunctionalInterface
+    public interface Job {
+        void run() throws Exception;
+    }
+
+    public MaintenanceLock(JdbcTemplate jdbcTemplate,
+                           @Value("${app.maintenance.lock-lease:PT1H}") Duration lease) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lease = lease;
+    }
+
+    /**
+     * Run the job if no other instance holds the named lock, and release it afterwards. Returns
+     * false, without running the job, when another instance holds it.
+     */
+    public boolean runExclusively(String name, Job job) throws Exception {
+        if (!tryAcquire(name)) {
+            logger.info("Skipping {}: another instance holds the maintenance lock", name);
+            return false;
+        }
+        try {
+            job.run();
+            return true;
+        } finally {
+            release(name);
+        }
+    }
+
+    boolean tryAcquire(String name) {
+        try {
+            jdbcTemplate.update("INSERT INTO maintenance_locks (name, owner, locked_until) " +
+                    "VALUES (?, NULL, TIMESTAMP '1970-01-01 00:00:00')", name);
+        } catch (DuplicateKeyException alreadyCreated) {
+            // Another instance, or an earlier run, created the row; take it over below if free
+        }
+        return jdbcTemplate.update("UPDATE maintenance_locks " +
+                "SET owner = ?, locked_until = TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP(6)) " +
+                "WHERE name = ? AND locked_until < CURRENT_TIMESTAMP(6)", owner, lease.toSeconds(), name) == 1;
+    }
+
+    void release(String name) {
+        jdbcTemplate.update("UPDATE maintenance_locks SET owner = NULL, locked_until = CURRENT_TIMESTAMP(6) " +
+                "WHERE name = ? AND owner = ?", name, owner);
+    }
+}
@@ -0,0 +1,48 @@
+package com.expensetracker.expensetracker.service;
+
+import java.math.BigDecimal;
+
+/**
+ * An amount as a whole number of cents, the fixed-point form the services aggregate in. Amounts
+ * enter from the database or a request as BigDecimal and leave as BigDecimal in responses; in
+ * between, arithmetic is on longs and fails on overflow instead of wrapping.
+ */
+public record Money(long cents) {
+
+    /**
+     * Decimal places of every amount column
+     */
+    public static final int SCALE = 2;
+
+    public static final Money ZERO = new Money(0);
+
+    /**
+     * @throws ArithmeticException if the amount has fractions of a cent or does not fit in a long
+     */
+    public static Money of(BigDecimal amount) {
+        return new Money(toCents(amount));
+    }
+
+    /**
+     * @throws ArithmeticException if the amount has fractions of a cent or does not fit in a long
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(cents, other.cents));
+    }
+
+    public BigDecimal toBigDecimal() {
+        return toAmount(cents);
+    }
+}
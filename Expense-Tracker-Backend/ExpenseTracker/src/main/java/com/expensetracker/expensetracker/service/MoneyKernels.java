@@ -0,0 +1,123 @@
+package com.expensetracker.expensetracker.service;
+
+/**
+ * Aggregation loops over amounts in cents. They allocate nothing beyond their result arrays and
+ * detect overflow without a branch per element: each addition ORs its overflow bit into an
+ * accumulator that is checked once at the end, so the loops stay simple enough to unroll and
+ * vectorize. Ranges are half-open, [from, to).
+ */
+public final class MoneyKernels {
+
+    private MoneyKernels() {
+    }
+
+    /**
+     * @throws ArithmeticException if the sum does not fit in a long
+     */
+    public static long sum(long[] cents, int from, int to) {
+        long sum = 0;
+        long overflow = 0;
+        for (int i = from; i < to; i++) {
+            long value = cents[i];
+            long next = sum + value;
+            // Sign bit set when both operands share a sign the result does not
+            overflow |= (sum ^ next) & (value ^ next);
+            sum = next;
+        }
+        checkOverflow(overflow);
+        return sum;
+    }
+
+    /**
+     * Sum of the selected rows
+     *
+     * @throws ArithmeticException if the sum does not fit in a long
+     */
+    public static long sum(long[] cents, int[] rows) {
+        long sum = 0;
+        long overflow = 0;
+        for (int row : rows) {
+            long value = cents[row];
+            long next = sum + value;
+            overflow |= (sum ^ next) & (value ^ next);
+            sum = next;
+        }
+        checkOverflow(overflow);
+        return sum;
+    }
+
+    /**
+     * Smallest amount, or Long.MAX_VALUE for an empty range
+     */
+    public static long min(long[] cents, int from, int to) {
+        long min = Long.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            min = Math.min(min, cents[i]);
+        }
+        return min;
+    }
+
+    /**
+     * Largest amount, or Long.MIN_VALUE for an empty range
+     */
+    public static long max(long[] cents, int from, int to) {
+        long max = Long.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            max = Math.max(max, cents[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Mean in cents, rounded half to even like BigDecimal's banker's rounding
+     */
+    public static long mean(long sum, long count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive");
+        }
+        long quotient = Math.floorDiv(sum, count);
+        long remainder = Math.floorMod(sum, count);
+        long twice = remainder * 2;
+        if (twice > count || (twice == count && (quotient & 1) != 0)) {
+            quotient++;
+        }
+        return quotient;
+    }
+
+    /**
+     * Rows per category or source ordinal
+     */
+    public static int[] countPerKind(byte[] kinds, int from, int to, int kindCount) {
+        int[] counts = new int[kindCount];
+        for (int i = from; i < to; i++) {
+            counts[kinds[i]]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Sum per category or source ordinal
+     *
+     * @throws ArithmeticException if any sum does not fit in a long
+     */
+    public static long[] sumPerKind(long[] cents, byte[] kinds, int from, int to, int kindCount) {
+        long[] sums = new long[kindCount];
+        long overflow = 0;
+        for (int i = from; i < to; i++) {
+            int kind = kinds[i];
+            long value = cents[i];
+            long sum = sums[kind];
+            long next = sum + value;
+            overflow |= (sum ^ next) & (value ^ next);
+            sums[kind] = next;
+        }
+        checkOverflow(overflow);
+        return sums;
+    }
+
+    private static void checkOverflow(long overflow) {
+        if (overflow < 0) {
+            throw new ArithmeticException("long overflow");
+        }
+    }
+}
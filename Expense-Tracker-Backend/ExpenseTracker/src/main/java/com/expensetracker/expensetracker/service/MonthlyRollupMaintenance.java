@@ -0,0 +1,114 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Startup jobs for the monthly rollups: a parallel rebuild of every user's rollups from the
+ * raw ledgers, and a consistency check that reports (and optionally repairs) users whose
+ * rollups have drifted. Both are off by default and work one user per transaction, so a
+ * large install is processed in small independent units. They run under a maintenance lock, so
+ * when several replicas start at once only one of them does the work.
+ */
+@Component
+public class MonthlyRollupMaintenance implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonthlyRollupMaintenance.class);
+
+    static final String LOCK_NAME = "monthly-rollups";
+
+    private final MonthlyRollupService rollupService;
+    private final UserRepository userRepository;
+    private final MaintenanceLock maintenanceLock;
+
+    @Value("${app.rollups.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @Value("${app.rollups.verify-on-startup:false}")
+    private boolean verifyOnStartup;
+
+    @Value("${app.rollups.repair-inconsistencies:false}")
+    private boolean repairInconsistencies;
+
+    @Value("${app.rollups.maintenance-threads:4}")
+    private int maintenanceThreads;
+
+    public MonthlyRollupMaintenance(MonthlyRollupService rollupService, UserRepository userRepository,
+                                    MaintenanceLock maintenanceLock) {
+        this.rollupService = rollupService;
+        this.userRepository = userRepository;
+        this.maintenanceLock = maintenanceLock;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (rebuildOnStartup) {
+            maintenanceLock.runExclusively(LOCK_NAME, this::rebuildAll);
+        } else if (verifyOnStartup) {
+            maintenanceLock.runExclusively(LOCK_NAME, () -> verifyAll(repairInconsistencies));
+        }
+    }
+
+    /**
+     * Rebuild every user's rollups, spread across the maintenance thread pool
+     */
+    public void rebuildAll() throws InterruptedException, ExecutionException {
+        List<Long> userIds = userRepository.findAllIds();
+        forEachUser(userIds, rollupService::rebuild);
+        logger.info("Rebuilt monthly rollups for {} users", userIds.size());
+    }
+
+    /**
+     * Check every user's rollups against the raw ledgers, rebuilding the inconsistent ones when
+     * asked to. Returns the number of users whose rollups disagreed.
+     */
+    public int verifyAll(boolean repair) throws InterruptedException, ExecutionException {
+        List<Long> userIds = userRepository.findAllIds();
+        AtomicInteger inconsistentUsers = new AtomicInteger();
+
+        forEachUser(userIds, userId -> {
+            List<String> problems = rollupService.findInconsistencies(userId);
+            if (problems.isEmpty()) {
+                return;
+            }
+            inconsistentUsers.incrementAndGet();
+            problems.forEach(problem -> logger.warn("Monthly rollup mismatch: {}", problem));
+            if (repair) {
+                rollupService.rebuild(userId);
+            }
+        });
+
+        logger.info("Verified monthly rollups for {} users, {} inconsistent{}",
+                userIds.size(), inconsistentUsers.get(), repair ? " and repaired" : "");
+        return inconsistentUsers.get();
+    }
+
+    private void forEachUser(List<Long> userIds, Consumer<Long> task) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, maintenanceThreads));
+        try {
+            List<Future<?>> futures = new ArrayList<>(userIds.size());
+            for (Long userId : userIds) {
+                futures.add(executor.submit(() -> task.accept(userId)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
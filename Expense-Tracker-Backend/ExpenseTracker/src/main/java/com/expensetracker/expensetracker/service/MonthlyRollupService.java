@@ -0,0 +1,279 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.entity.Expense;
+import com.expensetracker.expensetracker.entity.Income;
+import com.expensetracker.expensetracker.entity.MonthlyRollup;
+import com.expensetracker.expensetracker.entity.MonthlyRollupId;
+import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import com.expensetracker.expensetracker.enums.IncomeSource;
+import com.expensetracker.expensetracker.enums.LedgerType;
+import com.expensetracker.expensetracker.repository.BucketTotal;
+import com.expensetracker.expensetracker.repository.ExpenseRepository;
+import com.expensetracker.expensetracker.repository.IncomeRepository;
+import com.expensetracker.expensetracker.repository.MonthlyRollupRepository;
+import com.expensetracker.expensetracker.repository.MonthlyTotal;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the per-user monthly rollups in step with the expense and income ledgers and answers
+ * total queries from them. Deltas are applied inside the caller's transaction, so a rollup
+ * never reflects a ledger change that was rolled back.
+ */
+@Service
+public class MonthlyRollupService {
+
+    private final MonthlyRollupRepository rollupRepository;
+    private final ExpenseRepository expenseRepository;
+    private final IncomeRepository incomeRepository;
+
+    public MonthlyRollupService(MonthlyRollupRepository rollupRepository,
+                                ExpenseRepository expenseRepository,
+                                IncomeRepository incomeRepository) {
+        this.rollupRepository = rollupRepository;
+        this.expenseRepository = expenseRepository;
+        this.incomeRepository = incomeRepository;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addExpense(Long userId, ExpenseCategory category, LocalDate date, BigDecimal amount) {
+        rollupRepository.applyDelta(userId, LedgerType.EXPENSE.name(), category.name(), monthKey(date), amount, 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeExpense(Long userId, ExpenseCategory category, LocalDate date, BigDecimal amount) {
+        rollupRepository.applyDelta(userId, LedgerType.EXPENSE.name(), category.name(), monthKey(date), amount.negate(), -1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addIncome(Long userId, IncomeSource source, LocalDate date, BigDecimal amount) {
+        rollupRepository.applyDelta(userId, LedgerType.INCOME.name(), source.name(), monthKey(date), amount, 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeIncome(Long userId, IncomeSource source, LocalDate date, BigDecimal amount) {
+        rollupRepository.applyDelta(userId, LedgerType.INCOME.name(), source.name(), monthKey(date), amount.negate(), -1);
+    }
+
+    /**
+     * Apply a batch of new expenses with one upsert per category and month instead of one per row
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addExpenses(Long userId, List<Expense> expenses) {
+        applyExpenseChanges(userId, List.of(), expenses);
+    }
+
+    /**
+     * Apply a batch of new incomes with one upsert per source and month instead of one per row
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addIncomes(Long userId, List<Income> incomes) {
+        applyIncomeChanges(userId, List.of(), incomes);
+    }
+
+    /**
+     * Take the removed expenses (or the old values of updated ones) out of the rollups and put
+     * the added ones in, netting both into one upsert per category and month
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyExpenseChanges(Long userId, List<Expense> removed, List<Expense> added) {
+        Map<MonthlyRollupId, long[]> deltas = new HashMap<>();
+        for (Expense expense : removed) {
+            accumulate(deltas, expenseRollupId(userId, expense), expense.getAmount(), -1);
+        }
+        for (Expense expense : added) {
+            accumulate(deltas, expenseRollupId(userId, expense), expense.getAmount(), 1);
+        }
+        applyDeltas(deltas);
+    }
+
+    /**
+     * Income counterpart of applyExpenseChanges, with one upsert per source and month
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyIncomeChanges(Long userId, List<Income> removed, List<Income> added) {
+        Map<MonthlyRollupId, long[]> deltas = new HashMap<>();
+        for (Income income : removed) {
+            accumulate(deltas, incomeRollupId(userId, income), income.getAmount(), -1);
+        }
+        for (Income income : added) {
+            accumulate(deltas, incomeRollupId(userId, income), income.getAmount(), 1);
+        }
+        applyDeltas(deltas);
+    }
+
+    /**
+     * Lifetime total of a user's ledger
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal total(Long userId, LedgerType ledger) {
+        return rollupRepository.sumTotal(userId, ledger);
+    }
+
+    /**
+     * Lifetime total per category (expenses) or source (incomes), largest first
+     */
+    @Transactional(readOnly = true)
+    public Map<String, BigDecimal> totalsByBucket(Long userId, LedgerType ledger) {
+        Map<String, BigDecimal> totals = new LinkedHashMap<>();
+        for (BucketTotal total : rollupRepository.sumTotalPerBucket(userId, ledger)) {
+            totals.put(total.bucket(), total.totalAmount());
+        }
+        return totals;
+    }
+
+    /**
+     * Total of a user's ledger between two dates, inclusive. Whole months inside the range are
+     * read from the rollups; only the partial months at either edge scan raw rows.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal total(Long userId, LedgerType ledger, LocalDate startDate, LocalDate endDate) {
+        YearMonth firstWholeMonth = YearMonth.from(startDate);
+        if (startDate.getDayOfMonth() != 1) {
+            firstWholeMonth = firstWholeMonth.plusMonths(1);
+        }
+        YearMonth lastWholeMonth = YearMonth.from(endDate);
+        if (!endDate.equals(lastWholeMonth.atEndOfMonth())) {
+            lastWholeMonth = lastWholeMonth.minusMonths(1);
+        }
+
+        if (firstWholeMonth.isAfter(lastWholeMonth)) {
+            return rawTotal(userId, ledger, startDate, endDate);
+        }
+
+        BigDecimal total = rollupRepository.sumTotalBetween(
+                userId, ledger, monthKey(firstWholeMonth), monthKey(lastWholeMonth));
+
+        LocalDate headEnd = firstWholeMonth.atDay(1).minusDays(1);
+        if (!headEnd.isBefore(startDate)) {
+            total = total.add(rawTotal(userId, ledger, startDate, headEnd));
+        }
+        LocalDate tailStart = lastWholeMonth.atEndOfMonth().plusDays(1);
+        if (!tailStart.isAfter(endDate)) {
+            total = total.add(rawTotal(userId, ledger, tailStart, endDate));
+        }
+        return total;
+    }
+
+    /**
+     * Replace a user's rollups with totals recomputed from the raw ledgers
+     */
+    @Transactional
+    public void rebuild(Long userId) {
+        rollupRepository.deleteByUserId(userId);
+        rollupRepository.flush();
+
+        List<MonthlyRollup> rollups = new ArrayList<>();
+        for (MonthlyTotal total : expenseRepository.summarizeMonthlyByUserId(userId)) {
+            rollups.add(toRollup(userId, LedgerType.EXPENSE, total));
+        }
+        for (MonthlyTotal total : incomeRepository.summarizeMonthlyByUserId(userId)) {
+            rollups.add(toRollup(userId, LedgerType.INCOME, total));
+        }
+        rollupRepository.saveAll(rollups);
+    }
+
+    /**
+     * Compare a user's rollups with totals recomputed from the raw ledgers and describe every
+     * month that disagrees. Rows whose count has dropped to zero are treated as absent. The
+     * transaction is deliberately not read-only, so replica routing keeps it on the primary: on a
+     * lagging replica a rollup and its ledger rows can be out of step and trigger a needless repair.
+     */
+    @Transactional
+    public List<String> findInconsistencies(Long userId) {
+        Map<MonthlyRollupId, MonthlyTotal> expected = new HashMap<>();
+        for (MonthlyTotal total : expenseRepository.summarizeMonthlyByUserId(userId)) {
+            expected.put(rollupId(userId, LedgerType.EXPENSE, total), total);
+        }
+        for (MonthlyTotal total : incomeRepository.summarizeMonthlyByUserId(userId)) {
+            expected.put(rollupId(userId, LedgerType.INCOME, total), total);
+        }
+
+        List<String> problems = new ArrayList<>();
+        for (MonthlyRollup rollup : rollupRepository.findByUserId(userId)) {
+            MonthlyTotal total = expected.remove(rollup.getId());
+            if (total == null) {
+                if (rollup.getEntryCount() != 0 || rollup.getTotalAmount().signum() != 0) {
+                    problems.add(rollup.getId() + " has no ledger rows but holds "
+                            + rollup.getTotalAmount() + " over " + rollup.getEntryCount() + " entries");
+                }
+            } else if (total.totalAmount().compareTo(rollup.getTotalAmount()) != 0
+                    || !total.entryCount().equals(rollup.getEntryCount())) {
+                problems.add(rollup.getId() + " holds " + rollup.getTotalAmount() + " over "
+                        + rollup.getEntryCount() + " entries, ledger has " + total.totalAmount()
+                        + " over " + total.entryCount());
+            }
+        }
+        for (MonthlyRollupId missing : expected.keySet()) {
+            problems.add(missing + " is missing");
+        }
+        return problems;
+    }
+
+    static int monthKey(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    static int monthKey(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    private static MonthlyRollupId expenseRollupId(Long userId, Expense expense) {
+        return new MonthlyRollupId(userId, LedgerType.EXPENSE, expense.getCategory().name(),
+                monthKey(expense.getDateOfExpense()));
+    }
+
+    private static MonthlyRollupId incomeRollupId(Long userId, Income income) {
+        return new MonthlyRollupId(userId, LedgerType.INCOME, income.getSource().name(),
+                monthKey(income.getDateOfIncome()));
+    }
+
+    /**
+     * Add an entry to (count 1) or remove it from (count -1) a pending delta, held as
+     * {total in cents, entry count}
+     */
+    private static void accumulate(Map<MonthlyRollupId, long[]> deltas, MonthlyRollupId id,
+                                   BigDecimal amount, int count) {
+        long[] delta = deltas.computeIfAbsent(id, key -> new long[2]);
+        delta[0] = Math.addExact(delta[0], Math.multiplyExact(count, Money.toCents(amount)));
+        delta[1] += count;
+    }
+
+    private void applyDeltas(Map<MonthlyRollupId, long[]> deltas) {
+        deltas.forEach((id, delta) -> {
+            // Changes that cancel out, such as a description-only edit, need no upsert
+            if (delta[0] != 0 || delta[1] != 0) {
+                rollupRepository.applyDelta(id.getUserId(), id.getLedger().name(),
+                        id.getBucket(), id.getMonthKey(), Money.toAmount(delta[0]), delta[1]);
+            }
+        });
+    }
+
+    private BigDecimal rawTotal(Long userId, LedgerType ledger, LocalDate startDate, LocalDate endDate) {
+        return ledger == LedgerType.EXPENSE
+                ? expenseRepository.calculateTotalExpenseByUserIdAndDateRange(userId, startDate, endDate)
+                : incomeRepository.calculateTotalIncomeByUserIdAndDateRange(userId, startDate, endDate);
+    }
+
+    private static MonthlyRollupId rollupId(Long userId, LedgerType ledger, MonthlyTotal total) {
+        return new MonthlyRollupId(userId, ledger, total.bucket().name(), total.monthKey());
+    }
+
+    private static MonthlyRollup toRollup(Long userId, LedgerType ledger, MonthlyTotal total) {
+        return MonthlyRollup.builder()
+                .id(rollupId(userId, ledger, total))
+                .totalAmount(total.totalAmount())
+                .entryCount(total.entryCount())
+                .build();
+    }
+}
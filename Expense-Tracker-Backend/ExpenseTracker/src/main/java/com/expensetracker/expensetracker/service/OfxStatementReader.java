@@ -0,0 +1,116 @@
+package com.expensetracker.expensetracker.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streams the STMTTRN records of an OFX or QFX export. Handles both OFX 1.x SGML, where leaf
+ * elements have no closing tag, and OFX 2.x XML, by treating the text after each tag as that
+ * element's value. The header block and any element outside a transaction are skipped.
+ */
+class OfxStatementReader implements StatementReader {
+
+    private final BufferedReader in;
+    private long line = 1;
+
+    OfxStatementReader(InputStream input) {
+        this.in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public StatementRow next() throws IOException {
+        String tag;
+        while ((tag = readTag()) != null && !tag.equals("STMTTRN")) {
+            // Skip to the next transaction
+        }
+        if (tag == null) {
+            return null;
+        }
+
+        long startLine = line;
+        Map<String, String> values = new HashMap<>();
+        while ((tag = readTag()) != null && !tag.equals("/STMTTRN")) {
+            if (!tag.startsWith("/")) {
+                String text = readText();
+                if (!text.isEmpty()) {
+                    values.put(tag, text);
+                }
+            }
+        }
+
+        // DTPOSTED is yyyyMMdd, optionally followed by a time and zone that do not matter here
+        String posted = values.get("DTPOSTED");
+        String date = posted != null && posted.length() > 8 ? posted.substring(0, 8) : posted;
+        String description = values.getOrDefault("NAME", values.get("MEMO"));
+        return new StatementRow(startLine, date, description, values.get("TRNAMT"), null);
+    }
+
+    @Override
+    public DateTimeFormatter dateFormat() {
+        return DateTimeFormatter.BASIC_ISO_DATE;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Name of the next tag, upper-cased, with a leading slash for closing tags; null at the end
+     */
+    private String readTag() throws IOException {
+        int c;
+        while ((c = in.read()) != '<') {
+            if (c == -1) {
+                return null;
+            }
+            if (c == '\n') {
+                line++;
+            }
+        }
+
+        StringBuilder name = new StringBuilder();
+        while ((c = in.read()) != '>' && c != -1) {
+            if (c == '\n') {
+                line++;
+            }
+            name.append((char) c);
+        }
+        return name.toString().trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Text up to the next tag, trimmed, with the XML character entities decoded
+     */
+    private String readText() throws IOException {
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            in.mark(1);
+            int c = in.read();
+            if (c == -1) {
+                break;
+            }
+            if (c == '<') {
+                in.reset();
+                break;
+            }
+            if (c == '\n') {
+                line++;
+            }
+            text.append((char) c);
+        }
+        return text.toString().trim()
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&quot;", "\"")
+                .replace("&apos;", "'")
+                .replace("&amp;", "&");
+    }
+}
@@ -0,0 +1,43 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Keyset position in a ranked search result: the (rank, date, id) of the last row a client has
+ * seen. Results are ordered by rank descending, then date and id descending, so the triple is
+ * unique and the next page starts right after it however deep the client pages.
+ */
+public record SearchCursor(long rank, LocalDate date, Long id) {
+
+    public String encode() {
+        String raw = "s:" + rank + ":" + date + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor previously produced by {@link #encode()}, or return null for the first page
+     */
+    public static SearchCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 4 || !parts[0].equals("s")) {
+                throw new IllegalArgumentException(raw);
+            }
+            return new SearchCursor(
+                    Long.parseLong(parts[1]),
+                    LocalDate.parse(parts[2]),
+                    Long.parseLong(parts[3])
+            );
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid pagination cursor");
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.dto.response.CategorySpendingStats;
+import com.expensetracker.expensetracker.dto.response.ExpenseResponse;
+import com.expensetracker.expensetracker.dto.response.MonthlySpendingStats;
+import com.expensetracker.expensetracker.dto.response.SpendingStatsResponse;
+import com.expensetracker.expensetracker.entity.ExpenseSketch;
+import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import com.expensetracker.expensetracker.exception.BadRequestException;
+import com.expensetracker.expensetracker.exception.UnauthorizedException;
+import com.expensetracker.expensetracker.repository.ExpenseRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expense size statistics per category over a range of months. Count, total, mean, median and
+ * p90 come from the stored per-month sketches, merged in memory, so the cost depends on the
+ * number of months and categories rather than on the number of expenses. Only the outliers
+ * read raw rows, through a query bounded by the outlier threshold and the requested limit.
+ */
+@Service
+public class SpendingStatsService {
+
+    /**
+     * Upper bound on outliers listed per category
+     */
+    public static final int MAX_OUTLIERS = 50;
+
+    private final ExpenseSketchService expenseSketchService;
+    private final ExpenseRepository expenseRepository;
+    private final AuthService authService;
+
+    public SpendingStatsService(ExpenseSketchService expenseSketchService,
+                                ExpenseRepository expenseRepository,
+                                AuthService authService) {
+        this.expenseSketchService = expenseSketchService;
+        this.expenseRepository = expenseRepository;
+        this.authService = authService;
+    }
+
+    /**
+     * Statistics for every category, or just one when category is given, between two months
+     * inclusive, with up to outlierLimit outliers each
+     */
+    @Transactional(readOnly = true)
+    public SpendingStatsResponse calculateStats(Long userId, YearMonth startMonth, YearMonth endMonth,
+                                                ExpenseCategory category, int outlierLimit) {
+        // Verify user authorization
+        verifyUserAuthorization(userId);
+
+        if (startMonth.isAfter(endMonth)) {
+            throw new BadRequestException("start must not be after end");
+        }
+        if (outlierLimit < 0 || outlierLimit > MAX_OUTLIERS) {
+            throw new BadRequestException("outliers must be between 0 and " + MAX_OUTLIERS);
+        }
+
+        // Rows arrive oldest month first, so each category's month list is already in order
+        Map<ExpenseCategory, AmountSketch> merged = new EnumMap<>(ExpenseCategory.class);
+        Map<ExpenseCategory, List<MonthlySpendingStats>> months = new EnumMap<>(ExpenseCategory.class);
+        for (ExpenseSketch row : expenseSketchService.findSketches(userId, startMonth, endMonth)) {
+            ExpenseCategory rowCategory = ExpenseCategory.valueOf(row.getId().getCategory());
+            if (category != null && rowCategory != category) {
+                continue;
+            }
+            AmountSketch sketch = AmountSketch.fromBytes(row.getSketch());
+            if (sketch.isEmpty()) {
+                continue;
+            }
+            merged.computeIfAbsent(rowCategory, key -> new AmountSketch()).merge(sketch);
+            int monthKey = row.getId().getMonthKey();
+            months.computeIfAbsent(rowCategory, key -> new ArrayList<>())
+                    .add(monthStats(YearMonth.of(monthKey / 100, monthKey % 100), sketch));
+        }
+
+        List<CategorySpendingStats> categories = new ArrayList<>(merged.size());
+        merged.forEach((key, sketch) -> {
+            long q1 = sketch.quantile(0.25);
+            long q3 = sketch.quantile(0.75);
+            long threshold = Math.addExact(q3, Math.multiplyExact(3, q3 - q1) / 2);
+
+            List<ExpenseResponse> outliers = outlierLimit == 0 ? List.of()
+                    : expenseRepository.findLargestAbove(userId, key, startMonth.atDay(1),
+                            endMonth.atEndOfMonth(), Money.toAmount(threshold), Limit.of(outlierLimit));
+
+            categories.add(CategorySpendingStats.builder()
+                    .category(key)
+                    .count(sketch.count())
+                    .total(Money.toAmount(sketch.sumCents()))
+                    .mean(Money.toAmount(MoneyKernels.mean(sketch.sumCents(), sketch.count())))
+                    .median(Money.toAmount(sketch.quantile(0.5)))
+                    .p90(Money.toAmount(sketch.quantile(0.9)))
+                    .outlierThreshold(Money.toAmount(threshold))
+                    .months(months.get(key))
+                    .outliers(outliers)
+                    .build());
+        });
+
+        return SpendingStatsResponse.builder()
+                .startMonth(startMonth)
+                .endMonth(endMonth)
+                .relativeAccuracy(AmountSketch.RELATIVE_ACCURACY)
+                .categories(categories)
+                .build();
+    }
+
+    private static MonthlySpendingStats monthStats(YearMonth month, AmountSketch sketch) {
+        return MonthlySpendingStats.builder()
+                .month(month)
+                .count(sketch.count())
+                .total(Money.toAmount(sketch.sumCents()))
+                .mean(Money.toAmount(MoneyKernels.mean(sketch.sumCents(), sketch.count())))
+                .median(Money.toAmount(sketch.quantile(0.5)))
+                .p90(Money.toAmount(sketch.quantile(0.9)))
+                .build();
+    }
+
+    private void verifyUserAuthorization(Long userId) {
+        if (!authService.getCurrentUserId().equals(userId)) {
+            throw new UnauthorizedException("You are not authorized to perform this action");
+        }
+    }
+}
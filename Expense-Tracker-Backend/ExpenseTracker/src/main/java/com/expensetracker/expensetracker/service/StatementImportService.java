@@ -0,0 +1,381 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.dto.request.ImportRequest;
+import com.expensetracker.expensetracker.dto.response.ImportEventResponse;
+import com.expensetracker.expensetracker.entity.Expense;
+import com.expensetracker.expensetracker.entity.Income;
+import com.expensetracker.expensetracker.entity.LedgerContentHash;
+import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import com.expensetracker.expensetracker.enums.IncomeSource;
+import com.expensetracker.expensetracker.enums.StatementFormat;
+import com.expensetracker.expensetracker.exception.BadRequestException;
+import com.expensetracker.expensetracker.exception.UnauthorizedException;
+import com.expensetracker.expensetracker.repository.ContentHashCount;
+import com.expensetracker.expensetracker.repository.ExpenseRepository;
+import com.expensetracker.expensetracker.repository.IncomeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Imports bank statements into the expense and income ledgers. The file is read one row at a
+ * time; money out becomes an expense and money in an income. Rows are written in batches of
+ * LedgerBatchWriter.BATCH_SIZE, each in its own transaction, so a row or batch that fails is
+ * reported and skipped while the rest of the file goes in.
+ *
+ * Rows already in the ledger are skipped by content hash. Counting copies keeps genuine repeats
+ * (two identical coffees on one day): the n-th copy of a row in the file is imported only if the
+ * ledger held fewer than n copies before the import began. Re-uploading a file, including one
+ * whose import was cut short, therefore brings in only what is missing.
+ */
+@Service
+public class StatementImportService {
+
+    /**
+     * Errors reported line by line; later ones are only counted
+     */
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementImportService.class);
+    private static final JsonMapper JSON_MAPPER = JsonMapper.builder().build();
+
+    private final LedgerBatchWriter ledgerBatchWriter;
+    private final ExpenseRepository expenseRepository;
+    private final IncomeRepository incomeRepository;
+    private final AuthService authService;
+    private final TransactionTemplate transactionTemplate;
+
+    public StatementImportService(LedgerBatchWriter ledgerBatchWriter,
+                                  ExpenseRepository expenseRepository,
+                                  IncomeRepository incomeRepository,
+                                  AuthService authService,
+                                  PlatformTransactionManager transactionManager) {
+        this.ledgerBatchWriter = ledgerBatchWriter;
+        this.expenseRepository = expenseRepository;
+        this.incomeRepository = incomeRepository;
+        this.authService = authService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Open an uploaded statement and read its header, so a file that cannot be imported at all
+     * is rejected with 400 before any progress is streamed
+     */
+    public StatementReader open(MultipartFile file, ImportRequest options) throws IOException {
+        if (file.isEmpty()) {
+            throw new BadRequestException("The uploaded statement is empty");
+        }
+        StatementFormat format = StatementFormat.from(options.getFormat(), file.getOriginalFilename());
+
+        // Large uploads are spooled to disk by the container; this streams from that file
+        InputStream input = file.getInputStream();
+        try {
+            return format == StatementFormat.OFX
+                    ? new OfxStatementReader(input)
+                    : new CsvStatementReader(input, options);
+        } catch (RuntimeException | IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Import every row of the statement, writing NDJSON progress events to the output as each
+     * batch commits. Stops early only if the client goes away; batches committed until then stay.
+     */
+    public void importStatement(Long userId, StatementReader reader, ImportRequest options, OutputStream out)
+            throws IOException {
+        // Verify user authorization
+        verifyUserAuthorization(userId);
+
+        Progress progress = new Progress(out);
+        // Per content key: {copies in the ledger before the import, copies seen in the file so far}
+        Map<String, int[]> copies = new HashMap<>();
+        List<ParsedRow> batch = new ArrayList<>(LedgerBatchWriter.BATCH_SIZE);
+
+        StatementRow row;
+        while ((row = reader.next()) != null) {
+            progress.rowsRead++;
+            try {
+                batch.add(parse(row, reader.dateFormat(), options));
+            } catch (IllegalArgumentException e) {
+                progress.failed++;
+                progress.error(row.line(), e.getMessage());
+                continue;
+            }
+            if (batch.size() == LedgerBatchWriter.BATCH_SIZE) {
+                writeBatch(userId, batch, copies, progress);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(userId, batch, copies, progress);
+        }
+        progress.summary();
+    }
+
+    private void writeBatch(Long userId, List<ParsedRow> batch, Map<String, int[]> copies, Progress progress)
+            throws IOException {
+        // The counts this batch touches, as they were before it; null for a key not yet seen
+        Map<String, int[]> before = new HashMap<>();
+        for (ParsedRow row : batch) {
+            if (!before.containsKey(row.key())) {
+                int[] counts = copies.get(row.key());
+                before.put(row.key(), counts != null ? counts.clone() : null);
+            }
+        }
+        try {
+            int[] result = transactionTemplate.execute(status -> {
+                loadExistingCopies(userId, batch, copies);
+
+                List<Expense> expenses = new ArrayList<>();
+                List<Income> incomes = new ArrayList<>();
+                int duplicates = 0;
+                for (ParsedRow row : batch) {
+                    int[] counts = copies.get(row.key());
+                    if (++counts[1] <= counts[0]) {
+                        duplicates++;
+                    } else if (row.expense() != null) {
+                        expenses.add(row.expense());
+                    } else {
+                        incomes.add(row.income());
+                    }
+                }
+                ledgerBatchWriter.insert(userId, expenses, incomes);
+                return new int[]{expenses.size() + incomes.size(), duplicates};
+            });
+            progress.imported += result[0];
+            progress.duplicates += result[1];
+        } catch (RuntimeException e) {
+            // The batch rolled back, so its rows count as never read. Without this, a key first
+            // seen here would keep counts that may never have been loaded from the ledger.
+            before.forEach((key, counts) -> {
+                if (counts == null) {
+                    copies.remove(key);
+                } else {
+                    copies.put(key, counts);
+                }
+            });
+            logger.warn("Statement batch for user {} failed", userId, e);
+            progress.failed += batch.size();
+            progress.error(batch.get(0).line(), "Lines " + batch.get(0).line() + "-"
+                    + batch.get(batch.size() - 1).line() + " could not be saved and were skipped");
+        }
+        progress.progress();
+    }
+
+    /**
+     * Record how many copies of each not yet seen row the ledger held before this import. Every
+     * row this import inserts is looked up before its insert, so these counts never include it.
+     */
+    private void loadExistingCopies(Long userId, List<ParsedRow> batch, Map<String, int[]> copies) {
+        List<String> expenseHashes = new ArrayList<>();
+        List<String> incomeHashes = new ArrayList<>();
+        for (ParsedRow row : batch) {
+            if (copies.putIfAbsent(row.key(), new int[2]) == null) {
+                (row.expense() != null ? expenseHashes : incomeHashes).add(row.hash());
+            }
+        }
+        if (!expenseHashes.isEmpty()) {
+            for (ContentHashCount count : expenseRepository.countByContentHash(userId, expenseHashes)) {
+                copies.get(expenseKey(count.contentHash()))[0] = count.entryCount().intValue();
+            }
+        }
+        if (!incomeHashes.isEmpty()) {
+            for (ContentHashCount count : incomeRepository.countByContentHash(userId, incomeHashes)) {
+                copies.get(incomeKey(count.contentHash()))[0] = count.entryCount().intValue();
+            }
+        }
+    }
+
+    /**
+     * Turn a raw row into an expense or income, or explain why it cannot be imported
+     */
+    private ParsedRow parse(StatementRow row, DateTimeFormatter dateFormat, ImportRequest options) {
+        LocalDate date = parseDate(row.date(), dateFormat);
+        BigDecimal amount = parseAmount(row.amount());
+        if (options.isInvertSign()) {
+            amount = amount.negate();
+        }
+
+        String description = row.description() != null ? row.description().trim() : "";
+        if (description.isEmpty()) {
+            throw new IllegalArgumentException("Description is empty");
+        }
+        if (description.length() > MAX_DESCRIPTION_LENGTH) {
+            description = description.substring(0, MAX_DESCRIPTION_LENGTH);
+        }
+
+        BigDecimal magnitude = amount.abs().setScale(2, RoundingMode.HALF_UP);
+        if (magnitude.signum() == 0) {
+            throw new IllegalArgumentException("Amount is zero");
+        }
+        String hash = LedgerContentHash.of(date, magnitude, description);
+
+        if (amount.signum() < 0) {
+            ExpenseCategory fallback = options.getDefaultCategory() != null
+                    ? options.getDefaultCategory() : ExpenseCategory.PERSONAL;
+            Expense expense = Expense.builder()
+                    .description(description)
+                    .category(match(ExpenseCategory.class, row.category(), fallback))
+                    .amount(magnitude)
+                    .dateOfExpense(date)
+                    .build();
+            return new ParsedRow(row.line(), hash, expenseKey(hash), expense, null);
+        }
+
+        IncomeSource fallback = options.getDefaultSource() != null ? options.getDefaultSource() : IncomeSource.SALARY;
+        Income income = Income.builder()
+                .description(description)
+                .source(match(IncomeSource.class, row.category(), fallback))
+                .amount(magnitude)
+                .dateOfIncome(date)
+                .build();
+        return new ParsedRow(row.line(), hash, incomeKey(hash), null, income);
+    }
+
+    private static LocalDate parseDate(String value, DateTimeFormatter dateFormat) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Date is missing");
+        }
+        try {
+            return LocalDate.parse(value.trim(), dateFormat);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Unreadable date: " + value);
+        }
+    }
+
+    /**
+     * Parse a signed amount as banks print it: currency symbols, spaces and thousands separators
+     * are ignored, an amount in parentheses is negative, and a comma followed by at most two
+     * digits, or after the last dot, is the decimal separator ("12,50", "1.234,56")
+     */
+    private static BigDecimal parseAmount(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Amount is missing");
+        }
+        String digits = value.trim();
+        boolean parenthesized = digits.startsWith("(") && digits.endsWith(")");
+        digits = digits.replaceAll("[^0-9.,+-]", "");
+        int comma = digits.lastIndexOf(',');
+        int dot = digits.lastIndexOf('.');
+        if (comma > dot && (dot >= 0 || digits.length() - comma - 1 <= 2)) {
+            digits = digits.replace(".", "").replace(',', '.');
+        } else {
+            digits = digits.replace(",", "");
+        }
+        try {
+            BigDecimal amount = new BigDecimal(digits);
+            return parenthesized ? amount.negate() : amount;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unreadable amount: " + value);
+        }
+    }
+
+    /**
+     * The constant whose name matches the label, e.g. "Survival livelihood" or "Investment" for
+     * FROM_INVESTMENT, otherwise the fallback
+     */
+    private static <E extends Enum<E>> E match(Class<E> type, String label, E fallback) {
+        if (label == null || label.isBlank()) {
+            return fallback;
+        }
+        String name = label.trim().toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9]+", "_");
+        for (E constant : type.getEnumConstants()) {
+            if (constant.name().equals(name) || constant.name().equals("FROM_" + name)) {
+                return constant;
+            }
+        }
+        return fallback;
+    }
+
+    private static String expenseKey(String hash) {
+        return "E" + hash;
+    }
+
+    private static String incomeKey(String hash) {
+        return "I" + hash;
+    }
+
+    private void verifyUserAuthorization(Long userId) {
+        if (!authService.getCurrentUserId().equals(userId)) {
+            throw new UnauthorizedException("You are not authorized to perform this action");
+        }
+    }
+
+    /**
+     * A parsed row, holding either an expense or an income
+     */
+    private record ParsedRow(long line, String hash, String key, Expense expense, Income income) {
+    }
+
+    /**
+     * Running counts of one import, written to the client as NDJSON events
+     */
+    private static final class Progress {
+        private final OutputStream out;
+        private long rowsRead;
+        private long imported;
+        private long duplicates;
+        private long failed;
+        private long errorsReported;
+
+        Progress(OutputStream out) {
+            this.out = out;
+        }
+
+        void error(long line, String message) throws IOException {
+            if (errorsReported++ < MAX_REPORTED_ERRORS) {
+                write(ImportEventResponse.builder().type("error").line(line).message(message).build());
+            }
+        }
+
+        void progress() throws IOException {
+            write(counts("progress").build());
+            out.flush();
+        }
+
+        void summary() throws IOException {
+            ImportEventResponse.ImportEventResponseBuilder summary = counts("summary");
+            if (errorsReported > MAX_REPORTED_ERRORS) {
+                summary.message((errorsReported - MAX_REPORTED_ERRORS) + " further errors were not listed");
+            }
+            write(summary.build());
+            out.flush();
+        }
+
+        private ImportEventResponse.ImportEventResponseBuilder counts(String type) {
+            return ImportEventResponse.builder()
+                    .type(type)
+                    .rowsRead(rowsRead)
+                    .imported(imported)
+                    .duplicates(duplicates)
+                    .failed(failed);
+        }
+
+        private void write(ImportEventResponse event) throws IOException {
+            out.write(JSON_MAPPER.writeValueAsBytes(event));
+            out.write('\n');
+        }
+    }
+}
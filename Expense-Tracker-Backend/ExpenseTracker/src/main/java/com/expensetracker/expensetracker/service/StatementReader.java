@@ -0,0 +1,23 @@
+package com.expensetracker.expensetracker.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Reads the transactions of an uploaded statement one at a time, so a file of any size is held
+ * in memory one record at a time. A malformed value never ends the read; it is reported when the
+ * row is parsed.
+ */
+public interface StatementReader extends Closeable {
+
+    /**
+     * The next transaction, or null at the end of the file
+     */
+    StatementRow next() throws IOException;
+
+    /**
+     * Format of the dates this reader returns
+     */
+    DateTimeFormatter dateFormat();
+}
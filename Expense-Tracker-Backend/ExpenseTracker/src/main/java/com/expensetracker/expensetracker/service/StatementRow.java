@@ -0,0 +1,11 @@
+package com.expensetracker.expensetracker.service;
+
+/**
+ * One transaction as read from a statement file, before any value is parsed. Amounts are signed
+ * from the account holder's view: negative is money out.
+ *
+ * @param line     line of the file on which the transaction starts, for error reports
+ * @param category the file's own category label, or null when it has none
+ */
+public record StatementRow(long line, String date, String description, String amount, String category) {
+}
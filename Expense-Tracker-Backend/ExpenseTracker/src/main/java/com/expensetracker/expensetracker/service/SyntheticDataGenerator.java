@@ -0,0 +1,224 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.entity.Expense;
+import com.expensetracker.expensetracker.entity.Income;
+import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import com.expensetracker.expensetracker.enums.IncomeSource;
+import com.expensetracker.expensetracker.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk-loads synthetic users and ledgers for sizing and load tests. Active only under the
+ * "seed" profile; combine it with the database profile to load, e.g.
+ * --spring.profiles.active=seed or --spring.profiles.active=test,seed for in-memory H2.
+ *
+ * Users are named loaduser1..N and share one password so the load driver can log in as any of
+ * them. Row counts per user are heavily skewed (most users are small, a few approach the
+ * maximum), dates cluster toward the present, and amounts are log-normal. Users go in through
+ * batched JDBC; ledger rows through LedgerBatchWriter, the same path as statement imports, which
+ * keeps the rollups and search index in step. One user per worker thread. The run holds a
+ * maintenance lock, so replicas started together with the profile seed once.
+ * On MySQL add rewriteBatchedStatements=true to the JDBC URL so batches become multi-row inserts.
+ */
+@Component
+@Profile("seed")
+public class SyntheticDataGenerator implements ApplicationRunner {
+
+    public static final String USERNAME_PREFIX = "loaduser";
+    static final String LOCK_NAME = "synthetic-data";
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final MaintenanceLock maintenanceLock;
+    private final LedgerBatchWriter ledgerBatchWriter;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.seed.users:100}")
+    private int users;
+
+    @Value("${app.seed.max-rows-per-user:10000}")
+    private int maxRowsPerUser;
+
+    @Value("${app.seed.history-days:1095}")
+    private int historyDays;
+
+    @Value("${app.seed.password:password123}")
+    private String password;
+
+    @Value("${app.seed.threads:4}")
+    private int threads;
+
+    @Value("${app.seed.random-seed:42}")
+    private long randomSeed;
+
+    public SyntheticDataGenerator(JdbcTemplate jdbcTemplate,
+                                  UserRepository userRepository,
+                                  PasswordEncoder passwordEncoder,
+                                  MaintenanceLock maintenanceLock,
+                                  LedgerBatchWriter ledgerBatchWriter,
+                                  PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.maintenanceLock = maintenanceLock;
+        this.ledgerBatchWriter = ledgerBatchWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        maintenanceLock.runExclusively(LOCK_NAME, this::generate);
+    }
+
+    void generate() throws Exception {
+        if (userRepository.existsByUsername(USERNAME_PREFIX + 1)) {
+            logger.info("Synthetic users already present, skipping data generation");
+            return;
+        }
+
+        long started = System.nanoTime();
+        List<Long> userIds = insertUsers();
+
+        AtomicLong rowsWritten = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<?>> futures = new ArrayList<>(userIds.size());
+            for (int i = 0; i < userIds.size(); i++) {
+                Long userId = userIds.get(i);
+                Random random = new Random(randomSeed + i);
+                futures.add(executor.submit(() -> rowsWritten.addAndGet(insertLedgers(userId, random))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long seconds = Math.max(1, (System.nanoTime() - started) / 1_000_000_000L);
+        logger.info("Generated {} users and {} ledger rows in {}s ({} rows/s)",
+                userIds.size(), rowsWritten.get(), seconds, rowsWritten.get() / seconds);
+    }
+
+    private List<Long> insertUsers() {
+        // Hashing is deliberately slow, so every synthetic user shares one hash
+        String passwordHash = passwordEncoder.encode(password);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> rows = new ArrayList<>(users);
+        for (int i = 1; i <= users; i++) {
+            rows.add(new Object[]{USERNAME_PREFIX + i, USERNAME_PREFIX + i + "@example.com", passwordHash, now});
+        }
+        batch("INSERT INTO users (username, email, password, provider, enabled, created_at) " +
+              "VALUES (?, ?, ?, 'LOCAL', TRUE, ?)", rows);
+
+        List<Long> userIds = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE username LIKE ? ORDER BY id", Long.class, USERNAME_PREFIX + "%");
+
+        List<Object[]> roles = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            roles.add(new Object[]{userId});
+        }
+        batch("INSERT INTO user_roles (user_id, role) VALUES (?, 'USER')", roles);
+        return userIds;
+    }
+
+    private long insertLedgers(Long userId, Random random) {
+        // Cubing a uniform draw puts most users near zero and a long tail near the maximum
+        double size = random.nextDouble();
+        int expenseCount = Math.max(1, (int) (maxRowsPerUser * size * size * size));
+        int incomeCount = Math.max(1, expenseCount / 4);
+        ExpenseCategory[] categories = ExpenseCategory.values();
+        IncomeSource[] sources = IncomeSource.values();
+
+        List<Expense> expenses = new ArrayList<>(Math.min(expenseCount, LedgerBatchWriter.BATCH_SIZE));
+        for (int i = 0; i < expenseCount; i++) {
+            expenses.add(Expense.builder()
+                    .description("Synthetic expense " + i)
+                    .category(categories[skewedIndex(random, categories.length)])
+                    .amount(logNormalAmount(random, 30, 1.0))
+                    .dateOfExpense(recentDate(random))
+                    .build());
+            if (expenses.size() == LedgerBatchWriter.BATCH_SIZE) {
+                write(userId, expenses, List.of());
+                expenses.clear();
+            }
+        }
+        write(userId, expenses, List.of());
+
+        List<Income> incomes = new ArrayList<>(Math.min(incomeCount, LedgerBatchWriter.BATCH_SIZE));
+        for (int i = 0; i < incomeCount; i++) {
+            incomes.add(Income.builder()
+                    .description("Synthetic income " + i)
+                    .source(sources[skewedIndex(random, sources.length)])
+                    .amount(logNormalAmount(random, 2000, 0.6))
+                    .dateOfIncome(recentDate(random))
+                    .build());
+            if (incomes.size() == LedgerBatchWriter.BATCH_SIZE) {
+                write(userId, List.of(), incomes);
+                incomes.clear();
+            }
+        }
+        write(userId, List.of(), incomes);
+
+        return expenseCount + incomeCount;
+    }
+
+    private void write(Long userId, List<Expense> expenses, List<Income> incomes) {
+        transactionTemplate.executeWithoutResult(status -> ledgerBatchWriter.insert(userId, expenses, incomes));
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+        }
+    }
+
+    /**
+     * Squaring a uniform draw clusters dates toward today
+     */
+    private LocalDate recentDate(Random random) {
+        double r = random.nextDouble();
+        return LocalDate.now().minusDays((long) (historyDays * r * r));
+    }
+
+    /**
+     * Index biased toward the front of the array, so the first category or source dominates
+     */
+    private static int skewedIndex(Random random, int length) {
+        double r = random.nextDouble();
+        return Math.min(length - 1, (int) (length * r * r));
+    }
+
+    private static BigDecimal logNormalAmount(Random random, double median, double sigma) {
+        double value = median * Math.exp(sigma * random.nextGaussian());
+        return BigDecimal.valueOf(Math.max(0.01, value)).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,49 @@
+-- Baseline schema, matching what hibernate.ddl-auto=update produced before migrations took over.
+-- Existing databases are baselined at version 1 and skip this script.
+
+CREATE TABLE users (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    username    VARCHAR(255) NOT NULL,
+    email       VARCHAR(255) NOT NULL,
+    password    VARCHAR(255),
+    provider    ENUM ('GITHUB', 'GOOGLE', 'LOCAL') NOT NULL,
+    provider_id VARCHAR(255),
+    enabled     BIT          NOT NULL,
+    created_at  DATETIME(6)  NOT NULL,
+    updated_at  DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE TABLE user_roles (
+    user_id BIGINT NOT NULL,
+    role    ENUM ('ADMIN', 'USER'),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE expenses (
+    id              BIGINT        NOT NULL AUTO_INCREMENT,
+    user_id         BIGINT        NOT NULL,
+    description     VARCHAR(255)  NOT NULL,
+    category        ENUM ('INVESTMENT', 'PERSONAL', 'SURVIVAL_LIVELIHOOD') NOT NULL,
+    amount          DECIMAL(19, 2) NOT NULL,
+    date_of_expense DATE          NOT NULL,
+    created_at      DATETIME(6)   NOT NULL,
+    updated_at      DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_expenses_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE incomes (
+    id             BIGINT        NOT NULL AUTO_INCREMENT,
+    user_id        BIGINT        NOT NULL,
+    description    VARCHAR(255)  NOT NULL,
+    source         ENUM ('FROM_INVESTMENT', 'FROM_TRADING', 'SALARY') NOT NULL,
+    amount         DECIMAL(19, 2) NOT NULL,
+    date_of_income DATE          NOT NULL,
+    created_at     DATETIME(6)   NOT NULL,
+    updated_at     DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_incomes_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
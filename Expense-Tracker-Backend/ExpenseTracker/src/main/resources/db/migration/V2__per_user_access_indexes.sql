@@ -0,0 +1,13 @@
+-- Composite indexes for the per-user access paths. Every ledger query filters on user_id
+-- first, then narrows by category/source, date or amount and sorts on the same column,
+-- so each index leads with user_id and carries the secondary sort key. The (user_id, date, id)
+-- indexes serve keyset pagination; they are new too, so they are here rather than in V1, which
+-- databases baselined from the old schema skip.
+
+CREATE INDEX idx_expenses_user_date_id ON expenses (user_id, date_of_expense, id);
+CREATE INDEX idx_expenses_user_category_date ON expenses (user_id, category, date_of_expense);
+CREATE INDEX idx_expenses_user_amount ON expenses (user_id, amount);
+
+CREATE INDEX idx_incomes_user_date_id ON incomes (user_id, date_of_income, id);
+CREATE INDEX idx_incomes_user_source_date ON incomes (user_id, source, date_of_income);
+CREATE INDEX idx_incomes_user_amount ON incomes (user_id, amount);
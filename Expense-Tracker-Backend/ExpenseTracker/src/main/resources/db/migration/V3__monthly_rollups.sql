@@ -0,0 +1,34 @@
+-- Per-user monthly totals for each expense category and income source, kept in step with the
+-- ledgers by the write paths so dashboard totals read a few rows instead of the full history.
+-- month_key is year * 100 + month (e.g. 202403); bucket holds the category or source name.
+
+CREATE TABLE monthly_rollups (
+    user_id      BIGINT         NOT NULL,
+    ledger       ENUM ('EXPENSE', 'INCOME') NOT NULL,
+    bucket       VARCHAR(32)    NOT NULL,
+    month_key    INT            NOT NULL,
+    total_amount DECIMAL(19, 2) NOT NULL,
+    entry_count  BIGINT         NOT NULL,
+    PRIMARY KEY (user_id, ledger, month_key, bucket),
+    CONSTRAINT fk_monthly_rollups_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+-- Backfill from the existing ledgers
+INSERT INTO monthly_rollups (user_id, ledger, bucket, month_key, total_amount, entry_count)
+SELECT user_id, 'EXPENSE', category, YEAR(date_of_expense) * 100 + MONTH(date_of_expense), SUM(amount), COUNT(*)
+FROM expenses
+GROUP BY user_id, category, YEAR(date_of_expense) * 100 + MONTH(date_of_expense);
+
+INSERT INTO monthly_rollups (user_id, ledger, bucket, month_key, total_amount, entry_count)
+SELECT user_id, 'INCOME', source, YEAR(date_of_income) * 100 + MONTH(date_of_income), SUM(amount), COUNT(*)
+FROM incomes
+GROUP BY user_id, source, YEAR(date_of_income) * 100 + MONTH(date_of_income);
+
+-- Leases that keep startup maintenance jobs (such as the rollup rebuild) to one instance at a
+-- time. A row is created on a job's first run; locked_until in the past means the lock is free.
+CREATE TABLE maintenance_locks (
+    name         VARCHAR(64)  NOT NULL,
+    owner        VARCHAR(36),
+    locked_until DATETIME(6)  NOT NULL,
+    PRIMARY KEY (name)
+) ENGINE = InnoDB;
@@ -0,0 +1,11 @@
+-- Per-user data version, bumped by every ledger write. Read endpoints derive their ETag from
+-- it, so an unchanged ledger is answered with 304 without running the ledger queries. It lives
+-- in its own table rather than on users, so ledger writes never update or lock the user row.
+-- A user without a row is at version 0.
+
+CREATE TABLE data_versions (
+    user_id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (user_id),
+    CONSTRAINT fk_data_versions_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,16 @@
+-- Inverted index over ledger descriptions: one row per distinct lowercase word of each expense
+-- or income, kept in step by the write paths. Searches scan a per-user prefix range of term
+-- instead of every description. entry_id is the expense or income id, depending on ledger.
+-- Existing rows are indexed by DescriptionIndexMaintenance on the first startup.
+
+CREATE TABLE description_terms (
+    user_id  BIGINT      NOT NULL,
+    ledger   ENUM ('EXPENSE', 'INCOME') NOT NULL,
+    term     VARCHAR(32) NOT NULL,
+    entry_id BIGINT      NOT NULL,
+    PRIMARY KEY (user_id, ledger, term, entry_id),
+    CONSTRAINT fk_description_terms_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+-- Removing or re-indexing one entry
+CREATE INDEX idx_description_terms_entry ON description_terms (ledger, entry_id);
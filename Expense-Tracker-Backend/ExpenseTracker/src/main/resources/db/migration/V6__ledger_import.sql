@@ -0,0 +1,28 @@
+-- Ledger ids move from AUTO_INCREMENT to a pooled table generator, so Hibernate knows each id
+-- before the insert and can send expenses and incomes in JDBC batches. Each id_generators row
+-- holds the upper end of the next block of 50 ids handed to an instance, and starts one block
+-- above the current maximum so no block overlaps an existing row. AUTO_INCREMENT is dropped so
+-- an insert that bypasses the generator fails instead of colliding with a block in use.
+
+CREATE TABLE id_generators (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val      BIGINT,
+    PRIMARY KEY (sequence_name)
+) ENGINE = InnoDB;
+
+INSERT INTO id_generators (sequence_name, next_val) SELECT 'expenses', COALESCE(MAX(id), 0) + 51 FROM expenses;
+INSERT INTO id_generators (sequence_name, next_val) SELECT 'incomes', COALESCE(MAX(id), 0) + 51 FROM incomes;
+
+ALTER TABLE expenses MODIFY id BIGINT NOT NULL;
+ALTER TABLE incomes MODIFY id BIGINT NOT NULL;
+
+-- Fingerprint of date, amount and description, used to skip rows a statement import has
+-- already brought in. Existing rows are hashed by LedgerHashMaintenance on the first startup.
+-- The hash leads the index so both the per-user duplicate lookup and the backfill's search
+-- for unhashed rows are index seeks.
+
+ALTER TABLE expenses ADD COLUMN content_hash VARCHAR(64);
+ALTER TABLE incomes ADD COLUMN content_hash VARCHAR(64);
+
+CREATE INDEX idx_expenses_content_hash ON expenses (content_hash, user_id);
+CREATE INDEX idx_incomes_content_hash ON incomes (content_hash, user_id);
@@ -0,0 +1,14 @@
+-- Per-user quantile sketches of expense amounts for each category and month, kept in step by the
+-- write paths so median and p90 over any range of months merge a few small rows instead of
+-- sorting every expense. month_key is year * 100 + month (e.g. 202403). The sketch format is
+-- defined by AmountSketch and cannot be computed in SQL, so the table starts empty and
+-- ExpenseSketchMaintenance fills it from the ledger at the first startup.
+
+CREATE TABLE expense_sketches (
+    user_id   BIGINT           NOT NULL,
+    category  VARCHAR(32)      NOT NULL,
+    month_key INT              NOT NULL,
+    sketch    VARBINARY(16384) NOT NULL,
+    PRIMARY KEY (user_id, month_key, category),
+    CONSTRAINT fk_expense_sketches_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,175 @@
+package com.expensetracker.expensetracker;
+
+import com.expensetracker.expensetracker.config.JwtTokenProvider;
+import com.expensetracker.expensetracker.entity.Expense;
+import com.expensetracker.expensetracker.entity.Income;
+import com.expensetracker.expensetracker.entity.User;
+import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import com.expensetracker.expensetracker.enums.IncomeSource;
+import com.expensetracker.expensetracker.repository.ExpenseRepository;
+import com.expensetracker.expensetracker.repository.IncomeRepository;
+import com.expensetracker.expensetracker.repository.UserRepository;
+import com.expensetracker.expensetracker.SqlRecorder.RecordedStatement;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Base for tests that run against the full application on the in-memory H2 database of the test
+ * profile. The context, and with it the database, is shared by every test class, so each test
+ * signs up its own user instead of relying on an empty ledger. Statements sent to the database
+ * can be captured with {@link SqlRecorder}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(SqlRecorder.Config.class)
+public abstract class IntegrationTestSupport {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    private static final int LEDGER_OWNERS = 20;
+    private static final int ENTRIES_PER_OWNER = 100;
+    private static final AtomicBoolean LEDGER_SEEDED = new AtomicBoolean();
+
+    @Autowired
+    protected WebApplicationContext context;
+
+    protected MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private IncomeRepository incomeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUpMockMvc() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+    }
+
+    /**
+     * Sign up a new user and return its bearer token
+     */
+    protected String signUp() throws Exception {
+        String username = "user" + USERS.incrementAndGet() + "x" + System.nanoTime() % 100_000;
+        String body = mockMvc.perform(post("/api/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"email\":\"" + username
+                                + "@example.com\",\"password\":\"secret123\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.token");
+    }
+
+    /**
+     * The id of the user a token was issued to
+     */
+    protected Long userIdOf(String token) {
+        return userRepository.findByUsername(jwtTokenProvider.getUsernameFromToken(token)).orElseThrow().getId();
+    }
+
+    /**
+     * Add an expense through the API and return its id
+     */
+    protected long addExpense(String token, String description, String category,
+                              BigDecimal amount, LocalDate date) throws Exception {
+        String body = mockMvc.perform(authorized(post("/api/expenses"), token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"" + description + "\",\"category\":\"" + category
+                                + "\",\"amount\":" + amount.toPlainString()
+                                + ",\"dateOfExpense\":\"" + date + "\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return ((Number) JsonPath.read(body, "$.id")).longValue();
+    }
+
+    /**
+     * Add an income through the API and return its id
+     */
+    protected long addIncome(String token, String description, String source,
+                             BigDecimal amount, LocalDate date) throws Exception {
+        String body = mockMvc.perform(authorized(post("/api/incomes"), token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"" + description + "\",\"source\":\"" + source
+                                + "\",\"amount\":" + amount.toPlainString()
+                                + ",\"dateOfIncome\":\"" + date + "\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return ((Number) JsonPath.read(body, "$.id")).longValue();
+    }
+
+    /**
+     * Perform a request, check its status and return every statement it sent to the database
+     */
+    protected List<RecordedStatement> statementsOf(MockHttpServletRequestBuilder request,
+                                                   int expectedStatus) throws Exception {
+        return SqlRecorder.record(() -> mockMvc.perform(request).andExpect(status().is(expectedStatus)));
+    }
+
+    /**
+     * Fill the ledger tables with other users' entries and refresh the planner statistics, once per
+     * run. The plans H2 picks for a handful of rows say nothing about the indexes, so tests that
+     * EXPLAIN queries call this first.
+     */
+    protected void seedSizedLedger() {
+        if (!LEDGER_SEEDED.compareAndSet(false, true)) {
+            return;
+        }
+        ExpenseCategory[] categories = ExpenseCategory.values();
+        IncomeSource[] sources = IncomeSource.values();
+        for (int owner = 0; owner < LEDGER_OWNERS; owner++) {
+            User user = userRepository.save(User.builder()
+                    .username("ledger" + owner)
+                    .email("ledger" + owner + "@example.com")
+                    .password("unused")
+                    .build());
+            List<Expense> expenses = new ArrayList<>();
+            List<Income> incomes = new ArrayList<>();
+            for (int entry = 0; entry < ENTRIES_PER_OWNER; entry++) {
+                LocalDate date = LocalDate.of(2023, 1, 1).plusDays(entry * 7L);
+                BigDecimal amount = BigDecimal.valueOf(entry * 37 % 1000 + 1, 2);
+                expenses.add(Expense.builder().user(user).description("Seeded expense " + entry)
+                        .category(categories[entry % categories.length]).amount(amount).dateOfExpense(date).build());
+                incomes.add(Income.builder().user(user).description("Seeded income " + entry)
+                        .source(sources[entry % sources.length]).amount(amount).dateOfIncome(date).build());
+            }
+            expenseRepository.saveAll(expenses);
+            incomeRepository.saveAll(incomes);
+        }
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    protected static MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request, String token) {
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+}
@@ -0,0 +1,41 @@
+package com.expensetracker.expensetracker;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An H2 EXPLAIN result. H2 names the index a table is read through, and the conditions it seeks
+ * on, in a comment after the table, or reports a tableScan when no index is used. Names are
+ * returned in lower case, as the test database folds them.
+ */
+public record QueryPlan(String text) {
+
+    private static final Pattern INDEX_ACCESS = Pattern.compile("/\\* PUBLIC\\.(\\S+): (.*?)\\*/",
+            Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+
+    public boolean scansTable() {
+        return text.contains("tableScan");
+    }
+
+    /**
+     * The index the first table is read through, or null for a table scan
+     */
+    public String index() {
+        Matcher access = INDEX_ACCESS.matcher(text);
+        return access.find() ? access.group(1).toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * The conditions H2 seeks on in that index, or an empty string for a table scan
+     */
+    public String indexCondition() {
+        Matcher access = INDEX_ACCESS.matcher(text);
+        return access.find() ? access.group(2).toLowerCase(Locale.ROOT).replaceAll("\\s+", " ") : "";
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,42 @@
+package com.expensetracker.expensetracker;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class SmokeIT {
+    @LocalServerPort int port;
+    HttpClient http = HttpClient.newHttpClient();
+    String token;
+
+    String call(String method, String path, String body) throws Exception {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .header("Content-Type", "application/json");
+        if (token != null) b.header("Authorization", "Bearer " + token);
+        b.method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        HttpResponse<String> r = http.send(b.build(), HttpResponse.BodyHandlers.ofString());
+        System.out.println("SMOKE " + method + " " + path + " -> " + r.statusCode() + " " + (r.body().length() > 600 ? r.body().substring(0, 600) + "..." : r.body()));
+        return r.body();
+    }
+
+    @Test
+    void smoke() throws Exception {
+        String auth = call("POST", "/api/auth/signup", "{\"username\":\"alice\",\"email\":\"a@x.com\",\"password\":\"secret123\"}");
+        token = auth.replaceAll(".*\"token\":\"([^\"]+)\".*", "$1");
+        for (int i = 1; i <= 5; i++) {
+            call("POST", "/api/expenses", "{\"description\":\"uber ride " + i + "\",\"category\":\"PERSONAL\",\"amount\":" + (10 * i) + ".50,\"dateOfExpense\":\"2024-0" + i + "-15\"}");
+            call("POST", "/api/incomes", "{\"description\":\"salary " + i + "\",\"source\":\"SALARY\",\"amount\":" + (1000 * i) + ",\"dateOfIncome\":\"2024-0" + i + "-01\"}");
+        }
+        SmokeSteps.run(this::call);
+    }
+
+    interface Caller { String call(String m, String p, String b) throws Exception; }
+}
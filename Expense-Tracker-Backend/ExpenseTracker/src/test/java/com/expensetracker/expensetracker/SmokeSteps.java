@@ -0,0 +1,12 @@
+package com.expensetracker.expensetracker;
+class SmokeSteps { static void run(SmokeIT.Caller c) throws Exception {
+   c.call("GET", "/api/expenses?limit=2", null);
+   c.call("GET", "/api/expenses", null);
+   c.call("GET", "/api/expenses/filter?minAmount=30", null);
+   c.call("GET", "/api/incomes/filter?source=SALARY&maxAmount=2500", null);
+   c.call("GET", "/api/expenses/sort?sortBy=amount&order=desc", null);
+   c.call("GET", "/api/incomes/sort?sortBy=date", null);
+   c.call("GET", "/api/expenses/sort?sortBy=xyz", null);
+   c.call("GET", "/api/expenses/1", null);
+   c.call("GET", "/api/dashboard/pnl", null);
+} }
@@ -0,0 +1,216 @@
+package com.expensetracker.expensetracker;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Records every statement the application sends to the database, with its bind values, so tests
+ * can count round trips and EXPLAIN exactly the SQL that ran. {@link Config} wraps the
+ * application's DataSource; nothing is recorded outside {@link #record}. Statements from every
+ * thread count, and a JDBC batch counts once, as it is sent once.
+ */
+public final class SqlRecorder {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private static volatile List<RecordedStatement> recording;
+
+    private SqlRecorder() {
+    }
+
+    /**
+     * Something to run while recording
+     */
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    /**
+     * Run the action and return the statements it sent, in order
+     */
+    public static List<RecordedStatement> record(Action action) throws Exception {
+        List<RecordedStatement> statements = Collections.synchronizedList(new ArrayList<>());
+        recording = statements;
+        try {
+            action.run();
+        } finally {
+            recording = null;
+        }
+        synchronized (statements) {
+            return List.copyOf(statements);
+        }
+    }
+
+    /**
+     * One statement as sent, with the values bound to it (the last row, for a batch)
+     */
+    public record RecordedStatement(String sql, List<Bind> binds) {
+
+        public boolean isQuery() {
+            return sql.stripLeading().toLowerCase(Locale.ROOT).startsWith("select");
+        }
+
+        public boolean touches(String table) {
+            return sql.toLowerCase(Locale.ROOT).matches("(?s).*\\b" + table.toLowerCase(Locale.ROOT) + "\\b.*");
+        }
+
+        /**
+         * The database's plan for the statement with the same bind values
+         */
+        public QueryPlan explain(DataSource dataSource) throws SQLException {
+            return explain(dataSource, sql);
+        }
+
+        /**
+         * The plan the database would follow if it had to read the table through the given index,
+         * to check that an index fits the statement whatever the planner prefers. H2 takes the
+         * hint on queries only.
+         */
+        public QueryPlan explain(DataSource dataSource, String table, String index) throws SQLException {
+            Matcher from = Pattern.compile("(?i)\\bfrom\\s+" + table + "\\s+(\\w+)").matcher(sql);
+            if (!from.find()) {
+                throw new IllegalArgumentException("No " + table + " in " + sql);
+            }
+            return explain(dataSource, sql.substring(0, from.end()) + " USE INDEX (\"" + index + "\")"
+                    + sql.substring(from.end()));
+        }
+
+        private QueryPlan explain(DataSource dataSource, String statement) throws SQLException {
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement)) {
+                for (Bind bind : binds) {
+                    bind.applyTo(explain);
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rows = explain.executeQuery()) {
+                    while (rows.next()) {
+                        plan.append(rows.getString(1)).append('\n');
+                    }
+                }
+                return new QueryPlan(plan.toString());
+            }
+        }
+
+        @Override
+        public String toString() {
+            return sql;
+        }
+    }
+
+    /**
+     * A setXxx call on a prepared statement, replayed to EXPLAIN it
+     */
+    public record Bind(Method method, Object[] args) {
+
+        void applyTo(PreparedStatement statement) throws SQLException {
+            try {
+                method.invoke(statement, args);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof SQLException sqlException) {
+                    throw sqlException;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Wraps the application's DataSource so its statements can be recorded
+     */
+    @TestConfiguration(proxyBeanMethods = false)
+    public static class Config {
+
+        @Bean
+        static BeanPostProcessor sqlRecordingPostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource)) {
+                        return bean;
+                    }
+                    ProxyFactory factory = new ProxyFactory(bean);
+                    factory.addAdvice((MethodInterceptor) invocation -> {
+                        Object result = invocation.proceed();
+                        return invocation.getMethod().getName().equals("getConnection")
+                                ? wrap(Connection.class, result, new Object[1]) : result;
+                    });
+                    return factory.getProxy(SqlRecorder.class.getClassLoader());
+                }
+            };
+        }
+    }
+
+    /**
+     * Proxy a connection, or a statement created from one. sql[0] holds the prepared SQL of a
+     * prepared statement.
+     */
+    private static <T> T wrap(Class<T> type, Object target, Object[] sql) {
+        TreeMap<Integer, Bind> binds = new TreeMap<>();
+        Object proxy = Proxy.newProxyInstance(SqlRecorder.class.getClassLoader(), new Class<?>[]{type},
+                (self, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index
+                            && method.getDeclaringClass() != Statement.class) {
+                        binds.put(index, new Bind(method, args));
+                    } else if (name.equals("clearParameters")) {
+                        binds.clear();
+                    } else if (EXECUTE_METHODS.contains(name)) {
+                        String executed = args != null && args.length > 0 && args[0] instanceof String text
+                                ? text : (String) sql[0];
+                        List<RecordedStatement> statements = recording;
+                        if (statements != null && executed != null) {
+                            statements.add(new RecordedStatement(executed, List.copyOf(binds.values())));
+                        }
+                    } else if (name.equals("addBatch") && args != null && args.length == 1) {
+                        sql[0] = args[0];
+                    }
+
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+
+                    if (type == Connection.class) {
+                        if (name.equals("prepareStatement")) {
+                            return wrap(PreparedStatement.class, result, new Object[]{args[0]});
+                        }
+                        if (name.equals("prepareCall")) {
+                            return wrap(CallableStatement.class, result, new Object[]{args[0]});
+                        }
+                        if (name.equals("createStatement")) {
+                            return wrap(Statement.class, result, new Object[1]);
+                        }
+                    }
+                    return result;
+                });
+        return type.cast(proxy);
+    }
+}
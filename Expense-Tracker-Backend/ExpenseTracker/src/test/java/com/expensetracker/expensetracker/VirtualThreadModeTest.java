@@ -0,0 +1,104 @@
+package com.expensetracker.expensetracker;
+
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * spring.threads.virtual.enabled moves Tomcat requests and the application task executor, which
+ * runs streamed exports, onto virtual threads; without it both stay on platform threads.
+ */
+class VirtualThreadModeTest {
+
+    static final AtomicReference<Boolean> requestOnVirtualThread = new AtomicReference<>();
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = "spring.threads.virtual.enabled=true")
+    @ActiveProfiles("test")
+    @Import(ThreadRecordingFilter.class)
+    class Enabled {
+
+        @Autowired
+        private Environment environment;
+
+        @Autowired
+        @Qualifier("applicationTaskExecutor")
+        private AsyncTaskExecutor applicationTaskExecutor;
+
+        @Test
+        void requestsAndAsyncWorkRunOnVirtualThreads() throws Exception {
+            assertThat(servedOnVirtualThread(environment)).isTrue();
+            assertThat(applicationTaskExecutor.submit(() -> Thread.currentThread().isVirtual())
+                    .get(5, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = "spring.threads.virtual.enabled=false")
+    @ActiveProfiles("test")
+    @Import(ThreadRecordingFilter.class)
+    class Disabled {
+
+        @Autowired
+        private Environment environment;
+
+        @Autowired
+        @Qualifier("applicationTaskExecutor")
+        private AsyncTaskExecutor applicationTaskExecutor;
+
+        @Test
+        void requestsAndAsyncWorkRunOnPlatformThreads() throws Exception {
+            assertThat(servedOnVirtualThread(environment)).isFalse();
+            assertThat(applicationTaskExecutor.submit(() -> Thread.currentThread().isVirtual())
+                    .get(5, TimeUnit.SECONDS)).isFalse();
+        }
+    }
+
+    private static boolean servedOnVirtualThread(Environment environment) throws Exception {
+        requestOnVirtualThread.set(null);
+        int port = environment.getRequiredProperty("local.server.port", Integer.class);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/expenses")).build();
+        HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.discarding());
+        return requestOnVirtualThread.get();
+    }
+
+    /**
+     * Notes which kind of thread served the last request
+     */
+    @TestConfiguration(proxyBeanMethods = false)
+    static class ThreadRecordingFilter {
+
+        @Bean
+        FilterRegistrationBean<Filter> threadRecordingFilter() {
+            FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+                requestOnVirtualThread.set(Thread.currentThread().isVirtual());
+                chain.doFilter(request, response);
+            });
+            // Ahead of Spring Security, which answers the unauthenticated request itself
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+            return registration;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.expensetracker.expensetracker.config;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.dataformat.protobuf.ProtobufMapper;
+import tools.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import tools.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class BinaryFormatsConfigTest extends IntegrationTestSupport {
+
+    @Test
+    void jsonIsTheDefaultWithoutAnAcceptHeader() throws Exception {
+        String token = signUp();
+        addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.50"), LocalDate.of(2024, 1, 15));
+
+        mockMvc.perform(authorized(get("/api/expenses"), token))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void jsonIsTheDefaultForAnyMediaType() throws Exception {
+        String token = signUp();
+
+        mockMvc.perform(authorized(get("/api/expenses"), token).header(HttpHeaders.ACCEPT, "*/*"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void binaryFormatsAreServedWhenAskedFor() throws Exception {
+        String token = signUp();
+        addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.50"), LocalDate.of(2024, 1, 15));
+
+        mockMvc.perform(authorized(get("/api/expenses"), token).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR));
+        mockMvc.perform(authorized(get("/api/expenses"), token).accept(new MediaType("application", "x-jackson-smile")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(new MediaType("application", "x-jackson-smile")));
+        mockMvc.perform(authorized(get("/api/expenses"), token)
+                        .accept(LedgerProtobufHttpMessageConverter.APPLICATION_PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(LedgerProtobufHttpMessageConverter.APPLICATION_PROTOBUF));
+    }
+
+    @Test
+    void protobufListDecodesWithTheCheckedInSchema() throws Exception {
+        String token = signUp();
+        long id = addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.50"), LocalDate.of(2024, 1, 15));
+
+        byte[] body = mockMvc.perform(authorized(get("/api/expenses"), token)
+                        .accept(LedgerProtobufHttpMessageConverter.APPLICATION_PROTOBUF))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        ProtobufSchema schema;
+        try (InputStream in = getClass().getResourceAsStream("/proto/ledger.proto")) {
+            schema = ProtobufSchemaLoader.std.load(in).withRootType("ExpenseList");
+        }
+        JsonNode expense = new ProtobufMapper().readerFor(JsonNode.class).with(schema).<JsonNode>readValue(body)
+                .get("items").get(0);
+        assertThat(expense.get("id").asLong()).isEqualTo(id);
+        assertThat(expense.get("description").asString()).isEqualTo("Lunch");
+        assertThat(expense.get("amount").asLong()).isEqualTo(1250);
+        assertThat(expense.get("dateOfExpense").asInt()).isEqualTo(LocalDate.of(2024, 1, 15).toEpochDay());
+    }
+
+    @Test
+    void protobufIsNotAcceptableOutsideTheSchema() throws Exception {
+        String token = signUp();
+
+        mockMvc.perform(authorized(get("/api/expenses"), token).param("limit", "10")
+                        .accept(LedgerProtobufHttpMessageConverter.APPLICATION_PROTOBUF))
+                .andExpect(status().isNotAcceptable());
+    }
+}
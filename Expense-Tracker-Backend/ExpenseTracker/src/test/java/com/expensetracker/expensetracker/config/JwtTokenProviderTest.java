@@ -0,0 +1,87 @@
+package com.expensetracker.expensetracker.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Token verification: one decode per token, the cache of verified tokens, and rejection of
+ * tampered or expired tokens.
+ */
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "test-secret-key-for-testing-only-0123456789";
+
+    @Test
+    void verifyTokenDecodesEveryClaimOnce() {
+        JwtTokenProvider provider = provider(60_000, 10);
+        String token = provider.generateToken(42L, "alice", "alice@example.com",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        VerifiedToken verified = provider.verifyToken(token);
+
+        assertThat(verified.userId()).isEqualTo(42L);
+        assertThat(verified.username()).isEqualTo("alice");
+        assertThat(verified.email()).isEqualTo("alice@example.com");
+        assertThat(verified.authorities()).extracting(Object::toString).containsExactly("ROLE_USER");
+        assertThat(verified.expiresAt()).isAfter(Instant.now());
+        assertThat(provider.verifyToken(token)).isSameAs(verified);
+    }
+
+    @Test
+    void tamperedAndExpiredTokensAreRejected() {
+        JwtTokenProvider provider = provider(60_000, 10);
+        String token = provider.generateToken(1L, "bob", "bob@example.com", List.of());
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThat(provider.verifyToken(tampered)).isNull();
+        assertThat(provider.verifyToken("not-a-token")).isNull();
+        assertThat(provider.validateToken(token)).isTrue();
+
+        JwtTokenProvider expiring = provider(-1_000, 10);
+        assertThat(expiring.verifyToken(expiring.generateToken(1L, "bob", "bob@example.com", List.of()))).isNull();
+    }
+
+    @Test
+    void cacheCanBeDisabled() {
+        JwtTokenProvider provider = provider(60_000, 0);
+        String token = provider.generateToken(7L, "carol", "carol@example.com", List.of());
+
+        VerifiedToken first = provider.verifyToken(token);
+
+        assertThat(provider.verifyToken(token)).isNotSameAs(first).isEqualTo(first);
+    }
+
+    @Test
+    void cacheIgnoresExpiredEntriesAndStaysBounded() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2);
+        Instant now = Instant.now();
+        VerifiedToken live = new VerifiedToken(1L, "a", "a@example.com", List.of(), now.plusSeconds(60));
+        VerifiedToken stale = new VerifiedToken(2L, "b", "b@example.com", List.of(), now.plusSeconds(1));
+
+        cache.put("live", live, now);
+        cache.put("stale", stale, now);
+        assertThat(cache.get("stale", now.plusSeconds(2))).isNull();
+
+        cache.put("other", live, now.plusSeconds(2));
+        cache.put("third", live, now.plusSeconds(2));
+        assertThat(cache.get("third", now.plusSeconds(2))).isSameAs(live);
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(cache, "entries")).hasSizeLessThanOrEqualTo(2);
+    }
+
+    private static JwtTokenProvider provider(long expiration, int cacheSize) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpiration", expiration);
+        ReflectionTestUtils.setField(provider, "verifiedCacheSize", cacheSize);
+        provider.init();
+        return provider;
+    }
+}
@@ -0,0 +1,46 @@
+package com.expensetracker.expensetracker.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * With management.server.port set, as in deployment, actuator answers only on its own port and
+ * the application port has no /actuator paths to publish.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "management.server.port=0")
+@ActiveProfiles("test")
+class ManagementPortTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Autowired
+    private Environment environment;
+
+    @Test
+    void actuatorIsServedOnTheManagementPortOnly() throws Exception {
+        int applicationPort = environment.getRequiredProperty("local.server.port", Integer.class);
+        int managementPort = environment.getRequiredProperty("local.management.port", Integer.class);
+        assertThat(managementPort).isNotEqualTo(applicationPort);
+
+        assertThat(status(managementPort, "/actuator/health/readiness")).isEqualTo(200);
+        assertThat(status(managementPort, "/actuator/prometheus")).isEqualTo(200);
+        assertThat(status(applicationPort, "/actuator/health/readiness")).isNotEqualTo(200);
+        assertThat(status(applicationPort, "/actuator/prometheus")).isNotEqualTo(200);
+    }
+
+    private int status(int port, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
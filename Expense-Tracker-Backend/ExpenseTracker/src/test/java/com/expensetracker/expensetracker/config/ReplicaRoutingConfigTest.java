@@ -0,0 +1,171 @@
+package com.expensetracker.expensetracker.config;
+
+import com.expensetracker.expensetracker.enums.AuthProvider;
+import com.expensetracker.expensetracker.service.UserPrincipal;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Read/write routing against two in-memory H2 databases, one standing in for the primary and one
+ * for a replica. Each holds a single row naming the database, so a query shows where it ran.
+ */
+class ReplicaRoutingConfigTest {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private HikariDataSource primary;
+    private ReplicaRoutingConfig.RoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        start(replicaSettings().withProperty("app.datasource.replica.read-your-writes-ms", "60000"));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        SecurityContextHolder.clearContext();
+        routing.destroy();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        assertThat(whereAmI(readOnly, jdbc)).isEqualTo("replica");
+        assertThat(whereAmI(readWrite, jdbc)).isEqualTo("primary");
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhileTheReplicaLags() throws Exception {
+        routing.destroy();
+        start(replicaSettings()
+                .withProperty("app.datasource.replica.lag-query", "SELECT 60")
+                .withProperty("app.datasource.replica.max-lag-seconds", "5"));
+
+        assertThat(whereAmI(readOnly, jdbc)).isEqualTo("primary");
+    }
+
+    @Test
+    void writerReadsTheirOwnWritesFromThePrimary() {
+        signIn(1L);
+        readWrite.executeWithoutResult(status -> jdbc.update("UPDATE whoami SET name = name"));
+        assertThat(whereAmI(readOnly, jdbc)).isEqualTo("primary");
+        assertThat(routing.getReplicas().pinnedUsers()).isEqualTo(1);
+
+        signIn(2L);
+        assertThat(whereAmI(readOnly, jdbc)).isEqualTo("replica");
+    }
+
+    @Test
+    void credentialsArePassedToTheRoutedTarget() {
+        // Hikari pools take no per-call credentials, so the replica pool itself refuses the call
+        assertThatThrownBy(() -> routing.getReplicas().getConnection("sa", ""))
+                .isInstanceOf(SQLFeatureNotSupportedException.class);
+        assertThat(whereAmI(readOnly, jdbc)).isEqualTo("replica");
+    }
+
+    @Test
+    void closeStopsTheReplicaPools() {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setJdbcUrl(createDatabase("replica"));
+        replica.setUsername("sa");
+        ReplicaDataSource replicas = new ReplicaDataSource(primary, List.of(replica), 5, "SELECT 0", 0, 60_000);
+
+        replicas.close();
+
+        assertThat(replica.isClosed()).isTrue();
+    }
+
+    @Test
+    void destroyClosesThePrimary() throws Exception {
+        routing.destroy();
+
+        assertThat(primary.isClosed()).isTrue();
+    }
+
+    @Test
+    void expiredWritesStopPinningReads() throws Exception {
+        routing.destroy();
+        start(replicaSettings()
+                .withProperty("app.datasource.replica.read-your-writes-ms", "500")
+                .withProperty("app.datasource.replica.check-interval-ms", "50"));
+
+        signIn(1L);
+        try (Connection connection = routing.getConnection()) {
+            connection.createStatement().execute("UPDATE whoami SET name = name");
+        }
+        assertThat(routing.getReplicas().pinnedUsers()).isEqualTo(1);
+
+        // The lag monitor drops the entry once the window has passed, without any further reads
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (routing.getReplicas().pinnedUsers() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(routing.getReplicas().pinnedUsers()).isZero();
+    }
+
+    /**
+     * Route between a fresh primary and the replica from the settings
+     */
+    private void start(MockEnvironment environment) {
+        primary = new HikariDataSource();
+        primary.setJdbcUrl(createDatabase("primary"));
+        primary.setUsername("sa");
+        routing = (ReplicaRoutingConfig.RoutingDataSource) ReplicaRoutingConfig.route(primary, environment);
+
+        jdbc = new JdbcTemplate(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    private static MockEnvironment replicaSettings() {
+        return new MockEnvironment()
+                .withProperty("spring.datasource.username", "sa")
+                .withProperty("spring.datasource.password", "")
+                .withProperty("app.datasource.replica.urls", createDatabase("replica"))
+                .withProperty("app.datasource.replica.lag-query", "SELECT 0");
+    }
+
+    private static String whereAmI(TransactionTemplate transaction, JdbcTemplate jdbc) {
+        String name = transaction.execute(status -> jdbc.queryForObject("SELECT name FROM whoami", String.class));
+        return name;
+    }
+
+    private static void signIn(Long userId) {
+        UserPrincipal principal = new UserPrincipal(userId, "user" + userId, "user" + userId + "@example.com",
+                null, AuthProvider.LOCAL, List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private static String createDatabase(String name) {
+        String url = "jdbc:h2:mem:routing" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl(url);
+            dataSource.setUsername("sa");
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            jdbc.execute("CREATE TABLE whoami (name VARCHAR(20))");
+            jdbc.update("INSERT INTO whoami VALUES (?)", name);
+        }
+        return url;
+    }
+}
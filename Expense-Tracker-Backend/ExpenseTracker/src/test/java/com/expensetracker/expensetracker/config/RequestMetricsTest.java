@@ -0,0 +1,77 @@
+package com.expensetracker.expensetracker.config;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.expensetracker.expensetracker.SqlRecorder.RecordedStatement;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Per-request Hibernate work, password hashing and JWT verification reach the meter registry,
+ * and the probes are open without a token.
+ */
+class RequestMetricsTest extends IntegrationTestSupport {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void statementCountMatchesWhatReachedTheDatabase() throws Exception {
+        String token = signUp();
+        long id = addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.50"), LocalDate.of(2024, 1, 15));
+        double countBefore = summaryCount("/api/expenses/{id}");
+        double totalBefore = summaryTotal("/api/expenses/{id}");
+
+        List<RecordedStatement> statements = statementsOf(authorized(get("/api/expenses/" + id), token), 200);
+
+        assertThat(summaryCount("/api/expenses/{id}") - countBefore).isEqualTo(1);
+        assertThat(summaryTotal("/api/expenses/{id}") - totalBefore).isEqualTo(statements.size());
+    }
+
+    @Test
+    void passwordHashingAndTokenVerificationAreTimed() throws Exception {
+        long hashesBefore = timerCount("security.password.hash");
+        long verificationsBefore = timerCount("security.jwt.verification");
+
+        String token = signUp();
+        mockMvc.perform(authorized(get("/api/expenses"), token)).andExpect(status().isOk());
+
+        assertThat(timerCount("security.password.hash")).isGreaterThan(hashesBefore);
+        assertThat(timerCount("security.jwt.verification")).isGreaterThan(verificationsBefore);
+    }
+
+    @Test
+    void probesNeedNoToken() throws Exception {
+        mockMvc.perform(get("/actuator/health/liveness")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/health/readiness")).andExpect(status().isOk());
+    }
+
+    private double summaryCount(String uri) {
+        DistributionSummary summary = summary(uri);
+        return summary != null ? summary.count() : 0;
+    }
+
+    private double summaryTotal(String uri) {
+        DistributionSummary summary = summary(uri);
+        return summary != null ? summary.totalAmount() : 0;
+    }
+
+    private DistributionSummary summary(String uri) {
+        return meterRegistry.find("http.server.requests.jdbc.statements")
+                .tag("method", "GET").tag("uri", uri).summary();
+    }
+
+    private long timerCount(String name) {
+        return meterRegistry.find(name).timers().stream().mapToLong(Timer::count).sum();
+    }
+}
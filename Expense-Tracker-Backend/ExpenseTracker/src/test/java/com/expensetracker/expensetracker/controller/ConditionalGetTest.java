@@ -0,0 +1,81 @@
+package com.expensetracker.expensetracker.controller;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.expensetracker.expensetracker.SqlRecorder.RecordedStatement;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional GETs on the ledger lists and lifetime PnL: an unchanged ledger is answered with an
+ * empty 304 after a single data version read, and every write moves the ETag on.
+ */
+class ConditionalGetTest extends IntegrationTestSupport {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 1, 15);
+
+    @Test
+    void unchangedLedgerIsNotModified() throws Exception {
+        String token = signUp();
+        addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.50"), DATE);
+
+        for (String path : List.of("/api/expenses", "/api/incomes", "/api/dashboard/pnl")) {
+            MockHttpServletResponse first = mockMvc.perform(authorized(get(path), token))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                    .andReturn().getResponse();
+            String etag = first.getHeader(HttpHeaders.ETAG);
+            assertThat(etag).as(path).isNotNull();
+
+            List<RecordedStatement> statements = statementsOf(authorized(get(path), token)
+                    .header(HttpHeaders.IF_NONE_MATCH, etag), 304);
+
+            assertThat(statements).as(path).hasSize(1);
+            assertThat(statements.get(0).touches("data_versions")).isTrue();
+        }
+    }
+
+    @Test
+    void everyLedgerWriteChangesTheEtag() throws Exception {
+        String token = signUp();
+        String initial = etagOf(token);
+
+        long expense = addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.50"), DATE);
+        String afterExpense = etagOf(token);
+        addIncome(token, "Salary", "SALARY", new BigDecimal("1000.00"), DATE);
+        String afterIncome = etagOf(token);
+        mockMvc.perform(authorized(delete("/api/expenses/" + expense), token)).andExpect(status().isOk());
+        String afterDelete = etagOf(token);
+
+        assertThat(List.of(initial, afterExpense, afterIncome, afterDelete)).doesNotHaveDuplicates();
+        mockMvc.perform(authorized(get("/api/incomes"), token).header(HttpHeaders.IF_NONE_MATCH, afterIncome))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void anotherUsersWritesLeaveTheEtagAlone() throws Exception {
+        String token = signUp();
+        String before = etagOf(token);
+
+        addExpense(signUp(), "Someone else's", "PERSONAL", new BigDecimal("5.00"), DATE);
+
+        mockMvc.perform(authorized(get("/api/expenses"), token).header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isNotModified());
+    }
+
+    private String etagOf(String token) throws Exception {
+        return mockMvc.perform(authorized(get("/api/expenses"), token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
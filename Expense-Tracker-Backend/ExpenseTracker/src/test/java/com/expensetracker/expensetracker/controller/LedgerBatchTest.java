@@ -0,0 +1,191 @@
+package com.expensetracker.expensetracker.controller;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.expensetracker.expensetracker.SqlRecorder.RecordedStatement;
+import com.expensetracker.expensetracker.dto.request.BatchRequest;
+import com.expensetracker.expensetracker.service.MonthlyRollupService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The batch endpoints end to end: mixed operations in one transaction, all-or-nothing rejection
+ * with per-item errors, netted rollup changes and the operation limit.
+ */
+class LedgerBatchTest extends IntegrationTestSupport {
+
+    private static final LocalDate MAY = LocalDate.of(2024, 5, 10);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MonthlyRollupService monthlyRollupService;
+
+    @Test
+    void appliesCreatesUpdatesAndDeletesTogether() throws Exception {
+        String token = signUp();
+        long kept = addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.00"), MAY);
+        long gone = addExpense(token, "Taxi", "PERSONAL", new BigDecimal("30.00"), MAY);
+
+        String body = mockMvc.perform(batch("/api/expenses/batch", token,
+                        create("Coffee beans", "4.50", MAY),
+                        update(kept, "Lunch with team", "18.00", MAY.minusMonths(1)),
+                        delete(gone)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat((Boolean) JsonPath.read(body, "$.applied")).isTrue();
+        assertThat(JsonPath.<List<String>>read(body, "$.results[*].op")).containsExactly("CREATE", "UPDATE", "DELETE");
+        long created = ((Number) JsonPath.read(body, "$.results[0].id")).longValue();
+        assertThat(JsonPath.<String>read(body, "$.results[1].data.description")).isEqualTo("Lunch with team");
+        Long userId = userIdOf(token);
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM expenses WHERE user_id = ? ORDER BY id", Long.class, userId))
+                .containsExactly(kept, created);
+        assertThat(monthlyRollupService.findInconsistencies(userId)).isEmpty();
+
+        // The search index follows the created and renamed rows and forgets the deleted one
+        assertThat(searchIds(token, "beans")).containsExactly(created);
+        assertThat(searchIds(token, "team")).containsExactly(kept);
+        assertThat(searchIds(token, "taxi")).isEmpty();
+    }
+
+    @Test
+    void oneInvalidOperationRejectsTheWholeBatch() throws Exception {
+        String token = signUp();
+        long lunch = addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.00"), MAY);
+
+        String body = mockMvc.perform(batch("/api/expenses/batch", token,
+                        create("Coffee", "4.50", MAY),
+                        delete(lunch),
+                        "{\"op\":\"UPDATE\",\"data\":" + data("Dinner", "20.00", MAY) + "}"))
+                .andExpect(status().isBadRequest())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat((Boolean) JsonPath.read(body, "$.applied")).isFalse();
+        assertThat(JsonPath.<List<Object>>read(body, "$.results[*].error")).containsExactly("UPDATE requires an id");
+        assertThat((Integer) JsonPath.read(body, "$.results[2].index")).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForList("SELECT description FROM expenses WHERE user_id = ?",
+                String.class, userIdOf(token))).containsExactly("Lunch");
+    }
+
+    @Test
+    void idUsedTwiceIsRejected() throws Exception {
+        String token = signUp();
+        long bonus = addIncome(token, "Bonus", "SALARY", new BigDecimal("100.00"), MAY);
+
+        String body = mockMvc.perform(batch("/api/incomes/batch", token,
+                        "{\"op\":\"UPDATE\",\"id\":" + bonus + ",\"data\":{\"description\":\"Bonus\","
+                                + "\"source\":\"SALARY\",\"amount\":150.00,\"dateOfIncome\":\"" + MAY + "\"}}",
+                        delete(bonus)))
+                .andExpect(status().isBadRequest())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(JsonPath.<String>read(body, "$.results[1].error"))
+                .isEqualTo("Id " + bonus + " is already used by operation 0");
+        assertThat(jdbcTemplate.queryForObject("SELECT amount FROM incomes WHERE id = ?", BigDecimal.class, bonus))
+                .isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    void anotherUsersEntryIsRejected() throws Exception {
+        String token = signUp();
+        long others = addExpense(signUp(), "Not mine", "PERSONAL", new BigDecimal("9.00"), MAY);
+
+        String body = mockMvc.perform(batch("/api/expenses/batch", token,
+                        create("Coffee", "4.50", MAY),
+                        delete(others),
+                        delete(Long.MAX_VALUE)))
+                .andExpect(status().isBadRequest())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(JsonPath.<List<Object>>read(body, "$.results[*].error")).containsExactly(
+                "You are not authorized to access this expense", "Expense not found with id: " + Long.MAX_VALUE);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expenses WHERE id = ?", Integer.class, others))
+                .isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expenses WHERE user_id = ?",
+                Integer.class, userIdOf(token))).isZero();
+    }
+
+    @Test
+    void rollupChangesAreNettedPerMonthAndCategory() throws Exception {
+        String token = signUp();
+        long taxi = addExpense(token, "Taxi", "PERSONAL", new BigDecimal("10.00"), MAY);
+        long bus = addExpense(token, "Bus", "PERSONAL", new BigDecimal("5.00"), MAY);
+
+        // Two creates and a delete in one month and category: one upsert, +0.00 and +1 entry
+        List<RecordedStatement> netted = statementsOf(batch("/api/expenses/batch", token,
+                create("Coffee", "4.00", MAY), create("Tea", "6.00", MAY), delete(taxi)), 200);
+
+        assertThat(netted.stream().filter(statement -> statement.touches("monthly_rollups"))).hasSize(1);
+
+        // A delete and a create that cancel out exactly need no upsert at all
+        List<RecordedStatement> cancelled = statementsOf(batch("/api/expenses/batch", token,
+                delete(bus), create("Tram", "5.00", MAY.plusDays(3))), 200);
+
+        assertThat(cancelled).noneMatch(statement -> statement.touches("monthly_rollups"));
+        assertThat(monthlyRollupService.findInconsistencies(userIdOf(token))).isEmpty();
+    }
+
+    @Test
+    void batchesAreLimitedToOneThousandOperations() throws Exception {
+        String token = signUp();
+        List<String> operations = new ArrayList<>(Collections.nCopies(BatchRequest.MAX_OPERATIONS,
+                create("Snack", "1.00", MAY)));
+
+        mockMvc.perform(batch("/api/expenses/batch", token, operations.toArray(String[]::new)))
+                .andExpect(status().isOk());
+
+        operations.add(create("Snack", "1.00", MAY));
+        mockMvc.perform(batch("/api/expenses/batch", token, operations.toArray(String[]::new)))
+                .andExpect(status().isBadRequest());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expenses WHERE user_id = ?",
+                Integer.class, userIdOf(token))).isEqualTo(BatchRequest.MAX_OPERATIONS);
+    }
+
+    private List<Long> searchIds(String token, String q) throws Exception {
+        String body = mockMvc.perform(authorized(get("/api/expenses/search"), token).param("q", q))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Number> ids = JsonPath.read(body, "$.items[*].id");
+        return ids.stream().map(Number::longValue).toList();
+    }
+
+    private static MockHttpServletRequestBuilder batch(String path, String token, String... operations) {
+        return authorized(post(path), token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"operations\":[" + String.join(",", operations) + "]}");
+    }
+
+    private static String create(String description, String amount, LocalDate date) {
+        return "{\"op\":\"CREATE\",\"data\":" + data(description, amount, date) + "}";
+    }
+
+    private static String update(long id, String description, String amount, LocalDate date) {
+        return "{\"op\":\"UPDATE\",\"id\":" + id + ",\"data\":" + data(description, amount, date) + "}";
+    }
+
+    private static String delete(long id) {
+        return "{\"op\":\"DELETE\",\"id\":" + id + "}";
+    }
+
+    private static String data(String description, String amount, LocalDate date) {
+        return "{\"description\":\"" + description + "\",\"category\":\"PERSONAL\",\"amount\":" + amount
+                + ",\"dateOfExpense\":\"" + date + "\"}";
+    }
+}
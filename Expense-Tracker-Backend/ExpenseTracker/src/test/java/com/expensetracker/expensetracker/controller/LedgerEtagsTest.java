@@ -0,0 +1,67 @@
+package com.expensetracker.expensetracker.controller;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.expensetracker.expensetracker.config.LedgerProtobufHttpMessageConverter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class LedgerEtagsTest extends IntegrationTestSupport {
+
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    @Test
+    void formatFollowsContentNegotiation() {
+        assertThat(LedgerEtags.format(null)).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(LedgerEtags.format("*/*")).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(LedgerEtags.format("not a media type")).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(LedgerEtags.format("application/cbor")).isEqualTo(MediaType.APPLICATION_CBOR);
+        assertThat(LedgerEtags.format("application/x-jackson-smile, */*")).isEqualTo(SMILE);
+        assertThat(LedgerEtags.format("application/json;q=0.5, application/cbor")).isEqualTo(MediaType.APPLICATION_CBOR);
+        assertThat(LedgerEtags.format("application/x-protobuf"))
+                .isEqualTo(LedgerProtobufHttpMessageConverter.APPLICATION_PROTOBUF);
+    }
+
+    @Test
+    void etagDependsOnTheResponseFormat() throws Exception {
+        String token = signUp();
+        addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.50"), LocalDate.of(2024, 1, 15));
+
+        MockHttpServletResponse json = mockMvc.perform(authorized(get("/api/expenses"), token))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse();
+        MockHttpServletResponse cbor = mockMvc.perform(authorized(get("/api/expenses"), token)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertThat(json.getHeader(HttpHeaders.ETAG)).isNotNull();
+        assertThat(cbor.getHeader(HttpHeaders.ETAG)).isNotNull().isNotEqualTo(json.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void etagOfOneFormatDoesNotValidateAnother() throws Exception {
+        String token = signUp();
+        String etag = mockMvc.perform(authorized(get("/api/dashboard/pnl"), token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(authorized(get("/api/dashboard/pnl"), token).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+        mockMvc.perform(authorized(get("/api/dashboard/pnl"), token).header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .accept(SMILE))
+                .andExpect(status().isOk());
+    }
+}
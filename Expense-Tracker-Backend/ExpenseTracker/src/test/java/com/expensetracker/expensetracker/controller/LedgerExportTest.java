@@ -0,0 +1,126 @@
+package com.expensetracker.expensetracker.controller;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The export endpoints end to end: CSV quoting and formula neutralising, NDJSON escaping, gzip,
+ * and the same filters as the filter endpoints.
+ */
+class LedgerExportTest extends IntegrationTestSupport {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 5, 1);
+
+    @Test
+    void csvQuotesSpecialCharactersAndNeutralisesFormulas() throws Exception {
+        String token = signUp();
+        long plain = addExpense(token, "Groceries", "PERSONAL", new BigDecimal("10.00"), DATE);
+        long quoted = addExpense(token, "Rent, \\\"March\\\"", "SURVIVAL_LIVELIHOOD", new BigDecimal("800.00"), DATE.minusDays(1));
+        long formula = addExpense(token, "=HYPERLINK(\\\"http://x\\\")", "PERSONAL", new BigDecimal("1.00"), DATE.minusDays(2));
+        long plus = addExpense(token, "+1 refund", "PERSONAL", new BigDecimal("2.00"), DATE.minusDays(3));
+        long minus = addExpense(token, "-2 fee", "PERSONAL", new BigDecimal("3.00"), DATE.minusDays(4));
+        long at = addExpense(token, "@SUM(A1)", "PERSONAL", new BigDecimal("4.00"), DATE.minusDays(5));
+
+        MockHttpServletResponse response = export(authorized(get("/api/expenses/export"), token));
+
+        assertThat(response.getContentType()).startsWith("text/csv");
+        assertThat(response.getHeader("Content-Disposition")).contains("expenses.csv");
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8).lines().toList()).containsExactly(
+                "id,description,category,amount,dateOfExpense",
+                plain + ",Groceries,PERSONAL,10.00,2024-05-01",
+                quoted + ",\"Rent, \"\"March\"\"\",SURVIVAL_LIVELIHOOD,800.00,2024-04-30",
+                formula + ",\"'=HYPERLINK(\"\"http://x\"\")\",PERSONAL,1.00,2024-04-29",
+                plus + ",'+1 refund,PERSONAL,2.00,2024-04-28",
+                minus + ",'-2 fee,PERSONAL,3.00,2024-04-27",
+                at + ",'@SUM(A1),PERSONAL,4.00,2024-04-26");
+    }
+
+    @Test
+    void ndjsonWritesOneEscapedObjectPerLine() throws Exception {
+        String token = signUp();
+        long salary = addIncome(token, "Salary \\\"May\\\"\\nbonus", "SALARY", new BigDecimal("3000.50"), DATE);
+        long trading = addIncome(token, "=1+1", "FROM_TRADING", new BigDecimal("12.00"), DATE.minusDays(1));
+
+        MockHttpServletResponse response = export(authorized(get("/api/incomes/export"), token).param("format", "ndjson"));
+
+        assertThat(response.getContentType()).startsWith("application/x-ndjson");
+        List<String> lines = response.getContentAsString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(((Number) JsonPath.read(lines.get(0), "$.id")).longValue()).isEqualTo(salary);
+        assertThat((String) JsonPath.read(lines.get(0), "$.description")).isEqualTo("Salary \"May\"\nbonus");
+        assertThat((String) JsonPath.read(lines.get(0), "$.source")).isEqualTo("SALARY");
+        assertThat(JsonPath.<Object>read(lines.get(0), "$.amount").toString()).isEqualTo("3000.5");
+        assertThat((String) JsonPath.read(lines.get(0), "$.dateOfIncome")).isEqualTo("2024-05-01");
+        assertThat(((Number) JsonPath.read(lines.get(1), "$.id")).longValue()).isEqualTo(trading);
+        assertThat((String) JsonPath.read(lines.get(1), "$.description")).isEqualTo("=1+1");
+    }
+
+    @Test
+    void gzipCompressesTheSameRows() throws Exception {
+        String token = signUp();
+        addExpense(token, "Groceries", "PERSONAL", new BigDecimal("10.00"), DATE);
+
+        String plain = export(authorized(get("/api/expenses/export"), token)).getContentAsString(StandardCharsets.UTF_8);
+        MockHttpServletResponse gzipped = export(authorized(get("/api/expenses/export"), token).param("gzip", "true"));
+
+        assertThat(gzipped.getContentType()).isEqualTo("application/gzip");
+        assertThat(gzipped.getHeader("Content-Disposition")).contains("expenses.csv.gz");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(plain);
+        }
+    }
+
+    @Test
+    void exportAppliesFiltersAndStaysInTheCallersLedger() throws Exception {
+        String token = signUp();
+        long kept = addExpense(token, "Kept", "PERSONAL", new BigDecimal("50.00"), DATE);
+        addExpense(token, "Wrong category", "INVESTMENT", new BigDecimal("50.00"), DATE);
+        addExpense(token, "Too early", "PERSONAL", new BigDecimal("50.00"), DATE.minusMonths(2));
+        addExpense(token, "Too cheap", "PERSONAL", new BigDecimal("5.00"), DATE);
+        addExpense(signUp(), "Someone else's", "PERSONAL", new BigDecimal("50.00"), DATE);
+
+        MockHttpServletResponse response = export(authorized(get("/api/expenses/export"), token)
+                .param("category", "PERSONAL")
+                .param("startDate", DATE.minusMonths(1).toString())
+                .param("minAmount", "10"));
+
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8).lines().skip(1).toList())
+                .containsExactly(kept + ",Kept,PERSONAL,50.00,2024-05-01");
+    }
+
+    @Test
+    void unknownFormatIsRejected() throws Exception {
+        String token = signUp();
+
+        mockMvc.perform(authorized(get("/api/expenses/export"), token).param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MockHttpServletResponse export(MockHttpServletRequestBuilder exportRequest) throws Exception {
+        MvcResult started = mockMvc.perform(exportRequest)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Content-Disposition"))
+                .andReturn().getResponse();
+    }
+}
@@ -0,0 +1,190 @@
+package com.expensetracker.expensetracker.controller;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.expensetracker.expensetracker.service.MonthlyRollupService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMultipartHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement imports end to end: CSV and OFX parsing, skipping rows already in the ledger while
+ * keeping genuine repeats, and completing an import cut short by a failed batch.
+ */
+class StatementImportTest extends IntegrationTestSupport {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MonthlyRollupService monthlyRollupService;
+
+    @Test
+    void csvWithDebitAndCreditColumnsAndDecimalCommas() throws Exception {
+        String token = signUp();
+        String csv = """
+                Posted Date;Narrative;Money Out;Money In;Category
+                02/01/2024;Rent;1.234,56;;Survival livelihood
+                03/01/2024;"Coffee; ""to go""\";-3,5;;
+                31/01/2024;Salary;;2.000,00;Salary
+                32/01/2024;Broken date;1,00;;
+                05/02/2024;  ;4,00;;
+                """;
+
+        List<String> events = importFile(token, "statement.csv", csv, Map.of("dateFormat", "dd/MM/yyyy"));
+
+        assertThat(summary(events)).containsEntry("rowsRead", 5).containsEntry("imported", 3)
+                .containsEntry("failed", 2).containsEntry("duplicates", 0);
+        assertThat(errors(events)).containsExactly("5: Unreadable date: 32/01/2024", "6: Description is empty");
+        Long userId = userIdOf(token);
+        assertThat(jdbcTemplate.queryForList("SELECT CONCAT(description, '|', category, '|', amount, '|', "
+                        + "date_of_expense) FROM expenses WHERE user_id = ? ORDER BY date_of_expense", String.class, userId))
+                .containsExactly("Rent|SURVIVAL_LIVELIHOOD|1234.56|2024-01-02", "Coffee; \"to go\"|PERSONAL|3.50|2024-01-03");
+        assertThat(jdbcTemplate.queryForList("SELECT CONCAT(description, '|', source, '|', amount, '|', "
+                        + "date_of_income) FROM incomes WHERE user_id = ?", String.class, userId))
+                .containsExactly("Salary|SALARY|2000.00|2024-01-31");
+    }
+
+    @Test
+    void ofxSignsAmountsAndFallsBackToTheMemo() throws Exception {
+        String token = signUp();
+        String ofx = """
+                OFXHEADER:100
+                DATA:OFXSGML
+
+                <OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS><BANKTRANLIST>
+                <STMTTRN>
+                <TRNTYPE>DEBIT
+                <DTPOSTED>20240301120000[0:GMT]
+                <TRNAMT>-42.10
+                <NAME>Groceries
+                </STMTTRN>
+                <STMTTRN>
+                <TRNTYPE>CREDIT
+                <DTPOSTED>20240315
+                <TRNAMT>1500.00
+                <MEMO>Payroll
+                </STMTTRN>
+                </BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>
+                """;
+
+        List<String> events = importFile(token, "statement.ofx", ofx, Map.of());
+
+        assertThat(summary(events)).containsEntry("imported", 2).containsEntry("failed", 0);
+        Long userId = userIdOf(token);
+        assertThat(jdbcTemplate.queryForList("SELECT CONCAT(description, '|', amount, '|', date_of_expense) "
+                + "FROM expenses WHERE user_id = ?", String.class, userId)).containsExactly("Groceries|42.10|2024-03-01");
+        assertThat(jdbcTemplate.queryForList("SELECT CONCAT(description, '|', amount, '|', date_of_income) "
+                + "FROM incomes WHERE user_id = ?", String.class, userId)).containsExactly("Payroll|1500.00|2024-03-15");
+    }
+
+    @Test
+    void reuploadSkipsImportedRowsButKeepsGenuineRepeats() throws Exception {
+        String token = signUp();
+        String twoCoffees = """
+                Date,Description,Amount
+                2024-04-02,Coffee,-3.00
+                2024-04-02,Coffee,-3.00
+                2024-04-02,Lunch,-11.00
+                """;
+
+        assertThat(summary(importFile(token, "a.csv", twoCoffees, Map.of())))
+                .containsEntry("imported", 3).containsEntry("duplicates", 0);
+        assertThat(summary(importFile(token, "a.csv", twoCoffees, Map.of())))
+                .containsEntry("imported", 0).containsEntry("duplicates", 3);
+
+        // Case and spacing do not make a row new; a third coffee does
+        String threeCoffees = twoCoffees + "2024-04-02,  coffee ,-3.00\n";
+        assertThat(summary(importFile(token, "a.csv", threeCoffees, Map.of())))
+                .containsEntry("imported", 1).containsEntry("duplicates", 3);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expenses WHERE user_id = ?",
+                Integer.class, userIdOf(token))).isEqualTo(4);
+    }
+
+    @Test
+    void reuploadCompletesAnImportCutShortByAFailedBatch() throws Exception {
+        String token = signUp();
+        Long userId = userIdOf(token);
+        // Two batches; row 550 overflows the amount column, so the whole second batch rolls back
+        StringBuilder broken = new StringBuilder("Date,Description,Amount\n");
+        StringBuilder fixed = new StringBuilder("Date,Description,Amount\n");
+        for (int row = 1; row <= 600; row++) {
+            // Row 560 repeats row 1, a genuine second copy split across the batches
+            String line = row == 560 ? "2024-05-01,Row 1,-1.00\n" : "2024-05-01,Row " + row + ",-1.00\n";
+            fixed.append(line);
+            broken.append(row == 550 ? "2024-05-01,Row 550,-100000000000000000000.00\n" : line);
+        }
+
+        List<String> first = importFile(token, "statement.csv", broken.toString(), Map.of());
+
+        assertThat(summary(first)).containsEntry("rowsRead", 600).containsEntry("imported", 500)
+                .containsEntry("failed", 100);
+        assertThat(errors(first)).containsExactly("502: Lines 502-601 could not be saved and were skipped");
+        assertThat(monthlyRollupService.findInconsistencies(userId)).isEmpty();
+
+        List<String> second = importFile(token, "statement.csv", fixed.toString(), Map.of());
+
+        assertThat(summary(second)).containsEntry("imported", 100).containsEntry("duplicates", 500)
+                .containsEntry("failed", 0);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expenses WHERE user_id = ?",
+                Integer.class, userId)).isEqualTo(600);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expenses WHERE user_id = ? "
+                + "AND description = 'Row 1'", Integer.class, userId)).isEqualTo(2);
+        assertThat(monthlyRollupService.findInconsistencies(userId)).isEmpty();
+    }
+
+    @Test
+    void fileWithoutAnAmountColumnIsRejectedBeforeStreaming() throws Exception {
+        String token = signUp();
+
+        mockMvc.perform(upload(token, "statement.csv", "Date,Description\n2024-01-01,Coffee\n", Map.of()))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<String> importFile(String token, String filename, String content,
+                                    Map<String, String> params) throws Exception {
+        MvcResult started = mockMvc.perform(upload(token, filename, content, params))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    private static MockMultipartHttpServletRequestBuilder upload(String token, String filename, String content,
+                                                                Map<String, String> params) {
+        MockMultipartHttpServletRequestBuilder upload = multipart("/api/import")
+                .file(new MockMultipartFile("file", filename, "text/plain", content.getBytes(StandardCharsets.UTF_8)));
+        params.forEach(upload::param);
+        // A multipart builder is not a MockHttpServletRequestBuilder, so authorized() does not apply
+        upload.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        return upload;
+    }
+
+    private static Map<String, Object> summary(List<String> events) {
+        assertThat(JsonPath.<String>read(events.get(events.size() - 1), "$.type")).isEqualTo("summary");
+        return JsonPath.read(events.get(events.size() - 1), "$");
+    }
+
+    private static List<String> errors(List<String> events) {
+        return events.stream()
+                .filter(event -> JsonPath.<String>read(event, "$.type").equals("error"))
+                .map(event -> JsonPath.read(event, "$.line") + ": " + JsonPath.read(event, "$.message"))
+                .toList();
+    }
+}
@@ -0,0 +1,304 @@
+package com.expensetracker.expensetracker.repository;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.expensetracker.expensetracker.QueryPlan;
+import com.expensetracker.expensetracker.SqlRecorder;
+import com.expensetracker.expensetracker.SqlRecorder.RecordedStatement;
+import com.expensetracker.expensetracker.dto.request.FilterRequest;
+import com.expensetracker.expensetracker.entity.Expense;
+import com.expensetracker.expensetracker.entity.ExpenseSketchId;
+import com.expensetracker.expensetracker.entity.Income;
+import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import com.expensetracker.expensetracker.enums.LedgerType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Calls each per-user repository query on a sized ledger, records the SQL Hibernate sends for it
+ * and checks with EXPLAIN that the ledger table is never scanned. H2's planner ignores an index's
+ * order when the query selects columns the index does not hold, so it cannot show which index
+ * MySQL would pick; instead each statement is also explained with the intended index forced, and
+ * that index must seek on user_id and the given bounds and, for a sorted query, hold the sort
+ * column right after user_id so rows come out in order.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IndexUsageTest extends IntegrationTestSupport {
+
+    private static final LocalDate FROM = LocalDate.of(2024, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 12, 31);
+
+    /**
+     * Stands for the table's primary key, whose index name H2 generates
+     */
+    private static final String PRIMARY_KEY = "primary key";
+
+    private static final Pattern ORDER_BY = Pattern.compile("(?is)\\border by\\s+\\w+\\.(\\w+)");
+
+    /**
+     * A read of description_terms in a plan, with the index and the conditions it seeks on
+     */
+    private static final Pattern TERM_INDEX_ACCESS = Pattern.compile(
+            "(?is)from\\s+\"?public\"?\\.\"?description_terms\"?\\s+\"?\\w+\"?\\s+/\\*\\s*public\\.(\\w+):(.*?)\\*/");
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private IncomeRepository incomeRepository;
+
+    @Autowired
+    private MonthlyRollupRepository monthlyRollupRepository;
+
+    @Autowired
+    private ExpenseSketchRepository expenseSketchRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long userId;
+
+    /**
+     * One repository call, with the user to scope it to
+     */
+    @FunctionalInterface
+    interface LedgerQuery {
+        void run(long userId);
+    }
+
+    @BeforeEach
+    void signUpUserWithEntries() throws Exception {
+        seedSizedLedger();
+        String token = signUp();
+        userId = userIdOf(token);
+        addExpense(token, "Groceries", "SURVIVAL_LIVELIHOOD", new BigDecimal("42.10"), LocalDate.of(2024, 3, 1));
+        addIncome(token, "Salary", "SALARY", new BigDecimal("3000.00"), LocalDate.of(2024, 3, 1));
+    }
+
+    Stream<Arguments> queries() {
+        return Stream.of(
+                query("expenses first keyset page", "expenses", "idx_expenses_user_date_id",
+                        user -> expenseRepository.findFirstPageByUserId(user, Limit.of(20))),
+                query("expenses keyset page after cursor", "expenses", "idx_expenses_user_date_id",
+                        user -> expenseRepository.findPageByUserIdAfter(user, TO, 1_000L, Limit.of(20))),
+                query("expenses sorted by amount ascending", "expenses", "idx_expenses_user_amount",
+                        user -> expenseRepository.findResponsesByUserId(user, Sort.by(Sort.Direction.ASC, "amount"))),
+                query("expenses sorted by amount descending", "expenses", "idx_expenses_user_amount",
+                        user -> expenseRepository.findResponsesByUserId(user, Sort.by(Sort.Direction.DESC, "amount"))),
+                query("expenses sorted by date ascending", "expenses", "idx_expenses_user_date_id",
+                        user -> expenseRepository.findResponsesByUserId(user, Sort.by(Sort.Direction.ASC, "dateOfExpense"))),
+                query("expenses sorted by date descending", "expenses", "idx_expenses_user_date_id",
+                        user -> expenseRepository.findResponsesByUserId(user, Sort.by(Sort.Direction.DESC, "dateOfExpense"))),
+                query("expenses sorted by category ascending", "expenses", "idx_expenses_user_category_date",
+                        user -> expenseRepository.findResponsesByUserId(user, Sort.by(Sort.Direction.ASC, "category"))),
+                query("expenses sorted by category descending", "expenses", "idx_expenses_user_category_date",
+                        user -> expenseRepository.findResponsesByUserId(user, Sort.by(Sort.Direction.DESC, "category"))),
+                query("expense total", "expenses", null,
+                        user -> expenseRepository.calculateTotalExpenseByUserId(user)),
+                query("expense total in date range", "expenses", "idx_expenses_user_date_id",
+                        user -> expenseRepository.calculateTotalExpenseByUserIdAndDateRange(user, FROM, TO),
+                        "date_of_expense >= ?", "date_of_expense <= ?"),
+                query("expense count", "expenses", null,
+                        user -> expenseRepository.countByUserId(user)),
+                query("incomes first keyset page", "incomes", "idx_incomes_user_date_id",
+                        user -> incomeRepository.findFirstPageByUserId(user, Limit.of(20))),
+                query("incomes keyset page after cursor", "incomes", "idx_incomes_user_date_id",
+                        user -> incomeRepository.findPageByUserIdAfter(user, TO, 1_000L, Limit.of(20))),
+                query("incomes sorted by amount ascending", "incomes", "idx_incomes_user_amount",
+                        user -> incomeRepository.findResponsesByUserId(user, Sort.by(Sort.Direction.ASC, "amount"))),
+                query("incomes sorted by amount descending", "incomes", "idx_incomes_user_amount",
+                        user -> incomeRepository.findResponsesByUserId(user, Sort.by(Sort.Direction.DESC, "amount"))),
+                query("incomes sorted by date ascending", "incomes", "idx_incomes_user_date_id",
+                        user -> incomeRepository.findResponsesByUserId(user, Sort.by(Sort.Direction.ASC, "dateOfIncome"))),
+                query("incomes sorted by date descending", "incomes", "idx_incomes_user_date_id",
+                        user -> incomeRepository.findResponsesByUserId(user, Sort.by(Sort.Direction.DESC, "dateOfIncome"))),
+                query("incomes sorted by source ascending", "incomes", "idx_incomes_user_source_date",
+                        user -> incomeRepository.findResponsesByUserId(user, Sort.by(Sort.Direction.ASC, "source"))),
+                query("incomes sorted by source descending", "incomes", "idx_incomes_user_source_date",
+                        user -> incomeRepository.findResponsesByUserId(user, Sort.by(Sort.Direction.DESC, "source"))),
+                query("income total", "incomes", null,
+                        user -> incomeRepository.calculateTotalIncomeByUserId(user)),
+                query("income total in date range", "incomes", "idx_incomes_user_date_id",
+                        user -> incomeRepository.calculateTotalIncomeByUserIdAndDateRange(user, FROM, TO),
+                        "date_of_income >= ?", "date_of_income <= ?"),
+                query("income count", "incomes", null,
+                        user -> incomeRepository.countByUserId(user)),
+                query("expense monthly summary", "expenses", null,
+                        user -> expenseRepository.summarizeMonthlyByUserId(user)),
+                query("income monthly summary", "incomes", null,
+                        user -> incomeRepository.summarizeMonthlyByUserId(user)),
+                query("expense daily totals", "expenses", "idx_expenses_user_date_id",
+                        user -> expenseRepository.summarizeDailyByUserIdAndDateRange(user, FROM, TO),
+                        "date_of_expense >= ?", "date_of_expense <= ?"),
+                query("expense daily totals per category", "expenses", "idx_expenses_user_date_id",
+                        user -> expenseRepository.summarizeDailyPerCategory(user, FROM, TO),
+                        "date_of_expense >= ?", "date_of_expense <= ?"),
+                query("income daily totals", "incomes", "idx_incomes_user_date_id",
+                        user -> incomeRepository.summarizeDailyByUserIdAndDateRange(user, FROM, TO),
+                        "date_of_income >= ?", "date_of_income <= ?"),
+                query("income daily totals per source", "incomes", "idx_incomes_user_date_id",
+                        user -> incomeRepository.summarizeDailyPerSource(user, FROM, TO),
+                        "date_of_income >= ?", "date_of_income <= ?"),
+                query("rollup total", "monthly_rollups", PRIMARY_KEY,
+                        user -> monthlyRollupRepository.sumTotal(user, LedgerType.EXPENSE),
+                        "ledger = ?"),
+                query("rollup total between months", "monthly_rollups", PRIMARY_KEY,
+                        user -> monthlyRollupRepository.sumTotalBetween(user, LedgerType.EXPENSE, 202401, 202412),
+                        "ledger = ?", "month_key >= ?", "month_key <= ?"),
+                query("rollups by user", "monthly_rollups", PRIMARY_KEY,
+                        user -> monthlyRollupRepository.findByUserId(user)),
+                query("rollup delete by user", "monthly_rollups", null,
+                        user -> monthlyRollupRepository.deleteByUserId(user)),
+                query("sketches between months", "expense_sketches", PRIMARY_KEY,
+                        user -> expenseSketchRepository.findByUserIdAndMonthKeyBetween(user, 202401, 202412),
+                        "month_key >= ?", "month_key <= ?"),
+                query("sketch locked for update", "expense_sketches", PRIMARY_KEY,
+                        user -> expenseSketchRepository.findForUpdate(
+                                new ExpenseSketchId(user, ExpenseCategory.SURVIVAL_LIVELIHOOD.name(), 202403)),
+                        "month_key = ?", "category = ?"),
+                query("sketches by user", "expense_sketches", PRIMARY_KEY,
+                        user -> expenseSketchRepository.findByUserId(user)),
+                query("sketch delete by user", "expense_sketches", null,
+                        user -> expenseSketchRepository.deleteByUserId(user)),
+                query("expense outliers above the fence", "expenses", "idx_expenses_user_amount",
+                        user -> expenseRepository.findLargestAbove(user, ExpenseCategory.SURVIVAL_LIVELIHOOD, FROM, TO,
+                                new BigDecimal("40.00"), Limit.of(5)),
+                        "amount > ?"));
+    }
+
+    /**
+     * @param index the index the query is meant to use, or null when any index on user_id serves
+     * @param seeks conditions, besides user_id, that index (or the chosen one) must seek on
+     */
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queries")
+    void queryReadsThroughIndex(String query, String table, String index, LedgerQuery call, String[] seeks)
+            throws Exception {
+        List<RecordedStatement> statements = SqlRecorder.record(
+                () -> transactionTemplate.executeWithoutResult(status -> call.run(userId))).stream()
+                .filter(statement -> statement.touches(table))
+                .toList();
+
+        assertThat(statements).as(query).hasSize(1);
+        RecordedStatement statement = statements.get(0);
+        QueryPlan plan = statement.explain(dataSource);
+        assertThat(plan.scansTable()).as("%s: %s", query, plan).isFalse();
+        assertThat(plan.indexCondition()).as("%s: %s", query, plan).contains("user_id = ?");
+        if (index == null) {
+            for (String seek : seeks) {
+                assertThat(plan.indexCondition()).as("%s: %s", query, plan).contains(seek);
+            }
+            return;
+        }
+
+        if (index.equals(PRIMARY_KEY)) {
+            index = primaryKeyOf(table);
+        }
+        QueryPlan hinted = statement.explain(dataSource, table, index);
+        assertThat(hinted.index()).as("%s: %s", query, hinted).isEqualToIgnoringCase(index);
+        assertThat(hinted.indexCondition()).as("%s: %s", query, hinted).contains("user_id = ?");
+        for (String seek : seeks) {
+            assertThat(hinted.indexCondition()).as("%s: %s", query, hinted).contains(seek);
+        }
+        Matcher orderBy = ORDER_BY.matcher(statement.sql());
+        if (orderBy.find()) {
+            assertThat(indexColumns(index)).as("%s: columns of %s", query, index)
+                    .startsWith("user_id", orderBy.group(1));
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({"expenses", "incomes"})
+    void lookupByIdReadsPrimaryKey(String table) throws Exception {
+        List<RecordedStatement> statements = SqlRecorder.record(() -> {
+            if (table.equals("expenses")) {
+                expenseRepository.findResponseByIdAndUserId(1L, userId);
+            } else {
+                incomeRepository.findResponseByIdAndUserId(1L, userId);
+            }
+        });
+
+        assertThat(statements).hasSize(1);
+        QueryPlan plan = statements.get(0).explain(dataSource);
+        assertThat(plan.index()).as("%s", plan).startsWith("primary_key");
+        assertThat(plan.indexCondition()).as("%s", plan).isEqualTo("id = ?1 ");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({"expenses", "incomes"})
+    void searchReadsThroughDescriptionIndex(String table) throws Exception {
+        List<String> terms = List.of("salary", "groceries");
+        List<RecordedStatement> statements = SqlRecorder.record(() -> {
+            if (table.equals("expenses")) {
+                Specification<Expense> specification = ExpenseSpecifications.matching(userId, new FilterRequest());
+                for (String term : terms) {
+                    specification = specification.and(ExpenseSpecifications.descriptionHasWordStartingWith(userId, term));
+                }
+                expenseRepository.findRankedResponses(specification, userId, terms, 2L, TO, 1_000L, 21);
+            } else {
+                Specification<Income> specification = IncomeSpecifications.matching(userId, new FilterRequest());
+                for (String term : terms) {
+                    specification = specification.and(IncomeSpecifications.descriptionHasWordStartingWith(userId, term));
+                }
+                incomeRepository.findRankedResponses(specification, userId, terms, 2L, TO, 1_000L, 21);
+            }
+        });
+
+        // The entries come out of the term index, so the ledger is read by id; the word-prefix
+        // filters and each rank lookup seek the term index within the user's ledger
+        assertThat(statements).hasSize(1);
+        QueryPlan plan = statements.get(0).explain(dataSource);
+        assertThat(plan.scansTable()).as("%s", plan).isFalse();
+        assertThat(plan.index()).as("%s", plan).startsWith("primary_key");
+        String termIndex = primaryKeyOf("description_terms");
+        Matcher termAccess = TERM_INDEX_ACCESS.matcher(plan.text());
+        int accesses = 0;
+        while (termAccess.find()) {
+            accesses++;
+            String condition = termAccess.group(2).replaceAll("\\s+", " ");
+            assertThat(termAccess.group(1)).as("%s", plan).isEqualToIgnoringCase(termIndex);
+            assertThat(condition).as("%s", plan).contains("user_id = ?", "ledger = ?");
+        }
+        // Two prefix filters, the rank in each branch of the keyset predicate and in the order by
+        assertThat(accesses).as("%s", plan).isGreaterThanOrEqualTo(6);
+    }
+
+    private String primaryKeyOf(String table) {
+        return jdbcTemplate.queryForObject("SELECT index_name FROM information_schema.indexes "
+                + "WHERE table_name = ? AND index_type_name = 'PRIMARY KEY'", String.class, table);
+    }
+
+    private List<String> indexColumns(String index) {
+        return jdbcTemplate.queryForList("SELECT column_name FROM information_schema.index_columns "
+                + "WHERE index_name = ? ORDER BY ordinal_position", String.class, index);
+    }
+
+    private static Arguments query(String name, String table, String index, LedgerQuery call, String... seeks) {
+        return Arguments.of(name, table, index, call, seeks);
+    }
+}
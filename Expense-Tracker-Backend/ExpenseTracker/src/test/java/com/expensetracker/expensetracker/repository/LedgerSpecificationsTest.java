@@ -0,0 +1,231 @@
+package com.expensetracker.expensetracker.repository;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.expensetracker.expensetracker.QueryPlan;
+import com.expensetracker.expensetracker.SqlRecorder;
+import com.expensetracker.expensetracker.SqlRecorder.RecordedStatement;
+import com.expensetracker.expensetracker.dto.request.FilterRequest;
+import com.expensetracker.expensetracker.dto.response.ExpenseResponse;
+import com.expensetracker.expensetracker.dto.response.IncomeResponse;
+import com.expensetracker.expensetracker.enums.ExpenseCategory;
+import com.expensetracker.expensetracker.enums.IncomeSource;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.sql.DataSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Every combination of the five filter fields, each checked against the same rows filtered in
+ * memory: through the composed Specification directly, and through the filter endpoints. The
+ * bounds sit exactly on stored values, so inclusive ranges are covered too, and a second user's
+ * matching rows check that results never leave the caller's ledger. The endpoint's query is
+ * EXPLAINed for each combination, on a ledger sized so the plans mean something, to check it
+ * stays a single, indexed read.
+ */
+class LedgerSpecificationsTest extends IntegrationTestSupport {
+
+    private static final LocalDate START = LocalDate.of(2024, 2, 1);
+    private static final LocalDate END = LocalDate.of(2024, 3, 31);
+    private static final BigDecimal MIN = new BigDecimal("75.00");
+    private static final BigDecimal MAX = new BigDecimal("100.00");
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private IncomeRepository incomeRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private record Row(long id, String bucket, BigDecimal amount, LocalDate date) {
+    }
+
+    @Test
+    void expenseFiltersCombine() throws Exception {
+        seedSizedLedger();
+        String token = signUp();
+        Long userId = userIdOf(token);
+        List<Row> rows = new ArrayList<>();
+        for (Object[] row : new Object[][]{
+                {"PERSONAL", "12.50", "2024-01-15"},
+                {"SURVIVAL_LIVELIHOOD", "100.00", "2024-02-01"},
+                {"INVESTMENT", "250.00", "2024-03-10"},
+                {"PERSONAL", "75.00", "2024-03-31"},
+                {"PERSONAL", "100.00", "2024-04-01"},
+                {"PERSONAL", "90.00", "2024-02-20"},
+                {"SURVIVAL_LIVELIHOOD", "5.00", "2024-05-20"}}) {
+            BigDecimal amount = new BigDecimal((String) row[1]);
+            LocalDate date = LocalDate.parse((String) row[2]);
+            rows.add(new Row(addExpense(token, "Expense", (String) row[0], amount, date), (String) row[0], amount, date));
+        }
+        String otherToken = signUp();
+        addExpense(otherToken, "Other", "PERSONAL", new BigDecimal("80.00"), LocalDate.of(2024, 3, 1));
+
+        for (int mask = 0; mask < 32; mask++) {
+            FilterRequest filter = FilterRequest.builder()
+                    .category((mask & 1) != 0 ? ExpenseCategory.PERSONAL : null)
+                    .startDate((mask & 2) != 0 ? START : null)
+                    .endDate((mask & 4) != 0 ? END : null)
+                    .minAmount((mask & 8) != 0 ? MIN : null)
+                    .maxAmount((mask & 16) != 0 ? MAX : null)
+                    .build();
+            List<Long> expected = expected(rows, filter.getCategory() != null ? filter.getCategory().name() : null, filter);
+
+            List<Long> fromSpecification = expenseRepository.findResponses(
+                            ExpenseSpecifications.matching(userId, filter),
+                            Sort.by(Sort.Order.desc("dateOfExpense"), Sort.Order.desc("id")))
+                    .stream().map(ExpenseResponse::getId).toList();
+            assertThat(fromSpecification).as("specification, filter %s", filter).isEqualTo(expected);
+
+            MockHttpServletRequestBuilder request = authorized(get("/api/expenses/filter"), token);
+            addParameters(request, "category", filter.getCategory(), filter);
+            List<RecordedStatement> statements = SqlRecorder.record(() ->
+                    assertThat(ids(request)).as("endpoint, filter %s", filter).containsExactlyInAnyOrderElementsOf(expected));
+            assertSingleIndexedQuery(statements, "expenses", "date_of_expense", "category", filter);
+        }
+    }
+
+    @Test
+    void incomeFiltersCombine() throws Exception {
+        seedSizedLedger();
+        String token = signUp();
+        Long userId = userIdOf(token);
+        List<Row> rows = new ArrayList<>();
+        for (Object[] row : new Object[][]{
+                {"SALARY", "12.50", "2024-01-15"},
+                {"FROM_TRADING", "100.00", "2024-02-01"},
+                {"FROM_INVESTMENT", "250.00", "2024-03-10"},
+                {"SALARY", "75.00", "2024-03-31"},
+                {"SALARY", "100.00", "2024-04-01"},
+                {"SALARY", "90.00", "2024-02-20"},
+                {"FROM_TRADING", "5.00", "2024-05-20"}}) {
+            BigDecimal amount = new BigDecimal((String) row[1]);
+            LocalDate date = LocalDate.parse((String) row[2]);
+            rows.add(new Row(addIncome(token, "Income", (String) row[0], amount, date), (String) row[0], amount, date));
+        }
+        String otherToken = signUp();
+        addIncome(otherToken, "Other", "SALARY", new BigDecimal("80.00"), LocalDate.of(2024, 3, 1));
+
+        for (int mask = 0; mask < 32; mask++) {
+            FilterRequest filter = FilterRequest.builder()
+                    .source((mask & 1) != 0 ? IncomeSource.SALARY : null)
+                    .startDate((mask & 2) != 0 ? START : null)
+                    .endDate((mask & 4) != 0 ? END : null)
+                    .minAmount((mask & 8) != 0 ? MIN : null)
+                    .maxAmount((mask & 16) != 0 ? MAX : null)
+                    .build();
+            List<Long> expected = expected(rows, filter.getSource() != null ? filter.getSource().name() : null, filter);
+
+            List<Long> fromSpecification = incomeRepository.findResponses(
+                            IncomeSpecifications.matching(userId, filter),
+                            Sort.by(Sort.Order.desc("dateOfIncome"), Sort.Order.desc("id")))
+                    .stream().map(IncomeResponse::getId).toList();
+            assertThat(fromSpecification).as("specification, filter %s", filter).isEqualTo(expected);
+
+            MockHttpServletRequestBuilder request = authorized(get("/api/incomes/filter"), token);
+            addParameters(request, "source", filter.getSource(), filter);
+            List<RecordedStatement> statements = SqlRecorder.record(() ->
+                    assertThat(ids(request)).as("endpoint, filter %s", filter).containsExactlyInAnyOrderElementsOf(expected));
+            assertSingleIndexedQuery(statements, "incomes", "date_of_income", "source", filter);
+        }
+    }
+
+    /**
+     * Ids of the rows the filter should return, newest first
+     */
+    private static List<Long> expected(List<Row> rows, String bucket, FilterRequest filter) {
+        return rows.stream()
+                .filter(row -> bucket == null || row.bucket().equals(bucket))
+                .filter(row -> filter.getStartDate() == null || !row.date().isBefore(filter.getStartDate()))
+                .filter(row -> filter.getEndDate() == null || !row.date().isAfter(filter.getEndDate()))
+                .filter(row -> filter.getMinAmount() == null || row.amount().compareTo(filter.getMinAmount()) >= 0)
+                .filter(row -> filter.getMaxAmount() == null || row.amount().compareTo(filter.getMaxAmount()) <= 0)
+                .sorted(Comparator.comparing(Row::date).thenComparing(Row::id).reversed())
+                .map(Row::id)
+                .toList();
+    }
+
+    private static void addParameters(MockHttpServletRequestBuilder request, String bucketParameter,
+                                      Enum<?> bucket, FilterRequest filter) {
+        if (bucket != null) {
+            request.param(bucketParameter, bucket.name());
+        }
+        if (filter.getStartDate() != null) {
+            request.param("startDate", filter.getStartDate().toString());
+        }
+        if (filter.getEndDate() != null) {
+            request.param("endDate", filter.getEndDate().toString());
+        }
+        if (filter.getMinAmount() != null) {
+            request.param("minAmount", filter.getMinAmount().toPlainString());
+        }
+        if (filter.getMaxAmount() != null) {
+            request.param("maxAmount", filter.getMaxAmount().toPlainString());
+        }
+    }
+
+    /**
+     * The endpoint sends one query for the ledger rows, and it never scans the table. H2 chooses
+     * between indexes by its own cost model, so the plan is also taken with the index MySQL should
+     * use for the filter forced: the (user, bucket, date) index when a category or source is given,
+     * else the (user, date, id) index when a date is given, else the (user, amount) index. That
+     * index must seek on every filter column it holds.
+     */
+    private void assertSingleIndexedQuery(List<RecordedStatement> statements, String table, String dateColumn,
+                                          String bucketColumn, FilterRequest filter) throws Exception {
+        List<RecordedStatement> ledgerQueries = statements.stream().filter(s -> s.touches(table)).toList();
+        assertThat(ledgerQueries).as("queries on %s for filter %s", table, filter).hasSize(1);
+        RecordedStatement query = ledgerQueries.get(0);
+
+        QueryPlan plan = query.explain(dataSource);
+        assertThat(plan.scansTable()).as("table scan for filter %s: %s", filter, plan).isFalse();
+        assertThat(plan.indexCondition()).as("plan for filter %s: %s", filter, plan).contains("user_id = ?");
+
+        boolean bucket = filter.getCategory() != null || filter.getSource() != null;
+        boolean dates = filter.getStartDate() != null || filter.getEndDate() != null;
+        String index = bucket ? "idx_" + table + "_user_" + bucketColumn + "_date"
+                : dates ? "idx_" + table + "_user_date_id"
+                : "idx_" + table + "_user_amount";
+        QueryPlan hinted = query.explain(dataSource, table, index);
+        assertThat(hinted.index()).as("forced index for filter %s: %s", filter, hinted).isEqualTo(index);
+        String condition = hinted.indexCondition();
+        assertThat(condition).as("seek for filter %s: %s", filter, hinted).contains("user_id = ?");
+        if (bucket) {
+            assertThat(condition).as("seek for filter %s: %s", filter, hinted).contains(bucketColumn + " = ?");
+        }
+        if (filter.getStartDate() != null && (bucket || dates)) {
+            assertThat(condition).as("seek for filter %s: %s", filter, hinted).contains(dateColumn + " >= ?");
+        }
+        if (filter.getEndDate() != null && (bucket || dates)) {
+            assertThat(condition).as("seek for filter %s: %s", filter, hinted).contains(dateColumn + " <= ?");
+        }
+        if (!bucket && !dates && filter.getMinAmount() != null) {
+            assertThat(condition).as("seek for filter %s: %s", filter, hinted).contains("amount >= ?");
+        }
+        if (!bucket && !dates && filter.getMaxAmount() != null) {
+            assertThat(condition).as("seek for filter %s: %s", filter, hinted).contains("amount <= ?");
+        }
+    }
+
+    private List<Long> ids(MockHttpServletRequestBuilder request) throws Exception {
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Number> ids = JsonPath.read(body, "$[*].id");
+        return ids.stream().map(Number::longValue).toList();
+    }
+}
@@ -0,0 +1,39 @@
+package com.expensetracker.expensetracker.repository;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.expensetracker.expensetracker.entity.MonthlyRollup;
+import com.expensetracker.expensetracker.enums.LedgerType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MonthlyRollupRepositoryTest extends IntegrationTestSupport {
+
+    @Autowired
+    private MonthlyRollupRepository monthlyRollupRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void applyDeltaCreatesTheRowThenAddsToIt() throws Exception {
+        Long userId = userIdOf(signUp());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            monthlyRollupRepository.applyDelta(userId, "EXPENSE", "PERSONAL", 202401, new BigDecimal("12.50"), 1);
+            monthlyRollupRepository.applyDelta(userId, "EXPENSE", "PERSONAL", 202401, new BigDecimal("7.25"), 2);
+            monthlyRollupRepository.applyDelta(userId, "EXPENSE", "PERSONAL", 202401, new BigDecimal("-2.75"), -1);
+        });
+
+        List<MonthlyRollup> rows = monthlyRollupRepository.findByUserId(userId);
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).getTotalAmount()).isEqualByComparingTo("17.00");
+        assertThat(rows.get(0).getEntryCount()).isEqualTo(2L);
+        assertThat(monthlyRollupRepository.sumTotal(userId, LedgerType.EXPENSE)).isEqualByComparingTo("17.00");
+    }
+}
@@ -0,0 +1,60 @@
+package com.expensetracker.expensetracker.repository;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.expensetracker.expensetracker.SqlRecorder.RecordedStatement;
+import com.expensetracker.expensetracker.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+/**
+ * The second-level cache for users: username lookups, the user and its roles are answered from
+ * memory once loaded, ledger writes leave them cached, and saving a user refreshes them.
+ */
+class UserCacheTest extends IntegrationTestSupport {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void currentUserIsServedFromTheCache() throws Exception {
+        String token = signUp();
+        statementsOf(authorized(get("/api/auth/me"), token), 200);
+
+        List<RecordedStatement> statements = statementsOf(authorized(get("/api/auth/me"), token), 200);
+
+        assertThat(statements).noneMatch(statement -> statement.touches("users"));
+        assertThat(statements).noneMatch(statement -> statement.touches("user_roles"));
+    }
+
+    @Test
+    void ledgerWritesDoNotEvictCachedUsers() throws Exception {
+        String token = signUp();
+        statementsOf(authorized(get("/api/auth/me"), token), 200);
+
+        addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.50"), LocalDate.of(2024, 5, 1));
+
+        assertThat(statementsOf(authorized(get("/api/auth/me"), token), 200))
+                .noneMatch(statement -> statement.touches("users"));
+    }
+
+    @Test
+    void savingAUserRefreshesTheCachedCopy() throws Exception {
+        String token = signUp();
+        statementsOf(authorized(get("/api/auth/me"), token), 200);
+
+        User user = userRepository.findById(userIdOf(token)).orElseThrow();
+        user.setEmail("renamed-" + user.getEmail());
+        userRepository.save(user);
+
+        mockMvc.perform(authorized(get("/api/auth/me"), token))
+                .andExpect(jsonPath("$.email").value(user.getEmail()));
+    }
+}
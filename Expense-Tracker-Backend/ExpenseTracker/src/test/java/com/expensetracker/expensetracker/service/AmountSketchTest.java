@@ -0,0 +1,173 @@
+package com.expensetracker.expensetracker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AmountSketchTest {
+
+    private static final double[] QUANTILES = {0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 1};
+
+    /**
+     * Amounts spread over several orders of magnitude, from cents to tens of thousands, with
+     * repeats, the way real expenses cluster around common prices
+     */
+    private static long[] amounts(long seed, int n) {
+        Random random = new Random(seed);
+        long[] cents = new long[n];
+        for (int i = 0; i < n; i++) {
+            cents[i] = random.nextInt(10) == 0
+                    ? 1 + random.nextInt(500)
+                    : Math.max(1, Math.round(Math.exp(random.nextGaussian() * 1.5 + 8)));
+        }
+        return cents;
+    }
+
+    private static AmountSketch sketchOf(long[] cents, int from, int to) {
+        AmountSketch sketch = new AmountSketch();
+        for (int i = from; i < to; i++) {
+            sketch.add(cents[i]);
+        }
+        return sketch;
+    }
+
+    private static void assertWithinAccuracy(AmountSketch sketch, long[] cents) {
+        long[] sorted = cents.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            long exact = sorted[(int) Math.floor(q * (sorted.length - 1))];
+            long estimate = sketch.quantile(q);
+            assertThat((double) Math.abs(estimate - exact))
+                    .as("q=%s exact=%d estimate=%d", q, exact, estimate)
+                    .isLessThanOrEqualTo(AmountSketch.RELATIVE_ACCURACY * exact + 0.5);
+        }
+    }
+
+    @Test
+    void quantilesStayWithinTheRelativeAccuracy() {
+        for (long seed = 1; seed <= 5; seed++) {
+            long[] cents = amounts(seed, 10_000);
+            AmountSketch sketch = sketchOf(cents, 0, cents.length);
+
+            assertThat(sketch.count()).isEqualTo(cents.length);
+            assertThat(sketch.sumCents()).isEqualTo(Arrays.stream(cents).sum());
+            assertWithinAccuracy(sketch, cents);
+        }
+    }
+
+    @Test
+    void smallSketchesAreAccurateToo() {
+        long[] cents = {1, 2, 3, 99, 100, 101, 1_999, 2_000_000_00L};
+        for (int n = 1; n <= cents.length; n++) {
+            long[] prefix = Arrays.copyOf(cents, n);
+            assertWithinAccuracy(sketchOf(prefix, 0, n), prefix);
+        }
+    }
+
+    @Test
+    void mergingEqualsSketchingTheUnion() {
+        long[] cents = amounts(42, 9_000);
+        AmountSketch merged = sketchOf(cents, 0, 1_000);
+        merged.merge(sketchOf(cents, 1_000, 5_000));
+        merged.merge(new AmountSketch());
+        merged.merge(sketchOf(cents, 5_000, 9_000));
+
+        AmountSketch whole = sketchOf(cents, 0, cents.length);
+        assertThat(merged.toBytes()).isEqualTo(whole.toBytes());
+        assertWithinAccuracy(merged, cents);
+    }
+
+    @Test
+    void mergeOrderDoesNotMatter() {
+        long[] cents = amounts(7, 3_000);
+        AmountSketch forward = sketchOf(cents, 0, 1_000);
+        forward.merge(sketchOf(cents, 1_000, 3_000));
+        AmountSketch backward = sketchOf(cents, 1_000, 3_000);
+        backward.merge(sketchOf(cents, 0, 1_000));
+
+        assertThat(forward.toBytes()).isEqualTo(backward.toBytes());
+    }
+
+    @Test
+    void removeUndoesAdd() {
+        long[] cents = amounts(3, 4_000);
+        AmountSketch sketch = sketchOf(cents, 0, cents.length);
+        for (int i = 2_000; i < cents.length; i++) {
+            sketch.remove(cents[i]);
+        }
+
+        assertThat(sketch.toBytes()).isEqualTo(sketchOf(cents, 0, 2_000).toBytes());
+        assertWithinAccuracy(sketch, Arrays.copyOf(cents, 2_000));
+    }
+
+    @Test
+    void pendingRemovalsApplyWhenMerged() {
+        AmountSketch stored = new AmountSketch();
+        stored.add(1_250);
+        stored.add(9_900);
+        stored.add(0);
+
+        AmountSketch delta = new AmountSketch();
+        delta.remove(9_900);
+        delta.remove(0);
+        delta.add(4_000);
+        stored.merge(delta);
+
+        AmountSketch expected = new AmountSketch();
+        expected.add(1_250);
+        expected.add(4_000);
+        assertThat(stored.toBytes()).isEqualTo(expected.toBytes());
+
+        AmountSketch undone = new AmountSketch();
+        undone.add(500);
+        undone.remove(500);
+        assertThat(undone.isNoOp()).isTrue();
+        assertThat(delta.isNoOp()).isFalse();
+    }
+
+    @Test
+    void nonPositiveAmountsCountAsZero() {
+        AmountSketch sketch = new AmountSketch();
+        sketch.add(0);
+        sketch.add(-300);
+        sketch.add(1_000);
+
+        assertThat(sketch.quantile(0)).isZero();
+        assertThat(sketch.quantile(0.5)).isZero();
+        assertThat(sketch.sumCents()).isEqualTo(700);
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        long[] cents = amounts(11, 2_000);
+        AmountSketch sketch = sketchOf(cents, 0, cents.length);
+        sketch.add(0);
+
+        AmountSketch copy = AmountSketch.fromBytes(sketch.toBytes());
+
+        assertThat(copy.toBytes()).isEqualTo(sketch.toBytes());
+        assertThat(copy.count()).isEqualTo(sketch.count());
+        assertThat(copy.sumCents()).isEqualTo(sketch.sumCents());
+        for (double q : QUANTILES) {
+            assertThat(copy.quantile(q)).isEqualTo(sketch.quantile(q));
+        }
+        assertThat(AmountSketch.fromBytes(null).isEmpty()).isTrue();
+        assertThat(AmountSketch.fromBytes(new AmountSketch().toBytes()).isNoOp()).isTrue();
+    }
+
+    @Test
+    void rejectsInvalidInput() {
+        assertThatThrownBy(() -> new AmountSketch().quantile(0.5)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> sketchOf(new long[]{1}, 0, 1).quantile(1.5))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> AmountSketch.fromBytes(new byte[]{9}))
+                .isInstanceOf(IllegalArgumentException.class);
+        byte[] truncated = Arrays.copyOf(sketchOf(amounts(1, 100), 0, 100).toBytes(), 4);
+        assertThatThrownBy(() -> AmountSketch.fromBytes(truncated))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,82 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.expensetracker.expensetracker.SqlRecorder;
+import com.expensetracker.expensetracker.SqlRecorder.RecordedStatement;
+import com.expensetracker.expensetracker.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The ledger and dashboard endpoints authorize against the user id carried in the token, so
+ * serving them sends no SQL to the users tables and loads no User entity. That includes the
+ * data version behind their ETags, which lives in its own table.
+ */
+class AuthorizationQueriesTest extends IntegrationTestSupport {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void ledgerAndDashboardRequestsDoNotTouchTheUsersTables() throws Exception {
+        String token = signUp();
+        long id = addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.50"), LocalDate.of(2024, 1, 15));
+        long other = addIncome(token, "Salary", "SALARY", new BigDecimal("1000.00"), LocalDate.of(2024, 1, 31));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<RecordedStatement> statements = SqlRecorder.record(() -> {
+            addExpense(token, "Dinner", "PERSONAL", new BigDecimal("20.00"), LocalDate.of(2024, 1, 16));
+            mockMvc.perform(authorized(get("/api/expenses/" + id), token)).andExpect(status().isOk());
+            mockMvc.perform(authorized(get("/api/expenses"), token)).andExpect(status().isOk());
+            mockMvc.perform(authorized(get("/api/expenses/filter"), token).param("category", "PERSONAL"))
+                    .andExpect(status().isOk());
+            mockMvc.perform(authorized(put("/api/expenses/" + id), token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"description\":\"Lunch out\",\"category\":\"PERSONAL\",\"amount\":15.00,"
+                                    + "\"dateOfExpense\":\"2024-01-15\"}"))
+                    .andExpect(status().isOk());
+            mockMvc.perform(authorized(get("/api/incomes/" + other), token)).andExpect(status().isOk());
+            mockMvc.perform(authorized(delete("/api/incomes/" + other), token)).andExpect(status().isOk());
+            mockMvc.perform(authorized(get("/api/dashboard/pnl"), token)).andExpect(status().isOk());
+            mockMvc.perform(authorized(get("/api/dashboard/timeseries"), token)
+                            .param("bucket", "month").param("start", "2024-01-01").param("end", "2024-03-31"))
+                    .andExpect(status().isOk());
+        });
+
+        assertThat(statements).isNotEmpty();
+        assertThat(statements).filteredOn(statement -> statement.touches("users") || statement.touches("user_roles"))
+                .isEmpty();
+        // The ETag's data version is bumped and read in its own table, not on the user row
+        assertThat(statements).anyMatch(statement -> !statement.isQuery() && statement.touches("data_versions"));
+        assertThat(statements).anyMatch(statement -> statement.isQuery() && statement.touches("data_versions"));
+        EntityStatistics users = statistics.getEntityStatistics(User.class.getName());
+        assertThat(users.getLoadCount()).isZero();
+        assertThat(users.getFetchCount()).isZero();
+    }
+
+    @Test
+    void currentUserEndpointStillLoadsTheUser() throws Exception {
+        String token = signUp();
+
+        List<RecordedStatement> statements = SqlRecorder.record(() ->
+                mockMvc.perform(authorized(get("/api/auth/me"), token)).andExpect(status().isOk()));
+
+        assertThat(statements).anyMatch(statement -> statement.touches("users"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.Semaphore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The composite dashboard: every widget filled in normally, and a bounded wait when every slot
+ * is taken.
+ */
+class DashboardSummaryServiceTest extends IntegrationTestSupport {
+
+    private static final int WIDGETS = 8;
+
+    @Autowired
+    private DashboardSummaryService dashboardSummaryService;
+
+    @Test
+    void summaryFillsEveryWidget() throws Exception {
+        String token = signUp();
+        LocalDate today = LocalDate.now();
+        addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.50"), today);
+        addIncome(token, "Salary", "SALARY", new BigDecimal("1000.00"), today);
+
+        mockMvc.perform(authorized(get("/api/dashboard/summary"), token).param("recent", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.unavailable", empty()))
+                .andExpect(jsonPath("$.pnl.profitLoss").value(987.5))
+                .andExpect(jsonPath("$.currentMonth.totalExpense").value(12.5))
+                .andExpect(jsonPath("$.expensesByCategory.PERSONAL").value(12.5))
+                .andExpect(jsonPath("$.recentExpenses", hasSize(1)))
+                .andExpect(jsonPath("$.recentIncomes", hasSize(1)));
+    }
+
+    @Test
+    void saturatedDashboardGivesUpAtTheDeadline() throws Exception {
+        String token = signUp();
+        DashboardSummaryService target = AopTestUtils.getTargetObject(dashboardSummaryService);
+        Semaphore permits = (Semaphore) ReflectionTestUtils.getField(target, "permits");
+        long timeoutMillis = (Long) ReflectionTestUtils.getField(target, "widgetTimeoutMillis");
+        ReflectionTestUtils.setField(target, "widgetTimeoutMillis", 300L);
+        int taken = permits.drainPermits();
+        try {
+            long started = System.nanoTime();
+
+            mockMvc.perform(authorized(get("/api/dashboard/summary"), token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.unavailable", hasSize(WIDGETS)))
+                    .andExpect(jsonPath("$.pnl").doesNotExist());
+
+            // One shared deadline, not one per widget
+            assertThat((System.nanoTime() - started) / 1_000_000).isLessThan(2_000);
+        } finally {
+            permits.release(taken);
+            ReflectionTestUtils.setField(target, "widgetTimeoutMillis", timeoutMillis);
+        }
+
+        mockMvc.perform(authorized(get("/api/dashboard/summary"), token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.unavailable", empty()));
+        // Permits come back as each widget's future completes, just after its result is visible
+        await().atMost(Duration.ofSeconds(5)).until(() -> permits.availablePermits() == taken);
+    }
+}
@@ -0,0 +1,179 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Description search end to end: prefix and multi-word matching through the index, ranking,
+ * filters, keyset paging, index maintenance on update and delete, and the startup rebuild.
+ */
+class DescriptionSearchTest extends IntegrationTestSupport {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 6, 1);
+
+    @Autowired
+    private DescriptionIndexMaintenance descriptionIndexMaintenance;
+
+    @Autowired
+    private MaintenanceLock maintenanceLock;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void everyWordMustStartADescriptionWord() throws Exception {
+        String token = signUp();
+        long ride = addExpense(token, "Uber ride home", "PERSONAL", new BigDecimal("18.00"), DATE);
+        long eats = addExpense(token, "Uber Eats", "PERSONAL", new BigDecimal("25.00"), DATE);
+        addExpense(token, "Bus ticket", "PERSONAL", new BigDecimal("3.00"), DATE);
+        addExpense(signUp(), "Uber ride", "PERSONAL", new BigDecimal("9.00"), DATE);
+
+        assertThat(search(token, "/api/expenses/search", "ub")).containsExactlyInAnyOrder(ride, eats);
+        assertThat(search(token, "/api/expenses/search", "UBER ri")).containsExactly(ride);
+        assertThat(search(token, "/api/expenses/search", "ber")).isEmpty();
+    }
+
+    @Test
+    void wholeWordMatchesRankFirstThenNewest() throws Exception {
+        String token = signUp();
+        long prefixNewest = addIncome(token, "Salaryman bonus", "SALARY", new BigDecimal("10.00"), DATE);
+        long exactOld = addIncome(token, "Salary", "SALARY", new BigDecimal("10.00"), DATE.minusMonths(2));
+        long exactNew = addIncome(token, "Monthly salary", "SALARY", new BigDecimal("10.00"), DATE.minusMonths(1));
+
+        assertThat(search(token, "/api/incomes/search", "salary")).containsExactly(exactNew, exactOld, prefixNewest);
+    }
+
+    @Test
+    void filtersNarrowTheMatches() throws Exception {
+        String token = signUp();
+        long kept = addExpense(token, "Coffee beans", "PERSONAL", new BigDecimal("15.00"), DATE);
+        addExpense(token, "Coffee machine", "INVESTMENT", new BigDecimal("15.00"), DATE);
+        addExpense(token, "Coffee", "PERSONAL", new BigDecimal("2.00"), DATE);
+
+        String body = mockMvc.perform(authorized(get("/api/expenses/search"), token)
+                        .param("q", "coffee").param("category", "PERSONAL").param("minAmount", "10"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(ids(body)).containsExactly(kept);
+    }
+
+    @Test
+    void pagesFollowTheRankedOrderWithoutGapsOrRepeats() throws Exception {
+        String token = signUp();
+        List<Long> expected = new ArrayList<>();
+        // Two ranks, and several rows sharing a date within each, so every part of the keyset is used
+        for (int i = 0; i < 4; i++) {
+            expected.add(addExpense(token, "Taxi", "PERSONAL", new BigDecimal("5.00"), DATE.minusDays(i / 2)));
+        }
+        for (int i = 0; i < 3; i++) {
+            expected.add(addExpense(token, "Taxicab", "PERSONAL", new BigDecimal("5.00"), DATE.minusDays(i / 2)));
+        }
+        List<Long> firstPageOrder = search(token, "/api/expenses/search", "taxi");
+
+        List<Long> paged = new ArrayList<>();
+        String after = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = authorized(get("/api/expenses/search"), token)
+                    .param("q", "taxi").param("limit", "2");
+            if (after != null) {
+                request.param("after", after);
+            }
+            String body = mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+            paged.addAll(ids(body));
+            after = JsonPath.read(body, "$.nextCursor");
+            pages++;
+            if (pages == 2) {
+                // A new best match lands above the cursor and must not shift the pages that follow
+                addExpense(token, "Taxi", "PERSONAL", new BigDecimal("5.00"), DATE.plusDays(1));
+            }
+        } while (after != null);
+
+        assertThat(pages).isEqualTo(4);
+        assertThat(paged).containsExactlyElementsOf(firstPageOrder);
+        assertThat(paged).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    void updatesAndDeletesKeepTheIndexInStep() throws Exception {
+        String token = signUp();
+        long id = addExpense(token, "Gym membership", "PERSONAL", new BigDecimal("30.00"), DATE);
+
+        mockMvc.perform(authorized(put("/api/expenses/" + id), token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"Climbing membership\",\"category\":\"PERSONAL\","
+                                + "\"amount\":30.00,\"dateOfExpense\":\"" + DATE + "\"}"))
+                .andExpect(status().isOk());
+        assertThat(search(token, "/api/expenses/search", "gym")).isEmpty();
+        assertThat(search(token, "/api/expenses/search", "climb member")).containsExactly(id);
+
+        mockMvc.perform(authorized(delete("/api/expenses/" + id), token)).andExpect(status().isOk());
+        assertThat(search(token, "/api/expenses/search", "climb")).isEmpty();
+    }
+
+    @Test
+    void invalidQueriesAndCursorsAreRejected() throws Exception {
+        String token = signUp();
+
+        mockMvc.perform(authorized(get("/api/expenses/search"), token).param("q", " ,. "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(authorized(get("/api/expenses/search"), token).param("q", "a b c d e f g h i"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(authorized(get("/api/expenses/search"), token).param("q", "taxi").param("after", "bm9wZQ"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void startupRebuildWaitsForTheMaintenanceLock() throws Exception {
+        String token = signUp();
+        long taxi = addExpense(token, "Taxi to airport", "PERSONAL", new BigDecimal("40.00"), DATE);
+        jdbcTemplate.update("DELETE FROM description_terms WHERE user_id = ?", userIdOf(token));
+        ReflectionTestUtils.setField(descriptionIndexMaintenance, "rebuildOnStartup", true);
+        try {
+            assertThat(maintenanceLock.tryAcquire(DescriptionIndexMaintenance.LOCK_NAME)).isTrue();
+            try {
+                descriptionIndexMaintenance.run(null);
+
+                assertThat(search(token, "/api/expenses/search", "taxi")).isEmpty();
+            } finally {
+                maintenanceLock.release(DescriptionIndexMaintenance.LOCK_NAME);
+            }
+
+            descriptionIndexMaintenance.run(null);
+
+            assertThat(search(token, "/api/expenses/search", "taxi")).containsExactly(taxi);
+        } finally {
+            ReflectionTestUtils.setField(descriptionIndexMaintenance, "rebuildOnStartup", false);
+        }
+    }
+
+    private List<Long> search(String token, String path, String q) throws Exception {
+        String body = mockMvc.perform(authorized(get(path), token).param("q", q))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return ids(body);
+    }
+
+    private static List<Long> ids(String body) {
+        List<Number> ids = JsonPath.read(body, "$.items[*].id");
+        return ids.stream().map(Number::longValue).toList();
+    }
+}
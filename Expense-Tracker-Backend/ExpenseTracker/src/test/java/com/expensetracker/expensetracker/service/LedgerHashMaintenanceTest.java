@@ -0,0 +1,58 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.expensetracker.expensetracker.entity.LedgerContentHash;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The startup backfill of content hashes, and its maintenance lock
+ */
+class LedgerHashMaintenanceTest extends IntegrationTestSupport {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 7, 1);
+
+    @Autowired
+    private LedgerHashMaintenance ledgerHashMaintenance;
+
+    @Autowired
+    private MaintenanceLock maintenanceLock;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void backfillHashesRowsWrittenBeforeTheColumnOnce() throws Exception {
+        String token = signUp();
+        long expense = addExpense(token, "Train  Ticket", "PERSONAL", new BigDecimal("7.5"), DATE);
+        long income = addIncome(token, "Refund", "SALARY", new BigDecimal("20.00"), DATE);
+        jdbcTemplate.update("UPDATE expenses SET content_hash = NULL WHERE id = ?", expense);
+        jdbcTemplate.update("UPDATE incomes SET content_hash = NULL WHERE id = ?", income);
+
+        assertThat(maintenanceLock.tryAcquire(LedgerHashMaintenance.LOCK_NAME)).isTrue();
+        try {
+            ledgerHashMaintenance.run(null);
+
+            assertThat(hashOf("expenses", expense)).isNull();
+        } finally {
+            maintenanceLock.release(LedgerHashMaintenance.LOCK_NAME);
+        }
+
+        ledgerHashMaintenance.run(null);
+
+        assertThat(hashOf("expenses", expense))
+                .isEqualTo(LedgerContentHash.of(DATE, new BigDecimal("7.50"), "train ticket"));
+        assertThat(hashOf("incomes", income))
+                .isEqualTo(LedgerContentHash.of(DATE, new BigDecimal("20"), "Refund"));
+    }
+
+    private String hashOf(String table, long id) {
+        return jdbcTemplate.queryForObject("SELECT content_hash FROM " + table + " WHERE id = ?", String.class, id);
+    }
+}
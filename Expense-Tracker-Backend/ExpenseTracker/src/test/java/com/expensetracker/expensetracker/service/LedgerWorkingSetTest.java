@@ -0,0 +1,234 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.expensetracker.expensetracker.SqlRecorder;
+import com.expensetracker.expensetracker.SqlRecorder.RecordedStatement;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The working set answers /filter, /sort and the PnL exactly as the database would after every
+ * kind of write, applies the application's own writes without reloading, and keeps to its byte
+ * budget. It is off in the test profile, so these tests switch it on for the shared bean.
+ */
+class LedgerWorkingSetTest extends IntegrationTestSupport {
+
+    private static final LocalDate MARCH = LocalDate.of(2024, 3, 10);
+
+    @Autowired
+    private LedgerWorkingSet ledgerWorkingSet;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private long maxBytes;
+
+    @BeforeEach
+    void enableWorkingSet() {
+        maxBytes = (Long) ReflectionTestUtils.getField(ledgerWorkingSet, "maxBytes");
+        ReflectionTestUtils.setField(ledgerWorkingSet, "enabled", true);
+    }
+
+    @AfterEach
+    void disableWorkingSet() {
+        ReflectionTestUtils.setField(ledgerWorkingSet, "enabled", false);
+        ReflectionTestUtils.setField(ledgerWorkingSet, "maxBytes", maxBytes);
+    }
+
+    @Test
+    void matchesTheDatabaseAfterEveryKindOfWrite() throws Exception {
+        String token = signUp();
+        long lunch = addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.50"), MARCH);
+        addExpense(token, "Rent", "SURVIVAL_LIVELIHOOD", new BigDecimal("900.00"), MARCH.minusDays(9));
+        long refund = addIncome(token, "Refund", "SALARY", new BigDecimal("20.00"), MARCH);
+        assertServedLikeTheDatabase(token);
+        double loaded = loads();
+
+        addExpense(token, "Coffee", "PERSONAL", new BigDecimal("3.20"), MARCH.plusDays(1));
+        assertServedLikeTheDatabase(token);
+
+        mockMvc.perform(authorized(put("/api/expenses/" + lunch), token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"Team lunch\",\"category\":\"INVESTMENT\","
+                                + "\"amount\":48.00,\"dateOfExpense\":\"" + MARCH.minusMonths(1) + "\"}"))
+                .andExpect(status().isOk());
+        assertServedLikeTheDatabase(token);
+
+        mockMvc.perform(authorized(delete("/api/incomes/" + refund), token)).andExpect(status().isOk());
+        assertServedLikeTheDatabase(token);
+
+        mockMvc.perform(authorized(post("/api/expenses/batch"), token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"operations\":["
+                                + "{\"op\":\"CREATE\",\"data\":{\"description\":\"Bus\",\"category\":\"PERSONAL\","
+                                + "\"amount\":2.40,\"dateOfExpense\":\"" + MARCH + "\"}},"
+                                + "{\"op\":\"UPDATE\",\"id\":" + lunch + ",\"data\":{\"description\":\"Lunch\","
+                                + "\"category\":\"PERSONAL\",\"amount\":12.50,\"dateOfExpense\":\"" + MARCH + "\"}}]}"))
+                .andExpect(status().isOk());
+        assertServedLikeTheDatabase(token);
+
+        // The application's own writes were applied to the copy, never reloaded
+        assertThat(loads()).isEqualTo(loaded);
+
+        importCsv(token, """
+                Date,Description,Amount
+                2024-03-20,Groceries,-61.15
+                2024-03-25,Salary,2500.00
+                """);
+        assertServedLikeTheDatabase(token);
+
+        // An import moves the data version on without going through the copy, so it is reloaded
+        assertThat(loads()).isEqualTo(loaded + 1);
+    }
+
+    @Test
+    void leastRecentlyUsedUserIsEvictedPastTheBudget() throws Exception {
+        String first = signUp();
+        String second = signUp();
+        for (String token : List.of(first, second)) {
+            addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.50"), MARCH);
+            addIncome(token, "Salary", "SALARY", new BigDecimal("1000.00"), MARCH);
+        }
+        filter(first, "expenses");
+        long bytes = snapshotOf(first).bytes();
+        ReflectionTestUtils.setField(ledgerWorkingSet, "maxBytes", bytes * 3 / 2);
+        double loaded = loads();
+
+        // Room for one of the two identical ledgers: loading the second evicts the first
+        filter(second, "expenses");
+        filter(second, "incomes");
+        assertThat(loads()).isEqualTo(loaded + 1);
+
+        filter(first, "expenses");
+        assertThat(loads()).isEqualTo(loaded + 2);
+        assertServedLikeTheDatabase(first);
+    }
+
+    @Test
+    void ledgerOverTheBudgetIsServedFromTheDatabase() throws Exception {
+        String token = signUp();
+        addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.50"), MARCH);
+        ReflectionTestUtils.setField(ledgerWorkingSet, "maxBytes", 1L);
+
+        assertThat(statementsOf(authorized(get("/api/expenses/filter"), token), 200))
+                .anyMatch(statement -> statement.touches("expenses"));
+        assertThat(snapshotOf(token)).isNull();
+    }
+
+    /**
+     * Compare /filter, /sort by amount and the PnL with the database, and check the sorts were
+     * answered from memory
+     */
+    private void assertServedLikeTheDatabase(String token) throws Exception {
+        Long userId = userIdOf(token);
+        for (String ledger : List.of("expenses", "incomes")) {
+            String kind = ledger.equals("expenses") ? "category" : "source";
+            String date = ledger.equals("expenses") ? "date_of_expense" : "date_of_income";
+            List<String> stored = jdbcTemplate.queryForList("SELECT CONCAT(id, '|', description, '|', " + kind
+                    + ", '|', amount, '|', " + date + ") FROM " + ledger + " WHERE user_id = ? ORDER BY " + date
+                    + " DESC, id DESC", String.class, userId);
+            assertThat(rows(filter(token, ledger), kind, date)).isEqualTo(stored);
+
+            List<BigDecimal> amounts = jdbcTemplate.queryForList("SELECT amount FROM " + ledger
+                    + " WHERE user_id = ? ORDER BY amount DESC", BigDecimal.class, userId);
+            String[] sorted = new String[1];
+            List<RecordedStatement> statements = SqlRecorder.record(() -> sorted[0] = mockMvc.perform(
+                            authorized(get("/api/" + ledger + "/sort"), token)
+                                    .param("sortBy", "amount").param("order", "desc"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            // The filter just before loaded the copy if it was missing or behind
+            assertThat(statements).noneMatch(statement -> statement.touches(ledger));
+            assertThat(JsonPath.<List<Number>>read(sorted[0], "$[*].amount").stream().map(LedgerWorkingSetTest::cents))
+                    .containsExactlyElementsOf(amounts);
+        }
+
+        String pnl = mockMvc.perform(authorized(get("/api/dashboard/pnl"), token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(cents(JsonPath.read(pnl, "$.totalExpense"))).isEqualTo(total("expenses", userId));
+        assertThat(cents(JsonPath.read(pnl, "$.totalIncome"))).isEqualTo(total("incomes", userId));
+    }
+
+    private String filter(String token, String ledger) throws Exception {
+        return mockMvc.perform(authorized(get("/api/" + ledger + "/filter"), token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    /**
+     * The user's copy, read the way the services do
+     */
+    private LedgerWorkingSet.Snapshot snapshotOf(String token) {
+        Long userId = userIdOf(token);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> ledgerWorkingSet.snapshot(userId));
+    }
+
+    private static List<String> rows(String body, String kind, String date) {
+        String dateField = date.equals("date_of_expense") ? "dateOfExpense" : "dateOfIncome";
+        List<Map<String, Object>> rows = JsonPath.read(body, "$[*]");
+        return rows.stream()
+                .map(row -> row.get("id") + "|" + row.get("description") + "|" + row.get(kind) + "|"
+                        + cents((Number) row.get("amount")) + "|" + row.get(dateField))
+                .toList();
+    }
+
+    private BigDecimal total(String ledger, Long userId) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(amount), 0) FROM " + ledger + " WHERE user_id = ?",
+                BigDecimal.class, userId).setScale(2);
+    }
+
+    private double loads() {
+        return meterRegistry.counter("ledger.working.set.loads").count();
+    }
+
+    private void importCsv(String token, String csv) throws Exception {
+        MvcResult started = mockMvc.perform(multipart("/api/import")
+                        .file(new MockMultipartFile("file", "statement.csv", "text/plain",
+                                csv.getBytes(StandardCharsets.UTF_8)))
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+    }
+
+    private static BigDecimal cents(Number amount) {
+        return new BigDecimal(amount.toString()).setScale(2);
+    }
+}
@@ -0,0 +1,79 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Two MaintenanceLock instances stand in for two replicas sharing the database.
+ */
+class MaintenanceLockTest extends IntegrationTestSupport {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void onlyOneInstanceHoldsTheLockUntilItIsReleased() {
+        String name = "job-" + UUID.randomUUID();
+        MaintenanceLock first = new MaintenanceLock(jdbcTemplate, Duration.ofHours(1));
+        MaintenanceLock second = new MaintenanceLock(jdbcTemplate, Duration.ofHours(1));
+
+        assertThat(first.tryAcquire(name)).isTrue();
+        assertThat(second.tryAcquire(name)).isFalse();
+        assertThat(first.tryAcquire(name)).as("not reentrant").isFalse();
+
+        second.release(name);
+        assertThat(second.tryAcquire(name)).as("only the owner releases").isFalse();
+
+        first.release(name);
+        assertThat(second.tryAcquire(name)).isTrue();
+    }
+
+    @Test
+    void anExpiredLeaseCanBeTakenOver() throws InterruptedException {
+        String name = "job-" + UUID.randomUUID();
+        MaintenanceLock crashed = new MaintenanceLock(jdbcTemplate, Duration.ofSeconds(1));
+        MaintenanceLock next = new MaintenanceLock(jdbcTemplate, Duration.ofHours(1));
+
+        assertThat(crashed.tryAcquire(name)).isTrue();
+        assertThat(next.tryAcquire(name)).isFalse();
+
+        Thread.sleep(1_100);
+        assertThat(next.tryAcquire(name)).isTrue();
+    }
+
+    @Test
+    void runExclusivelySkipsTheJobWhileAnotherInstanceHoldsTheLock() throws Exception {
+        String name = "job-" + UUID.randomUUID();
+        MaintenanceLock holder = new MaintenanceLock(jdbcTemplate, Duration.ofHours(1));
+        MaintenanceLock other = new MaintenanceLock(jdbcTemplate, Duration.ofHours(1));
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertThat(holder.runExclusively(name, () ->
+                assertThat(other.runExclusively(name, () -> ran.set(true))).isFalse())).isTrue();
+        assertThat(ran).isFalse();
+
+        assertThat(other.runExclusively(name, () -> ran.set(true))).isTrue();
+        assertThat(ran).isTrue();
+    }
+
+    @Test
+    void aFailingJobStillReleasesTheLock() throws Exception {
+        String name = "job-" + UUID.randomUUID();
+        MaintenanceLock lock = new MaintenanceLock(jdbcTemplate, Duration.ofHours(1));
+
+        assertThatThrownBy(() -> lock.runExclusively(name, () -> {
+            throw new IllegalStateException("boom");
+        })).hasMessage("boom");
+
+        assertThat(new MaintenanceLock(jdbcTemplate, Duration.ofHours(1)).tryAcquire(name)).isTrue();
+    }
+}
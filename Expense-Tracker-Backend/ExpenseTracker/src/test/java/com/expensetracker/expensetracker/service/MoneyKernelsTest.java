@@ -0,0 +1,84 @@
+package com.expensetracker.expensetracker.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The cents kernels agree with BigDecimal arithmetic, and overflow fails instead of wrapping.
+ */
+class MoneyKernelsTest {
+
+    @Test
+    void kernelsAgreeWithBigDecimal() {
+        Random random = new Random(7);
+        long[] cents = new long[10_000];
+        byte[] kinds = new byte[cents.length];
+        BigDecimal sum = BigDecimal.ZERO;
+        BigDecimal[] sumPerKind = {BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO};
+        for (int i = 0; i < cents.length; i++) {
+            cents[i] = random.nextLong(-1_000_000, 1_000_000);
+            kinds[i] = (byte) random.nextInt(3);
+            sum = sum.add(Money.toAmount(cents[i]));
+            sumPerKind[kinds[i]] = sumPerKind[kinds[i]].add(Money.toAmount(cents[i]));
+        }
+
+        assertThat(Money.toAmount(MoneyKernels.sum(cents, 0, cents.length))).isEqualTo(sum);
+        assertThat(Money.toAmount(MoneyKernels.mean(MoneyKernels.sum(cents, 0, cents.length), cents.length)))
+                .isEqualTo(sum.divide(BigDecimal.valueOf(cents.length), Money.SCALE, RoundingMode.HALF_EVEN));
+        long[] kernelPerKind = MoneyKernels.sumPerKind(cents, kinds, 0, cents.length, 3);
+        for (int kind = 0; kind < 3; kind++) {
+            assertThat(Money.toAmount(kernelPerKind[kind])).isEqualTo(sumPerKind[kind]);
+        }
+        int[] counts = MoneyKernels.countPerKind(kinds, 0, cents.length, 3);
+        assertThat(counts[0] + counts[1] + counts[2]).isEqualTo(cents.length);
+    }
+
+    @Test
+    void rangesAndSelectionsAreHalfOpen() {
+        long[] cents = {500, -120, 999, 1, 40};
+
+        assertThat(MoneyKernels.sum(cents, 1, 4)).isEqualTo(880);
+        assertThat(MoneyKernels.sum(cents, new int[]{0, 4})).isEqualTo(540);
+        assertThat(MoneyKernels.min(cents, 1, 4)).isEqualTo(-120);
+        assertThat(MoneyKernels.max(cents, 1, 4)).isEqualTo(999);
+        assertThat(MoneyKernels.min(cents, 2, 2)).isEqualTo(Long.MAX_VALUE);
+        assertThat(MoneyKernels.max(cents, 2, 2)).isEqualTo(Long.MIN_VALUE);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"5, 2, 2", "7, 2, 4", "-5, 2, -2", "-7, 2, -4", "10, 4, 2", "11, 4, 3", "-11, 4, -3"})
+    void meanRoundsHalfToEven(long sum, long count, long mean) {
+        assertThat(MoneyKernels.mean(sum, count)).isEqualTo(mean);
+    }
+
+    @Test
+    void overflowIsDetectedAfterTheLoop() {
+        long[] positive = {Long.MAX_VALUE - 1, 1, 1, -5};
+        long[] negative = {Long.MIN_VALUE + 1, -2};
+
+        assertThatThrownBy(() -> MoneyKernels.sum(positive, 0, positive.length)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> MoneyKernels.sum(negative, new int[]{0, 1})).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> MoneyKernels.sumPerKind(positive, new byte[4], 0, 4, 1))
+                .isInstanceOf(ArithmeticException.class);
+        assertThat(MoneyKernels.sum(positive, 0, 2)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void moneyRejectsFractionsOfACentAndOverflow() {
+        assertThat(Money.of(new BigDecimal("12.5")).cents()).isEqualTo(1250);
+        assertThat(Money.of(new BigDecimal("3.20")).minus(Money.of(new BigDecimal("5"))).toBigDecimal())
+                .isEqualTo(new BigDecimal("-1.80"));
+
+        assertThatThrownBy(() -> Money.of(new BigDecimal("0.001"))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.of(new BigDecimal("100000000000000000000"))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> new Money(Long.MAX_VALUE).plus(new Money(1))).isInstanceOf(ArithmeticException.class);
+    }
+}
@@ -0,0 +1,79 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.expensetracker.expensetracker.entity.MonthlyRollup;
+import com.expensetracker.expensetracker.enums.LedgerType;
+import com.expensetracker.expensetracker.repository.MonthlyRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rollups kept by the ledger writes agree with totals recomputed from the raw rows, including
+ * months holding several entries on different days.
+ */
+class MonthlyRollupServiceTest extends IntegrationTestSupport {
+
+    @Autowired
+    private MonthlyRollupService monthlyRollupService;
+
+    @Autowired
+    private MonthlyRollupRepository monthlyRollupRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void rebuildAgreesWithTheRollupsKeptByWrites() throws Exception {
+        String token = signUp();
+        Long userId = userIdOf(token);
+        addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.50"), LocalDate.of(2024, 1, 3));
+        addExpense(token, "Dinner", "PERSONAL", new BigDecimal("30.00"), LocalDate.of(2024, 1, 20));
+        addExpense(token, "Rent", "SURVIVAL_LIVELIHOOD", new BigDecimal("800.00"), LocalDate.of(2024, 2, 1));
+        addIncome(token, "Salary", "SALARY", new BigDecimal("1000.00"), LocalDate.of(2024, 1, 5));
+        addIncome(token, "Bonus", "SALARY", new BigDecimal("250.00"), LocalDate.of(2024, 1, 25));
+
+        assertThat(monthlyRollupService.findInconsistencies(userId)).isEmpty();
+        List<String> before = describe(monthlyRollupRepository.findByUserId(userId));
+
+        monthlyRollupService.rebuild(userId);
+
+        assertThat(describe(monthlyRollupRepository.findByUserId(userId))).containsExactlyInAnyOrderElementsOf(before);
+        assertThat(before).contains("EXPENSE/PERSONAL/202401=42.50x2", "INCOME/SALARY/202401=1250.00x2");
+        assertThat(monthlyRollupService.findInconsistencies(userId)).isEmpty();
+        assertThat(monthlyRollupService.total(userId, LedgerType.EXPENSE,
+                LocalDate.of(2024, 1, 10), LocalDate.of(2024, 2, 29))).isEqualByComparingTo("830.00");
+    }
+
+    @Test
+    void findInconsistenciesReportsDriftedMonths() throws Exception {
+        String token = signUp();
+        Long userId = userIdOf(token);
+        addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.50"), LocalDate.of(2024, 1, 3));
+        addExpense(token, "Dinner", "PERSONAL", new BigDecimal("30.00"), LocalDate.of(2024, 1, 20));
+
+        transactionTemplate.executeWithoutResult(status -> monthlyRollupRepository
+                .applyDelta(userId, "EXPENSE", "PERSONAL", 202401, new BigDecimal("1.00"), 0));
+
+        assertThat(monthlyRollupService.findInconsistencies(userId)).singleElement()
+                .asString().contains("43.50", "42.50");
+
+        monthlyRollupService.rebuild(userId);
+
+        assertThat(monthlyRollupService.findInconsistencies(userId)).isEmpty();
+    }
+
+    private static List<String> describe(List<MonthlyRollup> rollups) {
+        return rollups.stream()
+                .map(rollup -> rollup.getId().getLedger() + "/" + rollup.getId().getBucket() + "/"
+                        + rollup.getId().getMonthKey() + "=" + rollup.getTotalAmount().setScale(2)
+                        + "x" + rollup.getEntryCount())
+                .toList();
+    }
+}
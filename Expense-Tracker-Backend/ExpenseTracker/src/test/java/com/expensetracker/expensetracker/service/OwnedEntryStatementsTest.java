@@ -0,0 +1,199 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.expensetracker.expensetracker.SqlRecorder.RecordedStatement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Every JDBC statement sent to serve the ledger endpoints, counted at the DataSource. An owned
+ * entry is loaded with a single ownership-scoped query; the existence check that tells not-found
+ * from unauthorized only runs when that query misses.
+ */
+class OwnedEntryStatementsTest extends IntegrationTestSupport {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 1, 15);
+
+    enum Ledger {
+        EXPENSES("/api/expenses", "expenses", "category", "PERSONAL", "dateOfExpense", 3),
+        INCOMES("/api/incomes", "incomes", "source", "SALARY", "dateOfIncome", 0);
+
+        final String path;
+        final String table;
+        final String classifierField;
+        final String classifier;
+        final String dateField;
+        /**
+         * Statements to maintain the amount sketches a write touches: one upsert of the missing
+         * rows, the locking read and the batched rewrite
+         */
+        final int sketchStatements;
+
+        Ledger(String path, String table, String classifierField, String classifier, String dateField,
+               int sketchStatements) {
+            this.path = path;
+            this.table = table;
+            this.classifierField = classifierField;
+            this.classifier = classifier;
+            this.dateField = dateField;
+            this.sketchStatements = sketchStatements;
+        }
+
+        String body(String description, String amount) {
+            return "{\"description\":\"" + description + "\",\"" + classifierField + "\":\"" + classifier
+                    + "\",\"amount\":" + amount + ",\"" + dateField + "\":\"" + DATE + "\"}";
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Ledger.class)
+    void readIsOneScopedQuery(Ledger ledger) throws Exception {
+        String token = signUp();
+        long id = add(ledger, token, "Lunch");
+
+        List<RecordedStatement> statements = statementsOf(authorized(get(ledger.path + "/" + id), token), 200);
+
+        assertThat(statements).hasSize(1);
+        assertThat(statements.get(0).isQuery()).isTrue();
+        assertThat(statements.get(0).touches(ledger.table)).isTrue();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Ledger.class)
+    void missAddsOneExistenceCheck(Ledger ledger) throws Exception {
+        String token = signUp();
+        long othersId = add(ledger, signUp(), "Other");
+
+        assertThat(statementsOf(authorized(get(ledger.path + "/" + othersId), token), 401)).hasSize(2);
+        assertThat(statementsOf(authorized(get(ledger.path + "/" + Long.MAX_VALUE), token), 404)).hasSize(2);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Ledger.class)
+    void descriptionOnlyUpdateSkipsTheRollups(Ledger ledger) throws Exception {
+        String token = signUp();
+        long id = add(ledger, token, "Lunch");
+
+        // Scoped load, the row update, the description re-index (delete and batch insert) and the
+        // data version bump
+        List<RecordedStatement> statements = statementsOf(update(ledger, token, id, "Lunch out", "12.50"), 200);
+
+        assertThat(statements).hasSize(5);
+        assertThat(statements).noneMatch(statement -> statement.touches("monthly_rollups"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Ledger.class)
+    void amountUpdateAndDeleteLoadTheRowOnce(Ledger ledger) throws Exception {
+        String token = signUp();
+        long id = add(ledger, token, "Lunch");
+
+        // Scoped load, the row update, the rollup upserts for the old and new amounts, the sketch
+        // rewrite and the data version bump; the unchanged description is not re-indexed
+        List<RecordedStatement> update = statementsOf(update(ledger, token, id, "Lunch", "20.00"), 200);
+        assertThat(update).hasSize(5 + ledger.sketchStatements);
+        assertThat(update).noneMatch(statement -> statement.touches("description_terms"));
+
+        // Scoped load, the row delete, one rollup upsert, the sketch rewrite, the index delete and
+        // the data version bump
+        assertThat(statementsOf(authorized(delete(ledger.path + "/" + id), token), 200))
+                .hasSize(5 + ledger.sketchStatements);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Ledger.class)
+    void batchSendsTheSameStatementsWhateverItsSize(Ledger ledger) throws Exception {
+        String token = signUp();
+
+        // One scoped load of the updated and deleted rows, then one JDBC batch each for the inserts,
+        // updates and deletes, the rollup upserts, the index deletes and inserts, the sketch rewrite
+        // and one version bump. Id blocks are fetched from id_generators once per 50 ids, so those are left out.
+        List<RecordedStatement> small = withoutIdBlocks(statementsOf(batch(ledger, token, 1), 200));
+        List<RecordedStatement> large = withoutIdBlocks(statementsOf(batch(ledger, token, 20), 200));
+
+        assertThat(small).hasSize(8 + ledger.sketchStatements);
+        assertThat(large).hasSize(8 + ledger.sketchStatements);
+        assertThat(large.stream().filter(statement -> statement.touches(ledger.table))
+                .filter(RecordedStatement::isQuery)).hasSize(1);
+        assertThat(large.stream().filter(statement -> statement.touches("data_versions"))).hasSize(1);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Ledger.class)
+    void listFilterAndSortAreOneQueryEach(Ledger ledger) throws Exception {
+        String token = signUp();
+        add(ledger, token, "Lunch");
+        add(ledger, token, "Dinner");
+
+        // The list answers conditional requests, so it reads the data version first
+        assertThat(statementsOf(authorized(get(ledger.path), token), 200)).hasSize(2);
+        assertThat(statementsOf(authorized(get(ledger.path), token).param("limit", "1"), 200)).hasSize(2);
+        assertThat(statementsOf(authorized(get(ledger.path + "/filter"), token)
+                .param(ledger.classifierField, ledger.classifier)
+                .param("minAmount", "1"), 200)).hasSize(1);
+        assertThat(statementsOf(authorized(get(ledger.path + "/sort"), token)
+                .param("sortBy", "amount").param("order", "desc"), 200)).hasSize(1);
+    }
+
+    @Test
+    void dashboardReadsOnlyTheRollups() throws Exception {
+        String token = signUp();
+        addExpense(token, "Lunch", "PERSONAL", new BigDecimal("12.50"), DATE);
+        addIncome(token, "Salary", "SALARY", new BigDecimal("1000.00"), DATE);
+
+        List<RecordedStatement> statements = statementsOf(authorized(get("/api/dashboard/pnl"), token), 200);
+
+        // The data version for the ETag, then one rollup query per ledger
+        assertThat(statements).hasSize(3);
+        assertThat(statements.get(0).touches("data_versions")).isTrue();
+        assertThat(statements.subList(1, 3)).allMatch(statement -> statement.touches("monthly_rollups"));
+    }
+
+    private long add(Ledger ledger, String token, String description) throws Exception {
+        return ledger == Ledger.EXPENSES
+                ? addExpense(token, description, ledger.classifier, new BigDecimal("12.50"), DATE)
+                : addIncome(token, description, ledger.classifier, new BigDecimal("12.50"), DATE);
+    }
+
+    private static List<RecordedStatement> withoutIdBlocks(List<RecordedStatement> statements) {
+        return statements.stream().filter(statement -> !statement.touches("id_generators")).toList();
+    }
+
+    /**
+     * A batch that creates, updates and deletes size entries each; the updated and deleted ones
+     * are added first
+     */
+    private MockHttpServletRequestBuilder batch(Ledger ledger, String token, int size) throws Exception {
+        List<String> operations = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            operations.add("{\"op\":\"CREATE\",\"data\":" + ledger.body("New " + i, "3.00") + "}");
+            operations.add("{\"op\":\"UPDATE\",\"id\":" + add(ledger, token, "Old " + i)
+                    + ",\"data\":" + ledger.body("Renamed " + i, "4.00") + "}");
+            operations.add("{\"op\":\"DELETE\",\"id\":" + add(ledger, token, "Gone " + i) + "}");
+        }
+        return authorized(post(ledger.path + "/batch"), token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"operations\":[" + String.join(",", operations) + "]}");
+    }
+
+    private static MockHttpServletRequestBuilder update(Ledger ledger, String token, long id,
+                                                        String description, String amount) {
+        return authorized(put(ledger.path + "/" + id), token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(ledger.body(description, amount));
+    }
+}
@@ -0,0 +1,142 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The stored sketches follow every kind of ledger change, so the statistics read from them agree
+ * with the remaining rows: count and total exactly, quantiles within the sketch's accuracy. The
+ * startup rebuild takes the maintenance lock.
+ */
+class SpendingStatsServiceTest extends IntegrationTestSupport {
+
+    @Autowired
+    private ExpenseSketchMaintenance expenseSketchMaintenance;
+
+    @Autowired
+    private ExpenseSketchService expenseSketchService;
+
+    @Autowired
+    private MaintenanceLock maintenanceLock;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void statisticsFollowAddsEditsAndDeletes() throws Exception {
+        String token = signUp();
+        for (int i = 1; i <= 9; i++) {
+            addExpense(token, "Groceries " + i, "SURVIVAL_LIVELIHOOD", new BigDecimal(i * 10 + ".00"), LocalDate.of(2024, 1, i));
+        }
+        long moved = addExpense(token, "Coffee", "SURVIVAL_LIVELIHOOD", new BigDecimal("3.00"), LocalDate.of(2024, 2, 1));
+        long deleted = addExpense(token, "Rent", "SURVIVAL_LIVELIHOOD", new BigDecimal("900.00"), LocalDate.of(2024, 2, 2));
+        addExpense(token, "Car", "SURVIVAL_LIVELIHOOD", new BigDecimal("5000.00"), LocalDate.of(2024, 2, 3));
+        addExpense(token, "Fund", "INVESTMENT", new BigDecimal("250.00"), LocalDate.of(2024, 2, 5));
+
+        mockMvc.perform(authorized(put("/api/expenses/" + moved), token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"Coffee\",\"category\":\"PERSONAL\",\"amount\":4.50,"
+                                + "\"dateOfExpense\":\"2024-02-01\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(authorized(delete("/api/expenses/" + deleted), token)).andExpect(status().isOk());
+
+        String body = mockMvc.perform(authorized(get("/api/dashboard/stats"), token)
+                        .param("start", "2024-01")
+                        .param("end", "2024-02")
+                        .param("outliers", "3"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        DocumentContext stats = JsonPath.parse(body);
+
+        // 10..90 in January plus 5000 in February; the median entry is 50, p90 is 90
+        String survival = "$.categories[?(@.category == 'SURVIVAL_LIVELIHOOD')]";
+        assertThat(stats.read(survival + ".count", List.class)).containsExactly(10);
+        assertThat(decimal(stats, survival + ".total")).isEqualByComparingTo("5450.00");
+        assertThat(decimal(stats, survival + ".median").doubleValue()).isCloseTo(50.0, within(50.0));
+        assertThat(decimal(stats, survival + ".p90").doubleValue()).isCloseTo(90.0, within(90.0));
+        assertThat(stats.read(survival + ".months[*].count", List.class)).containsExactly(9, 1);
+        assertThat(stats.read(survival + ".outliers[*].amount", List.class)).hasSize(1);
+        assertThat(decimal(stats, survival + ".outliers[0].amount")).isEqualByComparingTo("5000.00");
+
+        String personal = "$.categories[?(@.category == 'PERSONAL')]";
+        assertThat(stats.read(personal + ".count", List.class)).containsExactly(1);
+        assertThat(decimal(stats, personal + ".median").doubleValue()).isCloseTo(4.5, within(4.5));
+
+        String investment = "$.categories[?(@.category == 'INVESTMENT')]";
+        assertThat(decimal(stats, investment + ".total")).isEqualByComparingTo("250.00");
+    }
+
+    @Test
+    void startupRebuildWaitsForTheMaintenanceLock() throws Exception {
+        String token = signUp();
+        addExpense(token, "Rent", "SURVIVAL_LIVELIHOOD", new BigDecimal("900.00"), LocalDate.of(2024, 4, 1));
+        Long userId = userIdOf(token);
+        jdbcTemplate.update("DELETE FROM expense_sketches WHERE user_id = ?", userId);
+        ReflectionTestUtils.setField(expenseSketchMaintenance, "rebuildOnStartup", true);
+        try {
+            assertThat(maintenanceLock.tryAcquire(ExpenseSketchMaintenance.LOCK_NAME)).isTrue();
+            try {
+                expenseSketchMaintenance.run(null);
+
+                assertThat(sketchRows(userId)).isZero();
+            } finally {
+                maintenanceLock.release(ExpenseSketchMaintenance.LOCK_NAME);
+            }
+
+            expenseSketchMaintenance.run(null);
+
+            assertThat(sketchRows(userId)).isEqualTo(1);
+            assertThat(expenseSketchService.findInconsistencies(userId)).isEmpty();
+        } finally {
+            ReflectionTestUtils.setField(expenseSketchMaintenance, "rebuildOnStartup", false);
+        }
+    }
+
+    @Test
+    void rejectsAnInvertedRange() throws Exception {
+        String token = signUp();
+
+        mockMvc.perform(authorized(get("/api/dashboard/stats"), token)
+                        .param("start", "2024-03")
+                        .param("end", "2024-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private int sketchRows(Long userId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expense_sketches WHERE user_id = ?",
+                Integer.class, userId);
+    }
+
+    /**
+     * The single value a filtered path selects, as a decimal
+     */
+    private static BigDecimal decimal(DocumentContext document, String path) {
+        List<Object> values = document.read(path, List.class);
+        assertThat(values).as(path).hasSize(1);
+        return new BigDecimal(values.get(0).toString());
+    }
+
+    /**
+     * Allowed error of a quantile estimate: the sketch's relative accuracy plus half a cent
+     */
+    private static Offset<Double> within(double exact) {
+        return Offset.offset(exact * AmountSketch.RELATIVE_ACCURACY + 0.005);
+    }
+}
@@ -0,0 +1,123 @@
+package com.expensetracker.expensetracker.service;
+
+import com.expensetracker.expensetracker.IntegrationTestSupport;
+import com.expensetracker.expensetracker.repository.UserRepository;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The "seed" profile generator, run by hand against the test database with a small setting. The
+ * locked run goes first, while there are no synthetic users to make it skip anyway.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class SyntheticDataGeneratorTest extends IntegrationTestSupport {
+
+    private static final int USERS = 3;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MonthlyRollupService monthlyRollupService;
+
+    @Autowired
+    private MaintenanceLock maintenanceLock;
+
+    @Autowired
+    private LedgerBatchWriter ledgerBatchWriter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @Order(2)
+    void generatesLoginableUsersWithConsistentRollupsOnce() throws Exception {
+        SyntheticDataGenerator generator = generator();
+
+        generator.run(null);
+
+        List<Long> userIds = jdbcTemplate.queryForList("SELECT id FROM users WHERE username LIKE ? ORDER BY id",
+                Long.class, SyntheticDataGenerator.USERNAME_PREFIX + "%");
+        assertThat(userIds).hasSize(USERS);
+        long rows = 0;
+        for (Long userId : userIds) {
+            Integer expenses = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM expenses WHERE user_id = ?", Integer.class, userId);
+            Integer incomes = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM incomes WHERE user_id = ?", Integer.class, userId);
+            assertThat(expenses).isBetween(1, 200);
+            assertThat(incomes).isBetween(1, Math.max(1, expenses / 4));
+            assertThat(monthlyRollupService.findInconsistencies(userId)).isEmpty();
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM description_terms WHERE user_id = ?",
+                    Integer.class, userId)).as("descriptions indexed").isPositive();
+            rows += expenses + incomes;
+        }
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + SyntheticDataGenerator.USERNAME_PREFIX + USERS
+                                + "\",\"password\":\"seeded-secret\"}"))
+                .andExpect(status().isOk());
+
+        // A second start finds the users and leaves the data alone
+        generator.run(null);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE username LIKE ?",
+                Integer.class, SyntheticDataGenerator.USERNAME_PREFIX + "%")).isEqualTo(USERS);
+        long rowsAfter = 0;
+        for (Long userId : userIds) {
+            rowsAfter += jdbcTemplate.queryForObject(
+                    "SELECT (SELECT COUNT(*) FROM expenses WHERE user_id = ?) + "
+                            + "(SELECT COUNT(*) FROM incomes WHERE user_id = ?)", Long.class, userId, userId);
+        }
+        assertThat(rowsAfter).isEqualTo(rows);
+    }
+
+    @Test
+    @Order(1)
+    void skipsWhileAnotherInstanceHoldsTheLock() throws Exception {
+        SyntheticDataGenerator generator = generator();
+        assertThat(maintenanceLock.tryAcquire(SyntheticDataGenerator.LOCK_NAME)).isTrue();
+        try {
+            int usersBefore = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+
+            generator.run(null);
+
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class))
+                    .isEqualTo(usersBefore);
+        } finally {
+            maintenanceLock.release(SyntheticDataGenerator.LOCK_NAME);
+        }
+    }
+
+    private SyntheticDataGenerator generator() {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(
+                jdbcTemplate, userRepository, passwordEncoder, maintenanceLock, ledgerBatchWriter, transactionManager);
+        ReflectionTestUtils.setField(generator, "users", USERS);
+        ReflectionTestUtils.setField(generator, "maxRowsPerUser", 200);
+        ReflectionTestUtils.setField(generator, "historyDays", 400);
+        ReflectionTestUtils.setField(generator, "password", "seeded-secret");
+        ReflectionTestUtils.setField(generator, "threads", 2);
+        ReflectionTestUtils.setField(generator, "randomSeed", 7L);
+        return generator;
+    }
+}